@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@code podman} command exited with a non-zero exit code.
+ */
+
+public final class PodmanCommandFailedException extends IOException
+{
+  private final List<String> command;
+  private final int exitCode;
+  private final List<String> errorLines;
+  private final PodmanErrorKind kind;
+
+  /**
+   * A {@code podman} command exited with a non-zero exit code.
+   *
+   * @param inCommand    The command that was executed
+   * @param inExitCode   The exit code
+   * @param inErrorLines The lines written to the standard error stream
+   */
+
+  public PodmanCommandFailedException(
+    final List<String> inCommand,
+    final int inExitCode,
+    final List<String> inErrorLines)
+  {
+    super(message(inCommand, inExitCode, inErrorLines));
+
+    this.command =
+      List.copyOf(inCommand);
+    this.exitCode =
+      inExitCode;
+    this.errorLines =
+      List.copyOf(inErrorLines);
+    this.kind =
+      PodmanErrorKind.classify(this.errorLines);
+  }
+
+  private static String message(
+    final List<String> command,
+    final int exitCode,
+    final List<String> errorLines)
+  {
+    Objects.requireNonNull(command, "command");
+    Objects.requireNonNull(errorLines, "errorLines");
+
+    final var text = new StringBuilder(128);
+    text.append("Command exited with code ");
+    text.append(exitCode);
+    text.append(": ");
+    text.append(command);
+    for (final var line : errorLines) {
+      text.append(System.lineSeparator());
+      text.append("  ");
+      text.append(line);
+    }
+    return text.toString();
+  }
+
+  /**
+   * @return The command that was executed
+   */
+
+  public List<String> command()
+  {
+    return this.command;
+  }
+
+  /**
+   * @return The exit code
+   */
+
+  public int exitCode()
+  {
+    return this.exitCode;
+  }
+
+  /**
+   * @return The lines written to the standard error stream
+   */
+
+  public List<String> errorLines()
+  {
+    return this.errorLines;
+  }
+
+  /**
+   * @return The kind of error, as classified from the error output
+   */
+
+  public PodmanErrorKind kind()
+  {
+    return this.kind;
+  }
+}
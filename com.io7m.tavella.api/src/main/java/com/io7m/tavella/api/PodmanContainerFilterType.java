@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Filters applied to container listings. Filters are evaluated by
+ * {@code podman} itself, so only matching containers are returned.
+ * Filters of different kinds must all match. Within a kind,
+ * {@link Label} filters must all match, whereas {@link Status},
+ * {@link Name}, {@link Ancestor}, and {@link Since} filters match if any
+ * one of them matches.
+ *
+ * @see "podman ps --filter"
+ */
+
+public sealed interface PodmanContainerFilterType
+{
+  /**
+   * Match containers that have the given label. If several label filters
+   * are given, containers must have all of the labels.
+   *
+   * @param name  The label name
+   * @param value The label value; if empty, any value matches
+   */
+
+  record Label(
+    String name,
+    Optional<String> value)
+    implements PodmanContainerFilterType
+  {
+    /**
+     * Match containers that have the given label.
+     */
+
+    public Label
+    {
+      Objects.requireNonNull(name, "name");
+      Objects.requireNonNull(value, "value");
+    }
+  }
+
+  /**
+   * Match containers that have the given status. If several status filters
+   * are given, containers may have any of the statuses.
+   *
+   * @param status The status
+   */
+
+  record Status(
+    PodmanContainerStatus status)
+    implements PodmanContainerFilterType
+  {
+    /**
+     * Match containers that have the given status.
+     */
+
+    public Status
+    {
+      Objects.requireNonNull(status, "status");
+    }
+  }
+
+  /**
+   * Match containers whose names match the given pattern. If several name
+   * filters are given, names may match any of the patterns.
+   *
+   * @param pattern The name pattern (a regular expression)
+   */
+
+  record Name(
+    String pattern)
+    implements PodmanContainerFilterType
+  {
+    /**
+     * Match containers whose names match the given pattern.
+     */
+
+    public Name
+    {
+      Objects.requireNonNull(pattern, "pattern");
+    }
+  }
+
+  /**
+   * Match containers that were created from the given image, or from an
+   * image derived from the given image. If several ancestor filters are
+   * given, containers may derive from any of the images.
+   *
+   * @param image The image name or ID
+   */
+
+  record Ancestor(
+    String image)
+    implements PodmanContainerFilterType
+  {
+    /**
+     * Match containers that were created from the given image.
+     */
+
+    public Ancestor
+    {
+      Objects.requireNonNull(image, "image");
+    }
+  }
+
+  /**
+   * Match containers that were created after the given container.
+   *
+   * @param container The container name or ID
+   */
+
+  record Since(
+    String container)
+    implements PodmanContainerFilterType
+  {
+    /**
+     * Match containers that were created after the given container.
+     */
+
+    public Since
+    {
+      Objects.requireNonNull(container, "container");
+    }
+  }
+}
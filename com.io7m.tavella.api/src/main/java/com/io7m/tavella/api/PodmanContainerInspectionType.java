@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The result of inspecting a single container. Implementations are not
+ * required to decode all of the fields of the inspection eagerly, and
+ * accessor methods may therefore raise {@link java.io.UncheckedIOException}
+ * if the underlying data turns out to be malformed.
+ *
+ * @see "podman inspect"
+ */
+
+public interface PodmanContainerInspectionType
+{
+  /**
+   * @return The full container ID
+   */
+
+  String id();
+
+  /**
+   * @return The container name
+   */
+
+  String name();
+
+  /**
+   * @return The name of the image used to create the container
+   */
+
+  String imageName();
+
+  /**
+   * @return The ID of the image used to create the container
+   */
+
+  String image();
+
+  /**
+   * @return The ID of the pod to which the container belongs, if any
+   */
+
+  Optional<String> pod();
+
+  /**
+   * @return The time the container was created
+   */
+
+  Optional<OffsetDateTime> created();
+
+  /**
+   * @return The container state
+   */
+
+  PodmanContainerState state();
+
+  /**
+   * @return The container labels
+   */
+
+  Map<String, String> labels();
+
+  /**
+   * @return The path of the container's cgroup, relative to the root of
+   *         the cgroup hierarchy, if the container is running
+   */
+
+  Optional<String> cgroupPath();
+
+  /**
+   * @return The raw JSON inspection data for the container
+   */
+
+  ByteBuffer rawJSON();
+
+  /**
+   * Determine if the given reference refers to this container. A reference
+   * matches if it is the container name, or if it is a prefix of the
+   * container ID.
+   *
+   * @param reference The reference
+   *
+   * @return {@code true} if the reference refers to this container
+   */
+
+  default boolean isReferencedBy(
+    final String reference)
+  {
+    if (reference.isEmpty()) {
+      return false;
+    }
+    return this.id().startsWith(reference)
+           || this.name().equals(reference);
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.Objects;
+
+/**
+ * A detached container that was started, or an existing container that
+ * was reused in its place.
+ *
+ * @param containerId The full container ID
+ * @param reused      {@code true} if an existing container was reused
+ */
+
+public record PodmanContainerStarted(
+  String containerId,
+  boolean reused)
+{
+  /**
+   * A detached container that was started, or an existing container that
+   * was reused in its place.
+   *
+   * @param containerId The full container ID
+   * @param reused      {@code true} if an existing container was reused
+   */
+
+  public PodmanContainerStarted
+  {
+    Objects.requireNonNull(containerId, "containerId");
+  }
+}
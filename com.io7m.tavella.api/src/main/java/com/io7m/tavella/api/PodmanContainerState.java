@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.tavella.api;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The state of a container.
+ *
+ * @param status     The container status (such as "running" or "exited")
+ * @param running    {@code true} if the container is running
+ * @param paused     {@code true} if the container is paused
+ * @param oomKilled  {@code true} if the container was killed due to memory exhaustion
+ * @param pid        The process ID of the container's main process, or 0
+ * @param exitCode   The exit code of the container's main process
+ * @param startedAt  The time the container was started, if it has started
+ * @param finishedAt The time the container finished, if it has finished
+ */
+
+public record PodmanContainerState(
+  String status,
+  boolean running,
+  boolean paused,
+  boolean oomKilled,
+  long pid,
+  int exitCode,
+  Optional<OffsetDateTime> startedAt,
+  Optional<OffsetDateTime> finishedAt)
+{
+  /**
+   * The state of a container.
+   *
+   * @param status     The container status (such as "running" or "exited")
+   * @param running    {@code true} if the container is running
+   * @param paused     {@code true} if the container is paused
+   * @param oomKilled  {@code true} if the container was killed due to memory exhaustion
+   * @param pid        The process ID of the container's main process, or 0
+   * @param exitCode   The exit code of the container's main process
+   * @param startedAt  The time the container was started, if it has started
+   * @param finishedAt The time the container finished, if it has finished
+   */
+
+  public PodmanContainerState
+  {
+    Objects.requireNonNull(status, "status");
+    Objects.requireNonNull(startedAt, "startedAt");
+    Objects.requireNonNull(finishedAt, "finishedAt");
+  }
+}
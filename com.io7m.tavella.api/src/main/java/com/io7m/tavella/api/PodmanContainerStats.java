@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.Objects;
+
+/**
+ * A sample of the resources used by a container. All values are cumulative
+ * since the container started, except for the memory and process counts,
+ * which are instantaneous.
+ *
+ * @param container    The container ID
+ * @param cpuMicros    The CPU time consumed, in microseconds
+ * @param memoryBytes  The memory in use, in bytes
+ * @param ioReadBytes  The number of bytes read from block devices
+ * @param ioWriteBytes The number of bytes written to block devices
+ * @param pids         The number of processes
+ */
+
+public record PodmanContainerStats(
+  String container,
+  long cpuMicros,
+  long memoryBytes,
+  long ioReadBytes,
+  long ioWriteBytes,
+  long pids)
+{
+  /**
+   * A sample of the resources used by a container.
+   *
+   * @param container    The container ID
+   * @param cpuMicros    The CPU time consumed, in microseconds
+   * @param memoryBytes  The memory in use, in bytes
+   * @param ioReadBytes  The number of bytes read from block devices
+   * @param ioWriteBytes The number of bytes written to block devices
+   * @param pids         The number of processes
+   */
+
+  public PodmanContainerStats
+  {
+    Objects.requireNonNull(container, "container");
+  }
+}
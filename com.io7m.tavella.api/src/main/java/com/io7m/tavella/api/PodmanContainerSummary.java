@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A summary of a container, as listed by {@code podman ps}.
+ *
+ * @param id      The full container ID
+ * @param names   The container names
+ * @param image   The name of the image used to create the container
+ * @param imageId The ID of the image used to create the container
+ * @param state   The container state (such as "running")
+ * @param created The time the container was created
+ * @param pod     The ID of the pod to which the container belongs, if any
+ * @param labels  The container labels
+ * @param size    The disk space used by the container, if requested
+ */
+
+public record PodmanContainerSummary(
+  String id,
+  List<String> names,
+  String image,
+  String imageId,
+  String state,
+  Instant created,
+  Optional<String> pod,
+  Map<String, String> labels,
+  Optional<PodmanContainerSize> size)
+{
+  /**
+   * A summary of a container, as listed by {@code podman ps}.
+   *
+   * @param id      The full container ID
+   * @param names   The container names
+   * @param image   The name of the image used to create the container
+   * @param imageId The ID of the image used to create the container
+   * @param state   The container state (such as "running")
+   * @param created The time the container was created
+   * @param pod     The ID of the pod to which the container belongs, if any
+   * @param labels  The container labels
+   * @param size    The disk space used by the container, if requested
+   */
+
+  public PodmanContainerSummary
+  {
+    Objects.requireNonNull(id, "id");
+    Objects.requireNonNull(image, "image");
+    Objects.requireNonNull(imageId, "imageId");
+    Objects.requireNonNull(state, "state");
+    Objects.requireNonNull(created, "created");
+    Objects.requireNonNull(pod, "pod");
+    Objects.requireNonNull(size, "size");
+    names = List.copyOf(names);
+    labels = Map.copyOf(labels);
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.Objects;
+
+/**
+ * The disk space used by one kind of object, as shown by
+ * {@code podman system df}.
+ *
+ * @param type        The kind of object (such as "Images")
+ * @param total       The number of objects
+ * @param active      The number of objects in use
+ * @param size        The disk space used in bytes
+ * @param reclaimable The disk space used by objects not in use, in bytes
+ */
+
+public record PodmanDiskUsage(
+  String type,
+  long total,
+  long active,
+  long size,
+  long reclaimable)
+{
+  /**
+   * The kind of object used for images.
+   */
+
+  public static final String IMAGES = "Images";
+
+  /**
+   * The disk space used by one kind of object, as shown by
+   * {@code podman system df}.
+   *
+   * @param type        The kind of object (such as "Images")
+   * @param total       The number of objects
+   * @param active      The number of objects in use
+   * @param size        The disk space used in bytes
+   * @param reclaimable The disk space used by objects not in use, in bytes
+   */
+
+  public PodmanDiskUsage
+  {
+    Objects.requireNonNull(type, "type");
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The kinds of errors reported by {@code podman}, determined by examining
+ * the text written to the standard error stream.
+ *
+ * <p>Generic operating system messages (such as those for {@code EAGAIN},
+ * {@code EBUSY}, or a truncated stream) are only classified when they
+ * appear on the same line as a message that identifies the operation that
+ * failed, as the same messages also describe permanent failures such as
+ * exhausted resource limits, busy mounts, or corrupt local archives.</p>
+ */
+
+public enum PodmanErrorKind
+{
+  /**
+   * Contention on the storage or database locks. Retrying usually succeeds
+   * once the competing commands have completed.
+   */
+
+  LOCK_CONTENTION(
+    true,
+    List.of(
+      pattern("database is locked"),
+      pattern("acquiring lock"),
+      pattern("timeout waiting for lock"),
+      pattern("resource temporarily unavailable", "lock"),
+      pattern("device or resource busy", "lock")
+    )),
+
+  /**
+   * The requested image does not exist locally or in the registry.
+   */
+
+  IMAGE_NOT_FOUND(
+    false,
+    List.of(
+      pattern("image not known"),
+      pattern("no such image"),
+      pattern("manifest unknown"),
+      pattern("name unknown"),
+      pattern("unable to find image"),
+      pattern("repository not found"),
+      pattern("requested access to the resource is denied")
+    )),
+
+  /**
+   * The requested container does not exist.
+   */
+
+  CONTAINER_NOT_FOUND(
+    false,
+    List.of(
+      pattern("no such container")
+    )),
+
+  /**
+   * A container name or other unique object name is already in use.
+   */
+
+  NAME_CONFLICT(
+    false,
+    List.of(
+      pattern("is already in use"),
+      pattern("name already exists"),
+      pattern("already in use by")
+    )),
+
+  /**
+   * Memory was exhausted, either by {@code podman} itself or by a
+   * container.
+   */
+
+  OUT_OF_MEMORY(
+    false,
+    List.of(
+      pattern("cannot allocate memory"),
+      pattern("out of memory"),
+      pattern("oom-kill"),
+      pattern("oomkilled")
+    )),
+
+  /**
+   * The registry could not be reached or failed temporarily (network
+   * errors, timeouts, rate limiting, server errors). Generic network
+   * errors such as timeouts, refused connections, and truncated streams
+   * are only classified as registry failures when the message names a
+   * registry request; the same errors from a container's own network
+   * access or from a local archive are not retried.
+   */
+
+  REGISTRY_FAILURE(
+    true,
+    List.of(
+      pattern("toomanyrequests"),
+      pattern("too many requests"),
+      pattern("pinging container registry"),
+      pattern("tls handshake timeout"),
+      pattern(
+        "i/o timeout",
+        "pinging container registry",
+        "http://",
+        "https://",
+        "/v2/"
+      ),
+      pattern(
+        "connection refused",
+        "pinging container registry",
+        "http://",
+        "https://",
+        "/v2/"
+      ),
+      pattern("connection reset by peer"),
+      pattern("temporary failure in name resolution"),
+      pattern("502 bad gateway"),
+      pattern("503 service unavailable"),
+      pattern("504 gateway timeout"),
+      pattern(
+        "unexpected eof",
+        "pinging container registry",
+        "http://",
+        "https://",
+        "/v2/",
+        "docker://",
+        "trying to pull",
+        "copying blob",
+        "reading blob"
+      )
+    )),
+
+  /**
+   * The error could not be classified.
+   */
+
+  UNKNOWN(
+    false,
+    List.of());
+
+  private final boolean isTransient;
+  private final List<Pattern> patterns;
+
+  PodmanErrorKind(
+    final boolean inTransient,
+    final List<Pattern> inPatterns)
+  {
+    this.isTransient = inTransient;
+    this.patterns = Objects.requireNonNull(inPatterns, "patterns");
+  }
+
+  /**
+   * @return {@code true} if errors of this kind are usually transient, and
+   * the failed command may succeed if retried
+   */
+
+  public boolean isTransient()
+  {
+    return this.isTransient;
+  }
+
+  /**
+   * Classify the error output of a failed command. Kinds are checked in
+   * declaration order, and the first kind with a matching pattern wins.
+   *
+   * @param errorLines The lines written to the standard error stream
+   *
+   * @return The error kind
+   */
+
+  public static PodmanErrorKind classify(
+    final List<String> errorLines)
+  {
+    Objects.requireNonNull(errorLines, "errorLines");
+
+    final var lines =
+      errorLines.stream()
+        .map(line -> line.toLowerCase(Locale.ROOT))
+        .toList();
+
+    for (final var kind : values()) {
+      for (final var pattern : kind.patterns) {
+        for (final var line : lines) {
+          if (pattern.matches(line)) {
+            return kind;
+          }
+        }
+      }
+    }
+    return UNKNOWN;
+  }
+
+  private static Pattern pattern(
+    final String text,
+    final String... contexts)
+  {
+    return new Pattern(text, List.of(contexts));
+  }
+
+  /**
+   * A pattern that matches a line containing the given text and, if any
+   * contexts are specified, at least one of the contexts.
+   */
+
+  private record Pattern(
+    String text,
+    List<String> contexts)
+  {
+    boolean matches(
+      final String line)
+    {
+      if (!line.contains(this.text)) {
+        return false;
+      }
+      if (this.contexts.isEmpty()) {
+        return true;
+      }
+      for (final var context : this.contexts) {
+        if (line.contains(context)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An event reported by {@code podman events}.
+ *
+ * @param time       The time of the event
+ * @param type       The type of object to which the event applies (such as
+ *                   "container")
+ * @param status     The event status (such as "create" or "died")
+ * @param id         The ID of the object to which the event applies
+ * @param name       The name of the object to which the event applies
+ * @param attributes The event attributes
+ */
+
+public record PodmanEvent(
+  Instant time,
+  String type,
+  String status,
+  String id,
+  String name,
+  Map<String, String> attributes)
+{
+  /**
+   * An event reported by {@code podman events}.
+   *
+   * @param time       The time of the event
+   * @param type       The type of object to which the event applies (such as
+   *                   "container")
+   * @param status     The event status (such as "create" or "died")
+   * @param id         The ID of the object to which the event applies
+   * @param name       The name of the object to which the event applies
+   * @param attributes The event attributes
+   */
+
+  public PodmanEvent
+  {
+    Objects.requireNonNull(time, "time");
+    Objects.requireNonNull(type, "type");
+    Objects.requireNonNull(status, "status");
+    Objects.requireNonNull(id, "id");
+    Objects.requireNonNull(name, "name");
+    attributes = Map.copyOf(attributes);
+  }
+}
@@ -17,21 +17,131 @@
 
 package com.io7m.tavella.api;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
 
 /**
  * The podman executable configuration.
+ *
+ * <p>The mechanism that the JDK uses to create processes is controlled by
+ * the JVM-wide {@code jdk.lang.Process.launchMechanism} system property,
+ * which is read once, when the first process is created. This library
+ * never sets it. Applications that want a particular mechanism (such as
+ * {@code POSIX_SPAWN}, which does not copy the page tables of a large JVM)
+ * should set it on the command line. Alternatively, a
+ * {@link PodmanLauncherType} avoids creating processes from the JVM
+ * entirely.</p>
  */
 
 public final class PodmanExecutableConfiguration
 {
+  /**
+   * The names of the environment variables that make up a minimal
+   * environment for {@code podman}.
+   *
+   * @see Builder#setMinimalEnvironment()
+   */
+
+  public static final List<String> MINIMAL_ENVIRONMENT_VARIABLES =
+    List.of(
+      "CONTAINERS_CONF",
+      "CONTAINERS_REGISTRIES_CONF",
+      "CONTAINERS_STORAGE_CONF",
+      "CONTAINER_HOST",
+      "DBUS_SESSION_BUS_ADDRESS",
+      "HOME",
+      "LANG",
+      "LOGNAME",
+      "PATH",
+      "TMPDIR",
+      "USER",
+      "XDG_CONFIG_HOME",
+      "XDG_DATA_HOME",
+      "XDG_RUNTIME_DIR"
+    );
+
   private final String executable;
+  private final Optional<PodmanLauncherType> launcher;
+  private final Optional<PodmanImageUseListenerType> imageUseListener;
+  private final Optional<Map<String, String>> environment;
+  private final Optional<Path> workingDirectory;
+  private final Optional<Path> root;
+  private final Optional<Path> runRoot;
+  private final Optional<String> storageDriver;
+  private final List<String> storageOptions;
+  private final Optional<PodmanEventsBackend> eventsBackend;
+  private final Optional<PodmanCgroupManager> cgroupManager;
+  private final Optional<Path> tmpDirectory;
+  private final List<String> globalArguments;
 
   private PodmanExecutableConfiguration(
-    final String inExecutable)
+    final Builder builder)
   {
     this.executable =
-      Objects.requireNonNull(inExecutable, "executable");
+      Objects.requireNonNull(builder.executable, "executable");
+    this.launcher =
+      Objects.requireNonNull(builder.launcher, "launcher");
+    this.imageUseListener =
+      Objects.requireNonNull(builder.imageUseListener, "imageUseListener");
+    this.environment =
+      builder.environment.map(Map::copyOf);
+    this.workingDirectory =
+      Objects.requireNonNull(builder.workingDirectory, "workingDirectory");
+    this.root =
+      builder.root;
+    this.runRoot =
+      builder.runRoot;
+    this.storageDriver =
+      builder.storageDriver;
+    this.storageOptions =
+      List.copyOf(builder.storageOptions);
+    this.eventsBackend =
+      builder.eventsBackend;
+    this.cgroupManager =
+      builder.cgroupManager;
+    this.tmpDirectory =
+      builder.tmpDirectory;
+    this.globalArguments =
+      this.makeGlobalArguments();
+  }
+
+  private List<String> makeGlobalArguments()
+  {
+    final var arguments = new ArrayList<String>();
+    if (this.root.isPresent()) {
+      arguments.add("--root");
+      arguments.add(this.root.get().toString());
+    }
+    if (this.runRoot.isPresent()) {
+      arguments.add("--runroot");
+      arguments.add(this.runRoot.get().toString());
+    }
+    if (this.storageDriver.isPresent()) {
+      arguments.add("--storage-driver");
+      arguments.add(this.storageDriver.get());
+    }
+    for (final var option : this.storageOptions) {
+      arguments.add("--storage-opt");
+      arguments.add(option);
+    }
+    if (this.eventsBackend.isPresent()) {
+      arguments.add("--events-backend");
+      arguments.add(this.eventsBackend.get().tag());
+    }
+    if (this.cgroupManager.isPresent()) {
+      arguments.add("--cgroup-manager");
+      arguments.add(this.cgroupManager.get().tag());
+    }
+    if (this.tmpDirectory.isPresent()) {
+      arguments.add("--tmpdir");
+      arguments.add(this.tmpDirectory.get().toString());
+    }
+    return List.copyOf(arguments);
   }
 
   /**
@@ -52,6 +162,153 @@ public final class PodmanExecutableConfiguration
     return this.executable;
   }
 
+  /**
+   * @return The launcher used to execute commands, if any
+   */
+
+  public Optional<PodmanLauncherType> launcher()
+  {
+    return this.launcher;
+  }
+
+  /**
+   * @return The listener notified of image use, if any
+   */
+
+  public Optional<PodmanImageUseListenerType> imageUseListener()
+  {
+    return this.imageUseListener;
+  }
+
+  /**
+   * @return The complete environment of child processes, if the JVM's
+   *         environment should not be inherited
+   */
+
+  public Optional<Map<String, String>> environment()
+  {
+    return this.environment;
+  }
+
+  /**
+   * @return The working directory of child processes, if the JVM's working
+   *         directory should not be inherited
+   */
+
+  public Optional<Path> workingDirectory()
+  {
+    return this.workingDirectory;
+  }
+
+  /**
+   * @return The storage root directory, if not the default
+   *
+   * @see "--root"
+   */
+
+  public Optional<Path> root()
+  {
+    return this.root;
+  }
+
+  /**
+   * @return The storage state directory, if not the default
+   *
+   * @see "--runroot"
+   */
+
+  public Optional<Path> runRoot()
+  {
+    return this.runRoot;
+  }
+
+  /**
+   * @return The storage driver, if not the default
+   *
+   * @see "--storage-driver"
+   */
+
+  public Optional<String> storageDriver()
+  {
+    return this.storageDriver;
+  }
+
+  /**
+   * @return The storage driver options
+   *
+   * @see "--storage-opt"
+   */
+
+  public List<String> storageOptions()
+  {
+    return this.storageOptions;
+  }
+
+  /**
+   * @return The events backend, if not the default
+   *
+   * @see "--events-backend"
+   */
+
+  public Optional<PodmanEventsBackend> eventsBackend()
+  {
+    return this.eventsBackend;
+  }
+
+  /**
+   * @return The cgroup manager, if not the default
+   *
+   * @see "--cgroup-manager"
+   */
+
+  public Optional<PodmanCgroupManager> cgroupManager()
+  {
+    return this.cgroupManager;
+  }
+
+  /**
+   * @return The temporary directory, if not the default
+   *
+   * @see "--tmpdir"
+   */
+
+  public Optional<Path> tmpDirectory()
+  {
+    return this.tmpDirectory;
+  }
+
+  /**
+   * @return The global options that precede the subcommand of every
+   *         {@code podman} invocation
+   */
+
+  public List<String> globalArguments()
+  {
+    return this.globalArguments;
+  }
+
+  /**
+   * @return A new builder initialized with the values of this configuration
+   */
+
+  public Builder toBuilder()
+  {
+    final var builder = new Builder();
+    builder.executable = this.executable;
+    builder.launcher = this.launcher;
+    builder.imageUseListener = this.imageUseListener;
+    builder.environment = this.environment;
+    builder.workingDirectory = this.workingDirectory;
+    builder.root = this.root;
+    builder.runRoot = this.runRoot;
+    builder.storageDriver = this.storageDriver;
+    builder.storageOptions.addAll(this.storageOptions);
+    builder.eventsBackend = this.eventsBackend;
+    builder.cgroupManager = this.cgroupManager;
+    builder.tmpDirectory = this.tmpDirectory;
+    return builder;
+  }
+
   /**
    * A mutable builder for configurations.
    */
@@ -59,14 +316,38 @@ public final class PodmanExecutableConfiguration
   public static final class Builder
   {
     private String executable;
+    private Optional<PodmanLauncherType> launcher;
+    private Optional<PodmanImageUseListenerType> imageUseListener;
+    private Optional<Map<String, String>> environment;
+    private Optional<Path> workingDirectory;
+    private Optional<Path> root;
+    private Optional<Path> runRoot;
+    private Optional<String> storageDriver;
+    private final ArrayList<String> storageOptions;
+    private Optional<PodmanEventsBackend> eventsBackend;
+    private Optional<PodmanCgroupManager> cgroupManager;
+    private Optional<Path> tmpDirectory;
 
     private Builder()
     {
       this.executable = "podman";
+      this.launcher = Optional.empty();
+      this.imageUseListener = Optional.empty();
+      this.environment = Optional.empty();
+      this.workingDirectory = Optional.empty();
+      this.root = Optional.empty();
+      this.runRoot = Optional.empty();
+      this.storageDriver = Optional.empty();
+      this.storageOptions = new ArrayList<>();
+      this.eventsBackend = Optional.empty();
+      this.cgroupManager = Optional.empty();
+      this.tmpDirectory = Optional.empty();
     }
 
     /**
-     * Set the podman executable.
+     * Set the podman executable. A name without a directory component is
+     * resolved against the {@code PATH} of the child environment, and the
+     * result is cached until the executable changes.
      *
      * @param name The name
      *
@@ -80,13 +361,233 @@ public final class PodmanExecutableConfiguration
       return this;
     }
 
+    /**
+     * Set the launcher used to execute commands whose output is collected.
+     *
+     * @param inLauncher The launcher
+     *
+     * @return this
+     *
+     * @see PodmanLauncherType
+     */
+
+    public Builder setLauncher(
+      final PodmanLauncherType inLauncher)
+    {
+      this.launcher = Optional.of(
+        Objects.requireNonNull(inLauncher, "launcher")
+      );
+      return this;
+    }
+
+    /**
+     * Set the listener notified each time a container is launched from an
+     * image.
+     *
+     * @param inListener The listener
+     *
+     * @return this
+     *
+     * @see PodmanImageUseListenerType
+     */
+
+    public Builder setImageUseListener(
+      final PodmanImageUseListenerType inListener)
+    {
+      this.imageUseListener = Optional.of(
+        Objects.requireNonNull(inListener, "listener")
+      );
+      return this;
+    }
+
+    /**
+     * Set the complete environment of child processes. Child processes
+     * will not inherit any other variables from the JVM.
+     *
+     * @param inEnvironment The environment
+     *
+     * @return this
+     */
+
+    public Builder setEnvironment(
+      final Map<String, String> inEnvironment)
+    {
+      this.environment = Optional.of(
+        Map.copyOf(Objects.requireNonNull(inEnvironment, "environment"))
+      );
+      return this;
+    }
+
+    /**
+     * Set the environment of child processes to the subset of the JVM's
+     * current environment named by {@link #MINIMAL_ENVIRONMENT_VARIABLES}.
+     *
+     * @return this
+     */
+
+    public Builder setMinimalEnvironment()
+    {
+      final var current = System.getenv();
+      final var minimal = new TreeMap<String, String>();
+      for (final var name : MINIMAL_ENVIRONMENT_VARIABLES) {
+        final var value = current.get(name);
+        if (value != null) {
+          minimal.put(name, value);
+        }
+      }
+      return this.setEnvironment(minimal);
+    }
+
+    /**
+     * Set the working directory of child processes.
+     *
+     * @param directory The directory
+     *
+     * @return this
+     */
+
+    public Builder setWorkingDirectory(
+      final Path directory)
+    {
+      this.workingDirectory = Optional.of(
+        Objects.requireNonNull(directory, "directory").toAbsolutePath()
+      );
+      return this;
+    }
+
+    /**
+     * Set the storage root directory. Executables with distinct storage
+     * roots (and distinct run roots) do not share storage locks.
+     *
+     * @param directory The directory
+     *
+     * @return this
+     *
+     * @see "--root"
+     */
+
+    public Builder setRoot(
+      final Path directory)
+    {
+      this.root = Optional.of(
+        Objects.requireNonNull(directory, "directory").toAbsolutePath()
+      );
+      return this;
+    }
+
+    /**
+     * Set the storage state directory. As sockets are created inside this
+     * directory, its path should be short.
+     *
+     * @param directory The directory
+     *
+     * @return this
+     *
+     * @see "--runroot"
+     */
+
+    public Builder setRunRoot(
+      final Path directory)
+    {
+      this.runRoot = Optional.of(
+        Objects.requireNonNull(directory, "directory").toAbsolutePath()
+      );
+      return this;
+    }
+
+    /**
+     * @param driver The storage driver (such as "overlay")
+     *
+     * @return this
+     *
+     * @see "--storage-driver"
+     */
+
+    public Builder setStorageDriver(
+      final String driver)
+    {
+      this.storageDriver = Optional.of(
+        Objects.requireNonNull(driver, "driver")
+      );
+      return this;
+    }
+
+    /**
+     * @param option A storage driver option (such as
+     *               "overlay.mount_program=/usr/bin/fuse-overlayfs")
+     *
+     * @return this
+     *
+     * @see "--storage-opt"
+     */
+
+    public Builder addStorageOption(
+      final String option)
+    {
+      this.storageOptions.add(
+        Objects.requireNonNull(option, "option")
+      );
+      return this;
+    }
+
+    /**
+     * @param backend The events backend
+     *
+     * @return this
+     *
+     * @see "--events-backend"
+     */
+
+    public Builder setEventsBackend(
+      final PodmanEventsBackend backend)
+    {
+      this.eventsBackend = Optional.of(
+        Objects.requireNonNull(backend, "backend")
+      );
+      return this;
+    }
+
+    /**
+     * @param manager The cgroup manager
+     *
+     * @return this
+     *
+     * @see "--cgroup-manager"
+     */
+
+    public Builder setCgroupManager(
+      final PodmanCgroupManager manager)
+    {
+      this.cgroupManager = Optional.of(
+        Objects.requireNonNull(manager, "manager")
+      );
+      return this;
+    }
+
+    /**
+     * @param directory The temporary directory
+     *
+     * @return this
+     *
+     * @see "--tmpdir"
+     */
+
+    public Builder setTmpDirectory(
+      final Path directory)
+    {
+      this.tmpDirectory = Optional.of(
+        Objects.requireNonNull(directory, "directory").toAbsolutePath()
+      );
+      return this;
+    }
+
     /**
      * @return An immutable configuration
      */
 
     public PodmanExecutableConfiguration build()
     {
-      return new PodmanExecutableConfiguration(this.executable);
+      return new PodmanExecutableConfiguration(this);
     }
   }
 }
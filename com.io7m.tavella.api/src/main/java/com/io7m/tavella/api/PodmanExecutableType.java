@@ -34,4 +34,148 @@ public interface PodmanExecutableType
    */
 
   PodmanProcessRunBuilderType run();
+
+  /**
+   * @return "podman inspect"
+   */
+
+  PodmanProcessInspectBuilderType inspect();
+
+  /**
+   * @return "podman ps"
+   */
+
+  PodmanProcessPsBuilderType ps();
+
+  /**
+   * @return "podman rm"
+   */
+
+  PodmanProcessRmBuilderType rm();
+
+  /**
+   * @return "podman logs"
+   */
+
+  PodmanProcessLogsBuilderType logs();
+
+  /**
+   * @return "podman events"
+   */
+
+  PodmanProcessEventsBuilderType events();
+
+  /**
+   * @return "podman stats"
+   */
+
+  PodmanProcessStatsBuilderType stats();
+
+  /**
+   * @return "podman pod create"
+   */
+
+  PodmanProcessPodCreateBuilderType podCreate();
+
+  /**
+   * @return "podman pod start"
+   */
+
+  PodmanProcessPodStartBuilderType podStart();
+
+  /**
+   * @return "podman pod stop"
+   */
+
+  PodmanProcessPodStopBuilderType podStop();
+
+  /**
+   * @return "podman pod rm"
+   */
+
+  PodmanProcessPodRmBuilderType podRm();
+
+  /**
+   * @return "podman image inspect"
+   */
+
+  PodmanProcessImageInspectBuilderType imageInspect();
+
+  /**
+   * @return "podman images"
+   */
+
+  PodmanProcessImagesBuilderType images();
+
+  /**
+   * @return "podman image load"
+   */
+
+  PodmanProcessImageLoadBuilderType imageLoad();
+
+  /**
+   * @return "podman image save"
+   */
+
+  PodmanProcessImageSaveBuilderType imageSave();
+
+  /**
+   * @return "podman rmi"
+   */
+
+  PodmanProcessRmiBuilderType rmi();
+
+  /**
+   * @return "podman system df"
+   */
+
+  PodmanProcessSystemDfBuilderType systemDf();
+
+  /**
+   * @return "podman commit"
+   */
+
+  PodmanProcessCommitBuilderType commit();
+
+  /**
+   * @return "podman build"
+   */
+
+  PodmanProcessBuildBuilderType build();
+
+  /**
+   * @return "podman cp"
+   */
+
+  PodmanProcessCpBuilderType cp();
+
+  /**
+   * @return "podman volume create"
+   */
+
+  PodmanProcessVolumeCreateBuilderType volumeCreate();
+
+  /**
+   * @return "podman volume rm"
+   */
+
+  PodmanProcessVolumeRmBuilderType volumeRm();
+
+  /**
+   * @return "podman volume inspect"
+   */
+
+  PodmanProcessVolumeInspectBuilderType volumeInspect();
+
+  /**
+   * @return "podman volume import"
+   */
+
+  PodmanProcessVolumeImportBuilderType volumeImport();
+
+  /**
+   * @return "podman volume export"
+   */
+
+  PodmanProcessVolumeExportBuilderType volumeExport();
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.Objects;
+
+/**
+ * The IPC namespace modes of a container.
+ *
+ * @see "podman run --ipc"
+ */
+
+public sealed interface PodmanIPCModeType
+{
+  /**
+   * Use the IPC namespace of the host. Shared memory segments and
+   * {@code /dev/shm} are shared with host processes.
+   */
+
+  record Host()
+    implements PodmanIPCModeType
+  {
+
+  }
+
+  /**
+   * Create a private IPC namespace that other containers may join.
+   */
+
+  record Shareable()
+    implements PodmanIPCModeType
+  {
+
+  }
+
+  /**
+   * Create a private IPC namespace that other containers may not join.
+   */
+
+  record Private()
+    implements PodmanIPCModeType
+  {
+
+  }
+
+  /**
+   * Create a private IPC namespace without mounting {@code /dev/shm}.
+   */
+
+  record None()
+    implements PodmanIPCModeType
+  {
+
+  }
+
+  /**
+   * Join the IPC namespace of another container. The other container
+   * must have been started with {@link Shareable}.
+   *
+   * @param container The container name or ID
+   */
+
+  record Container(
+    String container)
+    implements PodmanIPCModeType
+  {
+    /**
+     * Join the IPC namespace of another container.
+     */
+
+    public Container
+    {
+      Objects.requireNonNull(container, "container");
+    }
+  }
+}
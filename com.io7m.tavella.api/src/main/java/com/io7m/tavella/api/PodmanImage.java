@@ -14,17 +14,31 @@
  * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
  */
 
+
 package com.io7m.tavella.api;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
 
 /**
  * A reference to an image.
  *
+ * <p>References parsed with {@link #parse(String)} are normalized and
+ * interned, so that equal references parsed from different strings usually
+ * share a single instance. The intern table holds the most recently used
+ * references, and evicts the least recently used ones when it is full.
+ * The full names of interned references are computed once and retained
+ * alongside them, so {@link #fullImageName()} does not rebuild the name on
+ * each call.</p>
+ *
  * @param registry  The container registry (such as "quay.io")
  * @param imageName The image name (such as "io7mcom/idstore")
- * @param imageTag  The image tag (such as "1.0.0-beta0013")
+ * @param imageTag  The image tag (such as "1.0.0-beta0013"), which may be
+ *                  empty for references that only specify a digest
  * @param imageHash The image hash (such as "sha256:ab38fabce3")
  */
 
@@ -34,12 +48,67 @@ public record PodmanImage(
   String imageTag,
   Optional<String> imageHash)
 {
+  /**
+   * The registry assumed for references that do not name one.
+   */
+
+  public static final String DEFAULT_REGISTRY =
+    "docker.io";
+
+  /**
+   * The tag assumed for references that name neither a tag nor a digest.
+   */
+
+  public static final String DEFAULT_TAG =
+    "latest";
+
+  private static final int INTERNED_MAXIMUM =
+    4096;
+
+  private static final ReentrantLock INTERNED_LOCK =
+    new ReentrantLock();
+
+  private static final Map<String, PodmanImage> INTERNED =
+    new LinkedHashMap<>(INTERNED_MAXIMUM, 0.75f, true)
+    {
+      @Override
+      protected boolean removeEldestEntry(
+        final Map.Entry<String, PodmanImage> eldest)
+      {
+        return this.size() > INTERNED_MAXIMUM;
+      }
+    };
+
+  private static final Map<PodmanImage, String> FULL_NAMES =
+    new LinkedHashMap<>(INTERNED_MAXIMUM, 0.75f, true)
+    {
+      @Override
+      protected boolean removeEldestEntry(
+        final Map.Entry<PodmanImage, String> eldest)
+      {
+        return this.size() > INTERNED_MAXIMUM;
+      }
+    };
+
+  private static final Pattern REGISTRY =
+    Pattern.compile("[a-zA-Z0-9]([a-zA-Z0-9.-]*[a-zA-Z0-9])?(:[0-9]+)?");
+
+  private static final Pattern NAME_COMPONENT =
+    Pattern.compile("[a-z0-9]+((\\.|_|__|-+)[a-z0-9]+)*");
+
+  private static final Pattern TAG =
+    Pattern.compile("[A-Za-z0-9_][A-Za-z0-9_.-]{0,127}");
+
+  private static final Pattern DIGEST =
+    Pattern.compile("[a-z0-9]+([+._-][a-z0-9]+)*:[a-fA-F0-9]{32,}");
+
   /**
    * A reference to an image.
    *
    * @param registry  The container registry (such as "quay.io")
    * @param imageName The image name (such as "io7mcom/idstore")
-   * @param imageTag  The image tag (such as "1.0.0-beta0013")
+   * @param imageTag  The image tag (such as "1.0.0-beta0013"), which may be
+   *                  empty for references that only specify a digest
    * @param imageHash The image hash (such as "sha256:ab38fabce3")
    */
 
@@ -51,18 +120,178 @@ public record PodmanImage(
     Objects.requireNonNull(registry, "registry");
   }
 
+  /**
+   * Parse an image reference such as {@code quay.io/io7mcom/idstore:1.0.0},
+   * {@code localhost:5000/a/b/c@sha256:...}, or {@code alpine}. References
+   * that do not name a registry are assumed to refer to
+   * {@link #DEFAULT_REGISTRY}, where single-component names are placed in
+   * the {@code library} namespace. References that name neither a tag nor
+   * a digest are assumed to refer to {@link #DEFAULT_TAG}.
+   *
+   * @param text The image reference
+   *
+   * @return The normalized image
+   *
+   * @throws IllegalArgumentException If the reference is malformed
+   */
+
+  public static PodmanImage parse(
+    final String text)
+  {
+    Objects.requireNonNull(text, "text");
+
+    INTERNED_LOCK.lock();
+    try {
+      final var existing = INTERNED.get(text);
+      if (existing != null) {
+        return existing;
+      }
+    } finally {
+      INTERNED_LOCK.unlock();
+    }
+
+    final var parsed = parseUncached(text);
+    final var fullName = parsed.buildFullImageName();
+
+    INTERNED_LOCK.lock();
+    try {
+      final var canonical =
+        INTERNED.computeIfAbsent(fullName, k -> parsed);
+      INTERNED.put(text, canonical);
+      FULL_NAMES.put(canonical, fullName);
+      return canonical;
+    } finally {
+      INTERNED_LOCK.unlock();
+    }
+  }
+
+  private static PodmanImage parseUncached(
+    final String text)
+  {
+    final var at = text.indexOf('@');
+    if (at < 0) {
+      return parseTagged(text, text, Optional.empty());
+    }
+
+    final var digest = text.substring(at + 1);
+    if (!DIGEST.matcher(digest).matches()) {
+      throw invalid(text, "Malformed digest");
+    }
+    return parseTagged(text, text.substring(0, at), Optional.of(digest));
+  }
+
+  private static PodmanImage parseTagged(
+    final String text,
+    final String reference,
+    final Optional<String> hash)
+  {
+    var registry = DEFAULT_REGISTRY;
+    var rest = reference;
+
+    final var slash = rest.indexOf('/');
+    if (slash >= 0 && isRegistry(rest.substring(0, slash))) {
+      final var first = rest.substring(0, slash);
+      if (!REGISTRY.matcher(first).matches()) {
+        throw invalid(text, "Malformed registry");
+      }
+      registry = normalizeRegistry(first);
+      rest = rest.substring(slash + 1);
+    }
+
+    var tag = hash.isPresent() ? "" : DEFAULT_TAG;
+    final var colon = rest.lastIndexOf(':');
+    if (colon >= 0) {
+      tag = rest.substring(colon + 1);
+      if (!TAG.matcher(tag).matches()) {
+        throw invalid(text, "Malformed tag");
+      }
+      rest = rest.substring(0, colon);
+    }
+
+    return new PodmanImage(registry, parseName(text, registry, rest), tag, hash);
+  }
+
+  private static String parseName(
+    final String text,
+    final String registry,
+    final String name)
+  {
+    for (final var component : name.split("/", -1)) {
+      if (!NAME_COMPONENT.matcher(component).matches()) {
+        throw invalid(
+          text, "Malformed name component '%s'".formatted(component));
+      }
+    }
+
+    if (DEFAULT_REGISTRY.equals(registry) && name.indexOf('/') < 0) {
+      return "library/" + name;
+    }
+    return name;
+  }
+
+  /*
+   * As with other container tools, the first component of a reference is
+   * only treated as a registry if it looks like a host name.
+   */
+
+  private static boolean isRegistry(
+    final String component)
+  {
+    return component.indexOf('.') >= 0
+           || component.indexOf(':') >= 0
+           || "localhost".equals(component);
+  }
+
+  private static String normalizeRegistry(
+    final String registry)
+  {
+    if ("index.docker.io".equals(registry)) {
+      return DEFAULT_REGISTRY;
+    }
+    return registry;
+  }
+
+  private static IllegalArgumentException invalid(
+    final String text,
+    final String reason)
+  {
+    return new IllegalArgumentException(
+      "Invalid image reference '%s': %s".formatted(text, reason)
+    );
+  }
+
   /**
    * @return The full image name
    */
 
   public String fullImageName()
   {
-    return String.format(
-      "%s/%s:%s%s",
-      this.registry,
-      this.imageName,
-      this.imageTag,
-      this.imageHash.map("@%s"::formatted).orElse("")
-    );
+    INTERNED_LOCK.lock();
+    try {
+      final var existing = FULL_NAMES.get(this);
+      if (existing != null) {
+        return existing;
+      }
+    } finally {
+      INTERNED_LOCK.unlock();
+    }
+    return this.buildFullImageName();
+  }
+
+  private String buildFullImageName()
+  {
+    final var text = new StringBuilder(64);
+    text.append(this.registry);
+    text.append('/');
+    text.append(this.imageName);
+    if (!this.imageTag.isEmpty()) {
+      text.append(':');
+      text.append(this.imageTag);
+    }
+    this.imageHash.ifPresent(hash -> {
+      text.append('@');
+      text.append(hash);
+    });
+    return text.toString();
   }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.Objects;
+
+/**
+ * The formats of image archives.
+ *
+ * @see "podman save --format"
+ */
+
+public enum PodmanImageArchiveFormat
+{
+  /**
+   * A docker archive, which can hold multiple tagged images.
+   */
+
+  DOCKER_ARCHIVE("docker-archive"),
+
+  /**
+   * An OCI image layout in a tar archive.
+   */
+
+  OCI_ARCHIVE("oci-archive");
+
+  private final String tag;
+
+  PodmanImageArchiveFormat(
+    final String inTag)
+  {
+    this.tag = Objects.requireNonNull(inTag, "tag");
+  }
+
+  /**
+   * @return The value as it would appear on the command-line
+   */
+
+  public String tag()
+  {
+    return this.tag;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.Objects;
+
+/**
+ * An image that was built, or an existing image that was reused in its
+ * place.
+ *
+ * @param imageId     The full image ID
+ * @param buildDigest The digest of the build inputs
+ * @param reused      {@code true} if an existing image was reused
+ */
+
+public record PodmanImageBuilt(
+  String imageId,
+  String buildDigest,
+  boolean reused)
+{
+  /**
+   * An image that was built, or an existing image that was reused in its
+   * place.
+   *
+   * @param imageId     The full image ID
+   * @param buildDigest The digest of the build inputs
+   * @param reused      {@code true} if an existing image was reused
+   */
+
+  public PodmanImageBuilt
+  {
+    Objects.requireNonNull(imageId, "imageId");
+    Objects.requireNonNull(buildDigest, "buildDigest");
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The details of a local image, as shown by {@code podman image inspect}.
+ *
+ * @param id          The full image ID
+ * @param digest      The digest of the image manifest
+ * @param repoTags    The tagged names of the image
+ * @param repoDigests The digest references of the image (such as
+ *                    "quay.io/io7mcom/idstore@sha256:ab38fabce3")
+ * @param labels      The image labels
+ * @param size        The size of the image in bytes
+ * @param entrypoint  The default entrypoint of containers
+ * @param command     The default command of containers
+ */
+
+public record PodmanImageInspection(
+  String id,
+  String digest,
+  List<String> repoTags,
+  List<String> repoDigests,
+  Map<String, String> labels,
+  long size,
+  List<String> entrypoint,
+  List<String> command)
+{
+  /**
+   * The details of a local image, as shown by {@code podman image inspect}.
+   *
+   * @param id          The full image ID
+   * @param digest      The digest of the image manifest
+   * @param repoTags    The tagged names of the image
+   * @param repoDigests The digest references of the image (such as
+   *                    "quay.io/io7mcom/idstore@sha256:ab38fabce3")
+   * @param labels      The image labels
+   * @param size        The size of the image in bytes
+   * @param entrypoint  The default entrypoint of containers
+   * @param command     The default command of containers
+   */
+
+  public PodmanImageInspection
+  {
+    Objects.requireNonNull(id, "id");
+    Objects.requireNonNull(digest, "digest");
+    repoTags = List.copyOf(repoTags);
+    repoDigests = List.copyOf(repoDigests);
+    labels = Map.copyOf(labels);
+    entrypoint = List.copyOf(entrypoint);
+    command = List.copyOf(command);
+  }
+}
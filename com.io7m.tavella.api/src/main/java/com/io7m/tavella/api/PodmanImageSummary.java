@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A summary of a local image, as listed by {@code podman images}.
+ *
+ * @param id          The full image ID
+ * @param digest      The digest of the image manifest
+ * @param names       The tagged names of the image
+ * @param repoDigests The digest references of the image
+ * @param labels      The image labels
+ * @param size        The size of the image in bytes
+ * @param created     The time the image was created
+ * @param containers  The number of containers using the image
+ */
+
+public record PodmanImageSummary(
+  String id,
+  String digest,
+  List<String> names,
+  List<String> repoDigests,
+  Map<String, String> labels,
+  long size,
+  Instant created,
+  int containers)
+{
+  /**
+   * A summary of a local image, as listed by {@code podman images}.
+   *
+   * @param id          The full image ID
+   * @param digest      The digest of the image manifest
+   * @param names       The tagged names of the image
+   * @param repoDigests The digest references of the image
+   * @param labels      The image labels
+   * @param size        The size of the image in bytes
+   * @param created     The time the image was created
+   * @param containers  The number of containers using the image
+   */
+
+  public PodmanImageSummary
+  {
+    Objects.requireNonNull(id, "id");
+    Objects.requireNonNull(digest, "digest");
+    Objects.requireNonNull(created, "created");
+    names = List.copyOf(names);
+    repoDigests = List.copyOf(repoDigests);
+    labels = Map.copyOf(labels);
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+/**
+ * A listener notified each time a container is launched from an image. If
+ * a listener is present in the {@link PodmanExecutableConfiguration}, run
+ * builders notify it after they have started a container (or, for
+ * {@link PodmanProcessRunBuilderType#startOrReuse()}, found a container to
+ * reuse). Building a command with {@link PodmanProcessBuilderType#build()}
+ * does not notify the listener. Listeners are called on the thread that launches the container, and so
+ * must be cheap and thread-safe.
+ */
+
+public interface PodmanImageUseListenerType
+{
+  /**
+   * An image was used to launch a container.
+   *
+   * @param image The image
+   */
+
+  void onImageUsed(
+    PodmanImage image);
+}
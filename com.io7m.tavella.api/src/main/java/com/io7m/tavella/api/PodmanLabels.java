@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+/**
+ * The names of labels that tavella itself attaches to containers.
+ */
+
+public final class PodmanLabels
+{
+  /**
+   * The label holding the hash of the specification used to start a
+   * container.
+   *
+   * @see PodmanProcessRunBuilderType#specHash()
+   */
+
+  public static final String SPEC_HASH =
+    "com.io7m.tavella.spec_hash";
+
+  /**
+   * The label holding the ID of the session that started a container.
+   *
+   * @see "com.io7m.tavella.native_exec.PodmanSessionReaper"
+   */
+
+  public static final String SESSION =
+    "com.io7m.tavella.session";
+
+  /**
+   * The label holding the process ID of the JVM that started a container.
+   */
+
+  public static final String SESSION_PID =
+    "com.io7m.tavella.session_pid";
+
+  /**
+   * The label holding the start time of the JVM that started a container.
+   * Together with the process ID, this identifies the JVM even when
+   * process IDs are reused.
+   */
+
+  public static final String SESSION_START =
+    "com.io7m.tavella.session_start";
+
+  /**
+   * The label holding the name of the host on which a container was
+   * started.
+   */
+
+  public static final String SESSION_HOST =
+    "com.io7m.tavella.session_host";
+
+  /**
+   * The label holding a unique ID for a single timed run.
+   *
+   * @see PodmanProcessRunBuilderType#startTimed()
+   */
+
+  public static final String RUN_ID =
+    "com.io7m.tavella.run_id";
+
+  /**
+   * The label holding the digest of the inputs from which an image was
+   * built.
+   *
+   * @see PodmanProcessBuildBuilderType#buildDigest()
+   */
+
+  public static final String BUILD_DIGEST =
+    "com.io7m.tavella.build_digest";
+
+  /**
+   * The label holding the digest of the directory tree with which a named
+   * volume was populated.
+   *
+   * @see "com.io7m.tavella.native_exec.PodmanVolumes"
+   */
+
+  public static final String VOLUME_DIGEST =
+    "com.io7m.tavella.volume_digest";
+
+  /**
+   * The label holding the digest of the directory tree with which a named
+   * volume was populated, placed on the empty marker volume that is
+   * created once the volume has been completely populated.
+   *
+   * @see "com.io7m.tavella.native_exec.PodmanVolumes"
+   */
+
+  public static final String VOLUME_SEEDED =
+    "com.io7m.tavella.volume_seeded";
+
+  private PodmanLabels()
+  {
+
+  }
+}
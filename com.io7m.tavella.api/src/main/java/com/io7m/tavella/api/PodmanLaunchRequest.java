@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A command to be executed by a launcher.
+ *
+ * @param command          The command and its arguments
+ * @param environment      The complete environment of the command, if the
+ *                         environment of the launcher should not be
+ *                         inherited
+ * @param workingDirectory The working directory of the command, if the
+ *                         working directory of the launcher should not be
+ *                         inherited
+ *
+ * @see PodmanLauncherType
+ */
+
+public record PodmanLaunchRequest(
+  List<String> command,
+  Optional<Map<String, String>> environment,
+  Optional<Path> workingDirectory)
+{
+  /**
+   * A command to be executed by a launcher.
+   *
+   * @param command          The command and its arguments
+   * @param environment      The complete environment of the command, if the
+   *                         environment of the launcher should not be
+   *                         inherited
+   * @param workingDirectory The working directory of the command, if the
+   *                         working directory of the launcher should not be
+   *                         inherited
+   */
+
+  public PodmanLaunchRequest
+  {
+    command = List.copyOf(command);
+    environment = environment.map(Map::copyOf);
+    Objects.requireNonNull(workingDirectory, "workingDirectory");
+
+    if (command.isEmpty()) {
+      throw new IllegalArgumentException("Command must not be empty.");
+    }
+  }
+
+  /**
+   * A command that inherits the environment and working directory of the
+   * launcher.
+   *
+   * @param command The command and its arguments
+   *
+   * @return The request
+   */
+
+  public static PodmanLaunchRequest of(
+    final List<String> command)
+  {
+    return new PodmanLaunchRequest(command, Optional.empty(), Optional.empty());
+  }
+}
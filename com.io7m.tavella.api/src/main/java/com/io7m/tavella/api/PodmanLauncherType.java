@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A means of executing commands whose output is collected in full. If a
+ * launcher is present in the {@link PodmanExecutableConfiguration}, query
+ * builders execute their commands through it rather than by creating a
+ * process directly from the JVM. Launchers receive the environment and
+ * working directory of the configuration along with each command, and must
+ * honour them.
+ *
+ * <p>Commands whose standard streams are consumed or supplied while they
+ * run cannot be executed through a launcher, and are always started
+ * directly from the JVM. These are:</p>
+ *
+ * <ul>
+ *   <li>processes returned to the caller, by
+ *   {@link PodmanProcessBuilderType#build()} and
+ *   {@link PodmanProcessBuilderType#execute()};</li>
+ *   <li>{@link PodmanProcessRunBuilderType#startTimed()};</li>
+ *   <li>{@link PodmanProcessLogsBuilderType#stream(java.util.function.Consumer)}
+ *   and {@link PodmanProcessLogsBuilderType#executeQuery()};</li>
+ *   <li>the initialization commands of warm images, and the streamed
+ *   transfers of files and volumes, in the native implementation.</li>
+ * </ul>
+ */
+
+public interface PodmanLauncherType
+{
+  /**
+   * Execute a command with an empty standard input, and wait for it to
+   * complete.
+   *
+   * @param request The command, environment, and working directory
+   *
+   * @return The result of the command
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  PodmanLaunchResult execute(
+    PodmanLaunchRequest request)
+    throws IOException, InterruptedException;
+
+  /**
+   * Execute a command with an empty standard input, inheriting the
+   * environment and working directory of the launcher, and wait for it to
+   * complete.
+   *
+   * @param command The command and its arguments
+   *
+   * @return The result of the command
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  default PodmanLaunchResult execute(
+    final List<String> command)
+    throws IOException, InterruptedException
+  {
+    return this.execute(PodmanLaunchRequest.of(command));
+  }
+}
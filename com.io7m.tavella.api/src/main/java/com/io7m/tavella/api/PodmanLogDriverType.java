@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * The drivers used to handle the output of a container.
+ *
+ * @see "podman run --log-driver"
+ */
+
+public sealed interface PodmanLogDriverType
+{
+  /**
+   * Discard container output. The output is neither logged nor relayed to
+   * an attached client.
+   */
+
+  record None()
+    implements PodmanLogDriverType
+  {
+
+  }
+
+  /**
+   * Pass the container's standard streams directly to the {@code podman}
+   * process, without relaying output through conmon or writing it to a
+   * log. This avoids writing every byte of output twice, but can only be
+   * used for attached (non-detached) containers, and the output is not
+   * available via {@code podman logs}.
+   */
+
+  record Passthrough()
+    implements PodmanLogDriverType
+  {
+
+  }
+
+  /**
+   * Write output to a file in the Kubernetes log format.
+   *
+   * @param path        The log file, if not the default
+   * @param maximumSize The size in bytes at which the log is truncated, if
+   *                    any
+   */
+
+  record K8sFile(
+    Optional<Path> path,
+    OptionalLong maximumSize)
+    implements PodmanLogDriverType
+  {
+    /**
+     * Write output to a file in the Kubernetes log format.
+     */
+
+    public K8sFile
+    {
+      Objects.requireNonNull(path, "path");
+      Objects.requireNonNull(maximumSize, "maximumSize");
+      if (maximumSize.isPresent() && maximumSize.getAsLong() <= 0L) {
+        throw new IllegalArgumentException("Maximum size must be positive.");
+      }
+    }
+  }
+
+  /**
+   * Write output to the systemd journal.
+   *
+   * @param tag The journal tag, if not the default
+   */
+
+  record Journald(
+    Optional<String> tag)
+    implements PodmanLogDriverType
+  {
+    /**
+     * Write output to the systemd journal.
+     */
+
+    public Journald
+    {
+      Objects.requireNonNull(tag, "tag");
+    }
+  }
+}
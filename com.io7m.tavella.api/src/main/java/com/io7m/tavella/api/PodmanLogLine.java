@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A single line of container log output.
+ *
+ * @param timestamp The time the line was logged, if timestamps were requested
+ * @param text      The text of the line, without a trailing newline
+ * @param stream    The stream to which the line was written
+ */
+
+public record PodmanLogLine(
+  Optional<OffsetDateTime> timestamp,
+  String text,
+  PodmanLogStream stream)
+{
+  /**
+   * A single line of container log output.
+   *
+   * @param timestamp The time the line was logged, if timestamps were requested
+   * @param text      The text of the line, without a trailing newline
+   * @param stream    The stream to which the line was written
+   */
+
+  public PodmanLogLine
+  {
+    Objects.requireNonNull(timestamp, "timestamp");
+    Objects.requireNonNull(text, "text");
+    Objects.requireNonNull(stream, "stream");
+  }
+
+  /**
+   * A single line of container log output written to standard output.
+   *
+   * @param inTimestamp The time the line was logged, if timestamps were
+   *                    requested
+   * @param inText      The text of the line, without a trailing newline
+   */
+
+  public PodmanLogLine(
+    final Optional<OffsetDateTime> inTimestamp,
+    final String inText)
+  {
+    this(inTimestamp, inText, PodmanLogStream.OUTPUT);
+  }
+}
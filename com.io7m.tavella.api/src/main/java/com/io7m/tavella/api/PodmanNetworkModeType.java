@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The network modes of a container.
+ *
+ * @see "podman run --network"
+ */
+
+public sealed interface PodmanNetworkModeType
+{
+  /**
+   * Use the network namespace of the host. No network setup is performed,
+   * and the container has the full throughput of the host network.
+   */
+
+  record Host()
+    implements PodmanNetworkModeType
+  {
+
+  }
+
+  /**
+   * Create a network namespace containing only a loopback interface. No
+   * network setup is performed, making this the cheapest mode for
+   * containers that do not require network access.
+   */
+
+  record None()
+    implements PodmanNetworkModeType
+  {
+
+  }
+
+  /**
+   * Use {@code pasta} for user-mode networking.
+   *
+   * @param options The options passed to {@code pasta}
+   */
+
+  record Pasta(
+    List<String> options)
+    implements PodmanNetworkModeType
+  {
+    /**
+     * Use {@code pasta} for user-mode networking.
+     */
+
+    public Pasta
+    {
+      options = List.copyOf(options);
+    }
+  }
+
+  /**
+   * Use {@code slirp4netns} for user-mode networking.
+   *
+   * @param options The options passed to {@code slirp4netns} (such as
+   *                "mtu=65520" or "port_handler=slirp4netns")
+   */
+
+  record Slirp4netns(
+    List<String> options)
+    implements PodmanNetworkModeType
+  {
+    /**
+     * Use {@code slirp4netns} for user-mode networking.
+     */
+
+    public Slirp4netns
+    {
+      options = List.copyOf(options);
+    }
+  }
+
+  /**
+   * Connect the container to one or more named networks.
+   *
+   * @param networks The network names
+   */
+
+  record Named(
+    List<String> networks)
+    implements PodmanNetworkModeType
+  {
+    /**
+     * Connect the container to one or more named networks.
+     */
+
+    public Named
+    {
+      networks = List.copyOf(networks);
+      if (networks.isEmpty()) {
+        throw new IllegalArgumentException(
+          "At least one network must be specified.");
+      }
+    }
+  }
+
+  /**
+   * Join the network namespace of another container.
+   *
+   * @param container The container name or ID
+   */
+
+  record Container(
+    String container)
+    implements PodmanNetworkModeType
+  {
+    /**
+     * Join the network namespace of another container.
+     */
+
+    public Container
+    {
+      Objects.requireNonNull(container, "container");
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Build an image. The result of the query is the ID of the new image.
+ *
+ * @see "podman build"
+ */
+
+public interface PodmanProcessBuildBuilderType
+  extends PodmanProcessQueryBuilderType<String>
+{
+  /**
+   * @param context The build context directory
+   *
+   * @return this
+   */
+
+  PodmanProcessBuildBuilderType setContext(
+    Path context);
+
+  /**
+   * @param file The Containerfile, if not the one in the build context
+   *
+   * @return this
+   *
+   * @see "--file"
+   */
+
+  PodmanProcessBuildBuilderType setContainerfile(
+    Path file);
+
+  /**
+   * @param name  The build argument name
+   * @param value The build argument value
+   *
+   * @return this
+   *
+   * @see "--build-arg"
+   */
+
+  PodmanProcessBuildBuilderType addBuildArgument(
+    String name,
+    String value);
+
+  /**
+   * Add a name for the new image. The image must not carry a digest.
+   *
+   * @param image The image name
+   *
+   * @return this
+   *
+   * @see "--tag"
+   */
+
+  PodmanProcessBuildBuilderType addTag(
+    PodmanImage image);
+
+  /**
+   * @param name  The label name
+   * @param value The label value
+   *
+   * @return this
+   *
+   * @see "--label"
+   */
+
+  PodmanProcessBuildBuilderType addLabel(
+    String name,
+    String value);
+
+  /**
+   * @param target The name of the build stage to build
+   *
+   * @return this
+   *
+   * @see "--target"
+   */
+
+  PodmanProcessBuildBuilderType setTarget(
+    String target);
+
+  /**
+   * @param layers {@code true} if intermediate images should be kept and
+   *               used as a cache for later builds
+   *
+   * @return this
+   *
+   * @see "--layers"
+   */
+
+  PodmanProcessBuildBuilderType setLayers(
+    boolean layers);
+
+  /**
+   * @param noCache {@code true} if cached intermediate images must not be
+   *                used
+   *
+   * @return this
+   *
+   * @see "--no-cache"
+   */
+
+  PodmanProcessBuildBuilderType setNoCache(
+    boolean noCache);
+
+  /**
+   * @param repository A repository from which cached layers can be pulled
+   *
+   * @return this
+   *
+   * @see "--cache-from"
+   */
+
+  PodmanProcessBuildBuilderType addCacheFrom(
+    String repository);
+
+  /**
+   * Set the policy that determines whether base images are pulled.
+   *
+   * @param policy The pull policy
+   *
+   * @return this
+   *
+   * @see "--pull"
+   */
+
+  PodmanProcessBuildBuilderType setPullPolicy(
+    PodmanPullPolicy policy);
+
+  /**
+   * Calculate a digest of the inputs of the build: a Merkle digest of the
+   * contents of the build context, the contents of the Containerfile, and
+   * the build arguments, labels, tags, target, and pull policy. Options
+   * that only affect how the build is performed (such as the cache options)
+   * are not included. The digest does not depend on the location of the
+   * build context, and so identical checkouts in different directories
+   * produce identical digests.
+   *
+   * <p>Base images are identified only by the references written in the
+   * Containerfile, and the images that those references currently resolve
+   * to are not included. The digest therefore assumes that base image
+   * references are immutable (for example, that they are pinned by
+   * digest).</p>
+   *
+   * @return The build digest as a hex string
+   *
+   * @throws IOException On errors reading the build context
+   */
+
+  String buildDigest()
+    throws IOException;
+
+  /**
+   * Build the image, or reuse an existing image that was built from
+   * identical inputs. Images built by this method are labelled with
+   * {@link PodmanLabels#BUILD_DIGEST} so that subsequent calls can find
+   * them with a single filtered {@code podman images}. When an image is
+   * reused, the requested tags are applied to it again with
+   * {@code podman tag}.
+   *
+   * <p>An image is reused even if its base images have since been updated,
+   * and even if the pull policy would pull newer base images; see
+   * {@link #buildDigest()}. Use {@link #executeQuery()} to build
+   * unconditionally.</p>
+   *
+   * @return The built or reused image
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   * @see #buildDigest()
+   */
+
+  PodmanImageBuilt buildOrReuse()
+    throws IOException, InterruptedException;
+}
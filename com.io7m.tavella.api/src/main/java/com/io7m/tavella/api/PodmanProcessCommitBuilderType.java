@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+/**
+ * Create an image from the changes made in a container. The result of the
+ * query is the ID of the new image.
+ *
+ * @see "podman commit"
+ */
+
+public interface PodmanProcessCommitBuilderType
+  extends PodmanProcessQueryBuilderType<String>
+{
+  /**
+   * @param container The name or ID of the container
+   *
+   * @return this
+   */
+
+  PodmanProcessCommitBuilderType setContainer(
+    String container);
+
+  /**
+   * Set the name of the new image. The image must not carry a digest.
+   *
+   * @param image The image name
+   *
+   * @return this
+   */
+
+  PodmanProcessCommitBuilderType setImage(
+    PodmanImage image);
+
+  /**
+   * Add a change to apply to the configuration of the new image, such as
+   * {@code CMD ["/bin/sh"]}.
+   *
+   * @param change The change, in the syntax of a {@code Containerfile}
+   *               instruction
+   *
+   * @return this
+   *
+   * @see "--change"
+   */
+
+  PodmanProcessCommitBuilderType addChange(
+    String change);
+
+  /**
+   * @param pause {@code true} if the container should be paused while the
+   *              image is created
+   *
+   * @return this
+   *
+   * @see "--pause"
+   */
+
+  PodmanProcessCommitBuilderType setPause(
+    boolean pause);
+}
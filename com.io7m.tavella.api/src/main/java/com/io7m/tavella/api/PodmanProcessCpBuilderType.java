@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+/**
+ * Copy files between a container and the host. A source of {@code "-"}
+ * reads a tar archive from the standard input of the process, and a
+ * destination of {@code "-"} writes a tar archive to the standard output
+ * of the process.
+ *
+ * @see "podman cp"
+ */
+
+public interface PodmanProcessCpBuilderType
+  extends PodmanProcessBuilderType
+{
+  /**
+   * @param source The source, such as {@code "container:/path"},
+   *               {@code "/host/path"}, or {@code "-"}
+   *
+   * @return this
+   */
+
+  PodmanProcessCpBuilderType setSource(
+    String source);
+
+  /**
+   * @param destination The destination, such as
+   *                    {@code "container:/path"}, {@code "/host/path"},
+   *                    or {@code "-"}
+   *
+   * @return this
+   */
+
+  PodmanProcessCpBuilderType setDestination(
+    String destination);
+
+  /**
+   * @param archive {@code true} if the ownership of files should be
+   *                preserved
+   *
+   * @return this
+   *
+   * @see "--archive"
+   */
+
+  PodmanProcessCpBuilderType setArchive(
+    boolean archive);
+
+  /**
+   * @param overwrite {@code true} if directories may be replaced by
+   *                  non-directories and vice versa
+   *
+   * @return this
+   *
+   * @see "--overwrite"
+   */
+
+  PodmanProcessCpBuilderType setOverwrite(
+    boolean overwrite);
+}
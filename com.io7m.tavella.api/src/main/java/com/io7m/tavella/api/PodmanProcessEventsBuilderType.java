@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Retrieve past events. The command is always executed with
+ * {@code --stream=false}, and so returns once all events up to the
+ * present (or up to {@link #setUntil(OffsetDateTime)}) have been read.
+ *
+ * @see "podman events"
+ */
+
+public interface PodmanProcessEventsBuilderType
+  extends PodmanProcessQueryBuilderType<List<PodmanEvent>>
+{
+  /**
+   * @param since Only show events at or after the given time
+   *
+   * @return this
+   *
+   * @see "--since"
+   */
+
+  PodmanProcessEventsBuilderType setSince(
+    OffsetDateTime since);
+
+  /**
+   * @param until Only show events before the given time
+   *
+   * @return this
+   *
+   * @see "--until"
+   */
+
+  PodmanProcessEventsBuilderType setUntil(
+    OffsetDateTime until);
+
+  /**
+   * Add a filter such as {@code type=container} or {@code event=start}.
+   *
+   * @param name  The filter name
+   * @param value The filter value
+   *
+   * @return this
+   *
+   * @see "--filter"
+   */
+
+  PodmanProcessEventsBuilderType addFilter(
+    String name,
+    String value);
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.List;
+
+/**
+ * Inspect one or more local images. Images that do not exist are omitted
+ * from the results rather than causing the whole query to fail. Inspecting
+ * images never contacts a registry.
+ *
+ * @see "podman image inspect"
+ */
+
+public interface PodmanProcessImageInspectBuilderType
+  extends PodmanProcessQueryBuilderType<List<PodmanImageInspection>>
+{
+  /**
+   * Add an image to be inspected.
+   *
+   * @param image The image name or ID
+   *
+   * @return this
+   */
+
+  PodmanProcessImageInspectBuilderType addImage(
+    String image);
+}
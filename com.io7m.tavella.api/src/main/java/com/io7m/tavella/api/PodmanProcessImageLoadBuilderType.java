@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Load images from an archive. The archive is read by {@code podman}
+ * directly, and so its contents never pass through the JVM. The result is
+ * the list of names (or IDs, for untagged images) of the loaded images.
+ *
+ * @see "podman image load"
+ */
+
+public interface PodmanProcessImageLoadBuilderType
+  extends PodmanProcessQueryBuilderType<List<String>>
+{
+  /**
+   * @param archive The archive file, which may be compressed
+   *
+   * @return this
+   *
+   * @see "--input"
+   */
+
+  PodmanProcessImageLoadBuilderType setInput(
+    Path archive);
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.nio.file.Path;
+
+/**
+ * Save one or more images to an archive. The archive is written by
+ * {@code podman} directly, and so its contents never pass through the JVM.
+ * The result is the size of the written archive in bytes.
+ *
+ * @see "podman image save"
+ */
+
+public interface PodmanProcessImageSaveBuilderType
+  extends PodmanProcessQueryBuilderType<Long>
+{
+  /**
+   * Add an image to be saved. Saving more than one image requires the
+   * {@link PodmanImageArchiveFormat#DOCKER_ARCHIVE} format.
+   *
+   * @param image The image name or ID
+   *
+   * @return this
+   */
+
+  PodmanProcessImageSaveBuilderType addImage(
+    String image);
+
+  /**
+   * @param format The archive format
+   *
+   * @return this
+   *
+   * @see "--format"
+   */
+
+  PodmanProcessImageSaveBuilderType setFormat(
+    PodmanImageArchiveFormat format);
+
+  /**
+   * @param archive The archive file
+   *
+   * @return this
+   *
+   * @see "--output"
+   */
+
+  PodmanProcessImageSaveBuilderType setOutput(
+    Path archive);
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.List;
+
+/**
+ * List local images.
+ *
+ * @see "podman images"
+ */
+
+public interface PodmanProcessImagesBuilderType
+  extends PodmanProcessQueryBuilderType<List<PodmanImageSummary>>
+{
+  /**
+   * @param all {@code true} if intermediate images should be listed
+   *
+   * @return this
+   *
+   * @see "--all"
+   */
+
+  PodmanProcessImagesBuilderType setAll(
+    boolean all);
+
+  /**
+   * Add a filter such as {@code label=x=y} or {@code dangling=true}.
+   *
+   * @param name  The filter name
+   * @param value The filter value
+   *
+   * @return this
+   *
+   * @see "--filter"
+   */
+
+  PodmanProcessImagesBuilderType addFilter(
+    String name,
+    String value);
+}
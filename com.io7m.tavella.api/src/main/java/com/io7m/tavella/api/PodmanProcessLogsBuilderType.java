@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Retrieve the logs of a container. Both the container's standard output
+ * and standard error are returned, with each line tagged with the
+ * {@link PodmanLogStream} from which it was read. {@code podman} writes the
+ * container's standard error to its own error stream, and so any
+ * diagnostics produced by {@code podman} itself are also returned as
+ * {@link PodmanLogStream#ERROR} lines. The two streams are read
+ * concurrently; {@link #executeQuery()} returns lines in timestamp order
+ * when timestamps are requested. Lines longer than the configured maximum
+ * are truncated rather than buffered without limit.
+ *
+ * @see "podman logs"
+ */
+
+public interface PodmanProcessLogsBuilderType
+  extends PodmanProcessQueryBuilderType<List<PodmanLogLine>>
+{
+  /**
+   * @param container The container name or ID
+   *
+   * @return this
+   */
+
+  PodmanProcessLogsBuilderType setContainer(
+    String container);
+
+  /**
+   * @param since Only show lines logged at or after the given time
+   *
+   * @return this
+   *
+   * @see "--since"
+   */
+
+  PodmanProcessLogsBuilderType setSince(
+    OffsetDateTime since);
+
+  /**
+   * @param until Only show lines logged before the given time
+   *
+   * @return this
+   *
+   * @see "--until"
+   */
+
+  PodmanProcessLogsBuilderType setUntil(
+    OffsetDateTime until);
+
+  /**
+   * @param lines Only show the last {@code lines} lines
+   *
+   * @return this
+   *
+   * @see "--tail"
+   */
+
+  PodmanProcessLogsBuilderType setTail(
+    long lines);
+
+  /**
+   * @param follow {@code true} if the logs should be followed until the
+   *               container exits
+   *
+   * @return this
+   *
+   * @see "--follow"
+   */
+
+  PodmanProcessLogsBuilderType setFollow(
+    boolean follow);
+
+  /**
+   * @param timestamps {@code true} if lines should include timestamps
+   *
+   * @return this
+   *
+   * @see "--timestamps"
+   */
+
+  PodmanProcessLogsBuilderType setTimestamps(
+    boolean timestamps);
+
+  /**
+   * @param length The maximum length in bytes of a single line; longer
+   *               lines are truncated
+   *
+   * @return this
+   */
+
+  PodmanProcessLogsBuilderType setMaximumLineLength(
+    int length);
+
+  /**
+   * Execute the command, passing each line to the given receiver as soon
+   * as it is read. This is the means by which {@link #setFollow(boolean)}
+   * should be consumed, as {@link #executeQuery()} cannot return until the
+   * container exits. The process is always started directly, even if the
+   * configuration specifies a {@link PodmanLauncherType}, as launchers
+   * cannot stream output.
+   *
+   * @param receiver The line receiver
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  void stream(
+    Consumer<PodmanLogLine> receiver)
+    throws IOException, InterruptedException;
+}
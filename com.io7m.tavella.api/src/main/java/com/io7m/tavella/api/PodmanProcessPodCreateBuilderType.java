@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.Set;
+
+/**
+ * Create a pod. Containers started in the pod with
+ * {@link PodmanProcessRunBuilderType#setPod(String)} join the namespaces
+ * shared by the pod, and so the cost of creating those namespaces (in
+ * particular, of setting up the network) is paid once per pod rather than
+ * once per container. The result of the query is the ID of the new pod.
+ *
+ * @see "podman pod create"
+ */
+
+public interface PodmanProcessPodCreateBuilderType
+  extends PodmanProcessQueryBuilderType<String>
+{
+  /**
+   * @param name The pod name
+   *
+   * @return this
+   *
+   * @see "--name"
+   */
+
+  PodmanProcessPodCreateBuilderType setName(
+    String name);
+
+  /**
+   * Add a label to the pod.
+   *
+   * @param name  The label name
+   * @param value The label value
+   *
+   * @return this
+   *
+   * @see "--label"
+   */
+
+  PodmanProcessPodCreateBuilderType addLabel(
+    String name,
+    String value);
+
+  /**
+   * Set the namespaces shared between the containers of the pod. An
+   * empty set shares no namespaces.
+   *
+   * @param namespaces The namespaces
+   *
+   * @return this
+   *
+   * @see "--share"
+   */
+
+  PodmanProcessPodCreateBuilderType setShare(
+    Set<PodmanPodNamespace> namespaces);
+
+  /**
+   * @param infra {@code true} if the pod should have an infra container
+   *              holding its namespaces open
+   *
+   * @return this
+   *
+   * @see "--infra"
+   */
+
+  PodmanProcessPodCreateBuilderType setInfra(
+    boolean infra);
+
+  /**
+   * @param image The image used for the infra container
+   *
+   * @return this
+   *
+   * @see "--infra-image"
+   */
+
+  PodmanProcessPodCreateBuilderType setInfraImage(
+    PodmanImage image);
+
+  /**
+   * @param network The network mode of the pod
+   *
+   * @return this
+   *
+   * @see "--network"
+   */
+
+  PodmanProcessPodCreateBuilderType setNetwork(
+    PodmanNetworkModeType network);
+
+  /**
+   * @param cpus The number of CPUs available to the pod
+   *
+   * @return this
+   *
+   * @see "--cpus"
+   */
+
+  PodmanProcessPodCreateBuilderType setCPUs(
+    double cpus);
+
+  /**
+   * @param bytes The memory limit of the pod in bytes
+   *
+   * @return this
+   *
+   * @see "--memory"
+   */
+
+  PodmanProcessPodCreateBuilderType setMemoryLimit(
+    long bytes);
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Stop one or more pods. The result of the query is the list of stopped
+ * pod IDs.
+ *
+ * @see "podman pod stop"
+ */
+
+public interface PodmanProcessPodStopBuilderType
+  extends PodmanProcessQueryBuilderType<List<String>>
+{
+  /**
+   * Add a pod to be stopped.
+   *
+   * @param pod The pod name or ID
+   *
+   * @return this
+   */
+
+  PodmanProcessPodStopBuilderType addPod(
+    String pod);
+
+  /**
+   * @param ignore {@code true} if missing pods should be ignored
+   *
+   * @return this
+   *
+   * @see "--ignore"
+   */
+
+  PodmanProcessPodStopBuilderType setIgnoreMissing(
+    boolean ignore);
+
+  /**
+   * @param time The time to wait for containers to stop before killing them
+   *
+   * @return this
+   *
+   * @see "--time"
+   */
+
+  PodmanProcessPodStopBuilderType setStopTimeout(
+    Duration time);
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.List;
+
+/**
+ * List containers. Filters are passed to {@code podman} so that filtering
+ * happens before any output is produced. Container sizes are not computed
+ * unless explicitly requested, as doing so requires {@code podman} to
+ * examine the storage of every listed container.
+ *
+ * @see "podman ps"
+ */
+
+public interface PodmanProcessPsBuilderType
+  extends PodmanProcessQueryBuilderType<List<PodmanContainerSummary>>
+{
+  /**
+   * @param all {@code true} if stopped containers should be listed
+   *
+   * @return this
+   *
+   * @see "--all"
+   */
+
+  PodmanProcessPsBuilderType setAll(
+    boolean all);
+
+  /**
+   * Add a filter.
+   *
+   * @param filter The filter
+   *
+   * @return this
+   *
+   * @see "--filter"
+   */
+
+  PodmanProcessPsBuilderType addFilter(
+    PodmanContainerFilterType filter);
+
+  /**
+   * @param size {@code true} if container sizes should be computed
+   *
+   * @return this
+   *
+   * @see "--size"
+   */
+
+  PodmanProcessPsBuilderType setIncludeSize(
+    boolean size);
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.List;
+
+/**
+ * Remove images. The result of the query is the list of deleted image IDs.
+ * Images used by containers are not removed unless forced.
+ *
+ * @see "podman rmi"
+ */
+
+public interface PodmanProcessRmiBuilderType
+  extends PodmanProcessQueryBuilderType<List<String>>
+{
+  /**
+   * Add an image to be removed.
+   *
+   * @param image The image name or ID
+   *
+   * @return this
+   */
+
+  PodmanProcessRmiBuilderType addImage(
+    String image);
+
+  /**
+   * @param force {@code true} if containers using the images should be
+   *              removed along with the images
+   *
+   * @return this
+   *
+   * @see "--force"
+   */
+
+  PodmanProcessRmiBuilderType setForce(
+    boolean force);
+
+  /**
+   * @param ignore {@code true} if missing images should be ignored
+   *
+   * @return this
+   *
+   * @see "--ignore"
+   */
+
+  PodmanProcessRmiBuilderType setIgnoreMissing(
+    boolean ignore);
+}
@@ -17,6 +17,8 @@
 
 package com.io7m.tavella.api;
 
+import java.io.IOException;
+
 /**
  * @see "podman run"
  */
@@ -124,18 +126,20 @@ public interface PodmanProcessRunBuilderType
     PodmanVolumeMount volumeMount);
 
   /**
-   * Add a volume mount
+   * Add a tmpfs mount
    *
-   * @param mount The volume mount
+   * @param mount The tmpfs mount
    *
    * @return this
+   *
+   * @see "--tmpfs"
    */
 
   PodmanProcessRunBuilderType addTmpFS(
     PodmanTmpFSMount mount);
 
   /**
-   * @param pod The pod image
+   * @param pod The name or ID of the pod in which to run the container
    *
    * @return this
    *
@@ -144,4 +148,143 @@ public interface PodmanProcessRunBuilderType
 
   PodmanProcessRunBuilderType setPod(
     String pod);
+
+  /**
+   * @param name  The label name
+   * @param value The label value
+   *
+   * @return this
+   *
+   * @see "--label"
+   */
+
+  PodmanProcessRunBuilderType addLabel(
+    String name,
+    String value);
+
+  /**
+   * @param detach {@code true} if the container should run in the background
+   *
+   * @return this
+   *
+   * @see "--detach"
+   */
+
+  PodmanProcessRunBuilderType setDetach(
+    boolean detach);
+
+  /**
+   * Set the log driver. The {@link PodmanLogDriverType.Passthrough} driver
+   * cannot be combined with detached containers, and so cannot be used
+   * with {@link #setDetach(boolean)} or {@link #startOrReuse()}.
+   *
+   * @param driver The log driver
+   *
+   * @return this
+   *
+   * @see "--log-driver"
+   * @see "--log-opt"
+   */
+
+  PodmanProcessRunBuilderType setLogDriver(
+    PodmanLogDriverType driver);
+
+  /**
+   * Set the network mode.
+   *
+   * @param network The network mode
+   *
+   * @return this
+   *
+   * @see "--network"
+   */
+
+  PodmanProcessRunBuilderType setNetwork(
+    PodmanNetworkModeType network);
+
+  /**
+   * Set the IPC namespace mode.
+   *
+   * @param ipc The IPC namespace mode
+   *
+   * @return this
+   *
+   * @see "--ipc"
+   */
+
+  PodmanProcessRunBuilderType setIPC(
+    PodmanIPCModeType ipc);
+
+  /**
+   * Set the size of {@code /dev/shm} in the container.
+   *
+   * @param bytes The size in bytes
+   *
+   * @return this
+   *
+   * @see "--shm-size"
+   */
+
+  PodmanProcessRunBuilderType setShmSize(
+    long bytes);
+
+  /**
+   * Set the policy that determines whether the image is pulled before the
+   * container is started.
+   *
+   * @param policy The pull policy
+   *
+   * @return this
+   *
+   * @see "--pull"
+   */
+
+  PodmanProcessRunBuilderType setPullPolicy(
+    PodmanPullPolicy policy);
+
+  /**
+   * Calculate a hash of the complete specification of the container
+   * (image, environment, mounts, tmpfs mounts, labels, options, and
+   * arguments). Two builders with the same hash would start identical
+   * containers.
+   *
+   * @return The hash of the container specification as a hex string
+   */
+
+  String specHash();
+
+  /**
+   * Start the container in the background, or reuse an existing running
+   * container that was started with an identical specification. Containers
+   * started by this method are labelled with {@link PodmanLabels#SPEC_HASH}
+   * so that subsequent calls can find them with a single filtered
+   * {@code podman ps}.
+   *
+   * @return The started or reused container
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   * @see #specHash()
+   */
+
+  PodmanContainerStarted startOrReuse()
+    throws IOException, InterruptedException;
+
+  /**
+   * Start the container and record the timing of its startup. The
+   * container is labelled with a unique {@link PodmanLabels#RUN_ID} so that
+   * the {@code podman} events that it produces can be found once the
+   * process has exited. As with {@link #build()}, the caller is responsible
+   * for consuming the output of the returned process, and so the process is
+   * always started directly, even if the configuration specifies a
+   * {@link PodmanLauncherType}.
+   *
+   * @return The running process
+   *
+   * @throws IOException On errors
+   * @see PodmanRunTiming
+   */
+
+  PodmanTimedRunType startTimed()
+    throws IOException;
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+/**
+ * Create a named volume. The result of the query is the name of the
+ * volume.
+ *
+ * @see "podman volume create"
+ */
+
+public interface PodmanProcessVolumeCreateBuilderType
+  extends PodmanProcessQueryBuilderType<String>
+{
+  /**
+   * @param name The volume name
+   *
+   * @return this
+   */
+
+  PodmanProcessVolumeCreateBuilderType setName(
+    String name);
+
+  /**
+   * @param driver The volume driver
+   *
+   * @return this
+   *
+   * @see "--driver"
+   */
+
+  PodmanProcessVolumeCreateBuilderType setDriver(
+    String driver);
+
+  /**
+   * @param name  The driver option name
+   * @param value The driver option value
+   *
+   * @return this
+   *
+   * @see "--opt"
+   */
+
+  PodmanProcessVolumeCreateBuilderType addOption(
+    String name,
+    String value);
+
+  /**
+   * @param name  The label name
+   * @param value The label value
+   *
+   * @return this
+   *
+   * @see "--label"
+   */
+
+  PodmanProcessVolumeCreateBuilderType addLabel(
+    String name,
+    String value);
+
+  /**
+   * @param ignore {@code true} if an existing volume with the same name
+   *               should be left unchanged instead of causing an error
+   *
+   * @return this
+   *
+   * @see "--ignore"
+   */
+
+  PodmanProcessVolumeCreateBuilderType setIgnoreExisting(
+    boolean ignore);
+}
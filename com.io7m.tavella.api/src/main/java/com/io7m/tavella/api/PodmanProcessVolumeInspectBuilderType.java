@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.List;
+
+/**
+ * Inspect one or more named volumes. Volumes that do not exist are omitted
+ * from the results rather than causing the whole query to fail.
+ *
+ * @see "podman volume inspect"
+ */
+
+public interface PodmanProcessVolumeInspectBuilderType
+  extends PodmanProcessQueryBuilderType<List<PodmanVolumeInspection>>
+{
+  /**
+   * Add a volume to be inspected.
+   *
+   * @param name The volume name
+   *
+   * @return this
+   */
+
+  PodmanProcessVolumeInspectBuilderType addVolume(
+    String name);
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.List;
+
+/**
+ * Remove named volumes. The result of the query is the list of removed
+ * volume names.
+ *
+ * @see "podman volume rm"
+ */
+
+public interface PodmanProcessVolumeRmBuilderType
+  extends PodmanProcessQueryBuilderType<List<String>>
+{
+  /**
+   * Add a volume to be removed.
+   *
+   * @param name The volume name
+   *
+   * @return this
+   */
+
+  PodmanProcessVolumeRmBuilderType addVolume(
+    String name);
+
+  /**
+   * @param force {@code true} if containers using the volumes should be
+   *              removed along with the volumes
+   *
+   * @return this
+   *
+   * @see "--force"
+   */
+
+  PodmanProcessVolumeRmBuilderType setForce(
+    boolean force);
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A policy for retrying failed {@code podman} commands. The delay before
+ * retry {@code n} (counting from 1) is
+ * {@code min(maximumDelay, initialDelay * multiplier^(n - 1))}, reduced by
+ * a random fraction of at most {@code jitter} so that many callers that
+ * failed at the same moment do not all retry at the same moment.
+ *
+ * @param maximumAttempts The maximum number of attempts (including the first)
+ * @param initialDelay    The delay before the first retry (non-negative)
+ * @param maximumDelay    The maximum delay between attempts (at least {@code initialDelay})
+ * @param multiplier      The factor by which the delay grows on each retry
+ * @param jitter          The maximum fraction of the delay that is removed at random, in {@code [0, 1]}
+ * @param retryable       The kinds of errors that are retried
+ */
+
+public record PodmanRetryPolicy(
+  int maximumAttempts,
+  Duration initialDelay,
+  Duration maximumDelay,
+  double multiplier,
+  double jitter,
+  Set<PodmanErrorKind> retryable)
+{
+  /**
+   * A policy for retrying failed {@code podman} commands.
+   *
+   * @param maximumAttempts The maximum number of attempts (including the first)
+   * @param initialDelay    The delay before the first retry (non-negative)
+   * @param maximumDelay    The maximum delay between attempts (at least {@code initialDelay})
+   * @param multiplier      The factor by which the delay grows on each retry
+   * @param jitter          The maximum fraction of the delay that is removed at random, in {@code [0, 1]}
+   * @param retryable       The kinds of errors that are retried
+   */
+
+  public PodmanRetryPolicy
+  {
+    Objects.requireNonNull(initialDelay, "initialDelay");
+    Objects.requireNonNull(maximumDelay, "maximumDelay");
+    retryable = Set.copyOf(retryable);
+
+    if (initialDelay.isNegative()) {
+      throw new IllegalArgumentException(
+        "Initial delay must be non-negative: %s".formatted(initialDelay)
+      );
+    }
+    if (maximumDelay.compareTo(initialDelay) < 0) {
+      throw new IllegalArgumentException(
+        "Maximum delay %s must not be less than the initial delay %s"
+          .formatted(maximumDelay, initialDelay)
+      );
+    }
+    if (maximumAttempts < 1) {
+      throw new IllegalArgumentException(
+        "Maximum attempts must be positive: %d"
+          .formatted(Integer.valueOf(maximumAttempts))
+      );
+    }
+    if (multiplier < 1.0) {
+      throw new IllegalArgumentException(
+        "Multiplier must be at least 1.0: %f"
+          .formatted(Double.valueOf(multiplier))
+      );
+    }
+    if (jitter < 0.0 || jitter > 1.0) {
+      throw new IllegalArgumentException(
+        "Jitter must be in the range [0, 1]: %f"
+          .formatted(Double.valueOf(jitter))
+      );
+    }
+  }
+
+  /**
+   * A default policy that retries the transient error kinds up to five
+   * times, starting at 100ms and doubling up to 5s, with 50% jitter.
+   *
+   * @return The default policy
+   */
+
+  public static PodmanRetryPolicy defaults()
+  {
+    final var kinds = EnumSet.noneOf(PodmanErrorKind.class);
+    for (final var kind : PodmanErrorKind.values()) {
+      if (kind.isTransient()) {
+        kinds.add(kind);
+      }
+    }
+
+    return new PodmanRetryPolicy(
+      5,
+      Duration.ofMillis(100L),
+      Duration.ofSeconds(5L),
+      2.0,
+      0.5,
+      kinds
+    );
+  }
+
+  /**
+   * Calculate the delay before the given retry, before jitter is applied.
+   *
+   * @param retry The retry number, starting at 1
+   *
+   * @return The delay
+   */
+
+  public Duration delayBefore(
+    final int retry)
+  {
+    final var base =
+      (double) this.initialDelay.toNanos()
+      * Math.pow(this.multiplier, Math.max(0, retry - 1));
+    final var capped =
+      Math.min(base, (double) this.maximumDelay.toNanos());
+    return Duration.ofNanos((long) capped);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.Objects;
+
+/**
+ * The phases of a single {@code podman run}, in the order in which they
+ * occur.
+ *
+ * @see PodmanRunTiming
+ */
+
+public enum PodmanRunPhase
+{
+  /**
+   * The JVM creating the {@code podman} process.
+   */
+
+  SPAWN("spawn"),
+
+  /**
+   * From the process being created to the container being created. This
+   * covers {@code podman} startup, image resolution, and container
+   * creation.
+   */
+
+  CREATE("create"),
+
+  /**
+   * From the container being created to the container being initialized.
+   * This covers storage mounting, network setup, and the creation of the
+   * container by the OCI runtime.
+   */
+
+  INIT("init"),
+
+  /**
+   * From the container being initialized to the container being started.
+   * This covers conmon and the OCI runtime starting the container process.
+   */
+
+  START("start"),
+
+  /**
+   * From the container being started to the container process exiting.
+   */
+
+  WORKLOAD("workload"),
+
+  /**
+   * From the container process exiting to the {@code podman} process
+   * exiting, as observed by the JVM. This covers container cleanup.
+   */
+
+  EXIT("exit");
+
+  private final String tag;
+
+  PodmanRunPhase(
+    final String inTag)
+  {
+    this.tag = Objects.requireNonNull(inTag, "tag");
+  }
+
+  /**
+   * @return The phase name
+   */
+
+  public String tag()
+  {
+    return this.tag;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The timing of a single {@code podman run}. The spawn and exit times are
+ * taken by the JVM; the remaining times are taken from {@code podman}
+ * events for the container, and are absent if the corresponding event was
+ * not observed (for example, a detached container has not died by the time
+ * the {@code podman} process exits).
+ *
+ * @param runId          The unique run ID
+ * @param containerId    The container ID, if a container event was observed
+ * @param spawnRequested The time the JVM began creating the process
+ * @param spawned        The time the JVM finished creating the process
+ * @param created        The time of the container "create" event
+ * @param initialized    The time of the container "init" event
+ * @param started        The time of the container "start" event
+ * @param died           The time of the container "died" event
+ * @param exited         The time the JVM observed the process exit
+ */
+
+public record PodmanRunTiming(
+  String runId,
+  Optional<String> containerId,
+  Instant spawnRequested,
+  Instant spawned,
+  Optional<Instant> created,
+  Optional<Instant> initialized,
+  Optional<Instant> started,
+  Optional<Instant> died,
+  Instant exited)
+{
+  /**
+   * The timing of a single {@code podman run}.
+   *
+   * @param runId          The unique run ID
+   * @param containerId    The container ID, if a container event was observed
+   * @param spawnRequested The time the JVM began creating the process
+   * @param spawned        The time the JVM finished creating the process
+   * @param created        The time of the container "create" event
+   * @param initialized    The time of the container "init" event
+   * @param started        The time of the container "start" event
+   * @param died           The time of the container "died" event
+   * @param exited         The time the JVM observed the process exit
+   */
+
+  public PodmanRunTiming
+  {
+    Objects.requireNonNull(runId, "runId");
+    Objects.requireNonNull(containerId, "containerId");
+    Objects.requireNonNull(spawnRequested, "spawnRequested");
+    Objects.requireNonNull(spawned, "spawned");
+    Objects.requireNonNull(created, "created");
+    Objects.requireNonNull(initialized, "initialized");
+    Objects.requireNonNull(started, "started");
+    Objects.requireNonNull(died, "died");
+    Objects.requireNonNull(exited, "exited");
+  }
+
+  /**
+   * Determine the duration of the given phase. A phase has a duration only
+   * if the times at both its start and end were observed.
+   *
+   * @param phase The phase
+   *
+   * @return The duration of the phase, if known
+   */
+
+  public Optional<Duration> duration(
+    final PodmanRunPhase phase)
+  {
+    return switch (phase) {
+      case SPAWN -> between(Optional.of(this.spawnRequested), Optional.of(this.spawned));
+      case CREATE -> between(Optional.of(this.spawned), this.created);
+      case INIT -> between(this.created, this.initialized);
+      case START -> between(this.initialized, this.started);
+      case WORKLOAD -> between(this.started, this.died);
+      case EXIT -> between(this.died, Optional.of(this.exited));
+    };
+  }
+
+  private static Optional<Duration> between(
+    final Optional<Instant> start,
+    final Optional<Instant> end)
+  {
+    if (start.isEmpty() || end.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(Duration.between(start.get(), end.get()));
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.io.IOException;
+
+/**
+ * A {@code podman run} process whose startup is being timed.
+ *
+ * @see PodmanProcessRunBuilderType#startTimed()
+ */
+
+public interface PodmanTimedRunType
+{
+  /**
+   * @return The unique ID of the run
+   */
+
+  String runId();
+
+  /**
+   * @return The {@code podman} process
+   */
+
+  Process process();
+
+  /**
+   * Wait for the process to exit, and then retrieve the events for the
+   * container in order to produce a timing record.
+   *
+   * @return The timing of the run
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  PodmanRunTiming awaitTiming()
+    throws IOException, InterruptedException;
+}
@@ -19,27 +19,31 @@ package com.io7m.tavella.api;
 import java.math.BigInteger;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
 
 /**
  * Mount tmpfs volume at the given location in the container.
  *
  * @param containerPath The path inside the container
- * @param size          The size limit for the filesystem
+ * @param size          The size limit for the filesystem in bytes
  * @param options       The mount options
+ * @param mode          The permission bits of the filesystem root
  */
 
 public record PodmanTmpFSMount(
   String containerPath,
   Optional<BigInteger> size,
-  Set<PodmanTmpFSFlag> options)
+  Set<PodmanTmpFSFlag> options,
+  OptionalInt mode)
 {
   /**
    * Mount tmpfs volume at the given location in the container.
    *
    * @param containerPath The path inside the container
-   * @param size          The size limit for the filesystem
+   * @param size          The size limit for the filesystem in bytes
    * @param options       The mount options
+   * @param mode          The permission bits of the filesystem root
    */
 
   public PodmanTmpFSMount
@@ -47,5 +51,32 @@ public record PodmanTmpFSMount(
     Objects.requireNonNull(containerPath, "containerPath");
     Objects.requireNonNull(size, "size");
     options = Set.copyOf(options);
+    Objects.requireNonNull(mode, "mode");
+
+    if (size.isPresent() && size.get().signum() <= 0) {
+      throw new IllegalArgumentException("Size must be positive.");
+    }
+    if (mode.isPresent() && (mode.getAsInt() & ~07777) != 0) {
+      throw new IllegalArgumentException(
+        "Mode %o is not a valid permission mask.".formatted(
+          Integer.valueOf(mode.getAsInt())));
+    }
+  }
+
+  /**
+   * Mount tmpfs volume at the given location in the container, with the
+   * default permissions.
+   *
+   * @param inContainerPath The path inside the container
+   * @param inSize          The size limit for the filesystem in bytes
+   * @param inOptions       The mount options
+   */
+
+  public PodmanTmpFSMount(
+    final String inContainerPath,
+    final Optional<BigInteger> inSize,
+    final Set<PodmanTmpFSFlag> inOptions)
+  {
+    this(inContainerPath, inSize, inOptions, OptionalInt.empty());
   }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.api;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The details of a named volume, as shown by {@code podman volume inspect}.
+ *
+ * @param name       The volume name
+ * @param driver     The volume driver
+ * @param mountPoint The location of the volume on the host
+ * @param labels     The volume labels
+ * @param options    The driver options
+ */
+
+public record PodmanVolumeInspection(
+  String name,
+  String driver,
+  String mountPoint,
+  Map<String, String> labels,
+  Map<String, String> options)
+{
+  /**
+   * The details of a named volume, as shown by {@code podman volume inspect}.
+   *
+   * @param name       The volume name
+   * @param driver     The volume driver
+   * @param mountPoint The location of the volume on the host
+   * @param labels     The volume labels
+   * @param options    The driver options
+   */
+
+  public PodmanVolumeInspection
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(driver, "driver");
+    Objects.requireNonNull(mountPoint, "mountPoint");
+    labels = Map.copyOf(labels);
+    options = Map.copyOf(options);
+  }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.native_exec.internal.PNStreams;
+import com.io7m.tavella.native_exec.internal.PNTarExtractor;
+import com.io7m.tavella.native_exec.internal.PNTarReader;
+import com.io7m.tavella.native_exec.internal.PNTarWriter;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * File transfers between the host and containers that stream tar archives
+ * through {@code podman cp}, without writing archives to disk.
+ *
+ * <p>Copying a file tree into a container produces the archive
+ * incrementally while {@code podman cp - container:/path} reads it, and
+ * copying out of a container extracts the archive written by
+ * {@code podman cp container:/path -} as it arrives. Archives can also be
+ * supplied or received as channels. As with {@code cp -r}, copying
+ * {@code /a/b} into or out of a directory {@code /c} produces
+ * {@code /c/b}.</p>
+ *
+ * <p>Transfers can be performed concurrently from any number of threads,
+ * but at most the configured number of transfers run at the same time for
+ * any one container; further transfers wait. Transfers always run
+ * {@code podman} directly, even if the executable configuration specifies
+ * a launcher, as launchers cannot stream input and output.</p>
+ */
+
+public final class PodmanFileTransfer
+{
+  private final PodmanExecutableType executable;
+  private final int transfersPerContainer;
+  private final Map<String, Semaphore> permits;
+
+  private PodmanFileTransfer(
+    final PodmanExecutableType inExecutable,
+    final int inTransfersPerContainer)
+  {
+    this.executable =
+      Objects.requireNonNull(inExecutable, "executable");
+    this.transfersPerContainer =
+      inTransfersPerContainer;
+    this.permits =
+      new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Create a new transfer helper.
+   *
+   * @param executable            The podman executable
+   * @param transfersPerContainer The maximum number of transfers that can
+   *                              run concurrently for one container
+   *
+   * @return A new transfer helper
+   */
+
+  public static PodmanFileTransfer create(
+    final PodmanExecutableType executable,
+    final int transfersPerContainer)
+  {
+    Objects.requireNonNull(executable, "executable");
+
+    if (transfersPerContainer < 1) {
+      throw new IllegalArgumentException(
+        "Transfers per container must be positive: %d"
+          .formatted(Integer.valueOf(transfersPerContainer))
+      );
+    }
+    return new PodmanFileTransfer(executable, transfersPerContainer);
+  }
+
+  /**
+   * Copy a file or directory tree into a directory in a container.
+   *
+   * @param container     The container name or ID
+   * @param containerPath The destination directory in the container
+   * @param source        The file or directory on the host
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public void copyToContainer(
+    final String container,
+    final String containerPath,
+    final Path source)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(source, "source");
+
+    this.upload(container, containerPath, output -> {
+      try (var writer = new PNTarWriter(output)) {
+        writer.writeTree(source);
+      }
+    });
+  }
+
+  /**
+   * Copy several files or directory trees into a directory in a container,
+   * running the transfers in parallel (subject to the limit on concurrent
+   * transfers per container).
+   *
+   * @param container     The container name or ID
+   * @param containerPath The destination directory in the container
+   * @param sources       The files or directories on the host
+   *
+   * @throws IOException          On errors; if several transfers fail, the
+   *                              other failures are suppressed exceptions
+   *                              of the first
+   * @throws InterruptedException On interruption
+   */
+
+  public void copyAllToContainer(
+    final String container,
+    final String containerPath,
+    final List<Path> sources)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(sources, "sources");
+
+    final var threads =
+      Thread.ofVirtual()
+        .name("com.io7m.tavella.cp-", 0L)
+        .factory();
+
+    try (var executor = Executors.newThreadPerTaskExecutor(threads)) {
+      final var futures = new ArrayList<Future<Void>>(sources.size());
+      for (final var source : sources) {
+        futures.add(executor.submit(() -> {
+          this.copyToContainer(container, containerPath, source);
+          return null;
+        }));
+      }
+
+      IOException failure = null;
+      for (final var future : futures) {
+        try {
+          future.get();
+        } catch (final ExecutionException e) {
+          final var cause = asIOException(e.getCause());
+          if (failure == null) {
+            failure = cause;
+          } else {
+            failure.addSuppressed(cause);
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+
+  /**
+   * Copy a tar archive into a directory in a container. The archive is
+   * read from the channel until the end of the stream; the channel is not
+   * closed.
+   *
+   * @param container     The container name or ID
+   * @param containerPath The destination directory in the container
+   * @param archive       The archive
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public void copyToContainer(
+    final String container,
+    final String containerPath,
+    final ReadableByteChannel archive)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(archive, "archive");
+
+    this.upload(container, containerPath, output -> {
+      Channels.newInputStream(archive).transferTo(output);
+    });
+  }
+
+  /**
+   * Copy a file or directory tree out of a container into a directory on
+   * the host.
+   *
+   * @param container     The container name or ID
+   * @param containerPath The file or directory in the container
+   * @param destination   The destination directory on the host
+   *
+   * @return The number of extracted files, directories, and links
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public long copyFromContainer(
+    final String container,
+    final String containerPath,
+    final Path destination)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(destination, "destination");
+
+    return this.download(container, containerPath, input -> {
+      return PNTarExtractor.extract(new PNTarReader(input), destination);
+    }).longValue();
+  }
+
+  /**
+   * Copy a file or directory tree out of a container as a tar archive
+   * written to the given channel. The channel is not closed.
+   *
+   * @param container     The container name or ID
+   * @param containerPath The file or directory in the container
+   * @param archive       The channel receiving the archive
+   *
+   * @return The size of the archive in bytes
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public long copyFromContainer(
+    final String container,
+    final String containerPath,
+    final WritableByteChannel archive)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(archive, "archive");
+
+    return this.download(container, containerPath, input -> {
+      return input.transferTo(Channels.newOutputStream(archive));
+    }).longValue();
+  }
+
+  private void upload(
+    final String container,
+    final String containerPath,
+    final PNStreams.ProducerType producer)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(container, "container");
+    Objects.requireNonNull(containerPath, "containerPath");
+
+    final var processBuilder =
+      this.executable.cp()
+        .setSource("-")
+        .setDestination("%s:%s".formatted(container, containerPath))
+        .build();
+
+    final var semaphore = this.semaphoreFor(container);
+    semaphore.acquire();
+    try {
+      PNStreams.executeWithInput(processBuilder, producer);
+    } finally {
+      semaphore.release();
+    }
+  }
+
+  private <T> T download(
+    final String container,
+    final String containerPath,
+    final PNStreams.ConsumerType<T> consumer)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(container, "container");
+    Objects.requireNonNull(containerPath, "containerPath");
+
+    final var processBuilder =
+      this.executable.cp()
+        .setSource("%s:%s".formatted(container, containerPath))
+        .setDestination("-")
+        .build();
+
+    final var semaphore = this.semaphoreFor(container);
+    semaphore.acquire();
+    try {
+      return PNStreams.executeWithOutput(processBuilder, consumer);
+    } finally {
+      semaphore.release();
+    }
+  }
+
+  private Semaphore semaphoreFor(
+    final String container)
+  {
+    return this.permits.computeIfAbsent(
+      container,
+      c -> new Semaphore(this.transfersPerContainer, true)
+    );
+  }
+
+  private static IOException asIOException(
+    final Throwable e)
+  {
+    if (e instanceof final IOException io) {
+      return io;
+    }
+    return new IOException(e);
+  }
+}
@@ -0,0 +1,530 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanLaunchRequest;
+import com.io7m.tavella.api.PodmanLaunchResult;
+import com.io7m.tavella.api.PodmanLauncherType;
+import com.io7m.tavella.native_exec.internal.PNStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.ProcessBuilder.Redirect.DISCARD;
+import static java.lang.ProcessBuilder.Redirect.PIPE;
+
+/**
+ * A launcher that executes commands via a long-lived helper process.
+ *
+ * <p>Creating a process from a JVM with a large heap is comparatively
+ * expensive, and launches from many threads contend inside the JDK. The
+ * fork server is a small shell process started once; each command is sent
+ * to it over a pipe and it spawns the command itself, so the cost of a
+ * launch does not depend on the size of the JVM. For each command, the
+ * server creates a pair of named pipes in a private temporary directory
+ * and connects the standard output and error of the command to them; the
+ * output is read from the pipes as the command runs, and never touches the
+ * disk. The pipes are unlinked as soon as both ends are open. The server
+ * reports the exit code of each command when it completes.</p>
+ *
+ * <p>Commands are sent as an ID and argument count, followed by the
+ * working directory (or an empty line), followed by one argument per line.
+ * A command with its own environment is prefixed with
+ * {@code env -i NAME=VALUE ...}. Arguments, environment variables, and
+ * working directories therefore cannot contain newline or NUL characters,
+ * and such commands are rejected.</p>
+ *
+ * <p>Only commands whose output is collected in full are executed through
+ * the launcher; see {@link PodmanLauncherType} for the commands that are
+ * always started directly.</p>
+ */
+
+public final class PodmanForkServer implements PodmanLauncherType, AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PodmanForkServer.class);
+
+  /*
+   * For each command, the server creates the named pipes and reports
+   * "<id> +" before starting the command, or "<id> -" if the pipes could
+   * not be created. Opening a named pipe blocks until both ends are open,
+   * so the command does not start until this JVM has opened the pipes,
+   * which it does in the same order (output, then error).
+   *
+   * The command changes to its working directory (if any) inside the
+   * subshell, after the pipes are open, so that a failure to change
+   * directory is reported on the error stream of the command.
+   *
+   * Each command is started in a subshell that immediately exits, so that
+   * the command is reparented and reaped outside of the server, and the
+   * server never accumulates finished jobs. The status lines are short
+   * enough to be written atomically to the pipe.
+   */
+
+  private static final String SERVER_SCRIPT = """
+    d="$1"
+    mkfifo "$d/status" || exit 1
+    echo ready
+    exec > "$d/status"
+    while IFS=' ' read -r id argc; do
+      IFS= read -r cwd
+      set --
+      i=0
+      while [ "$i" -lt "$argc" ]; do
+        IFS= read -r a
+        set -- "$@" "$a"
+        i=$((i + 1))
+      done
+      if mkfifo "$d/$id.out" "$d/$id.err"; then
+        echo "$id +"
+        ( {
+          { [ -z "$cwd" ] || cd "$cwd" && "$@"; } < /dev/null > "$d/$id.out" 2> "$d/$id.err"
+          echo "$id $?"
+        } & )
+      else
+        echo "$id -"
+      fi
+    done
+    """;
+
+  private final Process server;
+  private final Path directory;
+  private final Writer input;
+  private final Map<Long, Pending> pending;
+  private final AtomicLong ids;
+  private final Object writeLock;
+  private volatile boolean closed;
+
+  private PodmanForkServer(
+    final Process inServer,
+    final Path inDirectory)
+  {
+    this.server =
+      Objects.requireNonNull(inServer, "server");
+    this.directory =
+      Objects.requireNonNull(inDirectory, "directory");
+    this.input =
+      new OutputStreamWriter(inServer.getOutputStream(), StandardCharsets.UTF_8);
+    this.pending =
+      new ConcurrentHashMap<>();
+    this.ids =
+      new AtomicLong();
+    this.writeLock =
+      new Object();
+  }
+
+  /**
+   * Start a new fork server.
+   *
+   * @return The fork server
+   *
+   * @throws IOException On errors
+   */
+
+  public static PodmanForkServer create()
+    throws IOException
+  {
+    final var directory =
+      Files.createTempDirectory("tavella-fork-");
+
+    final var process =
+      new ProcessBuilder("sh", "-c", SERVER_SCRIPT, "tavella-fork-server", directory.toString())
+        .redirectInput(PIPE)
+        .redirectOutput(PIPE)
+        .redirectError(DISCARD)
+        .start();
+
+    final FileInputStream status;
+    try {
+      status = openStatus(process, directory);
+    } catch (final IOException e) {
+      process.destroy();
+      throw e;
+    }
+
+    final var server = new PodmanForkServer(process, directory);
+    Thread.ofPlatform()
+      .daemon()
+      .name("com.io7m.tavella.fork-server")
+      .start(() -> server.readStatus(status));
+    return server;
+  }
+
+  private static FileInputStream openStatus(
+    final Process process,
+    final Path directory)
+    throws IOException
+  {
+    final var reader = new BufferedReader(
+      new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    if (!"ready".equals(reader.readLine())) {
+      deleteQuietly(directory);
+      throw new IOException("The fork server failed to start.");
+    }
+
+    final var file = directory.resolve("status");
+    final var status = new FileInputStream(file.toFile());
+    deleteQuietly(file);
+    return status;
+  }
+
+  private void readStatus(
+    final InputStream status)
+  {
+    try (var reader = new BufferedReader(
+      new InputStreamReader(status, StandardCharsets.UTF_8))) {
+      while (true) {
+        final var line = reader.readLine();
+        if (line == null) {
+          break;
+        }
+        this.onStatus(line);
+      }
+    } catch (final IOException e) {
+      LOG.debug("Fork server read failed: ", e);
+    }
+
+    final var failure = new IOException("The fork server has exited.");
+    for (final var request : List.copyOf(this.pending.values())) {
+      request.exitCode().completeExceptionally(failure);
+    }
+  }
+
+  private void onStatus(
+    final String line)
+  {
+    final var segments = line.split(" ", 2);
+    if (segments.length != 2) {
+      LOG.warn("Unparseable fork server output: {}", line);
+      return;
+    }
+
+    final long id;
+    try {
+      id = Long.parseLong(segments[0]);
+    } catch (final NumberFormatException e) {
+      LOG.warn("Unparseable fork server output: {}", line);
+      return;
+    }
+
+    final var request = this.pending.get(Long.valueOf(id));
+    if (request == null) {
+      return;
+    }
+
+    final var status = segments[1].trim();
+    switch (status) {
+      case "+" -> {
+        Thread.startVirtualThread(() -> this.collectOutput(id, request));
+      }
+      case "-" -> {
+        request.exitCode().completeExceptionally(
+          new IOException("The fork server could not create pipes for %s"
+                            .formatted(request.command())));
+      }
+      default -> {
+        try {
+          request.exitCode().complete(Integer.valueOf(status));
+        } catch (final NumberFormatException e) {
+          LOG.warn("Unparseable fork server output: {}", line);
+        }
+      }
+    }
+  }
+
+  private void collectOutput(
+    final long id,
+    final Pending request)
+  {
+    final var outFile = this.directory.resolve(id + ".out");
+    final var errFile = this.directory.resolve(id + ".err");
+
+    /*
+     * Named pipes are opened as plain file streams and read without
+     * readAllBytes(), as the channel-based streams of the Files class and
+     * FileInputStream.readAllBytes() both attempt to seek.
+     */
+
+    try (var output = new FileInputStream(outFile.toFile())) {
+      final var errors =
+        PNStreams.readLines(new FileInputStream(errFile.toFile()));
+
+      deleteQuietly(outFile);
+      deleteQuietly(errFile);
+
+      final var bytes = new ByteArrayOutputStream();
+      output.transferTo(bytes);
+      request.output().complete(new Output(bytes.toByteArray(), errors.get()));
+    } catch (final IOException e) {
+      request.output().completeExceptionally(e);
+    } catch (final ExecutionException e) {
+      request.output().completeExceptionally(e.getCause());
+    } catch (final InterruptedException e) {
+      request.output().completeExceptionally(e);
+    }
+  }
+
+  private static void deleteQuietly(
+    final Path file)
+  {
+    try {
+      Files.deleteIfExists(file);
+    } catch (final IOException e) {
+      LOG.debug("Failed to delete {}: ", file, e);
+    }
+  }
+
+  /**
+   * Submit a command for execution, inheriting the environment and working
+   * directory of the server.
+   *
+   * @param command The command and its arguments
+   *
+   * @return A future that completes when the command exits
+   *
+   * @throws IllegalArgumentException If an argument contains a newline or
+   *                                  NUL character
+   */
+
+  public CompletableFuture<PodmanLaunchResult> submit(
+    final List<String> command)
+  {
+    return this.submit(PodmanLaunchRequest.of(command));
+  }
+
+  /**
+   * Submit a command for execution.
+   *
+   * @param request The command, environment, and working directory
+   *
+   * @return A future that completes when the command exits
+   *
+   * @throws IllegalArgumentException If an argument, environment variable,
+   *                                  or working directory contains a
+   *                                  newline or NUL character
+   */
+
+  public CompletableFuture<PodmanLaunchResult> submit(
+    final PodmanLaunchRequest request)
+  {
+    Objects.requireNonNull(request, "request");
+
+    final var command = request.command();
+    final var arguments = argumentsOf(request);
+    final var workingDirectory =
+      request.workingDirectory()
+        .map(Path::toAbsolutePath)
+        .map(Path::toString)
+        .orElse("");
+
+    checkLine(command, workingDirectory);
+    for (final var argument : arguments) {
+      checkLine(command, argument);
+    }
+
+    final var id = this.ids.incrementAndGet();
+    final var key = Long.valueOf(id);
+    final var output = new CompletableFuture<Output>();
+    final var exitCode = new CompletableFuture<Integer>();
+    final var result =
+      output.thenCombine(exitCode, (o, code) -> {
+        return new PodmanLaunchResult(
+          command,
+          code.intValue(),
+          o.bytes(),
+          o.errorLines()
+        );
+      });
+    final var pendingRequest =
+      new Pending(command, output, exitCode, result);
+    result.whenComplete((r, e) -> this.pending.remove(key));
+
+    final var text = new StringBuilder(128);
+    text.append(id);
+    text.append(' ');
+    text.append(arguments.size());
+    text.append('\n');
+    text.append(workingDirectory);
+    text.append('\n');
+    for (final var argument : arguments) {
+      text.append(argument);
+      text.append('\n');
+    }
+
+    synchronized (this.writeLock) {
+      if (this.closed) {
+        return CompletableFuture.failedFuture(
+          new IOException("The fork server is closed."));
+      }
+
+      this.pending.put(key, pendingRequest);
+      try {
+        this.input.write(text.toString());
+        this.input.flush();
+      } catch (final IOException e) {
+        this.pending.remove(key);
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+    return result;
+  }
+
+  private static List<String> argumentsOf(
+    final PodmanLaunchRequest request)
+  {
+    final var command = request.command();
+    final var environment = request.environment();
+    if (environment.isEmpty()) {
+      return command;
+    }
+
+    if (command.get(0).indexOf('=') >= 0) {
+      throw new IllegalArgumentException(
+        "A command with an environment must not contain '=' in its name: %s"
+          .formatted(command)
+      );
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("env");
+    arguments.add("-i");
+    for (final var entry : new TreeMap<>(environment.get()).entrySet()) {
+      final var name = entry.getKey();
+      if (name.isEmpty() || name.indexOf('=') >= 0) {
+        throw new IllegalArgumentException(
+          "Invalid environment variable name: %s".formatted(name)
+        );
+      }
+      arguments.add("%s=%s".formatted(name, entry.getValue()));
+    }
+    arguments.addAll(command);
+    return List.copyOf(arguments);
+  }
+
+  private static void checkLine(
+    final List<String> command,
+    final String text)
+  {
+    if (text.indexOf('\n') >= 0 || text.indexOf('\0') >= 0) {
+      throw new IllegalArgumentException(
+        "Arguments must not contain newline or NUL characters: %s"
+          .formatted(command)
+      );
+    }
+  }
+
+  @Override
+  public PodmanLaunchResult execute(
+    final PodmanLaunchRequest request)
+    throws IOException, InterruptedException
+  {
+    try {
+      return this.submit(request).get();
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof final IOException io) {
+        throw io;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Close the server. Commands that are already running are allowed to
+   * complete, and this method waits for them before removing the temporary
+   * directory of the server.
+   */
+
+  @Override
+  public void close()
+  {
+    synchronized (this.writeLock) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      try {
+        this.input.close();
+      } catch (final IOException e) {
+        LOG.debug("Failed to close fork server input: ", e);
+      }
+    }
+
+    try {
+      this.server.waitFor();
+      for (final var request : List.copyOf(this.pending.values())) {
+        try {
+          request.result().get();
+        } catch (final ExecutionException e) {
+          // The failure is reported to the submitter of the command.
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      this.deleteDirectory();
+    }
+  }
+
+  private void deleteDirectory()
+  {
+    try (var files = Files.list(this.directory)) {
+      files.sorted(Comparator.reverseOrder())
+        .forEach(PodmanForkServer::deleteQuietly);
+    } catch (final IOException e) {
+      LOG.debug("Failed to list {}: ", this.directory, e);
+    }
+    deleteQuietly(this.directory);
+  }
+
+  private record Output(
+    byte[] bytes,
+    List<String> errorLines)
+  {
+
+  }
+
+  private record Pending(
+    List<String> command,
+    CompletableFuture<Output> output,
+    CompletableFuture<Integer> exitCode,
+    CompletableFuture<PodmanLaunchResult> result)
+  {
+
+  }
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanCommandFailedException;
+import com.io7m.tavella.api.PodmanDiskUsage;
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanImageSummary;
+import com.io7m.tavella.api.PodmanImageUseListenerType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A manager that keeps the local image store within a disk budget.
+ *
+ * <p>The manager is installed as the image use listener of an executable
+ * configuration, and so records the time at which each image was last used
+ * to launch a container. When {@link #evict(PodmanExecutableType)} is
+ * called and {@code podman system df} reports that images use more than
+ * the budget, images are removed in least-recently-used order (images that
+ * have not been used since the manager was created are removed first,
+ * oldest first) with a single {@code podman rmi} per round, until the
+ * usage is within the budget. Pinned images and images used by containers
+ * are never removed.</p>
+ *
+ * <p>If {@code podman rmi} fails for a round (for example, because one of
+ * the images is the parent of another image), the images of the round are
+ * removed one at a time instead. Images that still cannot be removed are
+ * logged and skipped for the rest of the call, and eviction continues with
+ * the remaining images.</p>
+ *
+ * <p>The size of an image reported by {@code podman images} includes
+ * layers shared with other images, and so removing an image may free less
+ * than its reported size. The disk usage is therefore measured again after
+ * each round.</p>
+ */
+
+public final class PodmanImageCacheManager
+  implements PodmanImageUseListenerType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PodmanImageCacheManager.class);
+
+  private final long budget;
+  private final Set<PodmanImage> pinned;
+  private final Map<PodmanImage, Long> lastUsed;
+  private final Object evictionLock;
+
+  private PodmanImageCacheManager(
+    final long inBudget)
+  {
+    this.budget =
+      inBudget;
+    this.pinned =
+      ConcurrentHashMap.newKeySet();
+    this.lastUsed =
+      new ConcurrentHashMap<>();
+    this.evictionLock =
+      new Object();
+  }
+
+  /**
+   * Create a new manager.
+   *
+   * @param budget The disk budget for images, in bytes
+   * @param pinned The images that must never be removed
+   *
+   * @return A new manager
+   */
+
+  public static PodmanImageCacheManager create(
+    final long budget,
+    final Collection<PodmanImage> pinned)
+  {
+    Objects.requireNonNull(pinned, "pinned");
+
+    if (budget < 0L) {
+      throw new IllegalArgumentException(
+        "Budget must be non-negative: %d".formatted(Long.valueOf(budget))
+      );
+    }
+
+    final var manager = new PodmanImageCacheManager(budget);
+    pinned.forEach(manager::pin);
+    return manager;
+  }
+
+  /*
+   * Images are tracked by name; the digest of a pinned reference is not
+   * reported by "podman images" and so cannot be matched.
+   */
+
+  private static PodmanImage withoutHash(
+    final PodmanImage image)
+  {
+    if (image.imageHash().isEmpty()) {
+      return image;
+    }
+    return new PodmanImage(
+      image.registry(),
+      image.imageName(),
+      image.imageTag(),
+      Optional.empty()
+    );
+  }
+
+  /**
+   * Pin an image so that it is never removed.
+   *
+   * @param image The image
+   */
+
+  public void pin(
+    final PodmanImage image)
+  {
+    this.pinned.add(withoutHash(Objects.requireNonNull(image, "image")));
+  }
+
+  /**
+   * Unpin an image.
+   *
+   * @param image The image
+   */
+
+  public void unpin(
+    final PodmanImage image)
+  {
+    this.pinned.remove(withoutHash(Objects.requireNonNull(image, "image")));
+  }
+
+  @Override
+  public void onImageUsed(
+    final PodmanImage image)
+  {
+    this.lastUsed.put(withoutHash(image), Long.valueOf(System.nanoTime()));
+  }
+
+  /**
+   * @param image The image
+   *
+   * @return The {@link System#nanoTime()} at which the image was last used,
+   * if it has been used
+   */
+
+  public OptionalLong lastUsed(
+    final PodmanImage image)
+  {
+    final var time = this.lastUsed.get(withoutHash(image));
+    return time == null ? OptionalLong.empty() : OptionalLong.of(time);
+  }
+
+  /**
+   * Remove images until the disk space used by images is within the budget.
+   *
+   * @param executable The podman executable
+   *
+   * @return The IDs of the removed images
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public List<String> evict(
+    final PodmanExecutableType executable)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(executable, "executable");
+
+    synchronized (this.evictionLock) {
+      final var removed = new ArrayList<String>();
+      final var failed = new HashSet<String>();
+
+      while (true) {
+        final var usage = imageUsage(executable);
+        if (usage <= this.budget) {
+          break;
+        }
+
+        final var batch =
+          this.selectVictims(
+            executable.images().executeQuery(),
+            usage - this.budget,
+            failed
+          );
+        if (batch.isEmpty()) {
+          LOG.warn(
+            "Images use {} bytes (budget {}), but no images can be removed",
+            Long.valueOf(usage),
+            Long.valueOf(this.budget)
+          );
+          break;
+        }
+
+        LOG.debug("Removing {} images", Integer.valueOf(batch.size()));
+        final var failedBefore = failed.size();
+        final var deleted = removeImages(executable, batch, failed);
+        if (deleted.isEmpty() && failed.size() == failedBefore) {
+          break;
+        }
+        removed.addAll(deleted);
+      }
+      return List.copyOf(removed);
+    }
+  }
+
+  private static List<String> removeImages(
+    final PodmanExecutableType executable,
+    final List<String> batch,
+    final Set<String> failed)
+    throws IOException, InterruptedException
+  {
+    try {
+      return removeImage(executable, batch);
+    } catch (final PodmanCommandFailedException e) {
+      if (batch.size() == 1) {
+        LOG.warn("Failed to remove image {}: ", batch.get(0), e);
+        failed.addAll(batch);
+        return List.of();
+      }
+      LOG.debug("Failed to remove images {}, removing individually", batch);
+    }
+
+    final var deleted = new ArrayList<String>();
+    for (final var image : batch) {
+      try {
+        deleted.addAll(removeImage(executable, List.of(image)));
+      } catch (final PodmanCommandFailedException e) {
+        LOG.warn("Failed to remove image {}: ", image, e);
+        failed.add(image);
+      }
+    }
+    return deleted;
+  }
+
+  private static List<String> removeImage(
+    final PodmanExecutableType executable,
+    final List<String> images)
+    throws IOException, InterruptedException
+  {
+    final var rmi = executable.rmi().setIgnoreMissing(true);
+    images.forEach(rmi::addImage);
+    return rmi.executeQuery();
+  }
+
+  private static long imageUsage(
+    final PodmanExecutableType executable)
+    throws IOException, InterruptedException
+  {
+    return executable.systemDf()
+      .executeQuery()
+      .stream()
+      .filter(u -> PodmanDiskUsage.IMAGES.equals(u.type()))
+      .mapToLong(PodmanDiskUsage::size)
+      .sum();
+  }
+
+  private List<String> selectVictims(
+    final List<PodmanImageSummary> images,
+    final long excess,
+    final Set<String> failed)
+  {
+    final var candidates = new ArrayList<Candidate>(images.size());
+    for (final var image : images) {
+      if (image.containers() > 0 || failed.contains(image.id())) {
+        continue;
+      }
+      final var names = parseNames(image);
+      if (names.stream().anyMatch(this.pinned::contains)) {
+        continue;
+      }
+      candidates.add(new Candidate(image, this.lastUsedOf(names)));
+    }
+
+    candidates.sort(
+      Comparator.comparing((Candidate c) -> Boolean.valueOf(c.lastUsed.isPresent()))
+        .thenComparingLong(c -> c.lastUsed.orElse(0L))
+        .thenComparing(c -> c.image.created())
+    );
+
+    final var victims = new ArrayList<String>();
+    long freed = 0L;
+    for (final var candidate : candidates) {
+      if (freed >= excess) {
+        break;
+      }
+      victims.add(candidate.image.id());
+      freed += candidate.image.size();
+    }
+    return List.copyOf(victims);
+  }
+
+  private OptionalLong lastUsedOf(
+    final List<PodmanImage> names)
+  {
+    OptionalLong result = OptionalLong.empty();
+    for (final var name : names) {
+      final var time = this.lastUsed.get(name);
+      if (time != null) {
+        final long value = time.longValue();
+        if (result.isEmpty() || value - result.getAsLong() > 0L) {
+          result = OptionalLong.of(value);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static List<PodmanImage> parseNames(
+    final PodmanImageSummary image)
+  {
+    final var names = new ArrayList<PodmanImage>(image.names().size());
+    for (final var name : image.names()) {
+      try {
+        names.add(PodmanImage.parse(name));
+      } catch (final IllegalArgumentException e) {
+        LOG.debug("Ignoring unparseable image name {}", name);
+      }
+    }
+    return names;
+  }
+
+  private record Candidate(
+    PodmanImageSummary image,
+    OptionalLong lastUsed)
+  {
+
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanImageInspection;
+import com.io7m.tavella.api.PodmanProcessRunBuilderType;
+import com.io7m.tavella.api.PodmanPullPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A resolver that pins image references to digests.
+ *
+ * <p>A tagged reference such as {@code quay.io/io7mcom/idstore:1.0.0} is
+ * resolved once to the digest of the local image that it currently names,
+ * using {@code podman image inspect} (which never contacts a registry). The
+ * digest is cached for the configured time-to-live, and images are
+ * rewritten to digest references so that a container run with
+ * {@link PodmanPullPolicy#NEVER} starts exactly the image that was
+ * resolved, without the registry being consulted.</p>
+ *
+ * <p>Images that are not present locally are not cached and are returned
+ * unchanged, leaving any pull to the run itself.</p>
+ */
+
+public final class PodmanImageDigestResolver
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PodmanImageDigestResolver.class);
+
+  private final PodmanExecutableType executable;
+  private final long timeToLiveNanos;
+  private final Map<String, Entry> cache;
+
+  private record Entry(
+    String digest,
+    long expiresAtNanos)
+  {
+
+  }
+
+  private PodmanImageDigestResolver(
+    final PodmanExecutableType inExecutable,
+    final Duration inTimeToLive)
+  {
+    this.executable =
+      Objects.requireNonNull(inExecutable, "executable");
+    this.timeToLiveNanos =
+      inTimeToLive.toNanos();
+    this.cache =
+      new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Create a new resolver.
+   *
+   * @param executable The podman executable
+   * @param timeToLive The length of time for which resolved digests are
+   *                   cached
+   *
+   * @return A new resolver
+   */
+
+  public static PodmanImageDigestResolver create(
+    final PodmanExecutableType executable,
+    final Duration timeToLive)
+  {
+    Objects.requireNonNull(executable, "executable");
+    Objects.requireNonNull(timeToLive, "timeToLive");
+
+    if (timeToLive.isNegative()) {
+      throw new IllegalArgumentException(
+        "Time-to-live must be non-negative: %s".formatted(timeToLive)
+      );
+    }
+    return new PodmanImageDigestResolver(executable, timeToLive);
+  }
+
+  private static String repository(
+    final PodmanImage image)
+  {
+    return "%s/%s".formatted(image.registry(), image.imageName());
+  }
+
+  private static String key(
+    final PodmanImage image)
+  {
+    return "%s:%s".formatted(repository(image), image.imageTag());
+  }
+
+  /**
+   * Resolve an image to a digest reference. Images that already carry a
+   * digest are returned unchanged.
+   *
+   * @param image The image
+   *
+   * @return The image with a digest, or the unchanged image if it is not
+   * present locally
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public PodmanImage resolve(
+    final PodmanImage image)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(image, "image");
+
+    if (image.imageHash().isPresent()) {
+      return image;
+    }
+
+    final var key = key(image);
+    final var now = System.nanoTime();
+    final var existing = this.cache.get(key);
+    if (existing != null && now - existing.expiresAtNanos < 0L) {
+      return withDigest(image, existing.digest);
+    }
+
+    final var inspections =
+      this.executable.imageInspect()
+        .addImage(key)
+        .executeQuery();
+
+    if (inspections.isEmpty()) {
+      LOG.debug("Image {} is not present locally", key);
+      this.cache.remove(key);
+      return image;
+    }
+
+    final var digest = digestOf(image, inspections.get(0));
+    if (digest.isEmpty()) {
+      LOG.debug("Image {} has no digest", key);
+      return image;
+    }
+
+    this.cache.put(
+      key,
+      new Entry(digest.get(), System.nanoTime() + this.timeToLiveNanos)
+    );
+    return withDigest(image, digest.get());
+  }
+
+  /**
+   * Resolve the image of a container and configure the run to use it
+   * without contacting a registry. If the image is not present locally,
+   * the run is configured to pull it if missing.
+   *
+   * @param run   The run builder
+   * @param image The image
+   *
+   * @return The run builder
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public PodmanProcessRunBuilderType pin(
+    final PodmanProcessRunBuilderType run,
+    final PodmanImage image)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(run, "run");
+
+    final var resolved = this.resolve(image);
+    if (resolved.imageHash().isPresent()) {
+      return run.setImage(resolved)
+        .setPullPolicy(PodmanPullPolicy.NEVER);
+    }
+    return run.setImage(resolved)
+      .setPullPolicy(PodmanPullPolicy.MISSING);
+  }
+
+  /**
+   * Discard the cached digest of the given image.
+   *
+   * @param image The image
+   */
+
+  public void invalidate(
+    final PodmanImage image)
+  {
+    this.cache.remove(key(Objects.requireNonNull(image, "image")));
+  }
+
+  /**
+   * Discard all cached digests.
+   */
+
+  public void invalidateAll()
+  {
+    this.cache.clear();
+  }
+
+  private static PodmanImage withDigest(
+    final PodmanImage image,
+    final String digest)
+  {
+    return new PodmanImage(
+      image.registry(),
+      image.imageName(),
+      image.imageTag(),
+      Optional.of(digest)
+    );
+  }
+
+  /*
+   * An image pulled from several repositories has one repository digest per
+   * repository, and the manifest digests can differ between them. The digest
+   * for the repository of the reference is preferred.
+   */
+
+  private static Optional<String> digestOf(
+    final PodmanImage image,
+    final PodmanImageInspection inspection)
+  {
+    final var prefix = repository(image) + "@";
+    for (final var reference : inspection.repoDigests()) {
+      if (reference.startsWith(prefix)) {
+        return Optional.of(reference.substring(prefix.length()));
+      }
+    }
+    return Optional.of(inspection.digest())
+      .filter(s -> !s.isEmpty());
+  }
+}
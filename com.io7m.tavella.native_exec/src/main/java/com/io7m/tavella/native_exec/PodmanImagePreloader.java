@@ -0,0 +1,251 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.api.PodmanImageSummary;
+import com.io7m.tavella.native_exec.internal.PNImageArchives;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A preloader that loads a set of image archives in parallel.
+ *
+ * <p>The IDs of the images already present are obtained with a single
+ * {@code podman images} call. Each archive is then inspected without being
+ * loaded (only its manifests and image configurations are read), and is
+ * skipped if all of the images that it holds are already present. The
+ * remaining archives are loaded with at most the configured number of
+ * concurrent {@code podman image load} processes.</p>
+ */
+
+public final class PodmanImagePreloader
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PodmanImagePreloader.class);
+
+  private static final List<String> ARCHIVE_SUFFIXES =
+    List.of(".tar", ".tar.gz", ".tgz");
+
+  private final PodmanExecutableType executable;
+  private final int parallelism;
+
+  /**
+   * The result of preloading a single archive.
+   *
+   * @param archive The archive
+   * @param loaded  {@code true} if the archive was loaded, {@code false} if
+   *                it was skipped or failed to load
+   * @param images  The names of the loaded images, or the IDs of the images
+   *                that were already present
+   * @param failure The error raised loading the archive, if any
+   */
+
+  public record Result(
+    Path archive,
+    boolean loaded,
+    List<String> images,
+    Optional<IOException> failure)
+  {
+    /**
+     * The result of preloading a single archive.
+     */
+
+    public Result
+    {
+      Objects.requireNonNull(archive, "archive");
+      images = List.copyOf(images);
+      Objects.requireNonNull(failure, "failure");
+    }
+  }
+
+  private PodmanImagePreloader(
+    final PodmanExecutableType inExecutable,
+    final int inParallelism)
+  {
+    this.executable =
+      Objects.requireNonNull(inExecutable, "executable");
+    this.parallelism =
+      inParallelism;
+  }
+
+  /**
+   * Create a new preloader.
+   *
+   * @param executable  The podman executable
+   * @param parallelism The maximum number of archives loaded at once
+   *
+   * @return A new preloader
+   */
+
+  public static PodmanImagePreloader create(
+    final PodmanExecutableType executable,
+    final int parallelism)
+  {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException(
+        "Parallelism must be positive: %d"
+          .formatted(Integer.valueOf(parallelism))
+      );
+    }
+    return new PodmanImagePreloader(executable, parallelism);
+  }
+
+  /**
+   * Preload all of the archives (files ending in {@code .tar},
+   * {@code .tar.gz}, or {@code .tgz}) in the given directory.
+   *
+   * @param directory The directory
+   *
+   * @return The results, in the order of the archive file names
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public List<Result> preloadDirectory(
+    final Path directory)
+    throws IOException, InterruptedException
+  {
+    final List<Path> archives;
+    try (var files = Files.list(directory)) {
+      archives = files.filter(Files::isRegularFile)
+        .filter(PodmanImagePreloader::isArchive)
+        .sorted()
+        .toList();
+    }
+    return this.preload(archives);
+  }
+
+  private static boolean isArchive(
+    final Path file)
+  {
+    final var name = file.getFileName().toString();
+    return ARCHIVE_SUFFIXES.stream().anyMatch(name::endsWith);
+  }
+
+  /**
+   * Preload the given archives. Failures to load individual archives are
+   * reported in the results rather than aborting the other loads.
+   *
+   * @param archives The archives
+   *
+   * @return The results, in the order of the given archives
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public List<Result> preload(
+    final List<Path> archives)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(archives, "archives");
+
+    if (archives.isEmpty()) {
+      return List.of();
+    }
+
+    final var present = this.presentImageIds();
+    final var futures = new ArrayList<Future<Result>>(archives.size());
+
+    final var threads =
+      Thread.ofVirtual()
+        .name("com.io7m.tavella.preload-", 0L)
+        .factory();
+
+    try (var executor = Executors.newFixedThreadPool(this.parallelism, threads)) {
+      for (final var archive : archives) {
+        futures.add(executor.submit(() -> this.preloadOne(archive, present)));
+      }
+
+      final var results = new ArrayList<Result>(futures.size());
+      for (final var future : futures) {
+        try {
+          results.add(future.get());
+        } catch (final ExecutionException e) {
+          throw new IOException(e.getCause());
+        }
+      }
+      return List.copyOf(results);
+    }
+  }
+
+  private Set<String> presentImageIds()
+    throws IOException, InterruptedException
+  {
+    final var ids = new HashSet<String>();
+    for (final var image : this.executable.images().setAll(true).executeQuery()) {
+      ids.add(stripAlgorithm(image));
+    }
+    return Set.copyOf(ids);
+  }
+
+  private static String stripAlgorithm(
+    final PodmanImageSummary image)
+  {
+    final var id = image.id();
+    final var colon = id.indexOf(':');
+    return colon >= 0 ? id.substring(colon + 1) : id;
+  }
+
+  private Result preloadOne(
+    final Path archive,
+    final Set<String> present)
+    throws InterruptedException
+  {
+    Set<String> ids;
+    try {
+      ids = PNImageArchives.imageIds(archive);
+    } catch (final IOException e) {
+      LOG.debug("Unable to determine the images in {}: ", archive, e);
+      ids = Set.of();
+    }
+
+    if (!ids.isEmpty() && present.containsAll(ids)) {
+      LOG.debug("Skipping {}: all images are present", archive);
+      return new Result(archive, false, List.copyOf(ids), Optional.empty());
+    }
+
+    try {
+      final var loaded =
+        this.executable.imageLoad()
+          .setInput(archive)
+          .executeQuery();
+
+      LOG.debug("Loaded {}: {}", archive, loaded);
+      return new Result(archive, true, loaded, Optional.empty());
+    } catch (final IOException e) {
+      LOG.debug("Failed to load {}: ", archive, e);
+      return new Result(archive, false, List.of(), Optional.of(e));
+    }
+  }
+}
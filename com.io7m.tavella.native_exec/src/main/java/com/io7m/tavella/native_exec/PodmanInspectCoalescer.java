@@ -0,0 +1,270 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanContainerInspectionType;
+import com.io7m.tavella.api.PodmanExecutableType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A coalescer that merges concurrent requests to inspect single containers
+ * into a single {@code podman inspect} invocation. Requests that arrive
+ * within the configured time window (or until the maximum batch size is
+ * reached) are inspected together, and the results are distributed back
+ * to the individual callers. The number of executed {@code podman}
+ * processes is therefore bounded by the number of time windows rather than
+ * the number of callers.
+ */
+
+public final class PodmanInspectCoalescer implements AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PodmanInspectCoalescer.class);
+
+  private final PodmanExecutableType executable;
+  private final Duration window;
+  private final int maximumBatchSize;
+  private final ScheduledExecutorService scheduler;
+  private final Object lock;
+  private Batch batch;
+  private boolean closed;
+
+  private PodmanInspectCoalescer(
+    final PodmanExecutableType inExecutable,
+    final Duration inWindow,
+    final int inMaximumBatchSize,
+    final ScheduledExecutorService inScheduler)
+  {
+    this.executable =
+      Objects.requireNonNull(inExecutable, "executable");
+    this.window =
+      Objects.requireNonNull(inWindow, "window");
+    this.maximumBatchSize =
+      inMaximumBatchSize;
+    this.scheduler =
+      Objects.requireNonNull(inScheduler, "scheduler");
+    this.lock =
+      new Object();
+    this.batch =
+      new Batch();
+  }
+
+  /**
+   * Create a new coalescer.
+   *
+   * @param executable       The podman executable
+   * @param window           The time window within which requests are merged
+   * @param maximumBatchSize The maximum number of containers inspected at once
+   *
+   * @return A new coalescer
+   */
+
+  public static PodmanInspectCoalescer create(
+    final PodmanExecutableType executable,
+    final Duration window,
+    final int maximumBatchSize)
+  {
+    Objects.requireNonNull(executable, "executable");
+    Objects.requireNonNull(window, "window");
+
+    if (window.isNegative()) {
+      throw new IllegalArgumentException(
+        "Window must be non-negative: %s".formatted(window)
+      );
+    }
+    if (maximumBatchSize < 1) {
+      throw new IllegalArgumentException(
+        "Maximum batch size must be positive: %d"
+          .formatted(Integer.valueOf(maximumBatchSize))
+      );
+    }
+
+    final var scheduler =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        return Thread.ofPlatform()
+          .daemon()
+          .name("com.io7m.tavella.inspect-coalescer")
+          .unstarted(r);
+      });
+
+    return new PodmanInspectCoalescer(
+      executable,
+      window,
+      maximumBatchSize,
+      scheduler
+    );
+  }
+
+  /**
+   * Inspect a container. The inspection is performed as part of the next
+   * batch; concurrent requests for the same container within one batch
+   * share a single result. Each caller receives its own future, so
+   * cancelling or completing one caller's future does not affect the
+   * others.
+   *
+   * @param container The container name or ID
+   *
+   * @return The inspection, or empty if the container does not exist
+   */
+
+  public CompletableFuture<Optional<PodmanContainerInspectionType>> inspect(
+    final String container)
+  {
+    Objects.requireNonNull(container, "container");
+
+    final Batch toFlush;
+    final CompletableFuture<Optional<PodmanContainerInspectionType>> future;
+
+    synchronized (this.lock) {
+      if (this.closed) {
+        return CompletableFuture.failedFuture(
+          new IllegalStateException("Coalescer is closed.")
+        );
+      }
+
+      final var current = this.batch;
+      final var existing = current.requests.get(container);
+      if (existing != null) {
+        return existing.copy();
+      }
+
+      future = new CompletableFuture<>();
+      current.requests.put(container, future);
+
+      if (current.requests.size() >= this.maximumBatchSize) {
+        toFlush = current;
+        this.batch = new Batch();
+      } else {
+        toFlush = null;
+        if (current.requests.size() == 1) {
+          this.scheduler.schedule(
+            () -> this.flushIfCurrent(current),
+            this.window.toNanos(),
+            TimeUnit.NANOSECONDS
+          );
+        }
+      }
+    }
+
+    if (toFlush != null) {
+      Thread.startVirtualThread(() -> this.execute(toFlush));
+    }
+    return future.copy();
+  }
+
+  private void flushIfCurrent(
+    final Batch expected)
+  {
+    synchronized (this.lock) {
+      if (this.batch != expected) {
+        return;
+      }
+      this.batch = new Batch();
+    }
+    Thread.startVirtualThread(() -> this.execute(expected));
+  }
+
+  private void execute(
+    final Batch executing)
+  {
+    final var requests = executing.requests;
+    LOG.debug("Inspecting {} containers", Integer.valueOf(requests.size()));
+
+    final List<PodmanContainerInspectionType> inspections;
+    try {
+      final var builder = this.executable.inspect();
+      for (final var container : requests.keySet()) {
+        builder.addContainer(container);
+      }
+      inspections = builder.executeQuery();
+    } catch (final Throwable e) {
+      for (final var future : requests.values()) {
+        future.completeExceptionally(e);
+      }
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      return;
+    }
+
+    for (final var entry : requests.entrySet()) {
+      final var reference = entry.getKey();
+      entry.getValue().complete(findReferenced(inspections, reference));
+    }
+  }
+
+  private static Optional<PodmanContainerInspectionType> findReferenced(
+    final List<PodmanContainerInspectionType> inspections,
+    final String reference)
+  {
+    /*
+     * An exact name or ID match takes priority over an ID prefix match,
+     * as a short ID prefix may otherwise collide with another container.
+     */
+
+    for (final var inspection : inspections) {
+      if (inspection.name().equals(reference)
+          || inspection.id().equals(reference)) {
+        return Optional.of(inspection);
+      }
+    }
+    return inspections.stream()
+      .filter(i -> i.isReferencedBy(reference))
+      .findFirst();
+  }
+
+  @Override
+  public void close()
+  {
+    final Batch remaining;
+    synchronized (this.lock) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      remaining = this.batch;
+      this.batch = new Batch();
+    }
+
+    this.scheduler.shutdown();
+    if (!remaining.requests.isEmpty()) {
+      this.execute(remaining);
+    }
+  }
+
+  private static final class Batch
+  {
+    private final Map<String, CompletableFuture<Optional<PodmanContainerInspectionType>>> requests;
+
+    Batch()
+    {
+      this.requests = new LinkedHashMap<>();
+    }
+  }
+}
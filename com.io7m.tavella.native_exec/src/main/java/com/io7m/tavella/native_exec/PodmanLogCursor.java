@@ -0,0 +1,253 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.api.PodmanLogLine;
+import com.io7m.tavella.api.PodmanLogStream;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A cursor over the logs of a single container.
+ *
+ * <p>The cursor remembers the timestamp of the last line it returned, and
+ * each subsequent {@link #poll()} asks {@code podman} only for the lines
+ * logged at or after that timestamp. As {@code --since} is inclusive and
+ * several lines may share a timestamp, the cursor also remembers how many
+ * lines it has already returned at the last timestamp and skips exactly
+ * that many on the next poll. Repeatedly polling a long-running container
+ * therefore transfers each line once, rather than transferring the entire
+ * log each time.</p>
+ *
+ * <p>The container's standard output and standard error are tracked
+ * separately, as lines from the two streams are not delivered in a single
+ * order. Each poll asks for the lines logged since the earlier of the two
+ * stream positions.</p>
+ *
+ * <p>Cursors are not thread-safe.</p>
+ */
+
+public final class PodmanLogCursor
+{
+  private final PodmanExecutableType executable;
+  private final String container;
+  private final EnumMap<PodmanLogStream, Position> positions;
+  private int maximumLineLength;
+
+  private PodmanLogCursor(
+    final PodmanExecutableType inExecutable,
+    final String inContainer)
+  {
+    this.executable =
+      Objects.requireNonNull(inExecutable, "executable");
+    this.container =
+      Objects.requireNonNull(inContainer, "container");
+    this.positions =
+      new EnumMap<>(PodmanLogStream.class);
+    for (final var stream : PodmanLogStream.values()) {
+      this.positions.put(stream, new Position());
+    }
+    this.maximumLineLength =
+      65536;
+  }
+
+  /**
+   * Create a cursor positioned at the start of the container's logs.
+   *
+   * @param executable The podman executable
+   * @param container  The container name or ID
+   *
+   * @return A new cursor
+   */
+
+  public static PodmanLogCursor create(
+    final PodmanExecutableType executable,
+    final String container)
+  {
+    return new PodmanLogCursor(executable, container);
+  }
+
+  /**
+   * @return The container
+   */
+
+  public String container()
+  {
+    return this.container;
+  }
+
+  /**
+   * @return The timestamp of the last line returned, if any
+   */
+
+  public Optional<OffsetDateTime> position()
+  {
+    return this.lasts().max(OffsetDateTime.timeLineOrder());
+  }
+
+  /**
+   * @param stream The stream
+   *
+   * @return The timestamp of the last line returned from the given stream,
+   * if any
+   */
+
+  public Optional<OffsetDateTime> position(
+    final PodmanLogStream stream)
+  {
+    return this.positions.get(Objects.requireNonNull(stream, "stream")).last;
+  }
+
+  private Stream<OffsetDateTime> lasts()
+  {
+    return this.positions.values()
+      .stream()
+      .flatMap(p -> p.last.stream());
+  }
+
+  /**
+   * @param length The maximum length in bytes of a single line
+   *
+   * @return this
+   */
+
+  public PodmanLogCursor setMaximumLineLength(
+    final int length)
+  {
+    if (length <= 0) {
+      throw new IllegalArgumentException(
+        "Maximum line length must be positive.");
+    }
+    this.maximumLineLength = length;
+    return this;
+  }
+
+  /**
+   * Fetch all lines logged since the last call, and advance the cursor.
+   *
+   * @return The new lines
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public List<PodmanLogLine> poll()
+    throws IOException, InterruptedException
+  {
+    final var lines = new ArrayList<PodmanLogLine>();
+    this.run(false, lines::add);
+    return List.copyOf(lines);
+  }
+
+  /**
+   * Follow the logs from the cursor position until the container exits,
+   * advancing the cursor as each line is delivered. If following is
+   * interrupted, a later {@link #poll()} or {@code follow} resumes after
+   * the last line delivered.
+   *
+   * @param receiver The line receiver
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public void follow(
+    final Consumer<PodmanLogLine> receiver)
+    throws IOException, InterruptedException
+  {
+    this.run(true, Objects.requireNonNull(receiver, "receiver"));
+  }
+
+  private void run(
+    final boolean follow,
+    final Consumer<PodmanLogLine> receiver)
+    throws IOException, InterruptedException
+  {
+    final var logs =
+      this.executable.logs()
+        .setContainer(this.container)
+        .setTimestamps(true)
+        .setFollow(follow)
+        .setMaximumLineLength(this.maximumLineLength);
+
+    this.lasts()
+      .min(OffsetDateTime.timeLineOrder())
+      .ifPresent(logs::setSince);
+
+    for (final var position : this.positions.values()) {
+      position.skipRemaining = position.seenAtLast;
+    }
+
+    logs.stream(line -> {
+      if (this.advance(line)) {
+        receiver.accept(line);
+      }
+    });
+  }
+
+  private boolean advance(
+    final PodmanLogLine line)
+  {
+    final var timeOpt = line.timestamp();
+    if (timeOpt.isEmpty()) {
+      return true;
+    }
+
+    final var position = this.positions.get(line.stream());
+    final var time = timeOpt.get();
+    if (position.last.isEmpty() || time.isAfter(position.last.get())) {
+      position.last = timeOpt;
+      position.seenAtLast = 1;
+      position.skipRemaining = 0;
+      return true;
+    }
+
+    if (time.isBefore(position.last.get())) {
+      return false;
+    }
+
+    if (position.skipRemaining > 0) {
+      --position.skipRemaining;
+      return false;
+    }
+
+    ++position.seenAtLast;
+    return true;
+  }
+
+  private static final class Position
+  {
+    private Optional<OffsetDateTime> last;
+    private int seenAtLast;
+    private int skipRemaining;
+
+    Position()
+    {
+      this.last = Optional.empty();
+    }
+  }
+}
@@ -21,10 +21,58 @@ import com.io7m.tavella.api.PodmanBackend;
 import com.io7m.tavella.api.PodmanExecutableConfiguration;
 import com.io7m.tavella.api.PodmanExecutableFactoryType;
 import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.api.PodmanProcessBuildBuilderType;
+import com.io7m.tavella.api.PodmanProcessCommitBuilderType;
+import com.io7m.tavella.api.PodmanProcessCpBuilderType;
+import com.io7m.tavella.api.PodmanProcessEventsBuilderType;
+import com.io7m.tavella.api.PodmanProcessImageInspectBuilderType;
+import com.io7m.tavella.api.PodmanProcessImageLoadBuilderType;
+import com.io7m.tavella.api.PodmanProcessImageSaveBuilderType;
+import com.io7m.tavella.api.PodmanProcessImagesBuilderType;
 import com.io7m.tavella.api.PodmanProcessInfoBuilderType;
+import com.io7m.tavella.api.PodmanProcessInspectBuilderType;
+import com.io7m.tavella.api.PodmanProcessLogsBuilderType;
+import com.io7m.tavella.api.PodmanProcessPodCreateBuilderType;
+import com.io7m.tavella.api.PodmanProcessPodRmBuilderType;
+import com.io7m.tavella.api.PodmanProcessPodStartBuilderType;
+import com.io7m.tavella.api.PodmanProcessPodStopBuilderType;
+import com.io7m.tavella.api.PodmanProcessPsBuilderType;
+import com.io7m.tavella.api.PodmanProcessRmBuilderType;
+import com.io7m.tavella.api.PodmanProcessRmiBuilderType;
 import com.io7m.tavella.api.PodmanProcessRunBuilderType;
+import com.io7m.tavella.api.PodmanProcessStatsBuilderType;
+import com.io7m.tavella.api.PodmanProcessSystemDfBuilderType;
+import com.io7m.tavella.api.PodmanProcessVolumeCreateBuilderType;
+import com.io7m.tavella.api.PodmanProcessVolumeExportBuilderType;
+import com.io7m.tavella.api.PodmanProcessVolumeImportBuilderType;
+import com.io7m.tavella.api.PodmanProcessVolumeInspectBuilderType;
+import com.io7m.tavella.api.PodmanProcessVolumeRmBuilderType;
+import com.io7m.tavella.native_exec.internal.PNBuild;
+import com.io7m.tavella.native_exec.internal.PNCommit;
+import com.io7m.tavella.native_exec.internal.PNCp;
+import com.io7m.tavella.native_exec.internal.PNEvents;
+import com.io7m.tavella.native_exec.internal.PNImageInspect;
+import com.io7m.tavella.native_exec.internal.PNImageLoad;
+import com.io7m.tavella.native_exec.internal.PNImageSave;
+import com.io7m.tavella.native_exec.internal.PNImages;
 import com.io7m.tavella.native_exec.internal.PNInfo;
+import com.io7m.tavella.native_exec.internal.PNInspect;
+import com.io7m.tavella.native_exec.internal.PNLogs;
+import com.io7m.tavella.native_exec.internal.PNPodCreate;
+import com.io7m.tavella.native_exec.internal.PNPodRm;
+import com.io7m.tavella.native_exec.internal.PNPodStart;
+import com.io7m.tavella.native_exec.internal.PNPodStop;
+import com.io7m.tavella.native_exec.internal.PNPs;
+import com.io7m.tavella.native_exec.internal.PNRm;
+import com.io7m.tavella.native_exec.internal.PNRmi;
 import com.io7m.tavella.native_exec.internal.PNRun;
+import com.io7m.tavella.native_exec.internal.PNStats;
+import com.io7m.tavella.native_exec.internal.PNSystemDf;
+import com.io7m.tavella.native_exec.internal.PNVolumeCreate;
+import com.io7m.tavella.native_exec.internal.PNVolumeExport;
+import com.io7m.tavella.native_exec.internal.PNVolumeImport;
+import com.io7m.tavella.native_exec.internal.PNVolumeInspect;
+import com.io7m.tavella.native_exec.internal.PNVolumeRm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -136,5 +184,149 @@ public final class PodmanNative implements PodmanExecutableFactoryType
     {
       return new PNRun(this.configuration);
     }
+
+    @Override
+    public PodmanProcessInspectBuilderType inspect()
+    {
+      return new PNInspect(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessPsBuilderType ps()
+    {
+      return new PNPs(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessRmBuilderType rm()
+    {
+      return new PNRm(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessLogsBuilderType logs()
+    {
+      return new PNLogs(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessEventsBuilderType events()
+    {
+      return new PNEvents(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessStatsBuilderType stats()
+    {
+      return new PNStats(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessPodCreateBuilderType podCreate()
+    {
+      return new PNPodCreate(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessPodStartBuilderType podStart()
+    {
+      return new PNPodStart(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessPodStopBuilderType podStop()
+    {
+      return new PNPodStop(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessPodRmBuilderType podRm()
+    {
+      return new PNPodRm(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessImageInspectBuilderType imageInspect()
+    {
+      return new PNImageInspect(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessImagesBuilderType images()
+    {
+      return new PNImages(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessImageLoadBuilderType imageLoad()
+    {
+      return new PNImageLoad(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessImageSaveBuilderType imageSave()
+    {
+      return new PNImageSave(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessRmiBuilderType rmi()
+    {
+      return new PNRmi(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessSystemDfBuilderType systemDf()
+    {
+      return new PNSystemDf(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessCommitBuilderType commit()
+    {
+      return new PNCommit(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessBuildBuilderType build()
+    {
+      return new PNBuild(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessCpBuilderType cp()
+    {
+      return new PNCp(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessVolumeCreateBuilderType volumeCreate()
+    {
+      return new PNVolumeCreate(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessVolumeRmBuilderType volumeRm()
+    {
+      return new PNVolumeRm(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessVolumeInspectBuilderType volumeInspect()
+    {
+      return new PNVolumeInspect(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessVolumeImportBuilderType volumeImport()
+    {
+      return new PNVolumeImport(this.configuration);
+    }
+
+    @Override
+    public PodmanProcessVolumeExportBuilderType volumeExport()
+    {
+      return new PNVolumeExport(this.configuration);
+    }
   }
 }
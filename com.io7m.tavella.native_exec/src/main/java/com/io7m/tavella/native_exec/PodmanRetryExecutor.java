@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanCommandFailedException;
+import com.io7m.tavella.api.PodmanRetryPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+/**
+ * An executor that retries operations that fail with transient
+ * {@code podman} errors, according to a {@link PodmanRetryPolicy}.
+ * Operations that fail with errors that the policy does not consider
+ * retryable fail immediately.
+ */
+
+public final class PodmanRetryExecutor
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PodmanRetryExecutor.class);
+
+  private final PodmanRetryPolicy policy;
+  private final RandomGenerator random;
+
+  private PodmanRetryExecutor(
+    final PodmanRetryPolicy inPolicy,
+    final RandomGenerator inRandom)
+  {
+    this.policy =
+      Objects.requireNonNull(inPolicy, "policy");
+    this.random =
+      Objects.requireNonNull(inRandom, "random");
+  }
+
+  /**
+   * Create a retry executor.
+   *
+   * @param policy The retry policy
+   *
+   * @return A new executor
+   */
+
+  public static PodmanRetryExecutor create(
+    final PodmanRetryPolicy policy)
+  {
+    return new PodmanRetryExecutor(policy, RandomGenerator.getDefault());
+  }
+
+  /**
+   * @return The retry policy
+   */
+
+  public PodmanRetryPolicy policy()
+  {
+    return this.policy;
+  }
+
+  /**
+   * Execute an operation, retrying it if it fails with a retryable error.
+   *
+   * @param operation The operation
+   * @param <T>       The type of results
+   *
+   * @return The result of the first successful attempt
+   *
+   * @throws IOException          If the final attempt fails
+   * @throws InterruptedException On interruption
+   */
+
+  public <T> T execute(
+    final OperationType<T> operation)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(operation, "operation");
+
+    var attempt = 1;
+    while (true) {
+      try {
+        return operation.execute();
+      } catch (final PodmanCommandFailedException e) {
+        if (attempt >= this.policy.maximumAttempts()
+            || !this.policy.retryable().contains(e.kind())) {
+          throw e;
+        }
+
+        final var delay = this.jittered(this.policy.delayBefore(attempt));
+        LOG.debug(
+          "Attempt {} failed ({}), retrying in {}",
+          Integer.valueOf(attempt),
+          e.kind(),
+          delay
+        );
+        Thread.sleep(delay);
+        ++attempt;
+      }
+    }
+  }
+
+  private Duration jittered(
+    final Duration delay)
+  {
+    final var reduction =
+      this.random.nextDouble() * this.policy.jitter();
+    return Duration.ofNanos((long) ((double) delay.toNanos() * (1.0 - reduction)));
+  }
+
+  /**
+   * An operation that can be retried.
+   *
+   * @param <T> The type of results
+   */
+
+  @FunctionalInterface
+  public interface OperationType<T>
+  {
+    /**
+     * Execute the operation.
+     *
+     * @return The result
+     *
+     * @throws IOException          On errors
+     * @throws InterruptedException On interruption
+     */
+
+    T execute()
+      throws IOException, InterruptedException;
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanRunPhase;
+import com.io7m.tavella.api.PodmanRunTiming;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-phase histograms of run timings.
+ *
+ * <p>Each phase has a histogram of 64 buckets, where bucket {@code i}
+ * counts durations of at least {@code 2^i} and less than
+ * {@code 2^(i+1)} microseconds (bucket 0 also counts durations of less
+ * than a microsecond). Recording is lock-free and may be performed from
+ * any number of threads.</p>
+ */
+
+public final class PodmanRunTimingHistograms
+{
+  private static final int BUCKETS = 64;
+
+  private final LongAdder[][] buckets;
+  private final LongAdder[] totals;
+
+  private PodmanRunTimingHistograms()
+  {
+    final var phases = PodmanRunPhase.values().length;
+    this.buckets = new LongAdder[phases][BUCKETS];
+    this.totals = new LongAdder[phases];
+
+    for (int phase = 0; phase < phases; ++phase) {
+      this.totals[phase] = new LongAdder();
+      for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+        this.buckets[phase][bucket] = new LongAdder();
+      }
+    }
+  }
+
+  /**
+   * @return A new empty set of histograms
+   */
+
+  public static PodmanRunTimingHistograms create()
+  {
+    return new PodmanRunTimingHistograms();
+  }
+
+  private static int bucketOf(
+    final long micros)
+  {
+    if (micros <= 1L) {
+      return 0;
+    }
+    return 63 - Long.numberOfLeadingZeros(micros);
+  }
+
+  /**
+   * Record every known phase duration of the given timing. Negative
+   * durations (which can occur if the clock is adjusted during a run) are
+   * recorded as zero.
+   *
+   * @param timing The timing
+   */
+
+  public void record(
+    final PodmanRunTiming timing)
+  {
+    Objects.requireNonNull(timing, "timing");
+
+    for (final var phase : PodmanRunPhase.values()) {
+      final var durationOpt = timing.duration(phase);
+      if (durationOpt.isEmpty()) {
+        continue;
+      }
+      final var micros =
+        Math.max(0L, durationOpt.get().toNanos() / 1_000L);
+      final var index = phase.ordinal();
+      this.buckets[index][bucketOf(micros)].increment();
+      this.totals[index].add(micros);
+    }
+  }
+
+  /**
+   * @param phase The phase
+   *
+   * @return A snapshot of the bucket counts for the phase
+   */
+
+  public long[] buckets(
+    final PodmanRunPhase phase)
+  {
+    final var source = this.buckets[phase.ordinal()];
+    final var result = new long[BUCKETS];
+    for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+      result[bucket] = source[bucket].sum();
+    }
+    return result;
+  }
+
+  /**
+   * @param phase The phase
+   *
+   * @return The number of durations recorded for the phase
+   */
+
+  public long count(
+    final PodmanRunPhase phase)
+  {
+    long count = 0L;
+    for (final var bucket : this.buckets[phase.ordinal()]) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  /**
+   * @param phase The phase
+   *
+   * @return The mean duration of the phase, if any durations were recorded
+   */
+
+  public Optional<Duration> mean(
+    final PodmanRunPhase phase)
+  {
+    final var count = this.count(phase);
+    if (count == 0L) {
+      return Optional.empty();
+    }
+    return Optional.of(
+      Duration.ofNanos(this.totals[phase.ordinal()].sum() / count * 1_000L)
+    );
+  }
+
+  /**
+   * Estimate a quantile of the durations of a phase. The result is the
+   * upper bound of the bucket containing the quantile, and so is accurate
+   * to within a factor of two.
+   *
+   * @param phase    The phase
+   * @param quantile The quantile in the range {@code [0, 1]}
+   *
+   * @return The estimated quantile, if any durations were recorded
+   */
+
+  public Optional<Duration> quantile(
+    final PodmanRunPhase phase,
+    final double quantile)
+  {
+    if (quantile < 0.0 || quantile > 1.0) {
+      throw new IllegalArgumentException(
+        "Quantile must be in the range [0, 1].");
+    }
+
+    final var counts = this.buckets(phase);
+    long total = 0L;
+    for (final var count : counts) {
+      total += count;
+    }
+    if (total == 0L) {
+      return Optional.empty();
+    }
+
+    final var rank = Math.max(1L, (long) Math.ceil(quantile * total));
+    long seen = 0L;
+    for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+      seen += counts[bucket];
+      if (seen >= rank) {
+        return Optional.of(Duration.ofNanos(upperMicros(bucket) * 1_000L));
+      }
+    }
+    return Optional.of(Duration.ofNanos(upperMicros(BUCKETS - 1) * 1_000L));
+  }
+
+  private static long upperMicros(
+    final int bucket)
+  {
+    if (bucket >= 43) {
+      return Long.MAX_VALUE / 1_000L;
+    }
+    return 1L << (bucket + 1);
+  }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanContainerFilterType;
+import com.io7m.tavella.api.PodmanContainerSummary;
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.api.PodmanLabels;
+import com.io7m.tavella.api.PodmanProcessRmBuilderType;
+import com.io7m.tavella.api.PodmanProcessRunBuilderType;
+import com.io7m.tavella.native_exec.internal.PNWatchdog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A reaper that removes the containers started during a session.
+ *
+ * <p>Every container registered with the reaper is labelled with the
+ * session ID, along with the process ID, start time, and host name of the
+ * current JVM. On {@link #close()} (which is also invoked from a shutdown
+ * hook), all tracked containers are removed with a single
+ * {@code podman rm}. If the JVM dies without running shutdown hooks, the
+ * optional watchdog process notices that its standard input has been
+ * closed and removes all containers labelled with the session ID.
+ * Containers left behind by sessions whose JVM no longer exists can be
+ * removed with {@link #collectDeadSessions()}; reapers created with
+ * {@link #createAndCollect(PodmanExecutableType)} do so once, at
+ * creation, so that each new session clears up after earlier sessions
+ * that were killed.</p>
+ */
+
+public final class PodmanSessionReaper implements AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PodmanSessionReaper.class);
+
+  private final PodmanExecutableType executable;
+  private final String sessionId;
+  private final long pid;
+  private final String startTime;
+  private final String hostName;
+  private final Set<String> containers;
+  private final Thread shutdownHook;
+  private volatile Process watchdog;
+  private volatile boolean closed;
+
+  private PodmanSessionReaper(
+    final PodmanExecutableType inExecutable,
+    final String inSessionId)
+  {
+    this.executable =
+      Objects.requireNonNull(inExecutable, "executable");
+    this.sessionId =
+      Objects.requireNonNull(inSessionId, "sessionId");
+
+    final var self = ProcessHandle.current();
+    this.pid =
+      self.pid();
+    this.startTime =
+      self.info()
+        .startInstant()
+        .map(Instant::toString)
+        .orElse("");
+    this.hostName =
+      localHostName();
+    this.containers =
+      ConcurrentHashMap.newKeySet();
+    this.shutdownHook =
+      Thread.ofPlatform()
+        .name("com.io7m.tavella.session-reaper")
+        .unstarted(this::close);
+  }
+
+  /**
+   * Create a reaper for a new session and register a shutdown hook that
+   * closes it.
+   *
+   * @param executable The podman executable
+   *
+   * @return A new reaper
+   */
+
+  public static PodmanSessionReaper create(
+    final PodmanExecutableType executable)
+  {
+    final var reaper =
+      new PodmanSessionReaper(executable, UUID.randomUUID().toString());
+    Runtime.getRuntime().addShutdownHook(reaper.shutdownHook);
+    return reaper;
+  }
+
+  /**
+   * Create a reaper for a new session, register a shutdown hook that
+   * closes it, and remove the containers left behind by dead sessions with
+   * {@link #collectDeadSessions()}. If collection fails, the new reaper is
+   * closed and the failure is propagated.
+   *
+   * @param executable The podman executable
+   *
+   * @return A new reaper
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public static PodmanSessionReaper createAndCollect(
+    final PodmanExecutableType executable)
+    throws IOException, InterruptedException
+  {
+    final var reaper = create(executable);
+    try {
+      reaper.collectDeadSessions();
+    } catch (final IOException | InterruptedException e) {
+      reaper.close();
+      throw e;
+    }
+    return reaper;
+  }
+
+  private static String localHostName()
+  {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (final UnknownHostException e) {
+      return "localhost";
+    }
+  }
+
+  /**
+   * @return The session ID
+   */
+
+  public String sessionId()
+  {
+    return this.sessionId;
+  }
+
+  /**
+   * Label the container that will be started by the given builder as
+   * belonging to this session.
+   *
+   * @param run The run builder
+   *
+   * @return The run builder
+   */
+
+  public PodmanProcessRunBuilderType register(
+    final PodmanProcessRunBuilderType run)
+  {
+    Objects.requireNonNull(run, "run");
+
+    return run.addLabel(PodmanLabels.SESSION, this.sessionId)
+      .addLabel(PodmanLabels.SESSION_PID, Long.toString(this.pid))
+      .addLabel(PodmanLabels.SESSION_START, this.startTime)
+      .addLabel(PodmanLabels.SESSION_HOST, this.hostName);
+  }
+
+  /**
+   * Record a container as belonging to this session.
+   *
+   * @param containerId The container ID
+   */
+
+  public void track(
+    final String containerId)
+  {
+    this.checkNotClosed();
+    this.containers.add(Objects.requireNonNull(containerId, "containerId"));
+  }
+
+  /**
+   * Start a watchdog process that removes the containers of this session
+   * if this JVM exits without closing the reaper.
+   *
+   * @throws IOException On errors
+   */
+
+  public void startWatchdog()
+    throws IOException
+  {
+    this.checkNotClosed();
+
+    synchronized (this) {
+      if (this.watchdog != null) {
+        return;
+      }
+
+      this.watchdog =
+        PNWatchdog.start(this.removeSessionBuilder().build().command());
+
+      LOG.debug(
+        "Started session watchdog (pid {})",
+        Long.valueOf(this.watchdog.pid())
+      );
+    }
+  }
+
+  private PodmanProcessRmBuilderType removeSessionBuilder()
+  {
+    return this.executable.rm()
+      .setForce(true)
+      .setIgnoreMissing(true)
+      .setStopTimeout(Duration.ZERO)
+      .addFilter(new PodmanContainerFilterType.Label(
+        PodmanLabels.SESSION, Optional.of(this.sessionId)));
+  }
+
+  /**
+   * Remove all containers left behind by sessions whose JVM is no longer
+   * running on this host. Containers are found with a single filtered
+   * {@code podman ps}, and removed with a single {@code podman rm}.
+   *
+   * @return The IDs of the removed containers
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public List<String> collectDeadSessions()
+    throws IOException, InterruptedException
+  {
+    final var summaries =
+      this.executable.ps()
+        .setAll(true)
+        .addFilter(new PodmanContainerFilterType.Label(
+          PodmanLabels.SESSION, Optional.empty()))
+        .executeQuery();
+
+    final var dead = new ArrayList<String>();
+    for (final var summary : summaries) {
+      if (this.isFromDeadSession(summary)) {
+        dead.add(summary.id());
+      }
+    }
+
+    if (dead.isEmpty()) {
+      return List.of();
+    }
+
+    LOG.debug(
+      "Removing {} containers from dead sessions",
+      Integer.valueOf(dead.size())
+    );
+
+    final var rm =
+      this.executable.rm()
+        .setForce(true)
+        .setIgnoreMissing(true)
+        .setStopTimeout(Duration.ZERO);
+    dead.forEach(rm::addContainer);
+    return rm.executeQuery();
+  }
+
+  private boolean isFromDeadSession(
+    final PodmanContainerSummary summary)
+  {
+    final var labels = summary.labels();
+    if (this.sessionId.equals(labels.get(PodmanLabels.SESSION))) {
+      return false;
+    }
+
+    /*
+     * The liveness of sessions on other hosts cannot be determined.
+     */
+
+    if (!this.hostName.equals(labels.get(PodmanLabels.SESSION_HOST))) {
+      return false;
+    }
+
+    final long ownerPid;
+    try {
+      ownerPid = Long.parseLong(labels.getOrDefault(PodmanLabels.SESSION_PID, ""));
+    } catch (final NumberFormatException e) {
+      return false;
+    }
+
+    final var ownerStart =
+      labels.getOrDefault(PodmanLabels.SESSION_START, "");
+    final var owner =
+      ProcessHandle.of(ownerPid);
+
+    if (owner.isEmpty() || !owner.get().isAlive()) {
+      return true;
+    }
+    if (ownerStart.isEmpty()) {
+      return false;
+    }
+
+    /*
+     * A live process with a different start time means that the process
+     * ID has been reused and the original owner is gone.
+     */
+
+    return owner.get()
+      .info()
+      .startInstant()
+      .map(t -> !ownerStart.equals(t.toString()))
+      .orElse(Boolean.FALSE)
+      .booleanValue();
+  }
+
+  private void checkNotClosed()
+  {
+    if (this.closed) {
+      throw new IllegalStateException("Reaper is closed.");
+    }
+  }
+
+  /**
+   * Remove all containers belonging to this session and stop the watchdog.
+   */
+
+  @Override
+  public void close()
+  {
+    synchronized (this) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+    }
+
+    try {
+      Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+    } catch (final IllegalStateException e) {
+      // The JVM is already shutting down.
+    }
+
+    final var process = this.watchdog;
+    if (process != null) {
+      process.destroy();
+    }
+
+    try {
+      if (!this.containers.isEmpty()) {
+        final var rm =
+          this.executable.rm()
+            .setForce(true)
+            .setIgnoreMissing(true)
+            .setStopTimeout(Duration.ZERO);
+        this.containers.forEach(rm::addContainer);
+        rm.executeQuery();
+      }
+      this.removeSessionBuilder().executeQuery();
+    } catch (final IOException e) {
+      LOG.error("Failed to remove session containers: ", e);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanExecutableFactoryType;
+import com.io7m.tavella.api.PodmanExecutableType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A set of executables that each use a distinct storage root and run
+ * root. {@code podman} serializes many operations on a lock held in the
+ * storage directories, so independent workloads assigned to different
+ * shards do not contend with each other. Containers and images are not
+ * shared between shards: each shard must pull the images it uses, unless
+ * a shared read-only image store is configured with
+ * {@code --storage-opt additionalimagestore=...}.
+ */
+
+public final class PodmanShardedExecutables
+{
+  private final List<PodmanExecutableConfiguration> configurations;
+  private final List<PodmanExecutableType> executables;
+
+  private PodmanShardedExecutables(
+    final List<PodmanExecutableConfiguration> inConfigurations,
+    final List<PodmanExecutableType> inExecutables)
+  {
+    this.configurations =
+      List.copyOf(inConfigurations);
+    this.executables =
+      List.copyOf(inExecutables);
+  }
+
+  /**
+   * Create a set of sharded executables. Shard {@code i} uses
+   * {@code directory/i/root} as its storage root and
+   * {@code directory/i/run} as its run root; all other settings are taken
+   * from the base configuration.
+   *
+   * @param factory    The executable factory
+   * @param base       The base configuration
+   * @param directory  The directory containing the shards
+   * @param shardCount The number of shards
+   *
+   * @return The sharded executables
+   *
+   * @throws IOException On errors creating the shard directories
+   */
+
+  public static PodmanShardedExecutables create(
+    final PodmanExecutableFactoryType factory,
+    final PodmanExecutableConfiguration base,
+    final Path directory,
+    final int shardCount)
+    throws IOException
+  {
+    Objects.requireNonNull(factory, "factory");
+    Objects.requireNonNull(base, "base");
+    Objects.requireNonNull(directory, "directory");
+
+    if (shardCount < 1) {
+      throw new IllegalArgumentException(
+        "Shard count must be positive: %d"
+          .formatted(Integer.valueOf(shardCount))
+      );
+    }
+
+    final var configurations =
+      new ArrayList<PodmanExecutableConfiguration>(shardCount);
+    final var executables =
+      new ArrayList<PodmanExecutableType>(shardCount);
+
+    for (int index = 0; index < shardCount; ++index) {
+      final var shard =
+        directory.resolve(Integer.toString(index));
+      final var root =
+        Files.createDirectories(shard.resolve("root"));
+      final var run =
+        Files.createDirectories(shard.resolve("run"));
+
+      final var configuration =
+        base.toBuilder()
+          .setRoot(root)
+          .setRunRoot(run)
+          .build();
+
+      configurations.add(configuration);
+      executables.add(factory.createExecutable(configuration));
+    }
+
+    return new PodmanShardedExecutables(configurations, executables);
+  }
+
+  /**
+   * @return The number of shards
+   */
+
+  public int shardCount()
+  {
+    return this.executables.size();
+  }
+
+  /**
+   * @param index The shard index
+   *
+   * @return The executable for the given shard
+   */
+
+  public PodmanExecutableType shard(
+    final int index)
+  {
+    return this.executables.get(index);
+  }
+
+  /**
+   * @param index The shard index
+   *
+   * @return The configuration of the given shard
+   */
+
+  public PodmanExecutableConfiguration configuration(
+    final int index)
+  {
+    return this.configurations.get(index);
+  }
+
+  /**
+   * Select a shard for a workload. The same key always selects the same
+   * shard, so that related containers share storage.
+   *
+   * @param key The workload key
+   *
+   * @return The executable for the selected shard
+   */
+
+  public PodmanExecutableType shardFor(
+    final String key)
+  {
+    return this.shard(this.shardIndexFor(key));
+  }
+
+  /**
+   * @param key The workload key
+   *
+   * @return The index of the shard selected for the key
+   *
+   * @see #shardFor(String)
+   */
+
+  public int shardIndexFor(
+    final String key)
+  {
+    Objects.requireNonNull(key, "key");
+    return Math.floorMod(key.hashCode(), this.executables.size());
+  }
+}
@@ -0,0 +1,639 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanContainerStats;
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.native_exec.internal.PNCgroupFiles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A sampler of container resource usage.
+ *
+ * <p>Each container added to the sampler is inspected once in order to
+ * resolve its cgroup. Each sample then reads {@code cpu.stat},
+ * {@code memory.current}, {@code io.stat}, and {@code pids.current}
+ * directly from the cgroup v2 filesystem into a set of primitive arrays,
+ * without starting any processes. Containers whose cgroups cannot be read
+ * (for example, on cgroup v1 hosts, or where the cgroup is not visible to
+ * this process) are sampled with a single {@code podman stats} invocation
+ * per round.</p>
+ *
+ * <p>Containers are identified by slot numbers assigned by
+ * {@link #add(String)}. Removing a container moves the container in the
+ * last slot into the freed slot.</p>
+ */
+
+public final class PodmanStatsSampler implements AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PodmanStatsSampler.class);
+
+  private static final byte[] USAGE_USEC =
+    "usage_usec".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] RBYTES =
+    "rbytes=".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] WBYTES =
+    "wbytes=".getBytes(StandardCharsets.US_ASCII);
+
+  private static final int SAMPLE_CPU = 0;
+  private static final int SAMPLE_MEMORY = 1;
+  private static final int SAMPLE_IO_READ = 2;
+  private static final int SAMPLE_IO_WRITE = 3;
+  private static final int SAMPLE_PIDS = 4;
+  private static final int SAMPLE_VALUES = 5;
+
+  private final PodmanExecutableType executable;
+  private final Path cgroupRoot;
+  private final Duration interval;
+  private final ScheduledExecutorService scheduler;
+  private final ReentrantLock sampleLock;
+  private final Object lock;
+  private final HashMap<String, Integer> slots;
+  private final byte[] buffer;
+  private String[] containers;
+  private Path[] cgroups;
+  private long[] cpuMicros;
+  private long[] memoryBytes;
+  private long[] ioReadBytes;
+  private long[] ioWriteBytes;
+  private long[] pids;
+  private long[] sampledAtMillis;
+  private String[] sampleIds;
+  private Path[] sampleCgroupPaths;
+  private long[] sampleValues;
+  private int[] sampleFields;
+  private int size;
+  private boolean started;
+
+  private PodmanStatsSampler(
+    final PodmanExecutableType inExecutable,
+    final Duration inInterval,
+    final Path inCgroupRoot,
+    final ScheduledExecutorService inScheduler)
+  {
+    this.executable =
+      Objects.requireNonNull(inExecutable, "executable");
+    this.interval =
+      Objects.requireNonNull(inInterval, "interval");
+    this.cgroupRoot =
+      Objects.requireNonNull(inCgroupRoot, "cgroupRoot");
+    this.scheduler =
+      Objects.requireNonNull(inScheduler, "scheduler");
+    this.sampleLock =
+      new ReentrantLock();
+    this.lock =
+      new Object();
+    this.slots =
+      new HashMap<>();
+    this.buffer =
+      new byte[65536];
+    this.sampleIds =
+      new String[0];
+    this.sampleCgroupPaths =
+      new Path[0];
+    this.sampleValues =
+      new long[0];
+    this.sampleFields =
+      new int[0];
+
+    this.resize(16);
+  }
+
+  /**
+   * Create a sampler that reads cgroups from {@code /sys/fs/cgroup}.
+   *
+   * @param executable The podman executable
+   * @param interval   The interval between samples
+   *
+   * @return A new sampler
+   */
+
+  public static PodmanStatsSampler create(
+    final PodmanExecutableType executable,
+    final Duration interval)
+  {
+    return create(executable, interval, Path.of("/sys/fs/cgroup"));
+  }
+
+  /**
+   * Create a sampler.
+   *
+   * @param executable The podman executable
+   * @param interval   The interval between samples
+   * @param cgroupRoot The root of the cgroup v2 hierarchy
+   *
+   * @return A new sampler
+   */
+
+  public static PodmanStatsSampler create(
+    final PodmanExecutableType executable,
+    final Duration interval,
+    final Path cgroupRoot)
+  {
+    if (interval.isNegative() || interval.isZero()) {
+      throw new IllegalArgumentException(
+        "Interval must be positive: %s".formatted(interval)
+      );
+    }
+
+    final var scheduler =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        return Thread.ofPlatform()
+          .daemon()
+          .name("com.io7m.tavella.stats-sampler")
+          .unstarted(r);
+      });
+
+    return new PodmanStatsSampler(
+      executable,
+      interval,
+      cgroupRoot,
+      scheduler
+    );
+  }
+
+  private void resize(
+    final int capacity)
+  {
+    if (this.containers == null) {
+      this.containers = new String[capacity];
+      this.cgroups = new Path[capacity];
+      this.cpuMicros = new long[capacity];
+      this.memoryBytes = new long[capacity];
+      this.ioReadBytes = new long[capacity];
+      this.ioWriteBytes = new long[capacity];
+      this.pids = new long[capacity];
+      this.sampledAtMillis = new long[capacity];
+      return;
+    }
+
+    this.containers = Arrays.copyOf(this.containers, capacity);
+    this.cgroups = Arrays.copyOf(this.cgroups, capacity);
+    this.cpuMicros = Arrays.copyOf(this.cpuMicros, capacity);
+    this.memoryBytes = Arrays.copyOf(this.memoryBytes, capacity);
+    this.ioReadBytes = Arrays.copyOf(this.ioReadBytes, capacity);
+    this.ioWriteBytes = Arrays.copyOf(this.ioWriteBytes, capacity);
+    this.pids = Arrays.copyOf(this.pids, capacity);
+    this.sampledAtMillis = Arrays.copyOf(this.sampledAtMillis, capacity);
+  }
+
+  /**
+   * Add a container to the sampler. The container is inspected in order to
+   * resolve its full ID and cgroup. Adding a container that is already
+   * present returns its existing slot.
+   *
+   * @param container The container name or ID
+   *
+   * @return The slot assigned to the container
+   *
+   * @throws IOException          On errors, or if the container does not exist
+   * @throws InterruptedException On interruption
+   */
+
+  public int add(
+    final String container)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(container, "container");
+
+    final var inspection =
+      this.executable.inspect()
+        .addContainer(container)
+        .executeQuery()
+        .stream()
+        .filter(i -> i.isReferencedBy(container))
+        .findFirst()
+        .orElseThrow(() -> {
+          return new IOException("No such container: %s".formatted(container));
+        });
+
+    final var cgroup =
+      inspection.cgroupPath()
+        .map(p -> this.cgroupRoot.resolve(p.replaceFirst("^/+", "")))
+        .filter(p -> Files.isReadable(p.resolve("cpu.stat")))
+        .orElse(null);
+
+    if (cgroup == null) {
+      LOG.debug(
+        "Container {} cgroup is not readable; falling back to podman stats",
+        inspection.id()
+      );
+    }
+
+    synchronized (this.lock) {
+      final var existing = this.slots.get(inspection.id());
+      if (existing != null) {
+        return existing.intValue();
+      }
+
+      if (this.size == this.containers.length) {
+        this.resize(this.size * 2);
+      }
+
+      final var slot = this.size;
+      this.containers[slot] = inspection.id();
+      this.cgroups[slot] = cgroup;
+      this.cpuMicros[slot] = 0L;
+      this.memoryBytes[slot] = 0L;
+      this.ioReadBytes[slot] = 0L;
+      this.ioWriteBytes[slot] = 0L;
+      this.pids[slot] = 0L;
+      this.sampledAtMillis[slot] = 0L;
+      this.slots.put(inspection.id(), Integer.valueOf(slot));
+      ++this.size;
+      return slot;
+    }
+  }
+
+  /**
+   * Remove a container from the sampler.
+   *
+   * @param containerId The full container ID
+   */
+
+  public void remove(
+    final String containerId)
+  {
+    synchronized (this.lock) {
+      final var slotObj = this.slots.remove(containerId);
+      if (slotObj == null) {
+        return;
+      }
+
+      final var slot = slotObj.intValue();
+      final var last = this.size - 1;
+      if (slot != last) {
+        this.containers[slot] = this.containers[last];
+        this.cgroups[slot] = this.cgroups[last];
+        this.cpuMicros[slot] = this.cpuMicros[last];
+        this.memoryBytes[slot] = this.memoryBytes[last];
+        this.ioReadBytes[slot] = this.ioReadBytes[last];
+        this.ioWriteBytes[slot] = this.ioWriteBytes[last];
+        this.pids[slot] = this.pids[last];
+        this.sampledAtMillis[slot] = this.sampledAtMillis[last];
+        this.slots.put(this.containers[slot], slotObj);
+      }
+      this.containers[last] = null;
+      this.cgroups[last] = null;
+      --this.size;
+    }
+  }
+
+  /**
+   * Start sampling at the configured interval on a background thread.
+   */
+
+  public void start()
+  {
+    synchronized (this.lock) {
+      if (this.started) {
+        return;
+      }
+      this.started = true;
+    }
+
+    this.scheduler.scheduleAtFixedRate(
+      this::sampleLogged,
+      0L,
+      this.interval.toNanos(),
+      TimeUnit.NANOSECONDS
+    );
+  }
+
+  private void sampleLogged()
+  {
+    try {
+      this.sample();
+    } catch (final IOException e) {
+      LOG.warn("Failed to sample container statistics: ", e);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Take one sample of every container immediately.
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public void sample()
+    throws IOException, InterruptedException
+  {
+    this.sampleLock.lockInterruptibly();
+    try {
+      final var fallback = this.sampleCgroups();
+      if (!fallback.isEmpty()) {
+        this.sampleFallback(fallback);
+      }
+    } finally {
+      this.sampleLock.unlock();
+    }
+  }
+
+  /*
+   * The cgroup files are read without holding the lock, so that callers of
+   * stats() are never blocked behind file I/O. The IDs and cgroups of the
+   * current slots are copied under the lock, the files are read into the
+   * sample arrays (which are only touched by the thread holding the sample
+   * lock), and the results are published under the lock afterwards.
+   */
+
+  private ArrayList<String> sampleCgroups()
+    throws IOException
+  {
+    final var count = this.snapshot();
+    final var fallback = new ArrayList<String>();
+
+    for (int index = 0; index < count; ++index) {
+      final var cgroup = this.sampleCgroupPaths[index];
+      if (cgroup == null) {
+        fallback.add(this.sampleIds[index]);
+        this.sampleFields[index] = 0;
+        continue;
+      }
+      this.sampleFields[index] =
+        this.readCgroup(cgroup, index * SAMPLE_VALUES);
+    }
+
+    this.publish(count, System.currentTimeMillis());
+    return fallback;
+  }
+
+  private int snapshot()
+  {
+    synchronized (this.lock) {
+      final var count = this.size;
+      if (this.sampleIds.length < count) {
+        final var capacity = this.containers.length;
+        this.sampleIds = new String[capacity];
+        this.sampleCgroupPaths = new Path[capacity];
+        this.sampleValues = new long[capacity * SAMPLE_VALUES];
+        this.sampleFields = new int[capacity];
+      }
+      System.arraycopy(this.containers, 0, this.sampleIds, 0, count);
+      System.arraycopy(this.cgroups, 0, this.sampleCgroupPaths, 0, count);
+      return count;
+    }
+  }
+
+  private int readCgroup(
+    final Path cgroup,
+    final int base)
+    throws IOException
+  {
+    final var cpuLength = this.read(cgroup.resolve("cpu.stat"));
+    if (cpuLength < 0) {
+      // The container has stopped and its cgroup has been removed.
+      return 0;
+    }
+
+    final var values = this.sampleValues;
+    values[base + SAMPLE_CPU] =
+      PNCgroupFiles.parseFlatKeyed(this.buffer, cpuLength, USAGE_USEC);
+    var fields = 1 << SAMPLE_CPU;
+
+    final var memLength = this.read(cgroup.resolve("memory.current"));
+    if (memLength >= 0) {
+      values[base + SAMPLE_MEMORY] =
+        PNCgroupFiles.parseSingle(this.buffer, memLength);
+      fields |= 1 << SAMPLE_MEMORY;
+    }
+
+    final var ioLength = this.read(cgroup.resolve("io.stat"));
+    if (ioLength >= 0) {
+      values[base + SAMPLE_IO_READ] =
+        PNCgroupFiles.sumNestedKeyed(this.buffer, ioLength, RBYTES);
+      values[base + SAMPLE_IO_WRITE] =
+        PNCgroupFiles.sumNestedKeyed(this.buffer, ioLength, WBYTES);
+      fields |= (1 << SAMPLE_IO_READ) | (1 << SAMPLE_IO_WRITE);
+    }
+
+    final var pidLength = this.read(cgroup.resolve("pids.current"));
+    if (pidLength >= 0) {
+      values[base + SAMPLE_PIDS] =
+        PNCgroupFiles.parseSingle(this.buffer, pidLength);
+      fields |= 1 << SAMPLE_PIDS;
+    }
+    return fields;
+  }
+
+  /*
+   * Containers may have been removed (moving other containers between
+   * slots) while the files were being read, so each result is published
+   * to the slot that currently holds its container, if any.
+   */
+
+  private void publish(
+    final int count,
+    final long now)
+  {
+    synchronized (this.lock) {
+      for (int index = 0; index < count; ++index) {
+        final var fields = this.sampleFields[index];
+        final var id = this.sampleIds[index];
+        this.sampleIds[index] = null;
+        this.sampleCgroupPaths[index] = null;
+        if (fields == 0) {
+          continue;
+        }
+
+        final var slot = this.currentSlot(index, id);
+        if (slot < 0) {
+          continue;
+        }
+
+        final var base = index * SAMPLE_VALUES;
+        final var values = this.sampleValues;
+        this.cpuMicros[slot] = values[base + SAMPLE_CPU];
+        if ((fields & (1 << SAMPLE_MEMORY)) != 0) {
+          this.memoryBytes[slot] = values[base + SAMPLE_MEMORY];
+        }
+        if ((fields & (1 << SAMPLE_IO_READ)) != 0) {
+          this.ioReadBytes[slot] = values[base + SAMPLE_IO_READ];
+          this.ioWriteBytes[slot] = values[base + SAMPLE_IO_WRITE];
+        }
+        if ((fields & (1 << SAMPLE_PIDS)) != 0) {
+          this.pids[slot] = values[base + SAMPLE_PIDS];
+        }
+        this.sampledAtMillis[slot] = now;
+      }
+    }
+  }
+
+  private int currentSlot(
+    final int index,
+    final String id)
+  {
+    if (index < this.size && this.containers[index] == id) {
+      return index;
+    }
+    final var slot = this.slots.get(id);
+    return slot == null ? -1 : slot.intValue();
+  }
+
+  private void sampleFallback(
+    final ArrayList<String> fallback)
+    throws IOException, InterruptedException
+  {
+    final var stats = this.executable.stats();
+    fallback.forEach(stats::addContainer);
+    final var results = stats.executeQuery();
+
+    synchronized (this.lock) {
+      final var now = System.currentTimeMillis();
+      for (final var result : results) {
+        final var slotObj = this.slots.get(result.container());
+        if (slotObj == null) {
+          continue;
+        }
+        final var slot = slotObj.intValue();
+        this.cpuMicros[slot] = result.cpuMicros();
+        this.memoryBytes[slot] = result.memoryBytes();
+        this.ioReadBytes[slot] = result.ioReadBytes();
+        this.ioWriteBytes[slot] = result.ioWriteBytes();
+        this.pids[slot] = result.pids();
+        this.sampledAtMillis[slot] = now;
+      }
+    }
+  }
+
+  private int read(
+    final Path file)
+    throws IOException
+  {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var target = ByteBuffer.wrap(this.buffer);
+      while (target.hasRemaining()) {
+        if (channel.read(target) < 0) {
+          break;
+        }
+      }
+      return target.position();
+    } catch (final NoSuchFileException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * @return The number of containers being sampled
+   */
+
+  public int size()
+  {
+    synchronized (this.lock) {
+      return this.size;
+    }
+  }
+
+  /**
+   * @param containerId The full container ID
+   *
+   * @return The slot of the container, or {@code -1} if it is not present
+   */
+
+  public int slotOf(
+    final String containerId)
+  {
+    synchronized (this.lock) {
+      final var slot = this.slots.get(containerId);
+      return slot == null ? -1 : slot.intValue();
+    }
+  }
+
+  /**
+   * @param slot The slot
+   *
+   * @return The most recent sample for the container in the given slot
+   */
+
+  public PodmanContainerStats stats(
+    final int slot)
+  {
+    synchronized (this.lock) {
+      Objects.checkIndex(slot, this.size);
+      return new PodmanContainerStats(
+        this.containers[slot],
+        this.cpuMicros[slot],
+        this.memoryBytes[slot],
+        this.ioReadBytes[slot],
+        this.ioWriteBytes[slot],
+        this.pids[slot]
+      );
+    }
+  }
+
+  /**
+   * @param slot The slot
+   *
+   * @return The time of the most recent sample in milliseconds since the
+   *         epoch, or {@code 0} if the container has never been sampled
+   */
+
+  public long sampledAtMillis(
+    final int slot)
+  {
+    synchronized (this.lock) {
+      Objects.checkIndex(slot, this.size);
+      return this.sampledAtMillis[slot];
+    }
+  }
+
+  /**
+   * @param slot The slot
+   *
+   * @return {@code true} if the container in the given slot is sampled
+   *         via its cgroup rather than via {@code podman stats}
+   */
+
+  public boolean isDirect(
+    final int slot)
+  {
+    synchronized (this.lock) {
+      Objects.checkIndex(slot, this.size);
+      return this.cgroups[slot] != null;
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    this.scheduler.shutdownNow();
+  }
+}
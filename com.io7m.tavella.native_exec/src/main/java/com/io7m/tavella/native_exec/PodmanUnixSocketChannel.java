@@ -0,0 +1,266 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanProcessRunBuilderType;
+import com.io7m.tavella.api.PodmanVolumeFlag;
+import com.io7m.tavella.api.PodmanVolumeMount;
+import com.io7m.tavella.api.PodmanVolumeMountSourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A Unix domain socket on the host that is mounted into containers.
+ *
+ * <p>The socket is created in a new temporary directory, and the directory
+ * (rather than the socket itself) is bind-mounted into the container so
+ * that the socket is visible at {@link #containerSocketPath()}. Processes
+ * inside the container connect to the socket and the host accepts the
+ * connections as ordinary NIO {@link SocketChannel} values, allowing
+ * binary data to be streamed out of a container without passing through
+ * the standard output of the {@code podman} process.</p>
+ *
+ * <p>Rootless containers typically run as users that are mapped to
+ * subordinate UIDs on the host, and so the directory is made searchable
+ * and the socket made writable by all users. Any process on the host
+ * that can find the socket can therefore connect to it; callers that
+ * require authentication must implement it in their own framing.</p>
+ *
+ * <p>On hosts that enforce SELinux, a container cannot connect to a socket
+ * in a directory that has not been labelled for it. The default
+ * {@link #volumeMount()} therefore relabels the directory privately for
+ * the container ({@link PodmanVolumeFlag#SELINUX_LABEL_PRIVATE}); callers
+ * that share the socket between several containers must instead pass
+ * {@link PodmanVolumeFlag#SELINUX_LABEL_SHARED} to
+ * {@link #volumeMount(Set)}. The flags are ignored on hosts without
+ * SELinux.</p>
+ */
+
+public final class PodmanUnixSocketChannel implements AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PodmanUnixSocketChannel.class);
+
+  private static final String SOCKET_NAME =
+    "tavella.sock";
+
+  private final Path directory;
+  private final Path socket;
+  private final String containerDirectory;
+  private final ServerSocketChannel server;
+
+  private PodmanUnixSocketChannel(
+    final Path inDirectory,
+    final Path inSocket,
+    final String inContainerDirectory,
+    final ServerSocketChannel inServer)
+  {
+    this.directory =
+      Objects.requireNonNull(inDirectory, "directory");
+    this.socket =
+      Objects.requireNonNull(inSocket, "socket");
+    this.containerDirectory =
+      Objects.requireNonNull(inContainerDirectory, "containerDirectory");
+    this.server =
+      Objects.requireNonNull(inServer, "server");
+  }
+
+  /**
+   * Create a new socket in a temporary directory.
+   *
+   * @param containerDirectory The directory inside the container at which
+   *                           the socket directory will be mounted
+   *
+   * @return The socket channel
+   *
+   * @throws IOException On errors
+   */
+
+  public static PodmanUnixSocketChannel create(
+    final String containerDirectory)
+    throws IOException
+  {
+    Objects.requireNonNull(containerDirectory, "containerDirectory");
+
+    final var directory =
+      Files.createTempDirectory("tavella-socket-");
+    final var socket =
+      directory.resolve(SOCKET_NAME);
+
+    final ServerSocketChannel server;
+    try {
+      server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+      try {
+        server.bind(UnixDomainSocketAddress.of(socket));
+        Files.setPosixFilePermissions(
+          socket, PosixFilePermissions.fromString("rw-rw-rw-"));
+        Files.setPosixFilePermissions(
+          directory, PosixFilePermissions.fromString("rwx--x--x"));
+      } catch (final IOException e) {
+        server.close();
+        throw e;
+      }
+    } catch (final IOException e) {
+      deleteQuietly(socket);
+      deleteQuietly(directory);
+      throw e;
+    }
+
+    LOG.debug("Created socket {}", socket);
+    return new PodmanUnixSocketChannel(
+      directory,
+      socket,
+      containerDirectory,
+      server
+    );
+  }
+
+  private static void deleteQuietly(
+    final Path file)
+  {
+    try {
+      Files.deleteIfExists(file);
+    } catch (final IOException e) {
+      LOG.debug("Failed to delete {}: ", file, e);
+    }
+  }
+
+  /**
+   * @return The path of the socket on the host
+   */
+
+  public Path hostSocketPath()
+  {
+    return this.socket;
+  }
+
+  /**
+   * @return The path of the socket inside the container
+   */
+
+  public String containerSocketPath()
+  {
+    if (this.containerDirectory.endsWith("/")) {
+      return this.containerDirectory + SOCKET_NAME;
+    }
+    return "%s/%s".formatted(this.containerDirectory, SOCKET_NAME);
+  }
+
+  /**
+   * @return A read/write volume mount that exposes the socket inside a
+   * single container, with a private SELinux label
+   */
+
+  public PodmanVolumeMount volumeMount()
+  {
+    return this.volumeMount(Set.of(PodmanVolumeFlag.SELINUX_LABEL_PRIVATE));
+  }
+
+  /**
+   * @param flags The flags applied to the mount in addition to
+   *              {@link PodmanVolumeFlag#READ_WRITE}, such as an SELinux
+   *              label
+   *
+   * @return A read/write volume mount that exposes the socket inside the
+   * container
+   */
+
+  public PodmanVolumeMount volumeMount(
+    final Set<PodmanVolumeFlag> flags)
+  {
+    Objects.requireNonNull(flags, "flags");
+
+    final var options = EnumSet.of(PodmanVolumeFlag.READ_WRITE);
+    options.addAll(flags);
+    return new PodmanVolumeMount(
+      new PodmanVolumeMountSourceType.HostPath(this.directory),
+      this.containerDirectory,
+      options
+    );
+  }
+
+  /**
+   * Mount the socket into the container that will be started by the given
+   * builder, and set the given environment variable to the path of the
+   * socket inside the container.
+   *
+   * @param run      The run builder
+   * @param variable The name of the environment variable
+   *
+   * @return The run builder
+   */
+
+  public PodmanProcessRunBuilderType register(
+    final PodmanProcessRunBuilderType run,
+    final String variable)
+  {
+    Objects.requireNonNull(run, "run");
+    Objects.requireNonNull(variable, "variable");
+
+    return run.addVolume(this.volumeMount())
+      .addEnvironmentVariable(variable, this.containerSocketPath());
+  }
+
+  /**
+   * Wait for a process to connect to the socket. The returned channel is
+   * in blocking mode. Closing this socket channel causes any thread
+   * blocked here to fail with an
+   * {@link java.nio.channels.AsynchronousCloseException}.
+   *
+   * @return The connected channel
+   *
+   * @throws IOException On errors
+   */
+
+  public SocketChannel accept()
+    throws IOException
+  {
+    return this.server.accept();
+  }
+
+  /**
+   * Close the socket, and delete the socket and its directory. Channels
+   * that have already been accepted are not closed.
+   *
+   * @throws IOException On errors
+   */
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    try {
+      this.server.close();
+    } finally {
+      deleteQuietly(this.socket);
+      deleteQuietly(this.directory);
+    }
+  }
+}
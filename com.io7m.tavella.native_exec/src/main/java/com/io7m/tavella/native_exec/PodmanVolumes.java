@@ -0,0 +1,422 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.api.PodmanLabels;
+import com.io7m.tavella.api.PodmanVolumeFlag;
+import com.io7m.tavella.api.PodmanVolumeMount;
+import com.io7m.tavella.api.PodmanVolumeMountSourceType;
+import com.io7m.tavella.native_exec.internal.PNBuildContextHasher;
+import com.io7m.tavella.native_exec.internal.PNStreams;
+import com.io7m.tavella.native_exec.internal.PNTarExtractor;
+import com.io7m.tavella.native_exec.internal.PNTarReader;
+import com.io7m.tavella.native_exec.internal.PNTarWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Named volume management that streams tar archives through
+ * {@code podman volume import} and {@code podman volume export}, without
+ * writing archives to disk.
+ *
+ * <p>Importing a directory into a volume produces the archive
+ * incrementally while {@code podman volume import volume -} reads it, and
+ * exporting a volume extracts the archive written by
+ * {@code podman volume export volume} as it arrives. The contents of the
+ * directory become the root of the volume.</p>
+ *
+ * <p>Seeded volumes are content-addressed: the name of the volume is
+ * derived from a digest of the directory from which the volume is seeded,
+ * and the volume is labelled with {@link PodmanLabels#VOLUME_DIGEST}.
+ * Seeding a volume from a directory whose contents have already been
+ * seeded reuses the existing volume, so any number of containers can
+ * mount the same data read-only without copying it again. Volumes seeded
+ * from older contents are not removed.</p>
+ *
+ * <p>A volume only counts as seeded once its contents have been imported
+ * completely: after the import succeeds, an empty marker volume named
+ * {@code <volume>.seeded} is created with the label
+ * {@link PodmanLabels#VOLUME_SEEDED}. Volume creation is atomic, whereas
+ * an import is not, so a volume left partially populated by a failed or
+ * interrupted import (or one that another process is still importing) is
+ * never reused as it is. Seeding such a volume imports the contents into
+ * it again, which is safe as the contents are identical, before the
+ * marker is created.</p>
+ *
+ * <p>As with {@link PodmanFileTransfer}, imports and exports always run
+ * {@code podman} directly, even if the executable configuration specifies
+ * a launcher.</p>
+ */
+
+public final class PodmanVolumes
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PodmanVolumes.class);
+
+  private final PodmanExecutableType executable;
+  private final ReentrantLock[] locks;
+
+  private PodmanVolumes(
+    final PodmanExecutableType inExecutable)
+  {
+    this.executable =
+      Objects.requireNonNull(inExecutable, "executable");
+    this.locks =
+      new ReentrantLock[16];
+
+    for (int index = 0; index < this.locks.length; index += 1) {
+      this.locks[index] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Create a new volume helper.
+   *
+   * @param executable The podman executable
+   *
+   * @return A new volume helper
+   */
+
+  public static PodmanVolumes create(
+    final PodmanExecutableType executable)
+  {
+    return new PodmanVolumes(executable);
+  }
+
+  /**
+   * Import the contents of a directory into an existing volume.
+   *
+   * @param volume    The volume name
+   * @param directory The directory on the host
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public void importTree(
+    final String volume,
+    final Path directory)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(directory, "directory");
+
+    this.upload(volume, output -> {
+      try (var writer = new PNTarWriter(output)) {
+        writer.writeContents(directory);
+      }
+    });
+  }
+
+  /**
+   * Import a tar archive into an existing volume. The archive is read from
+   * the channel until the end of the stream; the channel is not closed.
+   *
+   * @param volume  The volume name
+   * @param archive The archive
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public void importArchive(
+    final String volume,
+    final ReadableByteChannel archive)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(archive, "archive");
+
+    this.upload(volume, output -> {
+      Channels.newInputStream(archive).transferTo(output);
+    });
+  }
+
+  /**
+   * Export the contents of a volume into a directory on the host.
+   *
+   * @param volume      The volume name
+   * @param destination The destination directory on the host
+   *
+   * @return The number of extracted files, directories, and links
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public long exportTree(
+    final String volume,
+    final Path destination)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(destination, "destination");
+
+    return this.download(volume, input -> {
+      return PNTarExtractor.extract(new PNTarReader(input), destination);
+    }).longValue();
+  }
+
+  /**
+   * Export the contents of a volume as a tar archive written to the given
+   * channel. The channel is not closed.
+   *
+   * @param volume  The volume name
+   * @param archive The channel receiving the archive
+   *
+   * @return The size of the archive in bytes
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public long exportArchive(
+    final String volume,
+    final WritableByteChannel archive)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(archive, "archive");
+
+    return this.download(volume, input -> {
+      return input.transferTo(Channels.newOutputStream(archive));
+    }).longValue();
+  }
+
+  /**
+   * Return a volume seeded with the contents of the given directory,
+   * creating and importing the volume if no volume has yet been seeded
+   * with identical contents.
+   *
+   * @param prefix    The prefix of the volume name
+   * @param directory The directory on the host
+   *
+   * @return The name of the seeded volume
+   *
+   * @throws IOException          On errors, or if a volume with the
+   *                              expected name exists but was not seeded
+   *                              from the same contents
+   * @throws InterruptedException On interruption
+   */
+
+  public String seed(
+    final String prefix,
+    final Path directory)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(prefix, "prefix");
+    Objects.requireNonNull(directory, "directory");
+
+    final var digest =
+      HexFormat.of()
+        .formatHex(PNBuildContextHasher.hash(
+          directory,
+          PNBuildContextHasher.pool()
+        ));
+    final var name =
+      "%s-%s".formatted(prefix, digest.substring(0, 32));
+
+    final var lock =
+      this.locks[Math.floorMod(name.hashCode(), this.locks.length)];
+
+    lock.lockInterruptibly();
+    try {
+      switch (this.seedState(name, digest)) {
+        case SEEDED -> {
+          LOG.debug("Reusing seeded volume {}", name);
+        }
+        case INCOMPLETE -> {
+          LOG.debug("Completing partially seeded volume {}", name);
+          this.importTree(name, directory);
+          this.markSeeded(name, digest);
+        }
+        case ABSENT -> {
+          this.createSeeded(name, digest, directory);
+        }
+      }
+      return name;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Mount a volume read-only at the given location in a container.
+   *
+   * @param volume        The volume name
+   * @param containerPath The path inside the container
+   *
+   * @return A read-only volume mount
+   */
+
+  public static PodmanVolumeMount readOnlyMount(
+    final String volume,
+    final String containerPath)
+  {
+    return new PodmanVolumeMount(
+      new PodmanVolumeMountSourceType.NamedVolume(volume),
+      containerPath,
+      Set.of(PodmanVolumeFlag.READ_ONLY)
+    );
+  }
+
+  private enum SeedState
+  {
+    ABSENT,
+    INCOMPLETE,
+    SEEDED
+  }
+
+  private static String markerOf(
+    final String name)
+  {
+    return "%s.seeded".formatted(name);
+  }
+
+  private SeedState seedState(
+    final String name,
+    final String digest)
+    throws IOException, InterruptedException
+  {
+    final var label = this.labelOf(name, PodmanLabels.VOLUME_DIGEST);
+    if (label.isEmpty()) {
+      return SeedState.ABSENT;
+    }
+    if (!Objects.equals(label.get(), digest)) {
+      throw new IOException(
+        "Volume %s exists but was not seeded with digest %s"
+          .formatted(name, digest)
+      );
+    }
+
+    final var marker =
+      this.labelOf(markerOf(name), PodmanLabels.VOLUME_SEEDED);
+    if (marker.isPresent() && Objects.equals(marker.get(), digest)) {
+      return SeedState.SEEDED;
+    }
+    return SeedState.INCOMPLETE;
+  }
+
+  /*
+   * The value of the given label of a volume: empty if the volume does not
+   * exist, and the empty string if the volume exists without the label.
+   */
+
+  private Optional<String> labelOf(
+    final String volume,
+    final String label)
+    throws IOException, InterruptedException
+  {
+    final var inspections =
+      this.executable.volumeInspect()
+        .addVolume(volume)
+        .executeQuery();
+
+    for (final var inspection : inspections) {
+      if (Objects.equals(inspection.name(), volume)) {
+        return Optional.of(inspection.labels().getOrDefault(label, ""));
+      }
+    }
+    return Optional.empty();
+  }
+
+  private void createSeeded(
+    final String name,
+    final String digest,
+    final Path directory)
+    throws IOException, InterruptedException
+  {
+    LOG.debug("Seeding volume {} from {}", name, directory);
+
+    this.executable.volumeCreate()
+      .setName(name)
+      .addLabel(PodmanLabels.VOLUME_DIGEST, digest)
+      .executeQuery();
+
+    try {
+      this.importTree(name, directory);
+    } catch (final IOException | InterruptedException e) {
+      try {
+        this.executable.volumeRm()
+          .addVolume(name)
+          .setForce(true)
+          .executeQuery();
+      } catch (final IOException ex) {
+        e.addSuppressed(ex);
+      }
+      throw e;
+    }
+
+    this.markSeeded(name, digest);
+  }
+
+  /*
+   * Another process may have completed the same volume concurrently, and
+   * so an existing marker is not an error.
+   */
+
+  private void markSeeded(
+    final String name,
+    final String digest)
+    throws IOException, InterruptedException
+  {
+    this.executable.volumeCreate()
+      .setName(markerOf(name))
+      .addLabel(PodmanLabels.VOLUME_SEEDED, digest)
+      .setIgnoreExisting(true)
+      .executeQuery();
+  }
+
+  private void upload(
+    final String volume,
+    final PNStreams.ProducerType producer)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(volume, "volume");
+
+    final var processBuilder =
+      this.executable.volumeImport()
+        .setVolume(volume)
+        .build();
+
+    PNStreams.executeWithInput(processBuilder, producer);
+  }
+
+  private <T> T download(
+    final String volume,
+    final PNStreams.ConsumerType<T> consumer)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(volume, "volume");
+
+    final var processBuilder =
+      this.executable.volumeExport()
+        .setVolume(volume)
+        .build();
+
+    return PNStreams.executeWithOutput(processBuilder, consumer);
+  }
+}
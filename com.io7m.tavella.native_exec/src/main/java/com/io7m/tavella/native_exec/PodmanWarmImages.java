@@ -0,0 +1,458 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec;
+
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanImageInspection;
+import com.io7m.tavella.api.PodmanProcessRunBuilderType;
+import com.io7m.tavella.api.PodmanPullPolicy;
+import com.io7m.tavella.native_exec.internal.PNJSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A helper that runs an expensive initialization command in a container
+ * once, and commits the resulting filesystem to a derived "warm" image that
+ * later runs use in place of the base image.
+ *
+ * <p>The warm image is tagged with a hash of the base image ID and the
+ * initialization specification, under the name
+ * {@code localhost/tavella-warm/<base image name>}. A warm image therefore
+ * belongs to exactly one version of the base image: when the base image
+ * is replaced (by a pull or a build), the next call after the cached base
+ * image ID expires produces a new tag, and the image is warmed again.
+ * Warm images for old base images are not removed; they are ordinary
+ * unused images that can be evicted by {@link PodmanImageCacheManager}.</p>
+ *
+ * <p>The presence of a warm image is cached for the same time-to-live as
+ * the ID of a base image, after which the warm image is inspected again
+ * and, if it has been removed, warmed again. Call
+ * {@link #invalidate(PodmanImage)} after removing images (for example,
+ * after {@link PodmanImageCacheManager#evict(PodmanExecutableType)}) to
+ * check again immediately.</p>
+ *
+ * <p>The entrypoint and command of the base image are restored on the warm
+ * image, but environment variables passed to the initialization command
+ * are retained by {@code podman commit}.</p>
+ *
+ * <p>The initialization command is always started directly, even if the
+ * executable configuration specifies a launcher, so that its output can be
+ * logged as it runs. Other commands go through the launcher.</p>
+ */
+
+public final class PodmanWarmImages
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PodmanWarmImages.class);
+
+  private static final String WARM_REGISTRY =
+    "localhost";
+  private static final String WARM_PREFIX =
+    "tavella-warm/";
+
+  private final PodmanExecutableType executable;
+  private final long timeToLiveNanos;
+  private final Map<String, BaseEntry> bases;
+  private final Map<PodmanImage, Long> warmed;
+  private final ReentrantLock[] locks;
+
+  private record BaseEntry(
+    PodmanImageInspection inspection,
+    long expiresAtNanos)
+  {
+
+  }
+
+  /**
+   * The specification of an initialization command.
+   *
+   * @param arguments   The arguments passed to the container
+   * @param environment The environment variables of the container
+   */
+
+  public record Initialization(
+    List<String> arguments,
+    SortedMap<String, String> environment)
+  {
+    /**
+     * The specification of an initialization command.
+     */
+
+    public Initialization
+    {
+      arguments = List.copyOf(arguments);
+      environment = new TreeMap<>(environment);
+    }
+
+    /**
+     * Create an initialization that passes the given arguments to the
+     * container.
+     *
+     * @param arguments The arguments
+     *
+     * @return The initialization
+     */
+
+    public static Initialization of(
+      final String... arguments)
+    {
+      return new Initialization(List.of(arguments), new TreeMap<>());
+    }
+  }
+
+  private PodmanWarmImages(
+    final PodmanExecutableType inExecutable,
+    final Duration inTimeToLive)
+  {
+    this.executable =
+      Objects.requireNonNull(inExecutable, "executable");
+    this.timeToLiveNanos =
+      inTimeToLive.toNanos();
+    this.bases =
+      new ConcurrentHashMap<>();
+    this.warmed =
+      new ConcurrentHashMap<>();
+    this.locks =
+      new ReentrantLock[16];
+
+    for (int index = 0; index < this.locks.length; index += 1) {
+      this.locks[index] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Create a new helper.
+   *
+   * @param executable The podman executable
+   * @param timeToLive The length of time for which the ID of a base image
+   *                   (and the presence of a warm image) is cached before
+   *                   the image is inspected again
+   *
+   * @return A new helper
+   */
+
+  public static PodmanWarmImages create(
+    final PodmanExecutableType executable,
+    final Duration timeToLive)
+  {
+    Objects.requireNonNull(executable, "executable");
+    Objects.requireNonNull(timeToLive, "timeToLive");
+
+    if (timeToLive.isNegative()) {
+      throw new IllegalArgumentException(
+        "Time-to-live must be non-negative: %s".formatted(timeToLive)
+      );
+    }
+    return new PodmanWarmImages(executable, timeToLive);
+  }
+
+  /**
+   * Configure a run to use the warm image for the given base image and
+   * initialization, warming the image first if necessary.
+   *
+   * @param run            The run builder
+   * @param base           The base image
+   * @param initialization The initialization
+   *
+   * @return The run builder
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public PodmanProcessRunBuilderType apply(
+    final PodmanProcessRunBuilderType run,
+    final PodmanImage base,
+    final Initialization initialization)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(run, "run");
+
+    return run.setImage(this.warm(base, initialization))
+      .setPullPolicy(PodmanPullPolicy.NEVER);
+  }
+
+  /**
+   * Return the warm image for the given base image and initialization,
+   * running the initialization and committing the result if the warm
+   * image does not yet exist.
+   *
+   * @param base           The base image
+   * @param initialization The initialization
+   *
+   * @return The warm image
+   *
+   * @throws IOException          On errors, or if the initialization fails
+   * @throws InterruptedException On interruption
+   */
+
+  public PodmanImage warm(
+    final PodmanImage base,
+    final Initialization initialization)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(base, "base");
+    Objects.requireNonNull(initialization, "initialization");
+
+    final var specHash =
+      this.initializationRun(base, initialization).specHash();
+
+    final var existing = this.existingWarmImage(base, specHash);
+    if (existing.isPresent()) {
+      return existing.get();
+    }
+
+    final var lock =
+      this.locks[Math.floorMod(specHash.hashCode(), this.locks.length)];
+
+    lock.lockInterruptibly();
+    try {
+      final var raced = this.existingWarmImage(base, specHash);
+      if (raced.isPresent()) {
+        return raced.get();
+      }
+      return this.createWarmImage(base, initialization, specHash);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Discard the cached ID of the given base image, and the cached presence
+   * of the warm images derived from it, so that the next call inspects the
+   * base image and the warm image again.
+   *
+   * @param base The base image
+   */
+
+  public void invalidate(
+    final PodmanImage base)
+  {
+    this.bases.remove(Objects.requireNonNull(base, "base").fullImageName());
+
+    final var warmName = WARM_PREFIX + base.imageName();
+    this.warmed.keySet()
+      .removeIf(image -> Objects.equals(image.imageName(), warmName));
+  }
+
+  private PodmanProcessRunBuilderType initializationRun(
+    final PodmanImage base,
+    final Initialization initialization)
+  {
+    final var run =
+      this.executable.run()
+        .setImage(base)
+        .setPullPolicy(PodmanPullPolicy.MISSING);
+
+    initialization.arguments().forEach(run::addArgument);
+    initialization.environment().forEach(run::addEnvironmentVariable);
+    return run;
+  }
+
+  private Optional<PodmanImage> existingWarmImage(
+    final PodmanImage base,
+    final String specHash)
+    throws IOException, InterruptedException
+  {
+    final var inspection = this.inspectBase(base);
+    if (inspection.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final var target = warmImageOf(base, inspection.get(), specHash);
+    final var expiresAt = this.warmed.get(target);
+    if (expiresAt != null && System.nanoTime() - expiresAt.longValue() < 0L) {
+      return Optional.of(target);
+    }
+
+    final var present =
+      !this.executable.imageInspect()
+        .addImage(target.fullImageName())
+        .executeQuery()
+        .isEmpty();
+
+    if (present) {
+      this.markWarmed(target);
+      return Optional.of(target);
+    }
+    this.warmed.remove(target);
+    return Optional.empty();
+  }
+
+  private void markWarmed(
+    final PodmanImage target)
+  {
+    this.warmed.put(
+      target,
+      Long.valueOf(System.nanoTime() + this.timeToLiveNanos)
+    );
+  }
+
+  private PodmanImage createWarmImage(
+    final PodmanImage base,
+    final Initialization initialization,
+    final String specHash)
+    throws IOException, InterruptedException
+  {
+    final var container =
+      "tavella-warm-%s".formatted(UUID.randomUUID());
+
+    try {
+      this.runInitialization(base, initialization, container);
+
+      /*
+       * The initialization may have pulled the base image, and so the base
+       * image is inspected again to find the ID of the image that was used.
+       */
+
+      this.invalidate(base);
+      final var inspection =
+        this.inspectBase(base)
+          .orElseThrow(() -> {
+            return new IOException(
+              "Base image %s is not present after initialization."
+                .formatted(base)
+            );
+          });
+
+      final var target = warmImageOf(base, inspection, specHash);
+      LOG.debug("Committing {} to {}", container, target);
+
+      this.executable.commit()
+        .setContainer(container)
+        .setImage(target)
+        .addChange("ENTRYPOINT " + PNJSON.stringArray(inspection.entrypoint()))
+        .addChange("CMD " + PNJSON.stringArray(inspection.command()))
+        .executeQuery();
+
+      this.markWarmed(target);
+      return target;
+    } finally {
+      this.executable.rm()
+        .addContainer(container)
+        .setForce(true)
+        .setIgnoreMissing(true)
+        .execute()
+        .waitFor();
+    }
+  }
+
+  private void runInitialization(
+    final PodmanImage base,
+    final Initialization initialization,
+    final String container)
+    throws IOException, InterruptedException
+  {
+    LOG.debug("Warming {} in {}", base, container);
+
+    final var process =
+      this.initializationRun(base, initialization)
+        .setContainerName(container)
+        .build()
+        .redirectErrorStream(true)
+        .start();
+
+    try (var reader = new BufferedReader(
+      new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      reader.lines().forEach(line -> LOG.debug("{}: {}", container, line));
+    }
+
+    final var exitCode = process.waitFor();
+    if (exitCode != 0) {
+      throw new IOException(
+        "Initialization of %s failed with exit code %d."
+          .formatted(base, Integer.valueOf(exitCode))
+      );
+    }
+  }
+
+  private Optional<PodmanImageInspection> inspectBase(
+    final PodmanImage base)
+    throws IOException, InterruptedException
+  {
+    final var key = base.fullImageName();
+    final var now = System.nanoTime();
+    final var existing = this.bases.get(key);
+    if (existing != null && now - existing.expiresAtNanos < 0L) {
+      return Optional.of(existing.inspection);
+    }
+
+    final var inspections =
+      this.executable.imageInspect()
+        .addImage(key)
+        .executeQuery();
+
+    if (inspections.isEmpty()) {
+      this.bases.remove(key);
+      return Optional.empty();
+    }
+
+    final var inspection = inspections.get(0);
+    this.bases.put(
+      key,
+      new BaseEntry(inspection, System.nanoTime() + this.timeToLiveNanos)
+    );
+    return Optional.of(inspection);
+  }
+
+  private static PodmanImage warmImageOf(
+    final PodmanImage base,
+    final PodmanImageInspection inspection,
+    final String specHash)
+  {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+
+    digest.update(inspection.id().getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) ':');
+    digest.update(specHash.getBytes(StandardCharsets.UTF_8));
+
+    final var tag =
+      HexFormat.of().formatHex(digest.digest()).substring(0, 32);
+
+    return new PodmanImage(
+      WARM_REGISTRY,
+      WARM_PREFIX + base.imageName(),
+      tag,
+      Optional.empty()
+    );
+  }
+}
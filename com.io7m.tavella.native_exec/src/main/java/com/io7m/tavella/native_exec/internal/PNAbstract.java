@@ -18,10 +18,12 @@
 package com.io7m.tavella.native_exec.internal;
 
 import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanLaunchRequest;
 import com.io7m.tavella.api.PodmanProcessBuilderType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -44,10 +46,78 @@ abstract class PNAbstract implements PodmanProcessBuilderType
     final List<String> arguments)
   {
     final var command = new ArrayList<String>();
-    command.add(this.configuration.podmanExecutable());
+    command.add(PNExecutables.resolve(this.configuration));
+    command.addAll(this.configuration.globalArguments());
     command.addAll(arguments);
 
     LOG.debug("Execute: {}", command);
-    return new ProcessBuilder(command);
+    final var builder = new ProcessBuilder(command);
+    this.configuration.workingDirectory()
+      .ifPresent(d -> builder.directory(d.toFile()));
+
+    final var environment = this.configuration.environment();
+    if (environment.isPresent()) {
+      final var childEnvironment = builder.environment();
+      childEnvironment.clear();
+      childEnvironment.putAll(environment.get());
+    }
+    return builder;
+  }
+
+  protected final PodmanExecutableConfiguration configuration()
+  {
+    return this.configuration;
+  }
+
+  /**
+   * Execute the process, collecting the standard output as bytes and the
+   * standard error as lines.
+   *
+   * @return The process output
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  protected final PNProcessOutput executeAndCollect()
+    throws IOException, InterruptedException
+  {
+    return this.executeAndCollect(this.build());
+  }
+
+  /**
+   * Execute the given process, collecting the standard output as bytes and
+   * the standard error as lines. If the configuration specifies a launcher,
+   * the command is executed by the launcher instead, with the environment
+   * and working directory of the configuration.
+   *
+   * @param processBuilder The process builder
+   *
+   * @return The process output
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  protected final PNProcessOutput executeAndCollect(
+    final ProcessBuilder processBuilder)
+    throws IOException, InterruptedException
+  {
+    final var launcher = this.configuration.launcher();
+    if (launcher.isPresent()) {
+      final var result =
+        launcher.get().execute(new PodmanLaunchRequest(
+          processBuilder.command(),
+          this.configuration.environment(),
+          this.configuration.workingDirectory()
+        ));
+      return new PNProcessOutput(
+        result.command(),
+        result.exitCode(),
+        result.output(),
+        result.errorLines()
+      );
+    }
+    return PNStreams.collect(processBuilder);
   }
 }
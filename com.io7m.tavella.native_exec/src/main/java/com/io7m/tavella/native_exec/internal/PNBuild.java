@@ -0,0 +1,383 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanImageBuilt;
+import com.io7m.tavella.api.PodmanLabels;
+import com.io7m.tavella.api.PodmanProcessBuildBuilderType;
+import com.io7m.tavella.api.PodmanPullPolicy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @see "podman build"
+ */
+
+public final class PNBuild
+  extends PNAbstract
+  implements PodmanProcessBuildBuilderType
+{
+  private static final ReentrantLock[] BUILD_LOCKS =
+    createBuildLocks(16);
+
+  private final TreeMap<String, String> buildArguments;
+  private final TreeMap<String, String> labels;
+  private final ArrayList<PodmanImage> tags;
+  private final ArrayList<String> cacheFrom;
+  private Optional<Path> context;
+  private Optional<Path> containerfile;
+  private Optional<String> target;
+  private Optional<PodmanPullPolicy> pullPolicy;
+  private boolean layers;
+  private boolean noCache;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman build"
+   */
+
+  public PNBuild(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.buildArguments =
+      new TreeMap<>();
+    this.labels =
+      new TreeMap<>();
+    this.tags =
+      new ArrayList<>();
+    this.cacheFrom =
+      new ArrayList<>();
+    this.context =
+      Optional.empty();
+    this.containerfile =
+      Optional.empty();
+    this.target =
+      Optional.empty();
+    this.pullPolicy =
+      Optional.empty();
+    this.layers =
+      true;
+  }
+
+  private static ReentrantLock[] createBuildLocks(
+    final int count)
+  {
+    final var locks = new ReentrantLock[count];
+    for (int index = 0; index < count; index += 1) {
+      locks[index] = new ReentrantLock();
+    }
+    return locks;
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    return this.createNewProcessBuilder(this.arguments(this.labels));
+  }
+
+  private List<String> arguments(
+    final Map<String, String> withLabels)
+  {
+    if (this.context.isEmpty()) {
+      throw new IllegalArgumentException("No build context was specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("build");
+    arguments.add("--quiet");
+    this.addArgumentsCache(arguments);
+
+    if (this.containerfile.isPresent()) {
+      arguments.add("--file");
+      arguments.add(this.containerfile.get().toString());
+    }
+    if (this.target.isPresent()) {
+      arguments.add("--target");
+      arguments.add(this.target.get());
+    }
+    for (final var entry : this.buildArguments.entrySet()) {
+      arguments.add("--build-arg");
+      arguments.add("%s=%s".formatted(entry.getKey(), entry.getValue()));
+    }
+    for (final var entry : withLabels.entrySet()) {
+      arguments.add("--label");
+      arguments.add("%s=%s".formatted(entry.getKey(), entry.getValue()));
+    }
+    for (final var tag : this.tags) {
+      arguments.add("--tag");
+      arguments.add(tag.fullImageName());
+    }
+
+    arguments.add(this.context.get().toString());
+    return List.copyOf(arguments);
+  }
+
+  private void addArgumentsCache(
+    final ArrayList<String> arguments)
+  {
+    arguments.add("--layers=%s".formatted(Boolean.valueOf(this.layers)));
+
+    if (this.noCache) {
+      arguments.add("--no-cache");
+    }
+    if (this.pullPolicy.isPresent()) {
+      arguments.add("--pull=%s".formatted(this.pullPolicy.get().tag()));
+    }
+    for (final var repository : this.cacheFrom) {
+      arguments.add("--cache-from");
+      arguments.add(repository);
+    }
+  }
+
+  @Override
+  public String executeQuery()
+    throws IOException, InterruptedException
+  {
+    return this.executeBuild(this.build());
+  }
+
+  private String executeBuild(
+    final ProcessBuilder processBuilder)
+    throws IOException, InterruptedException
+  {
+    final var lines =
+      this.executeAndCollect(processBuilder)
+        .requireSuccess()
+        .outputLines();
+
+    if (lines.isEmpty()) {
+      throw new IOException("podman build did not report an image ID.");
+    }
+    return lines.get(lines.size() - 1);
+  }
+
+  @Override
+  public String buildDigest()
+    throws IOException
+  {
+    if (this.context.isEmpty()) {
+      throw new IllegalArgumentException("No build context was specified.");
+    }
+
+    final var digest = PNBuildContextHasher.sha256();
+    PNBuildContextHasher.updateString(digest, "context");
+    digest.update(
+      PNBuildContextHasher.hash(this.context.get(), PNBuildContextHasher.pool()));
+
+    if (this.containerfile.isPresent()) {
+      PNBuildContextHasher.updateString(digest, "file");
+      digest.update(PNBuildContextHasher.hashFile(this.containerfile.get()));
+    }
+    if (this.target.isPresent()) {
+      PNBuildContextHasher.updateString(digest, "target");
+      PNBuildContextHasher.updateString(digest, this.target.get());
+    }
+    for (final var entry : this.buildArguments.entrySet()) {
+      PNBuildContextHasher.updateString(digest, "build-arg");
+      PNBuildContextHasher.updateString(digest, entry.getKey());
+      PNBuildContextHasher.updateString(digest, entry.getValue());
+    }
+    for (final var entry : this.labels.entrySet()) {
+      PNBuildContextHasher.updateString(digest, "label");
+      PNBuildContextHasher.updateString(digest, entry.getKey());
+      PNBuildContextHasher.updateString(digest, entry.getValue());
+    }
+    for (final var tag : this.tags) {
+      PNBuildContextHasher.updateString(digest, "tag");
+      PNBuildContextHasher.updateString(digest, tag.fullImageName());
+    }
+    if (this.pullPolicy.isPresent()) {
+      PNBuildContextHasher.updateString(digest, "pull");
+      PNBuildContextHasher.updateString(digest, this.pullPolicy.get().tag());
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  @Override
+  public PodmanImageBuilt buildOrReuse()
+    throws IOException, InterruptedException
+  {
+    final var digest =
+      this.buildDigest();
+    final var lock =
+      BUILD_LOCKS[Math.floorMod(digest.hashCode(), BUILD_LOCKS.length)];
+
+    lock.lockInterruptibly();
+    try {
+      final var existing =
+        new PNImages(this.configuration())
+          .addFilter(
+            "label",
+            "%s=%s".formatted(PodmanLabels.BUILD_DIGEST, digest))
+          .executeQuery();
+
+      if (!existing.isEmpty()) {
+        final var imageId = existing.get(0).id();
+        this.applyTags(imageId);
+        return new PodmanImageBuilt(imageId, digest, true);
+      }
+
+      final var withLabels = new TreeMap<>(this.labels);
+      withLabels.put(PodmanLabels.BUILD_DIGEST, digest);
+
+      final var imageId =
+        this.executeBuild(this.createNewProcessBuilder(this.arguments(withLabels)));
+      return new PodmanImageBuilt(imageId, digest, false);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /*
+   * The tags are part of the build digest, but may have been moved to
+   * other images since the image was built, and so are applied again.
+   */
+
+  private void applyTags(
+    final String imageId)
+    throws IOException, InterruptedException
+  {
+    if (this.tags.isEmpty()) {
+      return;
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("tag");
+    arguments.add(imageId);
+    for (final var tag : this.tags) {
+      arguments.add(tag.fullImageName());
+    }
+    this.executeAndCollect(this.createNewProcessBuilder(List.copyOf(arguments)))
+      .requireSuccess();
+  }
+
+  @Override
+  public PodmanProcessBuildBuilderType setContext(
+    final Path inContext)
+  {
+    this.context =
+      Optional.of(Objects.requireNonNull(inContext, "context"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessBuildBuilderType setContainerfile(
+    final Path file)
+  {
+    this.containerfile =
+      Optional.of(Objects.requireNonNull(file, "file"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessBuildBuilderType addBuildArgument(
+    final String name,
+    final String value)
+  {
+    this.buildArguments.put(
+      Objects.requireNonNull(name, "name"),
+      Objects.requireNonNull(value, "value")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessBuildBuilderType addTag(
+    final PodmanImage image)
+  {
+    Objects.requireNonNull(image, "image");
+
+    if (image.imageHash().isPresent()) {
+      throw new IllegalArgumentException(
+        "Cannot tag an image with a digest reference: %s".formatted(image)
+      );
+    }
+    this.tags.add(image);
+    return this;
+  }
+
+  @Override
+  public PodmanProcessBuildBuilderType addLabel(
+    final String name,
+    final String value)
+  {
+    this.labels.put(
+      Objects.requireNonNull(name, "name"),
+      Objects.requireNonNull(value, "value")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessBuildBuilderType setTarget(
+    final String inTarget)
+  {
+    this.target =
+      Optional.of(Objects.requireNonNull(inTarget, "target"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessBuildBuilderType setLayers(
+    final boolean l)
+  {
+    this.layers = l;
+    return this;
+  }
+
+  @Override
+  public PodmanProcessBuildBuilderType setNoCache(
+    final boolean n)
+  {
+    this.noCache = n;
+    return this;
+  }
+
+  @Override
+  public PodmanProcessBuildBuilderType addCacheFrom(
+    final String repository)
+  {
+    this.cacheFrom.add(
+      Objects.requireNonNull(repository, "repository")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessBuildBuilderType setPullPolicy(
+    final PodmanPullPolicy policy)
+  {
+    this.pullPolicy =
+      Optional.of(Objects.requireNonNull(policy, "policy"));
+    return this;
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A Merkle digest of a build context.
+ *
+ * <p>The digest of a regular file is the SHA-256 digest of its contents,
+ * the digest of a symbolic link is the digest of its target (links are
+ * never followed), and the digest of a directory is the digest of the
+ * sorted list of its entries, where each entry contributes its type, its
+ * name, and its own digest. Executable files have a different type to
+ * non-executable files, as the permission is preserved in the image.
+ * Other kinds of files (such as sockets) are ignored. Files and
+ * directories are hashed in parallel as fork/join tasks.</p>
+ *
+ * <p>Hashing blocks on file I/O, and so is run in a dedicated pool (see
+ * {@link #pool()}) rather than the common pool, where it could starve
+ * unrelated parallel streams and asynchronous tasks.</p>
+ *
+ * <p>Ignore files such as {@code .containerignore} are not interpreted,
+ * and so changes to ignored files change the digest. This can only cause
+ * an unnecessary build, never a missed one.</p>
+ */
+
+public final class PNBuildContextHasher
+{
+  private static final byte TYPE_DIRECTORY = 'd';
+  private static final byte TYPE_FILE = 'f';
+  private static final byte TYPE_EXECUTABLE = 'x';
+  private static final byte TYPE_LINK = 'l';
+
+  private PNBuildContextHasher()
+  {
+
+  }
+
+  /**
+   * @return The shared pool used to hash build contexts and volume seeds
+   */
+
+  public static ForkJoinPool pool()
+  {
+    return PoolHolder.POOL;
+  }
+
+  /**
+   * Calculate the digest of a directory.
+   *
+   * @param root The directory
+   * @param pool The pool in which to run hashing tasks
+   *
+   * @return The digest
+   *
+   * @throws IOException On errors
+   */
+
+  public static byte[] hash(
+    final Path root,
+    final ForkJoinPool pool)
+    throws IOException
+  {
+    Objects.requireNonNull(root, "root");
+    Objects.requireNonNull(pool, "pool");
+
+    if (!Files.isDirectory(root, LinkOption.NOFOLLOW_LINKS)) {
+      throw new IOException("Not a directory: %s".formatted(root));
+    }
+
+    try {
+      return pool.invoke(new DirectoryTask(root));
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Calculate the digest of the contents of a file.
+   *
+   * @param file The file
+   *
+   * @return The digest
+   *
+   * @throws IOException On errors
+   */
+
+  public static byte[] hashFile(
+    final Path file)
+    throws IOException
+  {
+    final var digest = sha256();
+    final var buffer = new byte[65536];
+    try (InputStream input = Files.newInputStream(file)) {
+      while (true) {
+        final var r = input.read(buffer);
+        if (r == -1) {
+          break;
+        }
+        digest.update(buffer, 0, r);
+      }
+    }
+    return digest.digest();
+  }
+
+  /**
+   * @return A new SHA-256 digest
+   */
+
+  public static MessageDigest sha256()
+  {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Update a digest with a length-prefixed string, so that no two distinct
+   * sequences of strings produce the same sequence of bytes.
+   *
+   * @param digest The digest
+   * @param text   The string
+   */
+
+  public static void updateString(
+    final MessageDigest digest,
+    final String text)
+  {
+    final var bytes = text.getBytes(StandardCharsets.UTF_8);
+    digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+    digest.update((byte) ':');
+    digest.update(bytes);
+  }
+
+  private static final class PoolHolder
+  {
+    private static final ForkJoinPool POOL =
+      new ForkJoinPool(
+        Runtime.getRuntime().availableProcessors(),
+        pool -> {
+          final var thread =
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+          thread.setName("com.io7m.tavella.hasher-%d".formatted(
+            Long.valueOf(thread.threadId())));
+          thread.setDaemon(true);
+          return thread;
+        },
+        null,
+        false
+      );
+
+    private PoolHolder()
+    {
+
+    }
+  }
+
+  private record Entry(
+    byte type,
+    String name,
+    ForkJoinTask<byte[]> task)
+  {
+
+  }
+
+  private static final class FileTask extends RecursiveTask<byte[]>
+  {
+    private final Path file;
+
+    FileTask(
+      final Path inFile)
+    {
+      this.file = inFile;
+    }
+
+    @Override
+    protected byte[] compute()
+    {
+      try {
+        return hashFile(this.file);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private static final class DirectoryTask extends RecursiveTask<byte[]>
+  {
+    private final Path directory;
+
+    DirectoryTask(
+      final Path inDirectory)
+    {
+      this.directory = inDirectory;
+    }
+
+    @Override
+    protected byte[] compute()
+    {
+      try {
+        final var entries = this.entries();
+        ForkJoinTask.invokeAll(entries.stream().map(Entry::task).toList());
+
+        final var digest = sha256();
+        for (final var entry : entries) {
+          digest.update(entry.type);
+          updateString(digest, entry.name);
+          digest.update(entry.task.join());
+        }
+        return digest.digest();
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private List<Entry> entries()
+      throws IOException
+    {
+      final List<Path> paths;
+      try (var stream = Files.list(this.directory)) {
+        paths = stream.sorted(
+          Comparator.comparing(p -> p.getFileName().toString())
+        ).toList();
+      }
+
+      final var entries = new ArrayList<Entry>(paths.size());
+      for (final var path : paths) {
+        final var name =
+          path.getFileName().toString();
+        final var attributes =
+          Files.readAttributes(
+            path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+
+        if (attributes.isSymbolicLink()) {
+          final var target = Files.readSymbolicLink(path).toString();
+          final var digest = sha256();
+          updateString(digest, target);
+          final var linkDigest = digest.digest();
+          entries.add(new Entry(
+            TYPE_LINK, name, ForkJoinTask.adapt(() -> linkDigest)));
+        } else if (attributes.isDirectory()) {
+          entries.add(new Entry(TYPE_DIRECTORY, name, new DirectoryTask(path)));
+        } else if (attributes.isRegularFile()) {
+          final var type =
+            Files.isExecutable(path) ? TYPE_EXECUTABLE : TYPE_FILE;
+          entries.add(new Entry(type, name, new FileTask(path)));
+        }
+      }
+      return entries;
+    }
+  }
+}
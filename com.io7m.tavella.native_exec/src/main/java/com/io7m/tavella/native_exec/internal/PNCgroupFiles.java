@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+/**
+ * Parsers for the cgroup v2 interface files. The parsers operate directly
+ * on the bytes of the files and do not allocate.
+ */
+
+public final class PNCgroupFiles
+{
+  private PNCgroupFiles()
+  {
+
+  }
+
+  /**
+   * Parse a file containing a single integer, such as
+   * {@code memory.current} or {@code pids.current}.
+   *
+   * @param data   The file data
+   * @param length The number of bytes of valid data
+   *
+   * @return The value, or {@code -1} if the file does not contain an integer
+   */
+
+  public static long parseSingle(
+    final byte[] data,
+    final int length)
+  {
+    return parseNumber(data, 0, length);
+  }
+
+  /**
+   * Find a key in a flat keyed file such as {@code cpu.stat}, in which each
+   * line has the form {@code key value}.
+   *
+   * @param data   The file data
+   * @param length The number of bytes of valid data
+   * @param key    The key, as ASCII bytes
+   *
+   * @return The value, or {@code -1} if the key is not present
+   */
+
+  public static long parseFlatKeyed(
+    final byte[] data,
+    final int length,
+    final byte[] key)
+  {
+    int lineStart = 0;
+    while (lineStart < length) {
+      final var lineEnd = lineEnd(data, lineStart, length);
+      final var valueStart = lineStart + key.length + 1;
+      if (valueStart <= lineEnd
+          && data[valueStart - 1] == ' '
+          && startsWith(data, lineStart, key)) {
+        return parseNumber(data, valueStart, lineEnd);
+      }
+      lineStart = lineEnd + 1;
+    }
+    return -1L;
+  }
+
+  /**
+   * Sum a key across all lines of a nested keyed file such as
+   * {@code io.stat}, in which each line has the form
+   * {@code device key=value key=value ...}.
+   *
+   * @param data   The file data
+   * @param length The number of bytes of valid data
+   * @param key    The key including the trailing {@code =}, as ASCII bytes
+   *
+   * @return The sum of the values
+   */
+
+  public static long sumNestedKeyed(
+    final byte[] data,
+    final int length,
+    final byte[] key)
+  {
+    long sum = 0L;
+    int index = 0;
+    while (index < length) {
+      final var tokenEnd = tokenEnd(data, index, length);
+      if (tokenEnd - index > key.length && startsWith(data, index, key)) {
+        final var value = parseNumber(data, index + key.length, tokenEnd);
+        if (value > 0L) {
+          sum += value;
+        }
+      }
+      index = tokenEnd + 1;
+    }
+    return sum;
+  }
+
+  private static int lineEnd(
+    final byte[] data,
+    final int start,
+    final int length)
+  {
+    int index = start;
+    while (index < length && data[index] != '\n') {
+      ++index;
+    }
+    return index;
+  }
+
+  private static int tokenEnd(
+    final byte[] data,
+    final int start,
+    final int length)
+  {
+    int index = start;
+    while (index < length && data[index] != ' ' && data[index] != '\n') {
+      ++index;
+    }
+    return index;
+  }
+
+  private static boolean startsWith(
+    final byte[] data,
+    final int start,
+    final byte[] prefix)
+  {
+    for (int index = 0; index < prefix.length; ++index) {
+      if (data[start + index] != prefix[index]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long parseNumber(
+    final byte[] data,
+    final int start,
+    final int end)
+  {
+    long value = 0L;
+    boolean any = false;
+    for (int index = start; index < end; ++index) {
+      final var b = data[index];
+      if (b >= '0' && b <= '9') {
+        value = value * 10L + (b - '0');
+        any = true;
+      } else if (any || b != ' ') {
+        break;
+      }
+    }
+    return any ? value : -1L;
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanProcessCommitBuilderType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * @see "podman commit"
+ */
+
+public final class PNCommit
+  extends PNAbstract
+  implements PodmanProcessCommitBuilderType
+{
+  private final ArrayList<String> changes;
+  private Optional<String> container;
+  private Optional<PodmanImage> image;
+  private boolean pause;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman commit"
+   */
+
+  public PNCommit(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.changes =
+      new ArrayList<>();
+    this.container =
+      Optional.empty();
+    this.image =
+      Optional.empty();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.container.isEmpty()) {
+      throw new IllegalArgumentException("No container was specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("commit");
+    arguments.add("--quiet");
+    arguments.add("--pause=%s".formatted(Boolean.valueOf(this.pause)));
+
+    for (final var change : this.changes) {
+      arguments.add("--change");
+      arguments.add(change);
+    }
+
+    arguments.add(this.container.get());
+    this.image.ifPresent(i -> arguments.add(i.fullImageName()));
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public String executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var lines =
+      this.executeAndCollect()
+        .requireSuccess()
+        .outputLines();
+
+    if (lines.isEmpty()) {
+      throw new IOException("podman commit did not report an image ID.");
+    }
+    return lines.get(lines.size() - 1);
+  }
+
+  @Override
+  public PodmanProcessCommitBuilderType setContainer(
+    final String inContainer)
+  {
+    this.container =
+      Optional.of(Objects.requireNonNull(inContainer, "container"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessCommitBuilderType setImage(
+    final PodmanImage inImage)
+  {
+    Objects.requireNonNull(inImage, "image");
+
+    if (inImage.imageHash().isPresent()) {
+      throw new IllegalArgumentException(
+        "Cannot commit to a digest reference: %s".formatted(inImage)
+      );
+    }
+    this.image = Optional.of(inImage);
+    return this;
+  }
+
+  @Override
+  public PodmanProcessCommitBuilderType addChange(
+    final String change)
+  {
+    this.changes.add(
+      Objects.requireNonNull(change, "change")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessCommitBuilderType setPause(
+    final boolean p)
+  {
+    this.pause = p;
+    return this;
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanContainerInspectionType;
+import com.io7m.tavella.api.PodmanContainerState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A container inspection that is decoded lazily. The inspection retains
+ * the bytes of the {@code podman inspect} output (shared between all of the
+ * containers in the output) along with the span of this container's object,
+ * and each field is located and decoded on first access. Accessing the ID
+ * and state of a container therefore never materializes the mounts,
+ * configuration, or network settings.
+ */
+
+public final class PNContainerInspection
+  implements PodmanContainerInspectionType
+{
+  private final byte[] data;
+  private final PNJSONSpan span;
+  private volatile String id;
+  private volatile String name;
+  private volatile String imageName;
+  private volatile String image;
+  private volatile Optional<String> pod;
+  private volatile Optional<OffsetDateTime> created;
+  private volatile PodmanContainerState state;
+  private volatile Map<String, String> labels;
+  private volatile Optional<String> cgroupPath;
+
+  /**
+   * A container inspection that is decoded lazily.
+   *
+   * @param inData The output of {@code podman inspect}
+   * @param inSpan The span of the container object within the output
+   */
+
+  public PNContainerInspection(
+    final byte[] inData,
+    final PNJSONSpan inSpan)
+  {
+    this.data =
+      Objects.requireNonNull(inData, "data");
+    this.span =
+      Objects.requireNonNull(inSpan, "span");
+  }
+
+  private Object decode(
+    final String... path)
+  {
+    try {
+      final var member = PNJSONScanner.path(this.data, this.span, path);
+      if (member.isEmpty()) {
+        return Optional.empty();
+      }
+      return PNJSON.parse(this.data, member.get());
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private String decodeString(
+    final String member)
+  {
+    if (this.decode(member) instanceof final String text) {
+      return text;
+    }
+    return "";
+  }
+
+  @Override
+  public String id()
+  {
+    var result = this.id;
+    if (result == null) {
+      result = this.decodeString("Id");
+      this.id = result;
+    }
+    return result;
+  }
+
+  @Override
+  public String name()
+  {
+    var result = this.name;
+    if (result == null) {
+      result = this.decodeString("Name");
+      if (result.startsWith("/")) {
+        result = result.substring(1);
+      }
+      this.name = result;
+    }
+    return result;
+  }
+
+  @Override
+  public String imageName()
+  {
+    var result = this.imageName;
+    if (result == null) {
+      result = this.decodeString("ImageName");
+      this.imageName = result;
+    }
+    return result;
+  }
+
+  @Override
+  public String image()
+  {
+    var result = this.image;
+    if (result == null) {
+      result = this.decodeString("Image");
+      this.image = result;
+    }
+    return result;
+  }
+
+  @Override
+  public Optional<String> pod()
+  {
+    var result = this.pod;
+    if (result == null) {
+      result = Optional.of(this.decodeString("Pod"))
+        .filter(s -> !s.isEmpty());
+      this.pod = result;
+    }
+    return result;
+  }
+
+  @Override
+  public Optional<OffsetDateTime> created()
+  {
+    var result = this.created;
+    if (result == null) {
+      result = PNTimestamps.parse(this.decodeString("Created"));
+      this.created = result;
+    }
+    return result;
+  }
+
+  @Override
+  public PodmanContainerState state()
+  {
+    var result = this.state;
+    if (result == null) {
+      final var s = this.decode("State");
+      result = new PodmanContainerState(
+        PNJSON.stringOf(s, "Status"),
+        PNJSON.booleanOf(s, "Running"),
+        PNJSON.booleanOf(s, "Paused"),
+        PNJSON.booleanOf(s, "OOMKilled"),
+        PNJSON.longOf(s, "Pid"),
+        (int) PNJSON.longOf(s, "ExitCode"),
+        PNTimestamps.parse(PNJSON.stringOf(s, "StartedAt")),
+        PNTimestamps.parse(PNJSON.stringOf(s, "FinishedAt"))
+      );
+      this.state = result;
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, String> labels()
+  {
+    var result = this.labels;
+    if (result == null) {
+      result = PNJSON.stringMap(this.decode("Config", "Labels"));
+      this.labels = result;
+    }
+    return result;
+  }
+
+  @Override
+  public Optional<String> cgroupPath()
+  {
+    var result = this.cgroupPath;
+    if (result == null) {
+      if (this.decode("State", "CgroupPath") instanceof final String text) {
+        result = Optional.of(text).filter(s -> !s.isEmpty());
+      } else {
+        result = Optional.empty();
+      }
+      this.cgroupPath = result;
+    }
+    return result;
+  }
+
+  @Override
+  public ByteBuffer rawJSON()
+  {
+    return ByteBuffer.wrap(this.data, this.span.start(), this.span.length())
+      .slice()
+      .asReadOnlyBuffer();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[PNContainerInspection %s %s]".formatted(this.id(), this.name());
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessCpBuilderType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * @see "podman cp"
+ */
+
+public final class PNCp
+  extends PNAbstract
+  implements PodmanProcessCpBuilderType
+{
+  private Optional<String> source;
+  private Optional<String> destination;
+  private boolean archive;
+  private boolean overwrite;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman cp"
+   */
+
+  public PNCp(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.source =
+      Optional.empty();
+    this.destination =
+      Optional.empty();
+    this.archive =
+      true;
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.source.isEmpty()) {
+      throw new IllegalArgumentException("No source was specified.");
+    }
+    if (this.destination.isEmpty()) {
+      throw new IllegalArgumentException("No destination was specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("cp");
+    arguments.add("--archive=%s".formatted(Boolean.valueOf(this.archive)));
+
+    if (this.overwrite) {
+      arguments.add("--overwrite");
+    }
+
+    arguments.add(this.source.get());
+    arguments.add(this.destination.get());
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public PodmanProcessCpBuilderType setSource(
+    final String inSource)
+  {
+    this.source =
+      Optional.of(Objects.requireNonNull(inSource, "source"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessCpBuilderType setDestination(
+    final String inDestination)
+  {
+    this.destination =
+      Optional.of(Objects.requireNonNull(inDestination, "destination"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessCpBuilderType setArchive(
+    final boolean a)
+  {
+    this.archive = a;
+    return this;
+  }
+
+  @Override
+  public PodmanProcessCpBuilderType setOverwrite(
+    final boolean o)
+  {
+    this.overwrite = o;
+    return this;
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanEvent;
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessEventsBuilderType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * @see "podman events"
+ */
+
+public final class PNEvents
+  extends PNAbstract
+  implements PodmanProcessEventsBuilderType
+{
+  private final ArrayList<String> filters;
+  private Optional<OffsetDateTime> since;
+  private Optional<OffsetDateTime> until;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman events"
+   */
+
+  public PNEvents(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.filters =
+      new ArrayList<>();
+    this.since =
+      Optional.empty();
+    this.until =
+      Optional.empty();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    final var arguments = new ArrayList<String>();
+    arguments.add("events");
+    arguments.add("--stream=false");
+    arguments.add("--format");
+    arguments.add("json");
+
+    if (this.since.isPresent()) {
+      arguments.add("--since");
+      arguments.add(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(this.since.get()));
+    }
+    if (this.until.isPresent()) {
+      arguments.add("--until");
+      arguments.add(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(this.until.get()));
+    }
+
+    for (final var filter : this.filters) {
+      arguments.add("--filter");
+      arguments.add(filter);
+    }
+
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<PodmanEvent> executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var values =
+      PNJSON.parseLines(
+        this.executeAndCollect()
+          .requireSuccess()
+          .output()
+      );
+
+    final var events = new ArrayList<PodmanEvent>(values.size());
+    for (final var value : values) {
+      eventOf(value).ifPresent(events::add);
+    }
+    return List.copyOf(events);
+  }
+
+  private static Optional<PodmanEvent> eventOf(
+    final Object value)
+  {
+    return timeOf(value).map(time -> {
+      return new PodmanEvent(
+        time,
+        PNJSON.stringOf(value, "Type"),
+        PNJSON.stringOf(value, "Status"),
+        PNJSON.stringOf(value, "ID"),
+        PNJSON.stringOf(value, "Name"),
+        PNJSON.stringMapOf(value, "Attributes")
+      );
+    });
+  }
+
+  /*
+   * Older versions of podman report the time as an RFC 3339 "Time" string,
+   * whilst newer versions report "time" in seconds and "timeNano" in
+   * nanoseconds since the epoch.
+   */
+
+  private static Optional<Instant> timeOf(
+    final Object value)
+  {
+    if (value instanceof final Map<?, ?> map) {
+      if (map.get("timeNano") instanceof final BigDecimal nanos) {
+        return Optional.of(Instant.EPOCH.plusNanos(nanos.longValue()));
+      }
+      if (map.get("time") instanceof final BigDecimal seconds) {
+        return Optional.of(Instant.ofEpochSecond(seconds.longValue()));
+      }
+      return PNTimestamps.parse(PNJSON.stringOf(value, "Time"))
+        .map(OffsetDateTime::toInstant);
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public PodmanProcessEventsBuilderType setSince(
+    final OffsetDateTime time)
+  {
+    this.since =
+      Optional.of(Objects.requireNonNull(time, "time"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessEventsBuilderType setUntil(
+    final OffsetDateTime time)
+  {
+    this.until =
+      Optional.of(Objects.requireNonNull(time, "time"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessEventsBuilderType addFilter(
+    final String name,
+    final String value)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(value, "value");
+    this.filters.add("%s=%s".formatted(name, value));
+    return this;
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolution of executables to absolute paths.
+ *
+ * <p>Resolved paths are cached per executable name and {@code PATH}. A
+ * cached path is revalidated (with a single {@code stat}) at most once per
+ * revalidation interval, and is resolved again if the file has been
+ * removed or replaced.</p>
+ */
+
+public final class PNExecutables
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PNExecutables.class);
+
+  private static final long REVALIDATE_NANOS =
+    1_000_000_000L;
+
+  private static final ConcurrentHashMap<Key, Resolved> CACHE =
+    new ConcurrentHashMap<>();
+
+  private PNExecutables()
+  {
+
+  }
+
+  /**
+   * Resolve the podman executable of the given configuration.
+   *
+   * @param configuration The configuration
+   *
+   * @return The absolute path of the executable, or the executable name
+   *         unchanged if it cannot be resolved
+   */
+
+  public static String resolve(
+    final PodmanExecutableConfiguration configuration)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
+    final var path =
+      configuration.environment()
+        .map(e -> e.get("PATH"))
+        .orElseGet(() -> System.getenv("PATH"));
+
+    return resolve(configuration.podmanExecutable(), path == null ? "" : path);
+  }
+
+  /**
+   * Resolve an executable against a search path.
+   *
+   * @param name       The executable name
+   * @param searchPath The search path
+   *
+   * @return The absolute path of the executable, or the executable name
+   *         unchanged if it cannot be resolved
+   */
+
+  public static String resolve(
+    final String name,
+    final String searchPath)
+  {
+    final var key = new Key(name, searchPath);
+    final var now = System.nanoTime();
+    final var cached = CACHE.get(key);
+
+    if (cached != null) {
+      if (now - cached.checkedAt < REVALIDATE_NANOS) {
+        return cached.path.toString();
+      }
+      final var current = attributesOf(cached.path);
+      if (current.isPresent() && cached.isSameFile(current.get())) {
+        CACHE.put(key, cached.checked(now));
+        return cached.path.toString();
+      }
+      LOG.debug("Executable {} changed; resolving again", cached.path);
+    }
+
+    final var resolved = search(name, searchPath, now);
+    if (resolved.isEmpty()) {
+      CACHE.remove(key);
+      return name;
+    }
+
+    CACHE.put(key, resolved.get());
+    return resolved.get().path.toString();
+  }
+
+  private static Optional<Resolved> search(
+    final String name,
+    final String searchPath,
+    final long now)
+  {
+    try {
+      if (name.contains(File.separator)) {
+        return candidate(Path.of(name).toAbsolutePath(), now);
+      }
+
+      for (final var directory : searchPath.split(File.pathSeparator)) {
+        if (directory.isEmpty()) {
+          continue;
+        }
+        final var found =
+          candidate(Path.of(directory, name).toAbsolutePath(), now);
+        if (found.isPresent()) {
+          return found;
+        }
+      }
+    } catch (final InvalidPathException e) {
+      LOG.debug("Invalid executable path: ", e);
+    }
+    return Optional.empty();
+  }
+
+  private static Optional<Resolved> candidate(
+    final Path file,
+    final long now)
+  {
+    if (!Files.isExecutable(file)) {
+      return Optional.empty();
+    }
+    return attributesOf(file).map(a -> {
+      return new Resolved(file, a.lastModifiedTime(), a.fileKey(), now);
+    });
+  }
+
+  private static Optional<BasicFileAttributes> attributesOf(
+    final Path file)
+  {
+    try {
+      final var attributes =
+        Files.readAttributes(file, BasicFileAttributes.class);
+      if (attributes.isDirectory()) {
+        return Optional.empty();
+      }
+      return Optional.of(attributes);
+    } catch (final IOException e) {
+      return Optional.empty();
+    }
+  }
+
+  private record Key(
+    String name,
+    String searchPath)
+  {
+
+  }
+
+  private record Resolved(
+    Path path,
+    FileTime modified,
+    Object fileKey,
+    long checkedAt)
+  {
+    boolean isSameFile(
+      final BasicFileAttributes attributes)
+    {
+      return this.modified.equals(attributes.lastModifiedTime())
+             && Objects.equals(this.fileKey, attributes.fileKey());
+    }
+
+    Resolved checked(
+      final long time)
+    {
+      return new Resolved(this.path, this.modified, this.fileKey, time);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Functions to determine the images held in image archives without loading
+ * them.
+ */
+
+public final class PNImageArchives
+{
+  /*
+   * Manifests, indexes, and image configurations are small; anything larger
+   * than this is assumed to be a layer and is skipped.
+   */
+
+  private static final long METADATA_LIMIT = 1024L * 1024L;
+
+  private static final String BLOBS = "blobs/";
+
+  private PNImageArchives()
+  {
+
+  }
+
+  /**
+   * Determine the IDs of the images held in a docker or OCI archive. Archives
+   * may be uncompressed or gzip-compressed. The image ID is the hex digest
+   * of the image configuration, as reported by {@code podman images}.
+   *
+   * @param archive The archive
+   *
+   * @return The image IDs, or the empty set if they cannot be determined
+   *
+   * @throws IOException On errors
+   */
+
+  public static Set<String> imageIds(
+    final Path archive)
+    throws IOException
+  {
+    final var metadata = new HashMap<String, byte[]>();
+
+    try (var reader = new PNTarReader(open(archive))) {
+      while (true) {
+        final var entryOpt = reader.next();
+        if (entryOpt.isEmpty()) {
+          break;
+        }
+        final var entry = entryOpt.get();
+        if (isMetadata(entry)) {
+          metadata.put(normalize(entry.name()), reader.readEntry(METADATA_LIMIT));
+        }
+      }
+    }
+
+    if (metadata.containsKey("manifest.json")) {
+      return dockerImageIds(metadata);
+    }
+    if (metadata.containsKey("index.json")) {
+      return ociImageIds(metadata);
+    }
+    return Set.of();
+  }
+
+  private static boolean isMetadata(
+    final PNTarReader.Entry entry)
+  {
+    if (!entry.isFile() || entry.size() > METADATA_LIMIT) {
+      return false;
+    }
+    final var name = normalize(entry.name());
+    return name.endsWith(".json") || name.startsWith(BLOBS);
+  }
+
+  private static String normalize(
+    final String name)
+  {
+    if (name.startsWith("./")) {
+      return name.substring(2);
+    }
+    return name;
+  }
+
+  private static InputStream open(
+    final Path archive)
+    throws IOException
+  {
+    final var stream =
+      new BufferedInputStream(Files.newInputStream(archive), 65536);
+
+    stream.mark(2);
+    final var b0 = stream.read();
+    final var b1 = stream.read();
+    stream.reset();
+
+    if (b0 == 0x1f && b1 == 0x8b) {
+      return new GZIPInputStream(stream, 65536);
+    }
+    return stream;
+  }
+
+  /*
+   * A docker archive lists each image in manifest.json, with a "Config"
+   * member naming the configuration file, either as "<hex>.json" or as
+   * "blobs/sha256/<hex>".
+   */
+
+  private static Set<String> dockerImageIds(
+    final Map<String, byte[]> metadata)
+    throws IOException
+  {
+    final var ids = new TreeSet<String>();
+    for (final var image : PNJSON.parseArray(metadata.get("manifest.json"))) {
+      final var config = PNJSON.stringOf(image, "Config");
+      final var slash = config.lastIndexOf('/');
+      var id = config.substring(slash + 1);
+      if (id.endsWith(".json")) {
+        id = id.substring(0, id.length() - 5);
+      }
+      if (id.isEmpty()) {
+        return Set.of();
+      }
+      ids.add(id);
+    }
+    return Set.copyOf(ids);
+  }
+
+  /*
+   * An OCI archive lists manifests in index.json; each manifest names its
+   * configuration blob by digest.
+   */
+
+  private static Set<String> ociImageIds(
+    final Map<String, byte[]> metadata)
+    throws IOException
+  {
+    final var ids = new TreeSet<String>();
+    final var index = PNJSON.parse(metadata.get("index.json"));
+    for (final var manifest : PNJSON.listOf(index, "manifests")) {
+      final var data = metadata.get(blobPath(PNJSON.stringOf(manifest, "digest")));
+      if (data == null) {
+        return Set.of();
+      }
+
+      final var config =
+        PNJSON.objectOf(PNJSON.parse(data), "config");
+      final var digest =
+        PNJSON.stringOf(config, "digest");
+      final var colon =
+        digest.indexOf(':');
+
+      if (colon < 0) {
+        return Set.of();
+      }
+      ids.add(digest.substring(colon + 1));
+    }
+    return Set.copyOf(ids);
+  }
+
+  private static String blobPath(
+    final String digest)
+  {
+    return BLOBS + digest.replace(':', '/');
+  }
+}
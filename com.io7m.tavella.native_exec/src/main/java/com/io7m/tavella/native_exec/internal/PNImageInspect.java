@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanImageInspection;
+import com.io7m.tavella.api.PodmanProcessImageInspectBuilderType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * @see "podman image inspect"
+ */
+
+public final class PNImageInspect
+  extends PNAbstract
+  implements PodmanProcessImageInspectBuilderType
+{
+  private final ArrayList<String> images;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman image inspect"
+   */
+
+  public PNImageInspect(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.images =
+      new ArrayList<>();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.images.isEmpty()) {
+      throw new IllegalArgumentException("No images were specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("image");
+    arguments.add("inspect");
+    arguments.add("--format");
+    arguments.add("json");
+    arguments.addAll(this.images);
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<PodmanImageInspection> executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var result = this.executeAndCollect();
+
+    /*
+     * As with containers, inspecting a set of images where some of the
+     * images do not exist results in a non-zero exit code, but the images
+     * that did exist are still written to the output.
+     */
+
+    if (result.exitCode() != 0 && !isOnlyMissingImages(result)) {
+      throw result.toException();
+    }
+
+    final var values =
+      PNJSON.parseArray(result.output());
+    final var inspections =
+      new ArrayList<PodmanImageInspection>(values.size());
+
+    for (final var value : values) {
+      inspections.add(parseInspection(value));
+    }
+    return List.copyOf(inspections);
+  }
+
+  private static PodmanImageInspection parseInspection(
+    final Object value)
+  {
+    final var config = PNJSON.objectOf(value, "Config");
+    var labels = PNJSON.stringMapOf(value, "Labels");
+    if (labels.isEmpty()) {
+      labels = PNJSON.stringMapOf(config, "Labels");
+    }
+
+    return new PodmanImageInspection(
+      PNJSON.stringOf(value, "Id"),
+      PNJSON.stringOf(value, "Digest"),
+      PNJSON.stringListOf(value, "RepoTags"),
+      PNJSON.stringListOf(value, "RepoDigests"),
+      labels,
+      PNJSON.longOf(value, "Size"),
+      PNJSON.stringListOf(config, "Entrypoint"),
+      PNJSON.stringListOf(config, "Cmd")
+    );
+  }
+
+  private static boolean isOnlyMissingImages(
+    final PNProcessOutput result)
+  {
+    final var lines = result.errorLines();
+    if (lines.isEmpty()) {
+      return false;
+    }
+    for (final var line : lines) {
+      final var lower = line.toLowerCase(Locale.ROOT);
+      if (!lower.contains("no such") && !lower.contains("image not known")) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public PodmanProcessImageInspectBuilderType addImage(
+    final String image)
+  {
+    this.images.add(
+      Objects.requireNonNull(image, "image")
+    );
+    return this;
+  }
+}
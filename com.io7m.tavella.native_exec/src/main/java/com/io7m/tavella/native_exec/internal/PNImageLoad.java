@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessImageLoadBuilderType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * @see "podman image load"
+ */
+
+public final class PNImageLoad
+  extends PNAbstract
+  implements PodmanProcessImageLoadBuilderType
+{
+  private static final String LOADED_PREFIX =
+    "Loaded image";
+
+  private Optional<Path> input;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman image load"
+   */
+
+  public PNImageLoad(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.input =
+      Optional.empty();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.input.isEmpty()) {
+      throw new IllegalArgumentException("No input archive was specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("image");
+    arguments.add("load");
+    arguments.add("--quiet");
+    arguments.add("--input");
+    arguments.add(this.input.get().toAbsolutePath().toString());
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<String> executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var lines =
+      this.executeAndCollect()
+        .requireSuccess()
+        .outputLines();
+
+    return parseLoaded(lines);
+  }
+
+  /*
+   * Depending on the version, podman reports one "Loaded image: x" line
+   * per image, or a single "Loaded image(s): x,y" line.
+   */
+
+  static List<String> parseLoaded(
+    final List<String> lines)
+  {
+    final var images = new ArrayList<String>();
+    for (final var line : lines) {
+      if (!line.startsWith(LOADED_PREFIX)) {
+        continue;
+      }
+      final var colon = line.indexOf(": ");
+      if (colon < 0) {
+        continue;
+      }
+      for (final var name : line.substring(colon + 2).split(",")) {
+        final var trimmed = name.trim();
+        if (!trimmed.isEmpty()) {
+          images.add(trimmed);
+        }
+      }
+    }
+    return List.copyOf(images);
+  }
+
+  @Override
+  public PodmanProcessImageLoadBuilderType setInput(
+    final Path archive)
+  {
+    this.input = Optional.of(
+      Objects.requireNonNull(archive, "archive")
+    );
+    return this;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanImageArchiveFormat;
+import com.io7m.tavella.api.PodmanProcessImageSaveBuilderType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * @see "podman image save"
+ */
+
+public final class PNImageSave
+  extends PNAbstract
+  implements PodmanProcessImageSaveBuilderType
+{
+  private final ArrayList<String> images;
+  private PodmanImageArchiveFormat format;
+  private Optional<Path> output;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman image save"
+   */
+
+  public PNImageSave(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.images =
+      new ArrayList<>();
+    this.format =
+      PodmanImageArchiveFormat.DOCKER_ARCHIVE;
+    this.output =
+      Optional.empty();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.images.isEmpty()) {
+      throw new IllegalArgumentException("No images were specified.");
+    }
+    if (this.output.isEmpty()) {
+      throw new IllegalArgumentException("No output archive was specified.");
+    }
+
+    final var multiple = this.images.size() > 1;
+    if (multiple && this.format != PodmanImageArchiveFormat.DOCKER_ARCHIVE) {
+      throw new IllegalArgumentException(
+        "Only the docker-archive format can hold multiple images.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("image");
+    arguments.add("save");
+    arguments.add("--quiet");
+    arguments.add("--format");
+    arguments.add(this.format.tag());
+    if (multiple) {
+      arguments.add("--multi-image-archive");
+    }
+    arguments.add("--output");
+    arguments.add(this.output.get().toAbsolutePath().toString());
+    arguments.addAll(this.images);
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public Long executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var processBuilder = this.build();
+    this.executeAndCollect(processBuilder)
+      .requireSuccess();
+    return Long.valueOf(Files.size(this.output.orElseThrow()));
+  }
+
+  @Override
+  public PodmanProcessImageSaveBuilderType addImage(
+    final String image)
+  {
+    this.images.add(
+      Objects.requireNonNull(image, "image")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessImageSaveBuilderType setFormat(
+    final PodmanImageArchiveFormat inFormat)
+  {
+    this.format =
+      Objects.requireNonNull(inFormat, "format");
+    return this;
+  }
+
+  @Override
+  public PodmanProcessImageSaveBuilderType setOutput(
+    final Path archive)
+  {
+    this.output = Optional.of(
+      Objects.requireNonNull(archive, "archive")
+    );
+    return this;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanImageSummary;
+import com.io7m.tavella.api.PodmanProcessImagesBuilderType;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @see "podman images"
+ */
+
+public final class PNImages
+  extends PNAbstract
+  implements PodmanProcessImagesBuilderType
+{
+  private final ArrayList<String> filters;
+  private boolean all;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman images"
+   */
+
+  public PNImages(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.filters =
+      new ArrayList<>();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    final var arguments = new ArrayList<String>();
+    arguments.add("images");
+    arguments.add("--format");
+    arguments.add("json");
+
+    if (this.all) {
+      arguments.add("--all");
+    }
+
+    for (final var filter : this.filters) {
+      arguments.add("--filter");
+      arguments.add(filter);
+    }
+
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<PodmanImageSummary> executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var result =
+      this.executeAndCollect()
+        .requireSuccess();
+
+    final var values =
+      PNJSON.parseArray(result.output());
+    final var summaries =
+      new ArrayList<PodmanImageSummary>(values.size());
+
+    for (final var value : values) {
+      summaries.add(summaryOf(value));
+    }
+    return List.copyOf(summaries);
+  }
+
+  private static PodmanImageSummary summaryOf(
+    final Object value)
+  {
+    return new PodmanImageSummary(
+      PNJSON.stringOf(value, "Id"),
+      PNJSON.stringOf(value, "Digest"),
+      PNJSON.stringListOf(value, "Names"),
+      PNJSON.stringListOf(value, "RepoDigests"),
+      PNJSON.stringMapOf(value, "Labels"),
+      PNJSON.longOf(value, "Size"),
+      Instant.ofEpochSecond(PNJSON.longOf(value, "Created")),
+      (int) PNJSON.longOf(value, "Containers")
+    );
+  }
+
+  @Override
+  public PodmanProcessImagesBuilderType setAll(
+    final boolean inAll)
+  {
+    this.all = inAll;
+    return this;
+  }
+
+  @Override
+  public PodmanProcessImagesBuilderType addFilter(
+    final String name,
+    final String value)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(value, "value");
+    this.filters.add("%s=%s".formatted(name, value));
+    return this;
+  }
+}
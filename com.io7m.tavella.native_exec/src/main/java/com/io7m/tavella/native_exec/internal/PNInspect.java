@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanContainerInspectionType;
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessInspectBuilderType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * @see "podman inspect"
+ */
+
+public final class PNInspect
+  extends PNAbstract
+  implements PodmanProcessInspectBuilderType
+{
+  private final ArrayList<String> containers;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman inspect"
+   */
+
+  public PNInspect(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.containers =
+      new ArrayList<>();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.containers.isEmpty()) {
+      throw new IllegalArgumentException("No containers were specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("inspect");
+    arguments.add("--type");
+    arguments.add("container");
+    arguments.add("--format");
+    arguments.add("json");
+    arguments.addAll(this.containers);
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<PodmanContainerInspectionType> executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var result = this.executeAndCollect();
+
+    /*
+     * Inspecting a set of containers where some of the containers do not
+     * exist results in a non-zero exit code, but the containers that did
+     * exist are still written to the output.
+     */
+
+    if (result.exitCode() != 0 && !isOnlyMissingContainers(result)) {
+      throw result.toException();
+    }
+
+    /*
+     * Only the boundaries of each container object are located here; the
+     * contents are decoded on demand by the inspections themselves.
+     */
+
+    final var output =
+      result.output();
+    final var elements =
+      PNJSONScanner.arrayElements(output);
+    final var inspections =
+      new ArrayList<PodmanContainerInspectionType>(elements.size());
+
+    for (final var element : elements) {
+      inspections.add(new PNContainerInspection(output, element));
+    }
+    return List.copyOf(inspections);
+  }
+
+  private static boolean isOnlyMissingContainers(
+    final PNProcessOutput result)
+  {
+    final var lines = result.errorLines();
+    if (lines.isEmpty()) {
+      return false;
+    }
+    for (final var line : lines) {
+      if (!line.toLowerCase(Locale.ROOT).contains("no such")) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public PodmanProcessInspectBuilderType addContainer(
+    final String container)
+  {
+    this.containers.add(
+      Objects.requireNonNull(container, "container")
+    );
+    return this;
+  }
+}
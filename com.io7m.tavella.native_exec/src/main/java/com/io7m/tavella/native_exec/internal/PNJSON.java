@@ -0,0 +1,640 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * A minimal JSON parser for the output of {@code podman} commands. Objects
+ * are parsed to {@link Map} values, arrays to {@link List} values, numbers
+ * to {@link BigDecimal} values, and {@code null} is parsed to
+ * {@link Optional#empty()}.
+ */
+
+public final class PNJSON
+{
+  private final byte[] data;
+  private final int limit;
+  private int position;
+
+  private PNJSON(
+    final byte[] inData,
+    final int inPosition,
+    final int inLimit)
+  {
+    this.data = Objects.requireNonNull(inData, "data");
+    this.position = inPosition;
+    this.limit = inLimit;
+  }
+
+  /**
+   * Parse a complete JSON document.
+   *
+   * @param data The UTF-8 encoded document
+   *
+   * @return The parsed value
+   *
+   * @throws IOException On parse errors
+   */
+
+  public static Object parse(
+    final byte[] data)
+    throws IOException
+  {
+    return parse(data, new PNJSONSpan(0, data.length));
+  }
+
+  /**
+   * Parse a single JSON value that occupies the given span of a document.
+   *
+   * @param data The UTF-8 encoded document
+   * @param span The span of the value
+   *
+   * @return The parsed value
+   *
+   * @throws IOException On parse errors
+   */
+
+  public static Object parse(
+    final byte[] data,
+    final PNJSONSpan span)
+    throws IOException
+  {
+    Objects.requireNonNull(span, "span");
+    if (span.end() > data.length) {
+      throw new IOException("Span exceeds the size of the document.");
+    }
+
+    final var parser = new PNJSON(data, span.start(), span.end());
+    final var value = parser.parseValue();
+    parser.skipWhitespace();
+    if (parser.position != span.end()) {
+      throw parser.error("Trailing data after JSON value");
+    }
+    return value;
+  }
+
+  /**
+   * Parse a complete JSON document that is expected to be an array. An
+   * empty document is treated as an empty array.
+   *
+   * @param data The UTF-8 encoded document
+   *
+   * @return The parsed value
+   *
+   * @throws IOException On parse errors
+   */
+
+  public static List<Object> parseArray(
+    final byte[] data)
+    throws IOException
+  {
+    if (isBlank(data)) {
+      return List.of();
+    }
+    final var value = parse(data);
+    if (value instanceof final List<?> list) {
+      return List.copyOf(list);
+    }
+    throw new IOException("Expected a JSON array.");
+  }
+
+  /**
+   * Parse a document consisting of one JSON value per line, as produced
+   * by commands that stream their output. Blank lines are ignored.
+   *
+   * @param data The UTF-8 encoded document
+   *
+   * @return The parsed values
+   *
+   * @throws IOException On parse errors
+   */
+
+  public static List<Object> parseLines(
+    final byte[] data)
+    throws IOException
+  {
+    final var values = new ArrayList<Object>();
+    int start = 0;
+    for (int index = 0; index <= data.length; ++index) {
+      if (index == data.length || data[index] == '\n') {
+        final var span = new PNJSONSpan(start, index);
+        start = index + 1;
+        if (!isBlank(data, span)) {
+          values.add(parse(data, span));
+        }
+      }
+    }
+    return values;
+  }
+
+  private static boolean isBlank(
+    final byte[] data)
+  {
+    return isBlank(data, new PNJSONSpan(0, data.length));
+  }
+
+  private static boolean isBlank(
+    final byte[] data,
+    final PNJSONSpan span)
+  {
+    for (int index = span.start(); index < span.end(); ++index) {
+      if (!isWhitespace(data[index])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Retrieve a string member of an object.
+   *
+   * @param object The object
+   * @param name   The member name
+   *
+   * @return The string, or the empty string if the member is missing
+   */
+
+  public static String stringOf(
+    final Object object,
+    final String name)
+  {
+    if (object instanceof final Map<?, ?> map) {
+      if (map.get(name) instanceof final String s) {
+        return s;
+      }
+    }
+    return "";
+  }
+
+  /**
+   * Retrieve a boolean member of an object.
+   *
+   * @param object The object
+   * @param name   The member name
+   *
+   * @return The boolean, or {@code false} if the member is missing
+   */
+
+  public static boolean booleanOf(
+    final Object object,
+    final String name)
+  {
+    if (object instanceof final Map<?, ?> map) {
+      return Boolean.TRUE.equals(map.get(name));
+    }
+    return false;
+  }
+
+  /**
+   * Retrieve an integer member of an object.
+   *
+   * @param object The object
+   * @param name   The member name
+   *
+   * @return The integer, or {@code 0} if the member is missing
+   */
+
+  public static long longOf(
+    final Object object,
+    final String name)
+  {
+    if (object instanceof final Map<?, ?> map) {
+      if (map.get(name) instanceof final BigDecimal number) {
+        return number.longValue();
+      }
+    }
+    return 0L;
+  }
+
+  /**
+   * Retrieve an object member of an object as a map of strings. Members
+   * that are not strings are ignored.
+   *
+   * @param object The object
+   * @param name   The member name
+   *
+   * @return The map, or the empty map if the member is missing
+   */
+
+  public static Map<String, String> stringMapOf(
+    final Object object,
+    final String name)
+  {
+    return stringMap(objectOf(object, name));
+  }
+
+  /**
+   * Interpret a value as a map of strings. Members that are not strings are
+   * ignored.
+   *
+   * @param value The value
+   *
+   * @return The map, or the empty map if the value is not an object
+   */
+
+  public static Map<String, String> stringMap(
+    final Object value)
+  {
+    final var result = new TreeMap<String, String>();
+    if (value instanceof final Map<?, ?> map) {
+      for (final var entry : map.entrySet()) {
+        if (entry.getKey() instanceof final String key
+            && entry.getValue() instanceof final String text) {
+          result.put(key, text);
+        }
+      }
+    }
+    return Map.copyOf(result);
+  }
+
+  /**
+   * Retrieve a list member of an object.
+   *
+   * @param object The object
+   * @param name   The member name
+   *
+   * @return The list, or the empty list if the member is missing
+   */
+
+  public static List<?> listOf(
+    final Object object,
+    final String name)
+  {
+    if (object instanceof final Map<?, ?> map) {
+      if (map.get(name) instanceof final List<?> list) {
+        return list;
+      }
+    }
+    return List.of();
+  }
+
+  /**
+   * Retrieve a list member of an object as a list of strings. Elements that
+   * are not strings are ignored.
+   *
+   * @param object The object
+   * @param name   The member name
+   *
+   * @return The list, or the empty list if the member is missing
+   */
+
+  public static List<String> stringListOf(
+    final Object object,
+    final String name)
+  {
+    final var values = listOf(object, name);
+    final var results = new ArrayList<String>(values.size());
+    for (final var value : values) {
+      if (value instanceof final String s) {
+        results.add(s);
+      }
+    }
+    return List.copyOf(results);
+  }
+
+  /**
+   * Retrieve an object member of an object.
+   *
+   * @param object The object
+   * @param name   The member name
+   *
+   * @return The object, or the empty object if the member is missing
+   */
+
+  public static Map<?, ?> objectOf(
+    final Object object,
+    final String name)
+  {
+    if (object instanceof final Map<?, ?> map) {
+      if (map.get(name) instanceof final Map<?, ?> member) {
+        return member;
+      }
+    }
+    return Map.of();
+  }
+
+  /**
+   * Serialize a list of strings as a JSON array.
+   *
+   * @param values The strings
+   *
+   * @return The JSON text
+   */
+
+  public static String stringArray(
+    final List<String> values)
+  {
+    final var text = new StringBuilder(16 * (values.size() + 1));
+    text.append('[');
+    for (int index = 0; index < values.size(); index += 1) {
+      if (index > 0) {
+        text.append(',');
+      }
+      quote(text, values.get(index));
+    }
+    text.append(']');
+    return text.toString();
+  }
+
+  private static void quote(
+    final StringBuilder text,
+    final String value)
+  {
+    text.append('"');
+    for (int index = 0; index < value.length(); index += 1) {
+      final var c = value.charAt(index);
+      switch (c) {
+        case '"' -> text.append("\\\"");
+        case '\\' -> text.append("\\\\");
+        case '\n' -> text.append("\\n");
+        case '\r' -> text.append("\\r");
+        case '\t' -> text.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            text.append("\\u%04x".formatted(Integer.valueOf(c)));
+          } else {
+            text.append(c);
+          }
+        }
+      }
+    }
+    text.append('"');
+  }
+
+  private static boolean isNumberCharacter(
+    final byte b)
+  {
+    return switch (b) {
+      case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> true;
+      case '-', '+', '.', 'e', 'E' -> true;
+      default -> false;
+    };
+  }
+
+  private static boolean isWhitespace(
+    final byte b)
+  {
+    return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+  }
+
+  private IOException error(
+    final String message)
+  {
+    return new IOException(
+      "%s (at byte offset %d)".formatted(message, Integer.valueOf(this.position))
+    );
+  }
+
+  private String decode(
+    final Charset charset,
+    final int offset,
+    final int length)
+  {
+    return charset.decode(ByteBuffer.wrap(this.data, offset, length))
+      .toString();
+  }
+
+  private void skipWhitespace()
+  {
+    while (this.position < this.limit
+           && isWhitespace(this.data[this.position])) {
+      ++this.position;
+    }
+  }
+
+  private byte peek()
+    throws IOException
+  {
+    this.skipWhitespace();
+    if (this.position >= this.limit) {
+      throw this.error("Unexpected end of JSON");
+    }
+    return this.data[this.position];
+  }
+
+  private void expect(
+    final char c)
+    throws IOException
+  {
+    if (this.peek() != c) {
+      throw this.error("Expected '%c'".formatted(Character.valueOf(c)));
+    }
+    ++this.position;
+  }
+
+  private Object parseValue()
+    throws IOException
+  {
+    return switch (this.peek()) {
+      case '{' -> this.parseObject();
+      case '[' -> this.parseList();
+      case '"' -> this.parseString();
+      case 't' -> this.parseLiteral("true", Boolean.TRUE);
+      case 'f' -> this.parseLiteral("false", Boolean.FALSE);
+      case 'n' -> this.parseLiteral("null", Optional.empty());
+      default -> this.parseNumber();
+    };
+  }
+
+  private Object parseLiteral(
+    final String text,
+    final Object value)
+    throws IOException
+  {
+    final var end = this.position + text.length();
+    if (end > this.limit) {
+      throw this.error("Unexpected end of JSON");
+    }
+    for (int index = 0; index < text.length(); ++index) {
+      if (this.data[this.position + index] != text.charAt(index)) {
+        throw this.error("Unrecognized literal");
+      }
+    }
+    this.position = end;
+    return value;
+  }
+
+  private BigDecimal parseNumber()
+    throws IOException
+  {
+    final var start = this.position;
+    while (this.position < this.limit) {
+      final var b = this.data[this.position];
+      if (isNumberCharacter(b)) {
+        ++this.position;
+      } else {
+        break;
+      }
+    }
+    if (start == this.position) {
+      throw this.error("Unexpected character");
+    }
+    try {
+      return new BigDecimal(
+        this.decode(StandardCharsets.US_ASCII, start, this.position - start)
+      );
+    } catch (final NumberFormatException e) {
+      throw this.error("Malformed number");
+    }
+  }
+
+  private String parseString()
+    throws IOException
+  {
+    this.expect('"');
+
+    final var start = this.position;
+    while (this.position < this.limit) {
+      final var b = this.data[this.position];
+      if (b == '"') {
+        final var text =
+          this.decode(StandardCharsets.UTF_8, start, this.position - start);
+        ++this.position;
+        return text;
+      }
+      if (b == '\\') {
+        this.position = start;
+        return this.parseStringEscaped();
+      }
+      ++this.position;
+    }
+    throw this.error("Unterminated string");
+  }
+
+  private String parseStringEscaped()
+    throws IOException
+  {
+    final var text = new StringBuilder();
+    var segment = this.position;
+    while (this.position < this.limit) {
+      final var b = this.data[this.position];
+      if (b == '"') {
+        this.appendSegment(text, segment);
+        ++this.position;
+        return text.toString();
+      }
+      if (b != '\\') {
+        ++this.position;
+        continue;
+      }
+
+      this.appendSegment(text, segment);
+      ++this.position;
+      if (this.position >= this.limit) {
+        break;
+      }
+      final var e = this.data[this.position];
+      ++this.position;
+      switch (e) {
+        case '"', '\\', '/' -> text.append((char) e);
+        case 'b' -> text.append('\b');
+        case 'f' -> text.append('\f');
+        case 'n' -> text.append('\n');
+        case 'r' -> text.append('\r');
+        case 't' -> text.append('\t');
+        case 'u' -> text.append(this.parseUnicodeEscape());
+        default -> throw this.error("Unrecognized escape");
+      }
+      segment = this.position;
+    }
+    throw this.error("Unterminated string");
+  }
+
+  private void appendSegment(
+    final StringBuilder text,
+    final int segment)
+  {
+    text.append(
+      this.decode(StandardCharsets.UTF_8, segment, this.position - segment)
+    );
+  }
+
+  private char parseUnicodeEscape()
+    throws IOException
+  {
+    if (this.position + 4 > this.limit) {
+      throw this.error("Truncated unicode escape");
+    }
+    final var hex =
+      this.decode(StandardCharsets.US_ASCII, this.position, 4);
+    this.position += 4;
+    try {
+      return (char) Integer.parseInt(hex, 16);
+    } catch (final NumberFormatException e) {
+      throw this.error("Malformed unicode escape");
+    }
+  }
+
+  private List<Object> parseList()
+    throws IOException
+  {
+    this.expect('[');
+
+    final var values = new ArrayList<>();
+    if (this.peek() == ']') {
+      ++this.position;
+      return values;
+    }
+
+    while (true) {
+      values.add(this.parseValue());
+      if (this.peek() == ',') {
+        ++this.position;
+        continue;
+      }
+      this.expect(']');
+      return values;
+    }
+  }
+
+  private Map<String, Object> parseObject()
+    throws IOException
+  {
+    this.expect('{');
+
+    final var values = new LinkedHashMap<String, Object>();
+    if (this.peek() == '}') {
+      ++this.position;
+      return values;
+    }
+
+    while (true) {
+      final var name = this.parseString();
+      this.expect(':');
+      values.put(name, this.parseValue());
+      if (this.peek() == ',') {
+        ++this.position;
+        continue;
+      }
+      this.expect('}');
+      return values;
+    }
+  }
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.tavella.native_exec.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Functions to locate values within a JSON document without decoding them.
+ * The scanner only examines the structural characters of the values that
+ * it skips over, and so locating a single member of a large object costs
+ * far less than parsing the object in full.
+ *
+ * @see PNJSON
+ */
+
+public final class PNJSONScanner
+{
+  private PNJSONScanner()
+  {
+
+  }
+
+  /**
+   * Locate the elements of a document that consists of a single array. An
+   * empty document is treated as an empty array.
+   *
+   * @param data The UTF-8 encoded document
+   *
+   * @return The spans of the array elements
+   *
+   * @throws IOException On malformed documents
+   */
+
+  public static List<PNJSONSpan> arrayElements(
+    final byte[] data)
+    throws IOException
+  {
+    Objects.requireNonNull(data, "data");
+
+    final var elements = new ArrayList<PNJSONSpan>();
+    var position = skipWhitespace(data, 0);
+    if (position == data.length) {
+      return List.of();
+    }
+
+    position = expect(data, position, '[');
+    position = skipWhitespace(data, position);
+    if (position < data.length && data[position] == ']') {
+      return finish(data, position + 1, elements);
+    }
+
+    while (true) {
+      position = skipWhitespace(data, position);
+      final var end = skipValue(data, position);
+      elements.add(new PNJSONSpan(position, end));
+      position = skipWhitespace(data, end);
+      if (position < data.length && data[position] == ',') {
+        ++position;
+        continue;
+      }
+      position = expect(data, position, ']');
+      return finish(data, position, elements);
+    }
+  }
+
+  private static List<PNJSONSpan> finish(
+    final byte[] data,
+    final int position,
+    final List<PNJSONSpan> elements)
+    throws IOException
+  {
+    if (skipWhitespace(data, position) != data.length) {
+      throw error("Trailing data after JSON array", position);
+    }
+    return List.copyOf(elements);
+  }
+
+  /**
+   * Locate the value of the member with the given name in an object.
+   *
+   * @param data   The UTF-8 encoded document
+   * @param object The span of the object
+   * @param name   The member name
+   *
+   * @return The span of the member value, if the member exists
+   *
+   * @throws IOException On malformed documents
+   */
+
+  public static Optional<PNJSONSpan> member(
+    final byte[] data,
+    final PNJSONSpan object,
+    final String name)
+    throws IOException
+  {
+    Objects.requireNonNull(data, "data");
+    Objects.requireNonNull(object, "object");
+    Objects.requireNonNull(name, "name");
+
+    final var nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    var position = skipWhitespace(data, object.start());
+    if (position >= object.end() || data[position] != '{') {
+      return Optional.empty();
+    }
+    ++position;
+
+    position = skipWhitespace(data, position);
+    if (position < object.end() && data[position] == '}') {
+      return Optional.empty();
+    }
+
+    while (position < object.end()) {
+      position = skipWhitespace(data, position);
+      final var keyEnd = skipString(data, position);
+      final var matches = keyEquals(data, position, keyEnd, name, nameBytes);
+      position = expect(data, skipWhitespace(data, keyEnd), ':');
+      position = skipWhitespace(data, position);
+      final var valueEnd = skipValue(data, position);
+      if (matches) {
+        return Optional.of(new PNJSONSpan(position, valueEnd));
+      }
+      position = skipWhitespace(data, valueEnd);
+      if (position < object.end() && data[position] == ',') {
+        ++position;
+        continue;
+      }
+      break;
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Locate the value at the given path of member names.
+   *
+   * @param data   The UTF-8 encoded document
+   * @param object The span of the outermost object
+   * @param names  The member names
+   *
+   * @return The span of the member value, if the member exists
+   *
+   * @throws IOException On malformed documents
+   */
+
+  public static Optional<PNJSONSpan> path(
+    final byte[] data,
+    final PNJSONSpan object,
+    final String... names)
+    throws IOException
+  {
+    var current = Optional.of(object);
+    for (final var name : names) {
+      if (current.isEmpty()) {
+        return current;
+      }
+      current = member(data, current.get(), name);
+    }
+    return current;
+  }
+
+  private static boolean keyEquals(
+    final byte[] data,
+    final int start,
+    final int end,
+    final String name,
+    final byte[] nameBytes)
+    throws IOException
+  {
+    final var length = end - start - 2;
+    for (int index = start + 1; index < end - 1; ++index) {
+      if (data[index] == '\\') {
+        return PNJSON.parse(data, new PNJSONSpan(start, end))
+          .equals(name);
+      }
+    }
+    if (length != nameBytes.length) {
+      return false;
+    }
+    for (int index = 0; index < length; ++index) {
+      if (data[start + 1 + index] != nameBytes[index]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Skip over a single JSON value.
+   *
+   * @param data     The UTF-8 encoded document
+   * @param position The offset of the first byte of the value
+   *
+   * @return The offset one past the last byte of the value
+   *
+   * @throws IOException On malformed documents
+   */
+
+  public static int skipValue(
+    final byte[] data,
+    final int position)
+    throws IOException
+  {
+    if (position >= data.length) {
+      throw error("Unexpected end of JSON", position);
+    }
+
+    return switch (data[position]) {
+      case '"' -> skipString(data, position);
+      case '{', '[' -> skipStructure(data, position);
+      default -> skipScalar(data, position);
+    };
+  }
+
+  private static int skipStructure(
+    final byte[] data,
+    final int start)
+    throws IOException
+  {
+    var depth = 0;
+    var position = start;
+    while (position < data.length) {
+      switch (data[position]) {
+        case '"' -> {
+          position = skipString(data, position);
+          continue;
+        }
+        case '{', '[' -> ++depth;
+        case '}', ']' -> {
+          --depth;
+          if (depth == 0) {
+            return position + 1;
+          }
+        }
+        default -> {
+
+        }
+      }
+      ++position;
+    }
+    throw error("Unterminated structure", start);
+  }
+
+  private static int skipScalar(
+    final byte[] data,
+    final int start)
+    throws IOException
+  {
+    var position = start;
+    while (position < data.length) {
+      switch (data[position]) {
+        case ',', '}', ']', ' ', '\t', '\n', '\r' -> {
+          if (position == start) {
+            throw error("Unexpected character", position);
+          }
+          return position;
+        }
+        default -> ++position;
+      }
+    }
+    if (position == start) {
+      throw error("Unexpected end of JSON", position);
+    }
+    return position;
+  }
+
+  private static int skipString(
+    final byte[] data,
+    final int start)
+    throws IOException
+  {
+    if (start >= data.length || data[start] != '"') {
+      throw error("Expected a string", start);
+    }
+
+    var position = start + 1;
+    while (position < data.length) {
+      switch (data[position]) {
+        case '"' -> {
+          return position + 1;
+        }
+        case '\\' -> position += 2;
+        default -> ++position;
+      }
+    }
+    throw error("Unterminated string", start);
+  }
+
+  private static int expect(
+    final byte[] data,
+    final int position,
+    final char c)
+    throws IOException
+  {
+    if (position >= data.length || data[position] != c) {
+      throw error("Expected '%c'".formatted(Character.valueOf(c)), position);
+    }
+    return position + 1;
+  }
+
+  private static int skipWhitespace(
+    final byte[] data,
+    final int start)
+  {
+    var position = start;
+    while (position < data.length) {
+      switch (data[position]) {
+        case ' ', '\t', '\n', '\r' -> ++position;
+        default -> {
+          return position;
+        }
+      }
+    }
+    return position;
+  }
+
+  private static IOException error(
+    final String message,
+    final int position)
+  {
+    return new IOException(
+      "%s (at byte offset %d)".formatted(message, Integer.valueOf(position))
+    );
+  }
+}
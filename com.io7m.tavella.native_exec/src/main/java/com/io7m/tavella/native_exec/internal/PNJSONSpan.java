@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.tavella.native_exec.internal;
+
+/**
+ * The span of a JSON value within a document.
+ *
+ * @param start The offset of the first byte of the value
+ * @param end   The offset one past the last byte of the value
+ */
+
+public record PNJSONSpan(
+  int start,
+  int end)
+{
+  /**
+   * The span of a JSON value within a document.
+   *
+   * @param start The offset of the first byte of the value
+   * @param end   The offset one past the last byte of the value
+   */
+
+  public PNJSONSpan
+  {
+    if (start < 0 || end < start) {
+      throw new IllegalArgumentException(
+        "Invalid span: [%d, %d)"
+          .formatted(Integer.valueOf(start), Integer.valueOf(end))
+      );
+    }
+  }
+
+  /**
+   * @return The length of the span in bytes
+   */
+
+  public int length()
+  {
+    return this.end - this.start;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A line reader that never buffers more than a fixed number of bytes per
+ * line. Bytes beyond the maximum line length are discarded up to the next
+ * newline, so a process writing an unterminated stream of output cannot
+ * exhaust the heap of the reading process.
+ */
+
+public final class PNLineReader implements Closeable
+{
+  private final InputStream stream;
+  private final byte[] buffer;
+  private final byte[] line;
+  private int position;
+  private int limit;
+
+  /**
+   * Create a line reader.
+   *
+   * @param inStream        The underlying stream
+   * @param maximumLength   The maximum length in bytes of a single line
+   */
+
+  public PNLineReader(
+    final InputStream inStream,
+    final int maximumLength)
+  {
+    this.stream =
+      Objects.requireNonNull(inStream, "stream");
+
+    if (maximumLength <= 0) {
+      throw new IllegalArgumentException(
+        "Maximum line length must be positive.");
+    }
+
+    this.buffer =
+      new byte[8192];
+    this.line =
+      new byte[maximumLength];
+  }
+
+  /**
+   * Read a single line, excluding the line terminator.
+   *
+   * @return The line, or nothing if the end of the stream has been reached
+   *
+   * @throws IOException On errors
+   */
+
+  public Optional<String> readLine()
+    throws IOException
+  {
+    int length = 0;
+    boolean any = false;
+
+    while (true) {
+      if (this.position == this.limit) {
+        final var count = this.stream.read(this.buffer);
+        if (count <= 0) {
+          this.position = 0;
+          this.limit = 0;
+          if (any) {
+            return Optional.of(this.decode(length));
+          }
+          return Optional.empty();
+        }
+        this.position = 0;
+        this.limit = count;
+      }
+
+      any = true;
+      final var b = this.buffer[this.position];
+      ++this.position;
+
+      if (b == '\n') {
+        return Optional.of(this.decode(length));
+      }
+      if (length < this.line.length) {
+        this.line[length] = b;
+        ++length;
+      }
+    }
+  }
+
+  private String decode(
+    final int length)
+  {
+    var end = length;
+    if (end > 0 && this.line[end - 1] == '\r') {
+      --end;
+    }
+    return StandardCharsets.UTF_8.decode(ByteBuffer.wrap(this.line, 0, end))
+      .toString();
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    this.stream.close();
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanLogLine;
+import com.io7m.tavella.api.PodmanLogStream;
+import com.io7m.tavella.api.PodmanProcessLogsBuilderType;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * @see "podman logs"
+ */
+
+public final class PNLogs
+  extends PNAbstract
+  implements PodmanProcessLogsBuilderType
+{
+  /*
+   * The number of trailing error lines retained for error reporting. The
+   * error stream carries the container's own standard error, which is
+   * delivered to the receiver as it is read, and so need not be retained
+   * in full.
+   */
+
+  private static final int ERROR_LINES_RETAINED = 64;
+
+  private Optional<String> container;
+  private Optional<OffsetDateTime> since;
+  private Optional<OffsetDateTime> until;
+  private OptionalLong tail;
+  private boolean follow;
+  private boolean timestamps;
+  private int maximumLineLength;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman logs"
+   */
+
+  public PNLogs(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.container =
+      Optional.empty();
+    this.since =
+      Optional.empty();
+    this.until =
+      Optional.empty();
+    this.tail =
+      OptionalLong.empty();
+    this.maximumLineLength =
+      65536;
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.container.isEmpty()) {
+      throw new IllegalArgumentException("No container was specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("logs");
+
+    if (this.follow) {
+      arguments.add("--follow");
+    }
+    if (this.timestamps) {
+      arguments.add("--timestamps");
+    }
+    if (this.since.isPresent()) {
+      arguments.add("--since");
+      arguments.add(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(this.since.get()));
+    }
+    if (this.until.isPresent()) {
+      arguments.add("--until");
+      arguments.add(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(this.until.get()));
+    }
+    if (this.tail.isPresent()) {
+      arguments.add("--tail");
+      arguments.add(Long.toString(this.tail.getAsLong()));
+    }
+
+    arguments.add(this.container.get());
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<PodmanLogLine> executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var lines = new ArrayList<PodmanLogLine>();
+    this.stream(lines::add);
+
+    /*
+     * The two streams are read concurrently, and so lines from different
+     * streams may arrive out of order. Where timestamps are available, the
+     * (stable) sort restores the order in which the lines were logged.
+     */
+
+    if (this.timestamps) {
+      lines.sort(Comparator.comparing(
+        line -> line.timestamp().orElse(OffsetDateTime.MIN),
+        OffsetDateTime.timeLineOrder()
+      ));
+    }
+    return List.copyOf(lines);
+  }
+
+  @Override
+  public void stream(
+    final Consumer<PodmanLogLine> receiver)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(receiver, "receiver");
+
+    /*
+     * Standard output and standard error are read on separate threads;
+     * the receiver is called by one thread at a time.
+     */
+
+    final var lock = new ReentrantLock();
+    final Consumer<PodmanLogLine> serialized = line -> {
+      lock.lock();
+      try {
+        receiver.accept(line);
+      } finally {
+        lock.unlock();
+      }
+    };
+
+    PNStreams.executeWithOutput(
+      this.build(),
+      ERROR_LINES_RETAINED,
+      this.maximumLineLength,
+      line -> serialized.accept(this.parseLine(line, PodmanLogStream.ERROR)),
+      input -> {
+        final var reader =
+          new PNLineReader(input, this.maximumLineLength);
+        while (true) {
+          final var line = reader.readLine();
+          if (line.isEmpty()) {
+            return null;
+          }
+          serialized.accept(
+            this.parseLine(line.get(), PodmanLogStream.OUTPUT));
+        }
+      }
+    );
+  }
+
+  private PodmanLogLine parseLine(
+    final String line,
+    final PodmanLogStream stream)
+  {
+    if (!this.timestamps) {
+      return new PodmanLogLine(Optional.empty(), line, stream);
+    }
+
+    final var space = line.indexOf(' ');
+    if (space < 0) {
+      return new PodmanLogLine(PNTimestamps.parse(line), "", stream);
+    }
+
+    final var time = PNTimestamps.parse(line.substring(0, space));
+    if (time.isEmpty()) {
+      return new PodmanLogLine(Optional.empty(), line, stream);
+    }
+    return new PodmanLogLine(time, line.substring(space + 1), stream);
+  }
+
+  @Override
+  public PodmanProcessLogsBuilderType setContainer(
+    final String inContainer)
+  {
+    this.container =
+      Optional.of(Objects.requireNonNull(inContainer, "container"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessLogsBuilderType setSince(
+    final OffsetDateTime time)
+  {
+    this.since =
+      Optional.of(Objects.requireNonNull(time, "time"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessLogsBuilderType setUntil(
+    final OffsetDateTime time)
+  {
+    this.until =
+      Optional.of(Objects.requireNonNull(time, "time"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessLogsBuilderType setTail(
+    final long lines)
+  {
+    if (lines < 0L) {
+      throw new IllegalArgumentException("Tail line count must be non-negative.");
+    }
+    this.tail = OptionalLong.of(lines);
+    return this;
+  }
+
+  @Override
+  public PodmanProcessLogsBuilderType setFollow(
+    final boolean f)
+  {
+    this.follow = f;
+    return this;
+  }
+
+  @Override
+  public PodmanProcessLogsBuilderType setTimestamps(
+    final boolean t)
+  {
+    this.timestamps = t;
+    return this;
+  }
+
+  @Override
+  public PodmanProcessLogsBuilderType setMaximumLineLength(
+    final int length)
+  {
+    if (length <= 0) {
+      throw new IllegalArgumentException(
+        "Maximum line length must be positive.");
+    }
+    this.maximumLineLength = length;
+    return this;
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanNetworkModeType;
+import com.io7m.tavella.api.PodmanPodNamespace;
+import com.io7m.tavella.api.PodmanProcessPodCreateBuilderType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * @see "podman pod create"
+ */
+
+public final class PNPodCreate
+  extends PNAbstract
+  implements PodmanProcessPodCreateBuilderType
+{
+  private final TreeMap<String, String> labels;
+  private Optional<String> name;
+  private Optional<Set<PodmanPodNamespace>> share;
+  private Optional<Boolean> infra;
+  private Optional<PodmanImage> infraImage;
+  private Optional<PodmanNetworkModeType> network;
+  private OptionalDouble cpus;
+  private OptionalLong memory;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman pod create"
+   */
+
+  public PNPodCreate(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.labels =
+      new TreeMap<>();
+    this.name =
+      Optional.empty();
+    this.share =
+      Optional.empty();
+    this.infra =
+      Optional.empty();
+    this.infraImage =
+      Optional.empty();
+    this.network =
+      Optional.empty();
+    this.cpus =
+      OptionalDouble.empty();
+    this.memory =
+      OptionalLong.empty();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    final var arguments = new ArrayList<String>();
+    arguments.add("pod");
+    arguments.add("create");
+
+    if (this.name.isPresent()) {
+      arguments.add("--name");
+      arguments.add(this.name.get());
+    }
+
+    for (final var entry : this.labels.entrySet()) {
+      arguments.add("--label");
+      arguments.add("%s=%s".formatted(entry.getKey(), entry.getValue()));
+    }
+
+    if (this.share.isPresent()) {
+      arguments.add("--share=%s".formatted(
+        this.share.get()
+          .stream()
+          .map(PodmanPodNamespace::tag)
+          .collect(Collectors.joining(","))
+      ));
+    }
+
+    if (this.infra.isPresent()) {
+      arguments.add("--infra=%s".formatted(this.infra.get()));
+    }
+    if (this.infraImage.isPresent()) {
+      arguments.add("--infra-image");
+      arguments.add(this.infraImage.get().fullImageName());
+    }
+
+    this.network.ifPresent(n -> arguments.addAll(PNRun.networkArguments(n)));
+
+    if (this.cpus.isPresent()) {
+      arguments.add("--cpus");
+      arguments.add(BigDecimal.valueOf(this.cpus.getAsDouble()).toPlainString());
+    }
+    if (this.memory.isPresent()) {
+      arguments.add("--memory");
+      arguments.add(Long.toString(this.memory.getAsLong()));
+    }
+
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public String executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var lines =
+      this.executeAndCollect()
+        .requireSuccess()
+        .outputLines();
+
+    if (lines.isEmpty()) {
+      throw new IOException("podman pod create did not report a pod ID.");
+    }
+    return lines.get(lines.size() - 1);
+  }
+
+  @Override
+  public PodmanProcessPodCreateBuilderType setName(
+    final String inName)
+  {
+    this.name = Optional.of(
+      Objects.requireNonNull(inName, "name")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessPodCreateBuilderType addLabel(
+    final String labelName,
+    final String value)
+  {
+    this.labels.put(
+      Objects.requireNonNull(labelName, "name"),
+      Objects.requireNonNull(value, "value")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessPodCreateBuilderType setShare(
+    final Set<PodmanPodNamespace> namespaces)
+  {
+    final var copy = EnumSet.noneOf(PodmanPodNamespace.class);
+    copy.addAll(namespaces);
+    this.share = Optional.of(copy);
+    return this;
+  }
+
+  @Override
+  public PodmanProcessPodCreateBuilderType setInfra(
+    final boolean i)
+  {
+    this.infra = Optional.of(Boolean.valueOf(i));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessPodCreateBuilderType setInfraImage(
+    final PodmanImage image)
+  {
+    this.infraImage = Optional.of(
+      Objects.requireNonNull(image, "image")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessPodCreateBuilderType setNetwork(
+    final PodmanNetworkModeType inNetwork)
+  {
+    this.network = Optional.of(
+      Objects.requireNonNull(inNetwork, "network")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessPodCreateBuilderType setCPUs(
+    final double inCpus)
+  {
+    if (!(inCpus > 0.0)) {
+      throw new IllegalArgumentException("CPU count must be positive.");
+    }
+    this.cpus = OptionalDouble.of(inCpus);
+    return this;
+  }
+
+  @Override
+  public PodmanProcessPodCreateBuilderType setMemoryLimit(
+    final long bytes)
+  {
+    if (bytes <= 0L) {
+      throw new IllegalArgumentException("Memory limit must be positive.");
+    }
+    this.memory = OptionalLong.of(bytes);
+    return this;
+  }
+}
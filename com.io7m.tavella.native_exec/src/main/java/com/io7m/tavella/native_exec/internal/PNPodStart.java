@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessPodStartBuilderType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @see "podman pod start"
+ */
+
+public final class PNPodStart
+  extends PNAbstract
+  implements PodmanProcessPodStartBuilderType
+{
+  private final ArrayList<String> pods;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman pod start"
+   */
+
+  public PNPodStart(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.pods =
+      new ArrayList<>();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.pods.isEmpty()) {
+      throw new IllegalArgumentException("No pods were specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("pod");
+    arguments.add("start");
+    arguments.addAll(this.pods);
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<String> executeQuery()
+    throws IOException, InterruptedException
+  {
+    return this.executeAndCollect()
+      .requireSuccess()
+      .outputLines();
+  }
+
+  @Override
+  public PodmanProcessPodStartBuilderType addPod(
+    final String pod)
+  {
+    this.pods.add(
+      Objects.requireNonNull(pod, "pod")
+    );
+    return this;
+  }
+}
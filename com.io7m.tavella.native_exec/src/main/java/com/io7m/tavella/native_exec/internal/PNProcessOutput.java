@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanCommandFailedException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The collected output of a completed process.
+ *
+ * @param command    The command that was executed
+ * @param exitCode   The exit code
+ * @param output     The bytes written to the standard output stream
+ * @param errorLines The lines written to the standard error stream
+ */
+
+public record PNProcessOutput(
+  List<String> command,
+  int exitCode,
+  byte[] output,
+  List<String> errorLines)
+{
+  /**
+   * The collected output of a completed process.
+   *
+   * @param command    The command that was executed
+   * @param exitCode   The exit code
+   * @param output     The bytes written to the standard output stream
+   * @param errorLines The lines written to the standard error stream
+   */
+
+  public PNProcessOutput
+  {
+    command = List.copyOf(command);
+    Objects.requireNonNull(output, "output");
+    errorLines = List.copyOf(errorLines);
+  }
+
+  /**
+   * @return The standard output decoded as UTF-8 text
+   */
+
+  public String outputText()
+  {
+    return StandardCharsets.UTF_8.decode(ByteBuffer.wrap(this.output))
+      .toString();
+  }
+
+  /**
+   * @return The non-blank lines of the standard output, trimmed
+   */
+
+  public List<String> outputLines()
+  {
+    return this.outputText()
+      .lines()
+      .map(String::trim)
+      .filter(s -> !s.isEmpty())
+      .toList();
+  }
+
+  /**
+   * @return An exception describing the failure of the command
+   */
+
+  public PodmanCommandFailedException toException()
+  {
+    return new PodmanCommandFailedException(
+      this.command,
+      this.exitCode,
+      this.errorLines
+    );
+  }
+
+  /**
+   * @return This output, if the command succeeded
+   *
+   * @throws PodmanCommandFailedException If the command failed
+   */
+
+  public PNProcessOutput requireSuccess()
+    throws PodmanCommandFailedException
+  {
+    if (this.exitCode != 0) {
+      throw this.toException();
+    }
+    return this;
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanContainerFilterType;
+import com.io7m.tavella.api.PodmanContainerSize;
+import com.io7m.tavella.api.PodmanContainerSummary;
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessPsBuilderType;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * @see "podman ps"
+ */
+
+public final class PNPs
+  extends PNAbstract
+  implements PodmanProcessPsBuilderType
+{
+  private final ArrayList<PodmanContainerFilterType> filters;
+  private boolean all;
+  private boolean size;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman ps"
+   */
+
+  public PNPs(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.filters =
+      new ArrayList<>();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    final var arguments = new ArrayList<String>();
+    arguments.add("ps");
+    arguments.add("--format");
+    arguments.add("json");
+
+    if (this.all) {
+      arguments.add("--all");
+    }
+    if (this.size) {
+      arguments.add("--size");
+    }
+
+    for (final var filter : this.filters) {
+      arguments.add("--filter");
+      arguments.add(filterSpec(filter));
+    }
+
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<PodmanContainerSummary> executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var result =
+      this.executeAndCollect()
+        .requireSuccess();
+
+    final var values =
+      PNJSON.parseArray(result.output());
+    final var summaries =
+      new ArrayList<PodmanContainerSummary>(values.size());
+
+    for (final var value : values) {
+      summaries.add(summaryOf(value));
+    }
+    return List.copyOf(summaries);
+  }
+
+  static String filterSpec(
+    final PodmanContainerFilterType filter)
+  {
+    return switch (filter) {
+      case final PodmanContainerFilterType.Label label -> {
+        yield label.value()
+          .map(v -> "label=%s=%s".formatted(label.name(), v))
+          .orElseGet(() -> "label=%s".formatted(label.name()));
+      }
+      case final PodmanContainerFilterType.Status status ->
+        "status=%s".formatted(status.status().tag());
+      case final PodmanContainerFilterType.Name name ->
+        "name=%s".formatted(name.pattern());
+      case final PodmanContainerFilterType.Ancestor ancestor ->
+        "ancestor=%s".formatted(ancestor.image());
+      case final PodmanContainerFilterType.Since since ->
+        "since=%s".formatted(since.container());
+    };
+  }
+
+  private static PodmanContainerSummary summaryOf(
+    final Object value)
+  {
+    final var names = new ArrayList<String>();
+    for (final var name : PNJSON.listOf(value, "Names")) {
+      if (name instanceof final String s) {
+        names.add(s);
+      }
+    }
+
+    return new PodmanContainerSummary(
+      PNJSON.stringOf(value, "Id"),
+      names,
+      PNJSON.stringOf(value, "Image"),
+      PNJSON.stringOf(value, "ImageID"),
+      PNJSON.stringOf(value, "State"),
+      Instant.ofEpochSecond(PNJSON.longOf(value, "Created")),
+      Optional.of(PNJSON.stringOf(value, "Pod")).filter(s -> !s.isEmpty()),
+      PNJSON.stringMapOf(value, "Labels"),
+      sizeOf(PNJSON.objectOf(value, "Size"))
+    );
+  }
+
+  private static Optional<PodmanContainerSize> sizeOf(
+    final Map<?, ?> size)
+  {
+    if (size.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(
+      new PodmanContainerSize(
+        PNJSON.longOf(size, "rootFsSize"),
+        PNJSON.longOf(size, "rwSize")
+      )
+    );
+  }
+
+  @Override
+  public PodmanProcessPsBuilderType setAll(
+    final boolean a)
+  {
+    this.all = a;
+    return this;
+  }
+
+  @Override
+  public PodmanProcessPsBuilderType addFilter(
+    final PodmanContainerFilterType filter)
+  {
+    this.filters.add(
+      Objects.requireNonNull(filter, "filter")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessPsBuilderType setIncludeSize(
+    final boolean s)
+  {
+    this.size = s;
+    return this;
+  }
+}
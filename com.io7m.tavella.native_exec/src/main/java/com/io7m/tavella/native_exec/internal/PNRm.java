@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanContainerFilterType;
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessRmBuilderType;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * @see "podman rm"
+ */
+
+public final class PNRm
+  extends PNAbstract
+  implements PodmanProcessRmBuilderType
+{
+  private final ArrayList<String> containers;
+  private final ArrayList<PodmanContainerFilterType> filters;
+  private boolean force;
+  private boolean ignore;
+  private Optional<Duration> time;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman rm"
+   */
+
+  public PNRm(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.containers =
+      new ArrayList<>();
+    this.filters =
+      new ArrayList<>();
+    this.time =
+      Optional.empty();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.containers.isEmpty() && this.filters.isEmpty()) {
+      throw new IllegalArgumentException(
+        "No containers or filters were specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("rm");
+
+    if (this.force) {
+      arguments.add("--force");
+    }
+    if (this.ignore) {
+      arguments.add("--ignore");
+    }
+    if (this.time.isPresent()) {
+      arguments.add("--time");
+      arguments.add(Long.toString(this.time.get().toSeconds()));
+    }
+
+    for (final var filter : this.filters) {
+      arguments.add("--filter");
+      arguments.add(PNPs.filterSpec(filter));
+    }
+
+    arguments.addAll(this.containers);
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<String> executeQuery()
+    throws IOException, InterruptedException
+  {
+    return this.executeAndCollect()
+      .requireSuccess()
+      .outputLines();
+  }
+
+  @Override
+  public PodmanProcessRmBuilderType addContainer(
+    final String container)
+  {
+    this.containers.add(
+      Objects.requireNonNull(container, "container")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessRmBuilderType addFilter(
+    final PodmanContainerFilterType filter)
+  {
+    this.filters.add(
+      Objects.requireNonNull(filter, "filter")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessRmBuilderType setForce(
+    final boolean f)
+  {
+    this.force = f;
+    return this;
+  }
+
+  @Override
+  public PodmanProcessRmBuilderType setIgnoreMissing(
+    final boolean i)
+  {
+    this.ignore = i;
+    return this;
+  }
+
+  @Override
+  public PodmanProcessRmBuilderType setStopTimeout(
+    final Duration t)
+  {
+    this.time = Optional.of(t);
+    return this;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessRmiBuilderType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @see "podman rmi"
+ */
+
+public final class PNRmi
+  extends PNAbstract
+  implements PodmanProcessRmiBuilderType
+{
+  private static final String DELETED_PREFIX =
+    "Deleted: ";
+
+  private final ArrayList<String> images;
+  private boolean force;
+  private boolean ignore;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman rmi"
+   */
+
+  public PNRmi(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.images =
+      new ArrayList<>();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.images.isEmpty()) {
+      throw new IllegalArgumentException("No images were specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("rmi");
+
+    if (this.force) {
+      arguments.add("--force");
+    }
+    if (this.ignore) {
+      arguments.add("--ignore");
+    }
+
+    arguments.addAll(this.images);
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<String> executeQuery()
+    throws IOException, InterruptedException
+  {
+    return this.executeAndCollect()
+      .requireSuccess()
+      .outputLines()
+      .stream()
+      .filter(s -> s.startsWith(DELETED_PREFIX))
+      .map(s -> s.substring(DELETED_PREFIX.length()).trim())
+      .toList();
+  }
+
+  @Override
+  public PodmanProcessRmiBuilderType addImage(
+    final String image)
+  {
+    this.images.add(
+      Objects.requireNonNull(image, "image")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessRmiBuilderType setForce(
+    final boolean f)
+  {
+    this.force = f;
+    return this;
+  }
+
+  @Override
+  public PodmanProcessRmiBuilderType setIgnoreMissing(
+    final boolean i)
+  {
+    this.ignore = i;
+    return this;
+  }
+}
@@ -17,20 +17,38 @@
 
 package com.io7m.tavella.native_exec.internal;
 
+import com.io7m.tavella.api.PodmanContainerFilterType;
+import com.io7m.tavella.api.PodmanContainerStarted;
+import com.io7m.tavella.api.PodmanContainerStatus;
 import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanIPCModeType;
 import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanLabels;
+import com.io7m.tavella.api.PodmanLogDriverType;
+import com.io7m.tavella.api.PodmanNetworkModeType;
 import com.io7m.tavella.api.PodmanProcessRunBuilderType;
+import com.io7m.tavella.api.PodmanPullPolicy;
+import com.io7m.tavella.api.PodmanTimedRunType;
 import com.io7m.tavella.api.PodmanTmpFSFlag;
 import com.io7m.tavella.api.PodmanTmpFSMount;
 import com.io7m.tavella.api.PodmanVolumeFlag;
 import com.io7m.tavella.api.PodmanVolumeMount;
 import com.io7m.tavella.api.PodmanVolumeMountSourceType;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
@@ -41,7 +59,17 @@ public final class PNRun
   extends PNAbstract
   implements PodmanProcessRunBuilderType
 {
+  /*
+   * Concurrent calls to startOrReuse() with the same specification are
+   * serialized so that they do not all observe that no container exists
+   * and then all start one. The locks are striped by hash to bound memory.
+   */
+
+  private static final ReentrantLock[] REUSE_LOCKS =
+    createReuseLocks(64);
+
   private final TreeMap<String, String> environment;
+  private final TreeMap<String, String> labels;
   private final ArrayList<String> containerArguments;
   private final ArrayList<PodmanVolumeMount> volumes;
   private final ArrayList<PodmanTmpFSMount> tmpfs;
@@ -52,6 +80,12 @@ public final class PNRun
   private boolean remove;
   private boolean readOnly;
   private Optional<String> podName;
+  private boolean detach;
+  private Optional<PodmanLogDriverType> logDriver;
+  private Optional<PodmanNetworkModeType> network;
+  private Optional<PodmanIPCModeType> ipc;
+  private OptionalLong shmSize;
+  private Optional<PodmanPullPolicy> pullPolicy;
 
   /**
    * @param inConfiguration The configuration
@@ -72,16 +106,65 @@ public final class PNRun
       new ArrayList<>();
     this.environment =
       new TreeMap<>();
+    this.labels =
+      new TreeMap<>();
     this.containerName =
       Optional.empty();
     this.image =
       Optional.empty();
     this.podName =
       Optional.empty();
+    this.logDriver =
+      Optional.empty();
+    this.network =
+      Optional.empty();
+    this.ipc =
+      Optional.empty();
+    this.shmSize =
+      OptionalLong.empty();
+    this.pullPolicy =
+      Optional.empty();
+  }
+
+  private static ReentrantLock[] createReuseLocks(
+    final int count)
+  {
+    final var locks = new ReentrantLock[count];
+    for (int index = 0; index < count; ++index) {
+      locks[index] = new ReentrantLock();
+    }
+    return locks;
   }
 
   @Override
   public ProcessBuilder build()
+  {
+    return this.createNewProcessBuilder(
+      this.buildArguments(this.detach, true, this.labels)
+    );
+  }
+
+  @Override
+  public Process execute()
+    throws IOException
+  {
+    final var process = this.build().start();
+    this.notifyImageUsed();
+    return process;
+  }
+
+  private void notifyImageUsed()
+  {
+    final var listener = this.configuration().imageUseListener();
+    if (listener.isPresent()) {
+      listener.get().onImageUsed(this.image.orElseThrow());
+    }
+  }
+
+  private List<String> buildArguments(
+    final boolean withDetach,
+    final boolean withPull,
+    final TreeMap<String, String> withLabels)
   {
     if (this.image.isEmpty()) {
       throw new IllegalArgumentException("No container image was specified.");
@@ -90,8 +173,20 @@ public final class PNRun
     final var arguments = new ArrayList<String>();
     arguments.add("run");
 
+    if (withDetach) {
+      this.checkDetachable();
+      arguments.add("--detach");
+    }
+    if (withPull && this.pullPolicy.isPresent()) {
+      arguments.add("--pull=%s".formatted(this.pullPolicy.get().tag()));
+    }
+
     this.addArgumentOptions(arguments);
+    this.addArgumentLogDriver(arguments);
+    this.addArgumentNetwork(arguments);
+    this.addArgumentIPC(arguments);
     this.addArgumentEnvironment(arguments);
+    addArgumentLabels(arguments, withLabels);
     this.addArgumentMounts(arguments);
     this.addArgumentTmpFS(arguments);
 
@@ -107,7 +202,196 @@ public final class PNRun
 
     arguments.add(this.image.get().fullImageName());
     arguments.addAll(this.containerArguments);
-    return this.createNewProcessBuilder(List.copyOf(arguments));
+    return List.copyOf(arguments);
+  }
+
+  private void checkDetachable()
+  {
+    if (this.logDriver.orElse(null) instanceof PodmanLogDriverType.Passthrough) {
+      throw new IllegalArgumentException(
+        "The passthrough log driver cannot be used with detached containers.");
+    }
+  }
+
+  private static void addArgumentLabels(
+    final ArrayList<String> arguments,
+    final TreeMap<String, String> withLabels)
+  {
+    for (final var entry : withLabels.entrySet()) {
+      arguments.add("--label");
+      arguments.add("%s=%s".formatted(entry.getKey(), entry.getValue()));
+    }
+  }
+
+  @Override
+  public String specHash()
+  {
+    /*
+     * The hash covers the complete command line (minus --detach and
+     * --pull, which do not affect the resulting container). Each argument
+     * is length prefixed so that no two distinct argument lists hash the
+     * same byte sequence.
+     */
+
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+
+    for (final var argument : this.buildArguments(false, false, this.labels)) {
+      final var bytes = argument.getBytes(StandardCharsets.UTF_8);
+      digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+      digest.update((byte) ':');
+      digest.update(bytes);
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  @Override
+  public PodmanContainerStarted startOrReuse()
+    throws IOException, InterruptedException
+  {
+    this.checkDetachable();
+
+    final var hash =
+      this.specHash();
+    final var lock =
+      REUSE_LOCKS[Math.floorMod(hash.hashCode(), REUSE_LOCKS.length)];
+
+    lock.lockInterruptibly();
+    try {
+      final var existing =
+        new PNPs(this.configuration())
+          .addFilter(new PodmanContainerFilterType.Label(
+            PodmanLabels.SPEC_HASH, Optional.of(hash)))
+          .addFilter(new PodmanContainerFilterType.Status(
+            PodmanContainerStatus.RUNNING))
+          .executeQuery();
+
+      if (!existing.isEmpty()) {
+        this.notifyImageUsed();
+        return new PodmanContainerStarted(existing.get(0).id(), true);
+      }
+
+      final var withLabels = new TreeMap<>(this.labels);
+      withLabels.put(PodmanLabels.SPEC_HASH, hash);
+
+      final var arguments =
+        this.buildArguments(true, true, withLabels);
+      final var result =
+        this.executeAndCollect(this.createNewProcessBuilder(arguments))
+          .requireSuccess();
+
+      this.notifyImageUsed();
+      return new PodmanContainerStarted(result.outputText().trim(), false);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public PodmanTimedRunType startTimed()
+    throws IOException
+  {
+    final var runId = UUID.randomUUID().toString();
+    final var withLabels = new TreeMap<>(this.labels);
+    withLabels.put(PodmanLabels.RUN_ID, runId);
+
+    final var processBuilder =
+      this.createNewProcessBuilder(this.buildArguments(this.detach, true, withLabels));
+
+    final var spawnRequested = Instant.now();
+    final var process = processBuilder.start();
+    final var spawned = Instant.now();
+    this.notifyImageUsed();
+
+    return new PNTimedRun(
+      this.configuration(),
+      runId,
+      process,
+      spawnRequested,
+      spawned
+    );
+  }
+
+  private void addArgumentLogDriver(
+    final ArrayList<String> arguments)
+  {
+    if (this.logDriver.isEmpty()) {
+      return;
+    }
+
+    arguments.add("--log-driver");
+    switch (this.logDriver.get()) {
+      case final PodmanLogDriverType.None none -> {
+        arguments.add("none");
+      }
+      case final PodmanLogDriverType.Passthrough passthrough -> {
+        arguments.add("passthrough");
+      }
+      case final PodmanLogDriverType.K8sFile file -> {
+        arguments.add("k8s-file");
+        if (file.path().isPresent()) {
+          arguments.add("--log-opt");
+          arguments.add("path=%s".formatted(file.path().get().toAbsolutePath()));
+        }
+        if (file.maximumSize().isPresent()) {
+          arguments.add("--log-opt");
+          arguments.add("max-size=%d".formatted(
+            Long.valueOf(file.maximumSize().getAsLong())));
+        }
+      }
+      case final PodmanLogDriverType.Journald journald -> {
+        arguments.add("journald");
+        if (journald.tag().isPresent()) {
+          arguments.add("--log-opt");
+          arguments.add("tag=%s".formatted(journald.tag().get()));
+        }
+      }
+    }
+  }
+
+  private void addArgumentNetwork(
+    final ArrayList<String> arguments)
+  {
+    this.network.ifPresent(n -> arguments.addAll(networkArguments(n)));
+  }
+
+  static List<String> networkArguments(
+    final PodmanNetworkModeType network)
+  {
+    return switch (network) {
+      case final PodmanNetworkModeType.Host host ->
+        List.of("--network", "host");
+      case final PodmanNetworkModeType.None none ->
+        List.of("--network", "none");
+      case final PodmanNetworkModeType.Pasta pasta ->
+        List.of("--network", withOptions("pasta", pasta.options()));
+      case final PodmanNetworkModeType.Slirp4netns slirp ->
+        List.of("--network", withOptions("slirp4netns", slirp.options()));
+      case final PodmanNetworkModeType.Named named -> {
+        final var arguments = new ArrayList<String>();
+        for (final var name : named.networks()) {
+          arguments.add("--network");
+          arguments.add(name);
+        }
+        yield List.copyOf(arguments);
+      }
+      case final PodmanNetworkModeType.Container container ->
+        List.of("--network", "container:%s".formatted(container.container()));
+    };
+  }
+
+  private static String withOptions(
+    final String mode,
+    final List<String> options)
+  {
+    if (options.isEmpty()) {
+      return mode;
+    }
+    return "%s:%s".formatted(mode, String.join(",", options));
   }
 
   private void addArgumentMounts(
@@ -131,20 +415,41 @@ public final class PNRun
   private static String tmpfsSpec(
     final PodmanTmpFSMount mount)
   {
-    final var spec = new StringBuilder();
-    spec.append(mount.containerPath());
+    final var options = new ArrayList<String>();
+    mount.options()
+      .stream()
+      .map(PodmanTmpFSFlag::tag)
+      .forEach(options::add);
+    mount.size()
+      .ifPresent(size -> options.add("size=%s".formatted(size)));
+    mount.mode()
+      .ifPresent(mode -> options.add("mode=%o".formatted(Integer.valueOf(mode))));
+
+    if (options.isEmpty()) {
+      return mount.containerPath();
+    }
+    return "%s:%s".formatted(mount.containerPath(), String.join(",", options));
+  }
 
-    if (!mount.options().isEmpty()) {
-      spec.append(':');
-      spec.append(
-        mount.options()
-          .stream()
-          .map(PodmanTmpFSFlag::tag)
-          .collect(Collectors.joining(","))
-      );
+  private void addArgumentIPC(
+    final ArrayList<String> arguments)
+  {
+    if (this.ipc.isPresent()) {
+      arguments.add("--ipc");
+      arguments.add(switch (this.ipc.get()) {
+        case final PodmanIPCModeType.Host host -> "host";
+        case final PodmanIPCModeType.Shareable shareable -> "shareable";
+        case final PodmanIPCModeType.Private p -> "private";
+        case final PodmanIPCModeType.None none -> "none";
+        case final PodmanIPCModeType.Container container ->
+          "container:%s".formatted(container.container());
+      });
     }
 
-    return spec.toString();
+    if (this.shmSize.isPresent()) {
+      arguments.add("--shm-size");
+      arguments.add(Long.toString(this.shmSize.getAsLong()));
+    }
   }
 
   private void addArgumentEnvironment(
@@ -295,4 +600,75 @@ public final class PNRun
     this.podName = Optional.of(pod);
     return this;
   }
+
+  @Override
+  public PodmanProcessRunBuilderType addLabel(
+    final String name,
+    final String value)
+  {
+    this.labels.put(
+      Objects.requireNonNull(name, "name"),
+      Objects.requireNonNull(value, "value")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessRunBuilderType setDetach(
+    final boolean d)
+  {
+    this.detach = d;
+    return this;
+  }
+
+  @Override
+  public PodmanProcessRunBuilderType setLogDriver(
+    final PodmanLogDriverType driver)
+  {
+    this.logDriver = Optional.of(
+      Objects.requireNonNull(driver, "driver")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessRunBuilderType setNetwork(
+    final PodmanNetworkModeType inNetwork)
+  {
+    this.network = Optional.of(
+      Objects.requireNonNull(inNetwork, "network")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessRunBuilderType setIPC(
+    final PodmanIPCModeType inIpc)
+  {
+    this.ipc = Optional.of(
+      Objects.requireNonNull(inIpc, "ipc")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessRunBuilderType setShmSize(
+    final long bytes)
+  {
+    if (bytes <= 0L) {
+      throw new IllegalArgumentException("Shared memory size must be positive.");
+    }
+    this.shmSize = OptionalLong.of(bytes);
+    return this;
+  }
+
+  @Override
+  public PodmanProcessRunBuilderType setPullPolicy(
+    final PodmanPullPolicy policy)
+  {
+    this.pullPolicy = Optional.of(
+      Objects.requireNonNull(policy, "policy")
+    );
+    return this;
+  }
 }
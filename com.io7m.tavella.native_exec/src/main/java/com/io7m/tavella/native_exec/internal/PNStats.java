@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanContainerStats;
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessStatsBuilderType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @see "podman stats"
+ */
+
+public final class PNStats
+  extends PNAbstract
+  implements PodmanProcessStatsBuilderType
+{
+  /*
+   * The "json" format produces human-readable strings such as "1.2MB / 2GB",
+   * so the raw statistics structure is formatted instead, one object per
+   * line.
+   */
+
+  private static final String FORMAT =
+    "{{json .ContainerStats}}";
+
+  private final ArrayList<String> containers;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman stats"
+   */
+
+  public PNStats(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.containers =
+      new ArrayList<>();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.containers.isEmpty()) {
+      throw new IllegalArgumentException("No containers were specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("stats");
+    arguments.add("--no-stream");
+    arguments.add("--format");
+    arguments.add(FORMAT);
+    arguments.addAll(this.containers);
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<PodmanContainerStats> executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var values =
+      PNJSON.parseLines(
+        this.executeAndCollect()
+          .requireSuccess()
+          .output()
+      );
+
+    final var results = new ArrayList<PodmanContainerStats>(values.size());
+    for (final var value : values) {
+      results.add(
+        new PodmanContainerStats(
+          PNJSON.stringOf(value, "ContainerID"),
+          PNJSON.longOf(value, "CPUNano") / 1_000L,
+          PNJSON.longOf(value, "MemUsage"),
+          PNJSON.longOf(value, "BlockInput"),
+          PNJSON.longOf(value, "BlockOutput"),
+          PNJSON.longOf(value, "PIDs")
+        )
+      );
+    }
+    return List.copyOf(results);
+  }
+
+  @Override
+  public PodmanProcessStatsBuilderType addContainer(
+    final String container)
+  {
+    this.containers.add(
+      Objects.requireNonNull(container, "container")
+    );
+    return this;
+  }
+}
@@ -0,0 +1,429 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanCommandFailedException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import static java.lang.ProcessBuilder.Redirect.DISCARD;
+import static java.lang.ProcessBuilder.Redirect.PIPE;
+
+/**
+ * Execution of {@code podman} processes: commands whose output is
+ * collected, and commands that stream data through their standard input or
+ * output, such as {@code podman cp} and {@code podman logs}. The error
+ * stream is always drained on a separate thread so that it cannot fill up
+ * and stall the process.
+ */
+
+public final class PNStreams
+{
+  /*
+   * The maximum length of a line of error output. Longer lines are
+   * truncated.
+   */
+
+  private static final int ERROR_LINE_LENGTH = 65536;
+
+  private PNStreams()
+  {
+
+  }
+
+  /**
+   * A function that writes data to a stream.
+   */
+
+  public interface ProducerType
+  {
+    /**
+     * Write data to the stream.
+     *
+     * @param output The stream
+     *
+     * @throws IOException On errors
+     */
+
+    void write(OutputStream output)
+      throws IOException;
+  }
+
+  /**
+   * A function that reads data from a stream.
+   *
+   * @param <T> The type of result
+   */
+
+  public interface ConsumerType<T>
+  {
+    /**
+     * Read data from the stream.
+     *
+     * @param input The stream
+     *
+     * @return The result
+     *
+     * @throws IOException On errors
+     */
+
+    T read(InputStream input)
+      throws IOException;
+  }
+
+  /**
+   * Execute a process, collecting the standard output as bytes and the
+   * standard error as lines.
+   *
+   * @param processBuilder The process builder
+   *
+   * @return The process output
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public static PNProcessOutput collect(
+    final ProcessBuilder processBuilder)
+    throws IOException, InterruptedException
+  {
+    final var process =
+      processBuilder
+        .redirectOutput(PIPE)
+        .redirectError(PIPE)
+        .start();
+
+    try {
+      process.getOutputStream().close();
+      final var errors =
+        drainErrors(process, Integer.MAX_VALUE, ERROR_LINE_LENGTH);
+
+      final byte[] output;
+      try (var stream = process.getInputStream()) {
+        output = stream.readAllBytes();
+      }
+
+      final var exitCode = process.waitFor();
+      try {
+        return new PNProcessOutput(
+          processBuilder.command(),
+          exitCode,
+          output,
+          errors.get()
+        );
+      } catch (final ExecutionException e) {
+        throw new IOException(e.getCause());
+      }
+    } finally {
+      process.destroy();
+    }
+  }
+
+  /**
+   * Execute a process, writing its standard input with the given producer.
+   *
+   * @param processBuilder The process builder
+   * @param producer       The producer
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public static void executeWithInput(
+    final ProcessBuilder processBuilder,
+    final ProducerType producer)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(producer, "producer");
+
+    final var process =
+      processBuilder
+        .redirectOutput(DISCARD)
+        .redirectError(PIPE)
+        .start();
+
+    try {
+      final var errors =
+        drainErrors(process, Integer.MAX_VALUE, ERROR_LINE_LENGTH);
+
+      IOException failure = null;
+      try (var output = process.getOutputStream()) {
+        producer.write(output);
+      } catch (final IOException e) {
+        failure = e;
+        process.destroy();
+      }
+
+      finish(processBuilder, process, errors, failure);
+    } finally {
+      process.destroy();
+    }
+  }
+
+  /**
+   * Execute a process, reading its standard output with the given consumer.
+   * Any output that the consumer does not read is discarded.
+   *
+   * @param processBuilder The process builder
+   * @param consumer       The consumer
+   * @param <T>            The type of result
+   *
+   * @return The result of the consumer
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public static <T> T executeWithOutput(
+    final ProcessBuilder processBuilder,
+    final ConsumerType<T> consumer)
+    throws IOException, InterruptedException
+  {
+    return executeWithOutput(
+      processBuilder,
+      Integer.MAX_VALUE,
+      ERROR_LINE_LENGTH,
+      line -> {
+      },
+      consumer
+    );
+  }
+
+  /**
+   * Execute a process, reading its standard output with the given consumer.
+   * Any output that the consumer does not read is discarded. Only the
+   * trailing lines of the error stream are retained, for processes (such
+   * as {@code podman logs}) whose error stream is unbounded. The process is
+   * destroyed if the consumer fails. Every error line is additionally
+   * passed to the given error receiver, on a separate thread, and all
+   * error lines have been received by the time this method returns.
+   *
+   * @param processBuilder    The process builder
+   * @param errorLines        The maximum number of error lines retained
+   * @param errorLineLength   The maximum length of an error line
+   * @param errorReceiver     The receiver of error lines
+   * @param consumer          The consumer
+   * @param <T>               The type of result
+   *
+   * @return The result of the consumer
+   *
+   * @throws IOException          On errors
+   * @throws InterruptedException On interruption
+   */
+
+  public static <T> T executeWithOutput(
+    final ProcessBuilder processBuilder,
+    final int errorLines,
+    final int errorLineLength,
+    final Consumer<String> errorReceiver,
+    final ConsumerType<T> consumer)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(errorReceiver, "errorReceiver");
+    Objects.requireNonNull(consumer, "consumer");
+
+    final var process =
+      processBuilder
+        .redirectOutput(PIPE)
+        .redirectError(PIPE)
+        .start();
+
+    try {
+      process.getOutputStream().close();
+      final var errors =
+        readLines(
+          process.getErrorStream(),
+          errorLines,
+          errorLineLength,
+          errorReceiver
+        );
+
+      T result = null;
+      IOException failure = null;
+      try (var input = process.getInputStream()) {
+        result = consumer.read(input);
+        input.transferTo(OutputStream.nullOutputStream());
+      } catch (final IOException e) {
+        failure = e;
+        process.destroy();
+      }
+
+      finish(processBuilder, process, errors, failure);
+      awaitErrors(errors);
+      return result;
+    } finally {
+      process.destroy();
+    }
+  }
+
+  /*
+   * A local failure (such as an unreadable source file) is reported in
+   * preference to the failure of podman that it usually causes, with the
+   * podman failure attached as a suppressed exception.
+   */
+
+  private static void finish(
+    final ProcessBuilder processBuilder,
+    final Process process,
+    final CompletableFuture<List<String>> errors,
+    final IOException failure)
+    throws IOException, InterruptedException
+  {
+    final var exitCode = process.waitFor();
+
+    PodmanCommandFailedException podmanFailure = null;
+    if (exitCode != 0) {
+      try {
+        podmanFailure = new PodmanCommandFailedException(
+          processBuilder.command(), exitCode, errors.get());
+      } catch (final ExecutionException e) {
+        podmanFailure = new PodmanCommandFailedException(
+          processBuilder.command(), exitCode, List.of());
+      }
+    }
+
+    if (failure != null) {
+      if (podmanFailure != null) {
+        failure.addSuppressed(podmanFailure);
+      }
+      throw failure;
+    }
+    if (podmanFailure != null) {
+      throw podmanFailure;
+    }
+  }
+
+  /*
+   * Wait for the error stream to be consumed, so that no error line is
+   * delivered after the caller has returned. A failure of the error
+   * receiver is propagated to the caller.
+   */
+
+  private static void awaitErrors(
+    final CompletableFuture<List<String>> errors)
+    throws IOException, InterruptedException
+  {
+    try {
+      errors.get();
+    } catch (final ExecutionException e) {
+      switch (e.getCause()) {
+        case final RuntimeException x -> throw x;
+        case final IOException x -> throw x;
+        default -> throw new IOException(e.getCause());
+      }
+    }
+  }
+
+  private static CompletableFuture<List<String>> drainErrors(
+    final Process process,
+    final int maximumLines,
+    final int maximumLineLength)
+  {
+    return readLines(process.getErrorStream(), maximumLines, maximumLineLength);
+  }
+
+  /**
+   * Read all the lines of the given stream on a separate thread, closing
+   * the stream at the end.
+   *
+   * @param stream The stream
+   *
+   * @return The lines
+   */
+
+  public static CompletableFuture<List<String>> readLines(
+    final InputStream stream)
+  {
+    return readLines(stream, Integer.MAX_VALUE, ERROR_LINE_LENGTH);
+  }
+
+  /**
+   * Read the lines of the given stream on a separate thread, retaining only
+   * the given number of trailing lines, and closing the stream at the end.
+   *
+   * @param stream            The stream
+   * @param maximumLines      The maximum number of lines retained
+   * @param maximumLineLength The maximum length of a line; longer lines are
+   *                          truncated
+   *
+   * @return The lines
+   */
+
+  public static CompletableFuture<List<String>> readLines(
+    final InputStream stream,
+    final int maximumLines,
+    final int maximumLineLength)
+  {
+    return readLines(stream, maximumLines, maximumLineLength, line -> {
+    });
+  }
+
+  /**
+   * Read the lines of the given stream on a separate thread, retaining only
+   * the given number of trailing lines, and closing the stream at the end.
+   * Each line is passed to the given receiver as it is read.
+   *
+   * @param stream            The stream
+   * @param maximumLines      The maximum number of lines retained
+   * @param maximumLineLength The maximum length of a line; longer lines are
+   *                          truncated
+   * @param receiver          The receiver of each line
+   *
+   * @return The lines
+   */
+
+  public static CompletableFuture<List<String>> readLines(
+    final InputStream stream,
+    final int maximumLines,
+    final int maximumLineLength,
+    final Consumer<String> receiver)
+  {
+    Objects.requireNonNull(stream, "stream");
+    Objects.requireNonNull(receiver, "receiver");
+
+    final var future = new CompletableFuture<List<String>>();
+    Thread.startVirtualThread(() -> {
+      final var retained = new ArrayDeque<String>();
+      try (var reader = new PNLineReader(stream, maximumLineLength)) {
+        while (true) {
+          final var line = reader.readLine();
+          if (line.isEmpty()) {
+            break;
+          }
+          if (retained.size() == maximumLines) {
+            retained.removeFirst();
+          }
+          retained.addLast(line.get());
+          receiver.accept(line.get());
+        }
+        future.complete(List.copyOf(retained));
+      } catch (final IOException | RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+}
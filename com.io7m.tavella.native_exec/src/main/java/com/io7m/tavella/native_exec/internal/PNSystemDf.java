@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanDiskUsage;
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessSystemDfBuilderType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @see "podman system df"
+ */
+
+public final class PNSystemDf
+  extends PNAbstract
+  implements PodmanProcessSystemDfBuilderType
+{
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman system df"
+   */
+
+  public PNSystemDf(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    return this.createNewProcessBuilder(
+      List.of("system", "df", "--format", "json")
+    );
+  }
+
+  @Override
+  public List<PodmanDiskUsage> executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var output =
+      this.executeAndCollect()
+        .requireSuccess()
+        .output();
+
+    /*
+     * Depending on the version, podman writes either a single array or one
+     * object per line.
+     */
+
+    final List<Object> values;
+    if (startsWithArray(output)) {
+      values = PNJSON.parseArray(output);
+    } else {
+      values = PNJSON.parseLines(output);
+    }
+
+    final var usages = new ArrayList<PodmanDiskUsage>(values.size());
+    for (final var value : values) {
+      usages.add(new PodmanDiskUsage(
+        PNJSON.stringOf(value, "Type"),
+        PNJSON.longOf(value, "Total"),
+        PNJSON.longOf(value, "Active"),
+        PNJSON.longOf(value, "RawSize"),
+        PNJSON.longOf(value, "RawReclaimable")
+      ));
+    }
+    return List.copyOf(usages);
+  }
+
+  private static boolean startsWithArray(
+    final byte[] output)
+  {
+    for (final var b : output) {
+      if (!Character.isWhitespace(b)) {
+        return b == '[';
+      }
+    }
+    return false;
+  }
+}
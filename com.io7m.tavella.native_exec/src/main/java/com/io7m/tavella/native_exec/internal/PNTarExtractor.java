@@ -0,0 +1,287 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.Objects;
+
+/**
+ * Extraction of tar archives into directories.
+ *
+ * <p>Entries are never written outside the destination directory: entries
+ * with absolute names or names that escape the destination are rejected,
+ * and files are never written through symbolic links (including links
+ * created by earlier entries of the same archive). Directories are created
+ * one component at a time, and entries whose parent directories include a
+ * symbolic link are rejected. Hard links must refer
+ * to regular files that (after resolving symbolic links in their parent
+ * directories) are inside the destination, and directory metadata is
+ * never applied through symbolic links.</p>
+ */
+
+public final class PNTarExtractor
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(PNTarExtractor.class);
+
+  private PNTarExtractor()
+  {
+
+  }
+
+  private record DirectoryEntry(
+    Path path,
+    PNTarReader.Entry entry)
+  {
+
+  }
+
+  /**
+   * Extract all remaining entries of an archive into a directory.
+   *
+   * @param reader      The archive reader
+   * @param destination The destination directory
+   *
+   * @return The number of entries extracted
+   *
+   * @throws IOException On errors
+   */
+
+  public static long extract(
+    final PNTarReader reader,
+    final Path destination)
+    throws IOException
+  {
+    Objects.requireNonNull(reader, "reader");
+    Objects.requireNonNull(destination, "destination");
+
+    Files.createDirectories(destination);
+    final var root = destination.toRealPath();
+
+    /*
+     * Directory permissions and times are applied after all entries have
+     * been extracted, so that read-only directories can still be populated
+     * and directory times are not changed by the creation of their
+     * contents.
+     */
+
+    final var directories = new ArrayList<DirectoryEntry>();
+    long count = 0L;
+
+    while (true) {
+      final var entryOpt = reader.next();
+      if (entryOpt.isEmpty()) {
+        break;
+      }
+
+      final var entry = entryOpt.get();
+      final var target = resolve(root, entry.name());
+      if (target.equals(root)) {
+        continue;
+      }
+
+      if (entry.isDirectory()) {
+        createDirectoriesWithin(root, target);
+        directories.add(new DirectoryEntry(target, entry));
+      } else if (entry.isFile()) {
+        extractFile(reader, root, target, entry);
+      } else if (entry.isSymbolicLink()) {
+        checkParent(root, target);
+        Files.deleteIfExists(target);
+        Files.createSymbolicLink(target, Path.of(entry.linkName()));
+      } else if (entry.isHardLink()) {
+        checkParent(root, target);
+        final var source = hardLinkSource(root, entry);
+        Files.deleteIfExists(target);
+        Files.createLink(target, source);
+      } else {
+        LOG.debug("Skipping entry {} of type {}", entry.name(), entry.type());
+        continue;
+      }
+      count += 1L;
+    }
+
+    for (int index = directories.size() - 1; index >= 0; index -= 1) {
+      final var directory = directories.get(index);
+      final var path = containedPath(root, directory.path);
+      if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+        applyMetadata(path, directory.entry);
+      } else {
+        LOG.debug("Directory {} was replaced by a later entry", path);
+      }
+    }
+    return count;
+  }
+
+  private static Path hardLinkSource(
+    final Path root,
+    final PNTarReader.Entry entry)
+    throws IOException
+  {
+    final var source =
+      containedPath(root, resolve(root, entry.linkName()));
+    if (!Files.isRegularFile(source, LinkOption.NOFOLLOW_LINKS)) {
+      throw new IOException(
+        "Archive entry %s links to %s, which is not a regular file in the destination."
+          .formatted(entry.name(), entry.linkName()));
+    }
+    return source;
+  }
+
+  private static void extractFile(
+    final PNTarReader reader,
+    final Path root,
+    final Path target,
+    final PNTarReader.Entry entry)
+    throws IOException
+  {
+    checkParent(root, target);
+    try (var output = Files.newOutputStream(
+      target,
+      StandardOpenOption.CREATE,
+      StandardOpenOption.TRUNCATE_EXISTING,
+      StandardOpenOption.WRITE,
+      LinkOption.NOFOLLOW_LINKS)) {
+      reader.copyEntry(output);
+    }
+    applyMetadata(target, entry);
+  }
+
+  private static void applyMetadata(
+    final Path target,
+    final PNTarReader.Entry entry)
+    throws IOException
+  {
+    final var view =
+      Files.getFileAttributeView(
+        target, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+    if (view != null) {
+      view.setPermissions(PNTarWriter.permissionsOf(entry.mode()));
+    }
+    Files.getFileAttributeView(
+        target, BasicFileAttributeView.class, LinkOption.NOFOLLOW_LINKS)
+      .setTimes(FileTime.fromMillis(entry.modificationTime() * 1000L), null, null);
+  }
+
+  private static Path resolve(
+    final Path root,
+    final String name)
+    throws IOException
+  {
+    final var relative = Path.of(name).normalize();
+    if (relative.isAbsolute() || relative.startsWith("..")) {
+      throw new IOException(
+        "Archive entry %s is outside of the destination.".formatted(name));
+    }
+    return root.resolve(relative);
+  }
+
+  /*
+   * Create the parent directories of the target, without following
+   * symbolic links.
+   */
+
+  private static Path checkParent(
+    final Path root,
+    final Path target)
+    throws IOException
+  {
+    return createDirectoriesWithin(root, target.getParent());
+  }
+
+  /*
+   * Create a directory and its missing parents, one component at a time
+   * starting from the root. Every existing component must be a directory
+   * and not a symbolic link, so that nothing is ever created through a
+   * link (as Files.createDirectories would do).
+   */
+
+  private static Path createDirectoriesWithin(
+    final Path root,
+    final Path directory)
+    throws IOException
+  {
+    if (!directory.startsWith(root)) {
+      throw new IOException(
+        "Archive entry %s is outside of the destination.".formatted(directory));
+    }
+
+    var current = root;
+    for (final var component : root.relativize(directory)) {
+      current = current.resolve(component);
+
+      final BasicFileAttributes attributes;
+      try {
+        attributes = Files.readAttributes(
+          current, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      } catch (final NoSuchFileException e) {
+        Files.createDirectory(current);
+        continue;
+      }
+
+      if (attributes.isSymbolicLink()) {
+        throw new IOException(
+          "Archive entry %s traverses the symbolic link %s."
+            .formatted(directory, current));
+      }
+      if (!attributes.isDirectory()) {
+        throw new IOException(
+          "Archive entry %s traverses the non-directory %s."
+            .formatted(directory, current));
+      }
+    }
+    return current;
+  }
+
+  /*
+   * Resolve symbolic links in the parent of the target (but not the target
+   * itself), and check that the result is inside the root.
+   */
+
+  private static Path containedPath(
+    final Path root,
+    final Path target)
+    throws IOException
+  {
+    final var parent = target.getParent();
+    if (parent == null) {
+      throw new IOException(
+        "Archive entry %s is outside of the destination.".formatted(target));
+    }
+
+    final var realParent = parent.toRealPath();
+    if (!realParent.startsWith(root)) {
+      throw new IOException(
+        "Archive entry %s is outside of the destination.".formatted(target));
+    }
+    return realParent.resolve(target.getFileName());
+  }
+}
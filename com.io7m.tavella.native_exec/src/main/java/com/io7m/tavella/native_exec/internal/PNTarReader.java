@@ -0,0 +1,364 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A minimal sequential reader for tar archives. The reader understands
+ * ustar name prefixes, PAX extended path and link path headers, and GNU
+ * long names and link names, which are sufficient for the archives
+ * produced by container tools. The data of
+ * entries that are not read is skipped, which is cheap for streams that
+ * support seeking.
+ */
+
+public final class PNTarReader implements Closeable
+{
+  private static final int BLOCK_SIZE = 512;
+
+  private final InputStream stream;
+  private final byte[] header;
+  private long remaining;
+  private long padding;
+  private boolean finished;
+
+  /**
+   * An entry in an archive.
+   *
+   * @param name             The entry name
+   * @param size             The size of the entry data
+   * @param type             The entry type flag (such as '0' for regular
+   *                         files)
+   * @param mode             The permission bits of the entry
+   * @param modificationTime The modification time in seconds since the
+   *                         epoch
+   * @param linkName         The target of a link entry, or the empty string
+   */
+
+  public record Entry(
+    String name,
+    long size,
+    char type,
+    int mode,
+    long modificationTime,
+    String linkName)
+  {
+    /**
+     * An entry in an archive.
+     */
+
+    public Entry
+    {
+      Objects.requireNonNull(name, "name");
+      Objects.requireNonNull(linkName, "linkName");
+    }
+
+    /**
+     * @return {@code true} if the entry is a directory
+     */
+
+    public boolean isDirectory()
+    {
+      return this.type == '5';
+    }
+
+    /**
+     * @return {@code true} if the entry is a symbolic link
+     */
+
+    public boolean isSymbolicLink()
+    {
+      return this.type == '2';
+    }
+
+    /**
+     * @return {@code true} if the entry is a hard link
+     */
+
+    public boolean isHardLink()
+    {
+      return this.type == '1';
+    }
+
+    /**
+     * @return {@code true} if the entry is a regular file
+     */
+
+    public boolean isFile()
+    {
+      return this.type == '0' || this.type == '\0';
+    }
+  }
+
+  /**
+   * A minimal sequential reader for tar archives.
+   *
+   * @param inStream The underlying stream
+   */
+
+  public PNTarReader(
+    final InputStream inStream)
+  {
+    this.stream =
+      Objects.requireNonNull(inStream, "stream");
+    this.header =
+      new byte[BLOCK_SIZE];
+  }
+
+  /**
+   * Advance to the next entry, skipping any unread data of the current
+   * entry.
+   *
+   * @return The next entry, or nothing at the end of the archive
+   *
+   * @throws IOException On errors
+   */
+
+  public Optional<Entry> next()
+    throws IOException
+  {
+    Optional<String> longName = Optional.empty();
+    Optional<String> longLinkName = Optional.empty();
+
+    while (!this.finished) {
+      this.skipRemaining();
+
+      if (!this.readHeader()) {
+        this.finished = true;
+        return Optional.empty();
+      }
+
+      final var size = parseNumber(this.header, 124, 12);
+      final var type = (char) this.header[156];
+      this.remaining = size;
+      this.padding = (BLOCK_SIZE - (size % BLOCK_SIZE)) % BLOCK_SIZE;
+
+      switch (type) {
+        case 'x' -> {
+          final var records = paxRecords(this.readData(size));
+          longName = Optional.ofNullable(records.get("path"));
+          longLinkName = Optional.ofNullable(records.get("linkpath"));
+        }
+        case 'L' -> {
+          longName = Optional.of(cString(this.readData(size), 0, (int) size));
+        }
+        case 'K' -> {
+          longLinkName = Optional.of(cString(this.readData(size), 0, (int) size));
+        }
+        case 'g' -> {
+          // Global PAX headers carry nothing that this reader uses.
+        }
+        default -> {
+          return Optional.of(new Entry(
+            longName.orElseGet(this::headerName),
+            size,
+            type,
+            (int) parseNumber(this.header, 100, 8),
+            parseNumber(this.header, 136, 12),
+            longLinkName.orElseGet(() -> cString(this.header, 157, 100))
+          ));
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Copy the data of the current entry to the given stream.
+   *
+   * @param output The output stream
+   *
+   * @throws IOException On errors
+   */
+
+  public void copyEntry(
+    final OutputStream output)
+    throws IOException
+  {
+    final var buffer = new byte[65536];
+    while (this.remaining > 0L) {
+      final var wanted = (int) Math.min(buffer.length, this.remaining);
+      final var r = this.stream.read(buffer, 0, wanted);
+      if (r == -1) {
+        throw new EOFException("Unexpected end of archive.");
+      }
+      output.write(buffer, 0, r);
+      this.remaining -= r;
+    }
+  }
+
+  /**
+   * Read the data of the current entry, which must not be larger than the
+   * given limit.
+   *
+   * @param limit The maximum acceptable size
+   *
+   * @return The entry data
+   *
+   * @throws IOException On errors, or if the entry is too large
+   */
+
+  public byte[] readEntry(
+    final long limit)
+    throws IOException
+  {
+    if (this.remaining > limit) {
+      throw new IOException(
+        "Archive entry of size %d exceeds the limit of %d bytes."
+          .formatted(Long.valueOf(this.remaining), Long.valueOf(limit)));
+    }
+    return this.readData(this.remaining);
+  }
+
+  private byte[] readData(
+    final long size)
+    throws IOException
+  {
+    if (size > Integer.MAX_VALUE - 8) {
+      throw new IOException("Archive entry is too large to read.");
+    }
+    final var data = this.stream.readNBytes((int) size);
+    if (data.length != size) {
+      throw new EOFException("Unexpected end of archive.");
+    }
+    this.remaining -= size;
+    return data;
+  }
+
+  private void skipRemaining()
+    throws IOException
+  {
+    this.stream.skipNBytes(this.remaining + this.padding);
+    this.remaining = 0L;
+    this.padding = 0L;
+  }
+
+  private boolean readHeader()
+    throws IOException
+  {
+    final var count = this.stream.readNBytes(this.header, 0, BLOCK_SIZE);
+    if (count == 0) {
+      return false;
+    }
+    if (count != BLOCK_SIZE) {
+      throw new EOFException("Truncated archive header.");
+    }
+    for (final var b : this.header) {
+      if (b != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String headerName()
+  {
+    final var name = cString(this.header, 0, 100);
+    final var magic = cString(this.header, 257, 5);
+    if ("ustar".equals(magic)) {
+      final var prefix = cString(this.header, 345, 155);
+      if (!prefix.isEmpty()) {
+        return prefix + "/" + name;
+      }
+    }
+    return name;
+  }
+
+  private static long parseNumber(
+    final byte[] header,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    /*
+     * Numbers that do not fit in the octal digits of a field are stored as
+     * big-endian base-256 numbers, flagged by the high bit of the first byte.
+     */
+
+    if ((header[offset] & 0x80) != 0) {
+      long value = 0L;
+      for (int index = offset + 1; index < offset + length; index += 1) {
+        value = (value << 8) | (header[index] & 0xff);
+      }
+      return value;
+    }
+
+    final var text = cString(header, offset, length).trim();
+    if (text.isEmpty()) {
+      return 0L;
+    }
+    try {
+      return Long.parseLong(text, 8);
+    } catch (final NumberFormatException e) {
+      throw new IOException("Malformed archive header number: " + text, e);
+    }
+  }
+
+  /*
+   * PAX records have the form "length key=value\n".
+   */
+
+  private static Map<String, String> paxRecords(
+    final byte[] data)
+  {
+    final var text = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(data)).toString();
+    final var records = new HashMap<String, String>();
+    for (final var record : text.split("\n")) {
+      final var space = record.indexOf(' ');
+      final var equals = record.indexOf('=');
+      if (space >= 0 && equals > space) {
+        records.put(
+          record.substring(space + 1, equals),
+          record.substring(equals + 1)
+        );
+      }
+    }
+    return records;
+  }
+
+  private static String cString(
+    final byte[] data,
+    final int offset,
+    final int length)
+  {
+    int end = offset;
+    while (end < offset + length && data[end] != 0) {
+      end += 1;
+    }
+    return StandardCharsets.UTF_8.decode(
+      ByteBuffer.wrap(data, offset, end - offset)).toString();
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    this.stream.close();
+  }
+}
@@ -0,0 +1,503 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A minimal sequential writer for tar archives, producing the ustar format
+ * with PAX extended headers for names, link targets, and sizes that do not
+ * fit in a ustar header. Entries are written directly to the underlying
+ * stream, so an archive of any size can be produced without being stored.
+ */
+
+public final class PNTarWriter implements Closeable
+{
+  private static final int BLOCK_SIZE = 512;
+  private static final long MAX_OCTAL_SIZE = 077777777777L;
+  private static final PosixFilePermission[] PERMISSIONS = {
+    PosixFilePermission.OTHERS_EXECUTE,
+    PosixFilePermission.OTHERS_WRITE,
+    PosixFilePermission.OTHERS_READ,
+    PosixFilePermission.GROUP_EXECUTE,
+    PosixFilePermission.GROUP_WRITE,
+    PosixFilePermission.GROUP_READ,
+    PosixFilePermission.OWNER_EXECUTE,
+    PosixFilePermission.OWNER_WRITE,
+    PosixFilePermission.OWNER_READ,
+  };
+
+  private final OutputStream stream;
+  private final byte[] header;
+  private final byte[] buffer;
+  private boolean closed;
+
+  /**
+   * A minimal sequential writer for tar archives.
+   *
+   * @param inStream The underlying stream
+   */
+
+  public PNTarWriter(
+    final OutputStream inStream)
+  {
+    this.stream =
+      Objects.requireNonNull(inStream, "stream");
+    this.header =
+      new byte[BLOCK_SIZE];
+    this.buffer =
+      new byte[65536];
+  }
+
+  /**
+   * @param permissions A set of permissions
+   *
+   * @return The permission bits of the set
+   */
+
+  public static int modeOf(
+    final Set<PosixFilePermission> permissions)
+  {
+    int mode = 0;
+    for (int index = 0; index < PERMISSIONS.length; index += 1) {
+      if (permissions.contains(PERMISSIONS[index])) {
+        mode |= 1 << index;
+      }
+    }
+    return mode;
+  }
+
+  /**
+   * @param mode The permission bits
+   *
+   * @return The set of permissions
+   */
+
+  public static Set<PosixFilePermission> permissionsOf(
+    final int mode)
+  {
+    final var permissions = EnumSet.noneOf(PosixFilePermission.class);
+    for (int index = 0; index < PERMISSIONS.length; index += 1) {
+      if ((mode & (1 << index)) != 0) {
+        permissions.add(PERMISSIONS[index]);
+      }
+    }
+    return permissions;
+  }
+
+  /**
+   * Write a directory entry.
+   *
+   * @param name             The entry name
+   * @param mode             The permission bits
+   * @param modificationTime The modification time in seconds since the epoch
+   *
+   * @throws IOException On errors
+   */
+
+  public void writeDirectory(
+    final String name,
+    final int mode,
+    final long modificationTime)
+    throws IOException
+  {
+    final var directoryName = name.endsWith("/") ? name : name + "/";
+    this.writeHeader(directoryName, '5', mode, 0L, modificationTime, "");
+  }
+
+  /**
+   * Write a symbolic link entry.
+   *
+   * @param name             The entry name
+   * @param target           The link target
+   * @param modificationTime The modification time in seconds since the epoch
+   *
+   * @throws IOException On errors
+   */
+
+  public void writeSymbolicLink(
+    final String name,
+    final String target,
+    final long modificationTime)
+    throws IOException
+  {
+    this.writeHeader(name, '2', 0777, 0L, modificationTime, target);
+  }
+
+  /**
+   * Write a hard link entry.
+   *
+   * @param name             The entry name
+   * @param target           The name of the linked entry in the archive
+   * @param modificationTime The modification time in seconds since the epoch
+   *
+   * @throws IOException On errors
+   */
+
+  public void writeHardLink(
+    final String name,
+    final String target,
+    final long modificationTime)
+    throws IOException
+  {
+    this.writeHeader(name, '1', 0644, 0L, modificationTime, target);
+  }
+
+  /**
+   * Write a regular file entry, copying exactly {@code size} bytes from
+   * the given stream.
+   *
+   * @param name             The entry name
+   * @param mode             The permission bits
+   * @param modificationTime The modification time in seconds since the epoch
+   * @param size             The size of the data
+   * @param data             The data
+   *
+   * @throws IOException On errors, or if the stream ends early
+   */
+
+  public void writeFile(
+    final String name,
+    final int mode,
+    final long modificationTime,
+    final long size,
+    final InputStream data)
+    throws IOException
+  {
+    this.writeHeader(name, '0', mode, size, modificationTime, "");
+
+    long remaining = size;
+    while (remaining > 0L) {
+      final var wanted = (int) Math.min(this.buffer.length, remaining);
+      final var r = data.read(this.buffer, 0, wanted);
+      if (r == -1) {
+        throw new EOFException(
+          "File %s ended %d bytes before its declared size."
+            .formatted(name, Long.valueOf(remaining)));
+      }
+      this.stream.write(this.buffer, 0, r);
+      remaining -= r;
+    }
+    this.writePadding(size);
+  }
+
+  /**
+   * Write a file or directory tree. Entry names begin with the file name
+   * of {@code source}, so that extracting the archive in a directory
+   * creates a copy of {@code source} in that directory. Symbolic links are
+   * archived as links and are not followed, and files that are neither
+   * regular files, directories, nor links are skipped.
+   *
+   * @param source The file or directory
+   *
+   * @throws IOException On errors
+   */
+
+  public void writeTree(
+    final Path source)
+    throws IOException
+  {
+    final var base = source.getFileName();
+    if (base == null) {
+      throw new IOException("Cannot archive a file system root: %s".formatted(source));
+    }
+
+    Files.walkFileTree(source, new TreeVisitor(base.toString(), source));
+  }
+
+  /**
+   * Write the contents of a directory. Entry names are relative to the
+   * directory, so that extracting the archive in a directory populates
+   * that directory with the contents of {@code directory}. The directory
+   * itself has no entry.
+   *
+   * @param directory The directory
+   *
+   * @throws IOException On errors
+   */
+
+  public void writeContents(
+    final Path directory)
+    throws IOException
+  {
+    if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+      throw new IOException("Not a directory: %s".formatted(directory));
+    }
+    Files.walkFileTree(directory, new TreeVisitor("", directory));
+  }
+
+  private final class TreeVisitor extends SimpleFileVisitor<Path>
+  {
+    private final String prefix;
+    private final Path source;
+
+    TreeVisitor(
+      final String inPrefix,
+      final Path inSource)
+    {
+      this.prefix = inPrefix;
+      this.source = inSource;
+    }
+
+    @Override
+    public FileVisitResult preVisitDirectory(
+      final Path directory,
+      final BasicFileAttributes attributes)
+      throws IOException
+    {
+      final var name = entryName(this.prefix, this.source, directory);
+      if (!name.isEmpty()) {
+        PNTarWriter.this.writeDirectory(
+          name,
+          modeOf(directory, 0755),
+          attributes.lastModifiedTime().toInstant().getEpochSecond()
+        );
+      }
+      return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFile(
+      final Path file,
+      final BasicFileAttributes attributes)
+      throws IOException
+    {
+      PNTarWriter.this.writePath(
+        entryName(this.prefix, this.source, file),
+        file,
+        attributes
+      );
+      return FileVisitResult.CONTINUE;
+    }
+  }
+
+  private void writePath(
+    final String name,
+    final Path file,
+    final BasicFileAttributes attributes)
+    throws IOException
+  {
+    final var time =
+      attributes.lastModifiedTime().toInstant().getEpochSecond();
+
+    if (attributes.isSymbolicLink()) {
+      this.writeSymbolicLink(name, Files.readSymbolicLink(file).toString(), time);
+    } else if (attributes.isRegularFile()) {
+      final var defaultMode = Files.isExecutable(file) ? 0755 : 0644;
+      try (var input = Files.newInputStream(file, LinkOption.NOFOLLOW_LINKS)) {
+        this.writeFile(
+          name, modeOf(file, defaultMode), time, attributes.size(), input);
+      }
+    }
+  }
+
+  private static String entryName(
+    final String prefix,
+    final Path source,
+    final Path file)
+  {
+    final var text = new StringBuilder(64);
+    text.append(prefix);
+    for (final var element : source.relativize(file)) {
+      if (!element.toString().isEmpty()) {
+        if (!text.isEmpty()) {
+          text.append('/');
+        }
+        text.append(element);
+      }
+    }
+    return text.toString();
+  }
+
+  private static int modeOf(
+    final Path file,
+    final int defaultMode)
+    throws IOException
+  {
+    final var view =
+      Files.getFileAttributeView(
+        file, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+    if (view == null) {
+      return defaultMode;
+    }
+    return modeOf(view.readAttributes().permissions());
+  }
+
+  private void writeHeader(
+    final String name,
+    final char type,
+    final int mode,
+    final long size,
+    final long modificationTime,
+    final String linkName)
+    throws IOException
+  {
+    final var nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    final var linkBytes = linkName.getBytes(StandardCharsets.UTF_8);
+
+    final var pax = new StringBuilder();
+    if (nameBytes.length > 100) {
+      pax.append(paxRecord("path", name));
+    }
+    if (linkBytes.length > 100) {
+      pax.append(paxRecord("linkpath", linkName));
+    }
+    if (size > MAX_OCTAL_SIZE) {
+      pax.append(paxRecord("size", Long.toString(size)));
+    }
+
+    if (!pax.isEmpty()) {
+      final var paxBytes = pax.toString().getBytes(StandardCharsets.UTF_8);
+      this.writeHeaderBlock(
+        "././@PaxHeader".getBytes(StandardCharsets.US_ASCII),
+        'x', 0644, paxBytes.length, modificationTime, new byte[0]);
+      this.stream.write(paxBytes);
+      this.writePadding(paxBytes.length);
+    }
+
+    this.writeHeaderBlock(nameBytes, type, mode, size, modificationTime, linkBytes);
+  }
+
+  private void writeHeaderBlock(
+    final byte[] name,
+    final char type,
+    final int mode,
+    final long size,
+    final long modificationTime,
+    final byte[] linkName)
+    throws IOException
+  {
+    final var h = this.header;
+    Arrays.fill(h, (byte) 0);
+
+    System.arraycopy(name, 0, h, 0, Math.min(name.length, 100));
+    writeOctal(h, 100, 8, mode);
+    writeOctal(h, 108, 8, 0L);
+    writeOctal(h, 116, 8, 0L);
+    writeSize(h, size);
+    writeOctal(h, 136, 12, Math.max(0L, modificationTime));
+    h[156] = (byte) type;
+    System.arraycopy(linkName, 0, h, 157, Math.min(linkName.length, 100));
+    System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, h, 257, 6);
+    h[263] = '0';
+    h[264] = '0';
+
+    /*
+     * The checksum is calculated with the checksum field filled with
+     * spaces, and is stored as six octal digits, a NUL, and a space.
+     */
+
+    Arrays.fill(h, 148, 156, (byte) ' ');
+    long checksum = 0L;
+    for (final var b : h) {
+      checksum += b & 0xff;
+    }
+    writeOctal(h, 148, 7, checksum);
+    h[155] = ' ';
+    this.stream.write(h);
+  }
+
+  private static void writeSize(
+    final byte[] h,
+    final long size)
+  {
+    if (size <= MAX_OCTAL_SIZE) {
+      writeOctal(h, 124, 12, size);
+      return;
+    }
+
+    h[124] = (byte) 0x80;
+    long value = size;
+    for (int index = 135; index > 124; index -= 1) {
+      h[index] = (byte) (value & 0xff);
+      value >>>= 8;
+    }
+  }
+
+  private static void writeOctal(
+    final byte[] h,
+    final int offset,
+    final int length,
+    final long value)
+  {
+    final var digits = length - 1;
+    final var text = Long.toOctalString(value);
+    final var padded = "0".repeat(Math.max(0, digits - text.length())) + text;
+    final var bytes = padded.getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(bytes, 0, h, offset, Math.min(bytes.length, digits));
+    h[offset + digits] = 0;
+  }
+
+  /*
+   * PAX records have the form "length key=value\n", where the length
+   * includes the digits of the length itself.
+   */
+
+  private static String paxRecord(
+    final String key,
+    final String value)
+  {
+    final var body = " %s=%s\n".formatted(key, value);
+    final var bodyLength = body.getBytes(StandardCharsets.UTF_8).length;
+    var length = bodyLength + Integer.toString(bodyLength).length();
+    if (Integer.toString(length).length() + bodyLength != length) {
+      length += 1;
+    }
+    return length + body;
+  }
+
+  private void writePadding(
+    final long size)
+    throws IOException
+  {
+    final var padding = (int) ((BLOCK_SIZE - (size % BLOCK_SIZE)) % BLOCK_SIZE);
+    this.stream.write(new byte[padding]);
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if (!this.closed) {
+      this.closed = true;
+      try {
+        this.stream.write(new byte[BLOCK_SIZE * 2]);
+        this.stream.flush();
+      } finally {
+        this.stream.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanEvent;
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanLabels;
+import com.io7m.tavella.api.PodmanRunTiming;
+import com.io7m.tavella.api.PodmanTimedRunType;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A timed {@code podman run} process.
+ */
+
+final class PNTimedRun implements PodmanTimedRunType
+{
+  /*
+   * Events are requested from slightly before the process was spawned, to
+   * allow for the event timestamps being truncated by older versions of
+   * podman.
+   */
+
+  private static final long EVENT_MARGIN_SECONDS = 1L;
+
+  private final PodmanExecutableConfiguration configuration;
+  private final String runId;
+  private final Process process;
+  private final Instant spawnRequested;
+  private final Instant spawned;
+
+  PNTimedRun(
+    final PodmanExecutableConfiguration inConfiguration,
+    final String inRunId,
+    final Process inProcess,
+    final Instant inSpawnRequested,
+    final Instant inSpawned)
+  {
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.runId =
+      Objects.requireNonNull(inRunId, "runId");
+    this.process =
+      Objects.requireNonNull(inProcess, "process");
+    this.spawnRequested =
+      Objects.requireNonNull(inSpawnRequested, "spawnRequested");
+    this.spawned =
+      Objects.requireNonNull(inSpawned, "spawned");
+  }
+
+  @Override
+  public String runId()
+  {
+    return this.runId;
+  }
+
+  @Override
+  public Process process()
+  {
+    return this.process;
+  }
+
+  @Override
+  public PodmanRunTiming awaitTiming()
+    throws IOException, InterruptedException
+  {
+    this.process.waitFor();
+    final var exited = Instant.now();
+
+    final var events =
+      new PNEvents(this.configuration)
+        .setSince(
+          this.spawnRequested.minusSeconds(EVENT_MARGIN_SECONDS)
+            .atOffset(ZoneOffset.UTC))
+        .addFilter("type", "container")
+        .addFilter("label", "%s=%s".formatted(PodmanLabels.RUN_ID, this.runId))
+        .executeQuery();
+
+    Optional<String> containerId = Optional.empty();
+    Optional<Instant> created = Optional.empty();
+    Optional<Instant> initialized = Optional.empty();
+    Optional<Instant> started = Optional.empty();
+    Optional<Instant> died = Optional.empty();
+
+    for (final var event : events) {
+      if (!this.isForThisRun(event)) {
+        continue;
+      }
+      if (containerId.isEmpty() && !event.id().isEmpty()) {
+        containerId = Optional.of(event.id());
+      }
+      switch (event.status()) {
+        case "create" -> created = first(created, event);
+        case "init" -> initialized = first(initialized, event);
+        case "start" -> started = first(started, event);
+        case "died" -> died = first(died, event);
+        default -> {
+          // Other events are not part of the timing.
+        }
+      }
+    }
+
+    return new PodmanRunTiming(
+      this.runId,
+      containerId,
+      this.spawnRequested,
+      this.spawned,
+      created,
+      initialized,
+      started,
+      died,
+      exited
+    );
+  }
+
+  /*
+   * The label filter is applied by podman, but events that carry the
+   * attributes are checked again in case the filter was not honoured.
+   */
+
+  private boolean isForThisRun(
+    final PodmanEvent event)
+  {
+    final var label = event.attributes().get(PodmanLabels.RUN_ID);
+    return label == null || label.equals(this.runId);
+  }
+
+  private static Optional<Instant> first(
+    final Optional<Instant> existing,
+    final PodmanEvent event)
+  {
+    if (existing.isPresent()) {
+      return existing;
+    }
+    return Optional.of(event.time());
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Functions to parse timestamps produced by {@code podman}.
+ */
+
+public final class PNTimestamps
+{
+  private PNTimestamps()
+  {
+
+  }
+
+  /**
+   * Parse an RFC 3339 timestamp. The zero time used by {@code podman} to
+   * indicate an absent timestamp is parsed as an empty value.
+   *
+   * @param text The timestamp text
+   *
+   * @return The timestamp, if the text is a valid non-zero timestamp
+   */
+
+  public static Optional<OffsetDateTime> parse(
+    final String text)
+  {
+    if (text.isEmpty() || text.startsWith("0001-01-01")) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(OffsetDateTime.parse(text));
+    } catch (final DateTimeParseException e) {
+      return Optional.empty();
+    }
+  }
+}
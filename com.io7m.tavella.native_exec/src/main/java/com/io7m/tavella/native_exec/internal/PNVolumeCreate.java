@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessVolumeCreateBuilderType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * @see "podman volume create"
+ */
+
+public final class PNVolumeCreate
+  extends PNAbstract
+  implements PodmanProcessVolumeCreateBuilderType
+{
+  private final TreeMap<String, String> options;
+  private final TreeMap<String, String> labels;
+  private Optional<String> name;
+  private Optional<String> driver;
+  private boolean ignore;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman volume create"
+   */
+
+  public PNVolumeCreate(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.options =
+      new TreeMap<>();
+    this.labels =
+      new TreeMap<>();
+    this.name =
+      Optional.empty();
+    this.driver =
+      Optional.empty();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    final var arguments = new ArrayList<String>();
+    arguments.add("volume");
+    arguments.add("create");
+
+    if (this.driver.isPresent()) {
+      arguments.add("--driver");
+      arguments.add(this.driver.get());
+    }
+    for (final var entry : this.options.entrySet()) {
+      arguments.add("--opt");
+      arguments.add("%s=%s".formatted(entry.getKey(), entry.getValue()));
+    }
+    for (final var entry : this.labels.entrySet()) {
+      arguments.add("--label");
+      arguments.add("%s=%s".formatted(entry.getKey(), entry.getValue()));
+    }
+    if (this.ignore) {
+      arguments.add("--ignore");
+    }
+
+    this.name.ifPresent(arguments::add);
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public String executeQuery()
+    throws IOException, InterruptedException
+  {
+    return this.executeAndCollect()
+      .requireSuccess()
+      .outputText()
+      .trim();
+  }
+
+  @Override
+  public PodmanProcessVolumeCreateBuilderType setName(
+    final String inName)
+  {
+    this.name =
+      Optional.of(Objects.requireNonNull(inName, "name"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessVolumeCreateBuilderType setDriver(
+    final String inDriver)
+  {
+    this.driver =
+      Optional.of(Objects.requireNonNull(inDriver, "driver"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessVolumeCreateBuilderType addOption(
+    final String optionName,
+    final String value)
+  {
+    this.options.put(
+      Objects.requireNonNull(optionName, "name"),
+      Objects.requireNonNull(value, "value")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessVolumeCreateBuilderType addLabel(
+    final String labelName,
+    final String value)
+  {
+    this.labels.put(
+      Objects.requireNonNull(labelName, "name"),
+      Objects.requireNonNull(value, "value")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessVolumeCreateBuilderType setIgnoreExisting(
+    final boolean i)
+  {
+    this.ignore = i;
+    return this;
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessVolumeExportBuilderType;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * @see "podman volume export"
+ */
+
+public final class PNVolumeExport
+  extends PNAbstract
+  implements PodmanProcessVolumeExportBuilderType
+{
+  private Optional<String> volume;
+  private Optional<Path> output;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman volume export"
+   */
+
+  public PNVolumeExport(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.volume =
+      Optional.empty();
+    this.output =
+      Optional.empty();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.volume.isEmpty()) {
+      throw new IllegalArgumentException("No volume was specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("volume");
+    arguments.add("export");
+
+    if (this.output.isPresent()) {
+      arguments.add("--output");
+      arguments.add(this.output.get().toString());
+    }
+
+    arguments.add(this.volume.get());
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public PodmanProcessVolumeExportBuilderType setVolume(
+    final String name)
+  {
+    this.volume =
+      Optional.of(Objects.requireNonNull(name, "name"));
+    return this;
+  }
+
+  @Override
+  public PodmanProcessVolumeExportBuilderType setOutput(
+    final Path archive)
+  {
+    this.output =
+      Optional.of(Objects.requireNonNull(archive, "archive"));
+    return this;
+  }
+}
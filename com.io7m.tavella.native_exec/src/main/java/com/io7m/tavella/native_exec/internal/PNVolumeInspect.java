@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessVolumeInspectBuilderType;
+import com.io7m.tavella.api.PodmanVolumeInspection;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * @see "podman volume inspect"
+ */
+
+public final class PNVolumeInspect
+  extends PNAbstract
+  implements PodmanProcessVolumeInspectBuilderType
+{
+  private final ArrayList<String> volumes;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman volume inspect"
+   */
+
+  public PNVolumeInspect(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.volumes =
+      new ArrayList<>();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.volumes.isEmpty()) {
+      throw new IllegalArgumentException("No volumes were specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("volume");
+    arguments.add("inspect");
+    arguments.add("--format");
+    arguments.add("json");
+    arguments.addAll(this.volumes);
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<PodmanVolumeInspection> executeQuery()
+    throws IOException, InterruptedException
+  {
+    final var result = this.executeAndCollect();
+
+    /*
+     * As with images, inspecting a set of volumes where some of the
+     * volumes do not exist results in a non-zero exit code, but the volumes
+     * that did exist are still written to the output.
+     */
+
+    if (result.exitCode() != 0 && !isOnlyMissingVolumes(result)) {
+      throw result.toException();
+    }
+
+    final var values =
+      PNJSON.parseArray(result.output());
+    final var inspections =
+      new ArrayList<PodmanVolumeInspection>(values.size());
+
+    for (final var value : values) {
+      inspections.add(new PodmanVolumeInspection(
+        PNJSON.stringOf(value, "Name"),
+        PNJSON.stringOf(value, "Driver"),
+        PNJSON.stringOf(value, "Mountpoint"),
+        PNJSON.stringMapOf(value, "Labels"),
+        PNJSON.stringMapOf(value, "Options")
+      ));
+    }
+    return List.copyOf(inspections);
+  }
+
+  private static boolean isOnlyMissingVolumes(
+    final PNProcessOutput result)
+  {
+    final var lines = result.errorLines();
+    if (lines.isEmpty()) {
+      return false;
+    }
+    for (final var line : lines) {
+      final var lower = line.toLowerCase(Locale.ROOT);
+      if (!lower.contains("no such volume")) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public PodmanProcessVolumeInspectBuilderType addVolume(
+    final String name)
+  {
+    this.volumes.add(
+      Objects.requireNonNull(name, "name")
+    );
+    return this;
+  }
+}
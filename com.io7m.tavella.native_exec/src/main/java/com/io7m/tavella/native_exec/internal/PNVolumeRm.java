@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanProcessVolumeRmBuilderType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @see "podman volume rm"
+ */
+
+public final class PNVolumeRm
+  extends PNAbstract
+  implements PodmanProcessVolumeRmBuilderType
+{
+  private final ArrayList<String> volumes;
+  private boolean force;
+
+  /**
+   * @param inConfiguration The configuration
+   *
+   * @see "podman volume rm"
+   */
+
+  public PNVolumeRm(
+    final PodmanExecutableConfiguration inConfiguration)
+  {
+    super(inConfiguration);
+
+    this.volumes =
+      new ArrayList<>();
+  }
+
+  @Override
+  public ProcessBuilder build()
+  {
+    if (this.volumes.isEmpty()) {
+      throw new IllegalArgumentException("No volumes were specified.");
+    }
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("volume");
+    arguments.add("rm");
+
+    if (this.force) {
+      arguments.add("--force");
+    }
+
+    arguments.addAll(this.volumes);
+    return this.createNewProcessBuilder(List.copyOf(arguments));
+  }
+
+  @Override
+  public List<String> executeQuery()
+    throws IOException, InterruptedException
+  {
+    return this.executeAndCollect()
+      .requireSuccess()
+      .outputLines();
+  }
+
+  @Override
+  public PodmanProcessVolumeRmBuilderType addVolume(
+    final String name)
+  {
+    this.volumes.add(
+      Objects.requireNonNull(name, "name")
+    );
+    return this;
+  }
+
+  @Override
+  public PodmanProcessVolumeRmBuilderType setForce(
+    final boolean f)
+  {
+    this.force = f;
+    return this;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.native_exec.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static java.lang.ProcessBuilder.Redirect.DISCARD;
+import static java.lang.ProcessBuilder.Redirect.PIPE;
+
+/**
+ * Watchdog processes that execute a command once their standard input is
+ * closed.
+ */
+
+public final class PNWatchdog
+{
+  /*
+   * The watchdog blocks reading its standard input (a pipe held open by
+   * this JVM) and then executes the command given as arguments. Interrupt
+   * and hangup signals are ignored so that a terminal interrupt delivered
+   * to the whole process group does not kill the watchdog early.
+   */
+
+  private static final String WATCHDOG_SCRIPT =
+    "trap '' INT HUP; cat > /dev/null; exec \"$@\"";
+
+  private PNWatchdog()
+  {
+
+  }
+
+  /**
+   * Start a watchdog process. The given command is executed when the
+   * standard input of the returned process is closed, which happens when
+   * this JVM exits for any reason. Destroying the returned process cancels
+   * the watchdog without executing the command.
+   *
+   * @param command The command
+   *
+   * @return The watchdog process
+   *
+   * @throws IOException On errors
+   */
+
+  public static Process start(
+    final List<String> command)
+    throws IOException
+  {
+    Objects.requireNonNull(command, "command");
+
+    final var arguments = new ArrayList<String>();
+    arguments.add("sh");
+    arguments.add("-c");
+    arguments.add(WATCHDOG_SCRIPT);
+    arguments.add("tavella-watchdog");
+    arguments.addAll(command);
+
+    return new ProcessBuilder(arguments)
+      .redirectInput(PIPE)
+      .redirectOutput(DISCARD)
+      .redirectError(DISCARD)
+      .start();
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.native_exec.internal.PNContainerInspection;
+import com.io7m.tavella.native_exec.internal.PNJSON;
+import com.io7m.tavella.native_exec.internal.PNJSONScanner;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A benchmark comparing eager and lazy decoding of {@code podman inspect}
+ * output. The eager strategy parses the complete output into a tree of
+ * maps and lists before reading the ID and state of each container; the
+ * lazy strategy locates each container object and decodes only the ID and
+ * state.
+ *
+ * <p>The benchmark is disabled by default, and is run with
+ * {@code mvn test -Dcom.io7m.tavella.benchmarks=true}. The results are
+ * published as JUnit report entries.</p>
+ */
+
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "com.io7m.tavella.benchmarks", matches = "true")
+public final class PNContainerInspectionBenchmarkTest
+{
+  private static final int CONTAINERS = 500;
+  private static final int WARMUP_ITERATIONS = 200;
+  private static final int MEASURED_ITERATIONS = 200;
+
+  @Test
+  public void testEagerVersusLazy(
+    final TestReporter reporter)
+    throws IOException
+  {
+    final var data =
+      PodmanInspectionSamples.inspectOutput(CONTAINERS);
+
+    for (int index = 0; index < WARMUP_ITERATIONS; index += 1) {
+      eager(data);
+      lazy(data);
+    }
+
+    var eagerSink = 0L;
+    final var eagerThen = System.nanoTime();
+    for (int index = 0; index < MEASURED_ITERATIONS; index += 1) {
+      eagerSink += eager(data);
+    }
+    final var eagerTime = System.nanoTime() - eagerThen;
+
+    var lazySink = 0L;
+    final var lazyThen = System.nanoTime();
+    for (int index = 0; index < MEASURED_ITERATIONS; index += 1) {
+      lazySink += lazy(data);
+    }
+    final var lazyTime = System.nanoTime() - lazyThen;
+
+    /*
+     * Both strategies must decode the same values; comparing the sinks
+     * also keeps the work from being optimized away.
+     */
+
+    assertEquals(eagerSink, lazySink);
+
+    reporter.publishEntry(
+      "input",
+      "%d containers, %d bytes".formatted(
+        Integer.valueOf(CONTAINERS), Integer.valueOf(data.length)));
+    reporter.publishEntry("eager", millisecondsPerOperation(eagerTime));
+    reporter.publishEntry("lazy", millisecondsPerOperation(lazyTime));
+  }
+
+  private static String millisecondsPerOperation(
+    final long nanoseconds)
+  {
+    return "%.3f ms/op".formatted(
+      Double.valueOf(nanoseconds / 1_000_000.0 / MEASURED_ITERATIONS));
+  }
+
+  private static long eager(
+    final byte[] data)
+    throws IOException
+  {
+    var sum = 0L;
+    for (final var object : PNJSON.parseArray(data)) {
+      final var state = PNJSON.objectOf(object, "State");
+      sum += PNJSON.stringOf(object, "Id").length();
+      sum += PNJSON.stringOf(state, "Status").length();
+      sum += PNJSON.longOf(state, "Pid");
+    }
+    return sum;
+  }
+
+  private static long lazy(
+    final byte[] data)
+    throws IOException
+  {
+    var sum = 0L;
+    for (final var span : PNJSONScanner.arrayElements(data)) {
+      final var inspection = new PNContainerInspection(data, span);
+      final var state = inspection.state();
+      sum += inspection.id().length();
+      sum += state.status().length();
+      sum += state.pid();
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.native_exec.internal.PNContainerInspection;
+import com.io7m.tavella.native_exec.internal.PNJSON;
+import com.io7m.tavella.native_exec.internal.PNJSONScanner;
+import com.io7m.tavella.native_exec.internal.PNJSONSpan;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PNContainerInspectionTest
+{
+  @Test
+  public void testLazyMatchesEager()
+    throws Exception
+  {
+    final var data =
+      PodmanInspectionSamples.inspectOutput(10);
+    final var eager =
+      PNJSON.parseArray(data);
+    final var spans =
+      PNJSONScanner.arrayElements(data);
+
+    assertEquals(eager.size(), spans.size());
+
+    for (int index = 0; index < spans.size(); ++index) {
+      final var lazy =
+        new PNContainerInspection(data, spans.get(index));
+      final var object =
+        eager.get(index);
+      final var state =
+        PNJSON.objectOf(object, "State");
+
+      assertEquals(PodmanInspectionSamples.idOf(index), lazy.id());
+      assertEquals(PNJSON.stringOf(object, "Id"), lazy.id());
+      assertEquals(PNJSON.stringOf(object, "Name"), lazy.name());
+      assertEquals(PNJSON.stringOf(object, "Image"), lazy.image());
+      assertEquals(PNJSON.stringOf(object, "ImageName"), lazy.imageName());
+      assertEquals(PNJSON.stringOf(state, "Status"), lazy.state().status());
+      assertEquals(PNJSON.longOf(state, "Pid"), lazy.state().pid());
+      assertTrue(lazy.state().running());
+      assertEquals(Optional.empty(), lazy.state().finishedAt());
+      assertEquals(
+        Optional.of(OffsetDateTime.parse("2024-03-01T10:15:31.000000001Z")),
+        lazy.state().startedAt()
+      );
+      assertEquals(Optional.empty(), lazy.pod());
+      assertEquals(
+        PNJSON.stringMapOf(PNJSON.objectOf(object, "Config"), "Labels"),
+        lazy.labels()
+      );
+      assertEquals("a \"quoted\" value", lazy.labels().get("com.example.quoted"));
+      assertEquals("café", lazy.labels().get("com.example.unicode"));
+    }
+  }
+
+  @Test
+  public void testRawJSON()
+    throws Exception
+  {
+    final var data =
+      PodmanInspectionSamples.inspectOutput(2);
+    final var spans =
+      PNJSONScanner.arrayElements(data);
+    final var lazy =
+      new PNContainerInspection(data, spans.get(1));
+
+    final var raw = lazy.rawJSON();
+    final var bytes = new byte[raw.remaining()];
+    raw.get(bytes);
+
+    assertEquals(
+      PNJSON.parse(data, spans.get(1)),
+      PNJSON.parse(bytes)
+    );
+  }
+
+  @Test
+  public void testMissingFields()
+    throws Exception
+  {
+    final var data =
+      "[{\"Id\": \"abc\"}]".getBytes(StandardCharsets.UTF_8);
+    final var lazy =
+      new PNContainerInspection(data, PNJSONScanner.arrayElements(data).get(0));
+
+    assertEquals("abc", lazy.id());
+    assertEquals("", lazy.name());
+    assertEquals("", lazy.state().status());
+    assertFalse(lazy.state().running());
+    assertEquals(Map.of(), lazy.labels());
+    assertEquals(Optional.empty(), lazy.created());
+  }
+
+  @Test
+  public void testEscapedKeys()
+    throws Exception
+  {
+    final var data =
+      "{\"I\\u0064\": \"x\", \"Id\": \"y\"}".getBytes(StandardCharsets.UTF_8);
+    final var member =
+      PNJSONScanner.member(data, new PNJSONSpan(0, data.length), "Id");
+
+    assertEquals("x", PNJSON.parse(data, member.orElseThrow()));
+  }
+
+  @Test
+  public void testEmptyOutput()
+    throws Exception
+  {
+    assertEquals(0, PNJSONScanner.arrayElements(new byte[0]).size());
+    assertEquals(0, PNJSONScanner.arrayElements("[ ]".getBytes()).size());
+  }
+
+  @Test
+  public void testMalformed()
+  {
+    assertThrows(IOException.class, () -> {
+      PNJSONScanner.arrayElements("[{\"Id\": \"abc}]".getBytes());
+    });
+    assertThrows(IOException.class, () -> {
+      PNJSONScanner.arrayElements("[{}, ".getBytes());
+    });
+    assertThrows(IOException.class, () -> {
+      PNJSONScanner.arrayElements("[{}] x".getBytes());
+    });
+  }
+
+  @Test
+  public void testMalformedLazy()
+    throws Exception
+  {
+    final var data =
+      "[{\"Id\": tru}]".getBytes(StandardCharsets.UTF_8);
+    final var lazy =
+      new PNContainerInspection(data, PNJSONScanner.arrayElements(data).get(0));
+
+    assertThrows(UncheckedIOException.class, lazy::id);
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.native_exec.PodmanNative;
+import com.io7m.tavella.native_exec.internal.PNExecutables;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public final class PNExecutablesTest
+{
+  private static Path executable(
+    final Path directory,
+    final String name)
+    throws Exception
+  {
+    assumeTrue(!System.getProperty("os.name").startsWith("Windows"));
+
+    Files.createDirectories(directory);
+    final var file = directory.resolve(name);
+    Files.writeString(file, "#!/bin/sh\n");
+    Files.setPosixFilePermissions(
+      file,
+      PosixFilePermissions.fromString("rwxr-xr-x")
+    );
+    return file;
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testResolveAndChange(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var a = directory.resolve("a");
+    final var b = directory.resolve("b");
+    final var path = a + File.pathSeparator + b;
+
+    assertEquals("tavella-x", PNExecutables.resolve("tavella-x", path));
+
+    final var inB = executable(b, "tavella-x");
+    assertEquals(inB.toString(), PNExecutables.resolve("tavella-x", path));
+
+    final var inA = executable(a, "tavella-x");
+    assertEquals(inB.toString(), PNExecutables.resolve("tavella-x", path));
+
+    Files.delete(inB);
+    Thread.sleep(1_100L);
+    assertEquals(inA.toString(), PNExecutables.resolve("tavella-x", path));
+  }
+
+  @Test
+  public void testEnvironmentAndDirectory(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var bin = directory.resolve("bin");
+    final var podman = executable(bin, "podman");
+
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanExecutableConfiguration.builder()
+          .setEnvironment(Map.of("PATH", bin.toString(), "HOME", "/home/x"))
+          .setWorkingDirectory(directory)
+          .build()
+      );
+
+    final var process = exec.ps().build();
+    assertEquals(podman.toString(), process.command().get(0));
+    assertEquals(
+      Map.of("PATH", bin.toString(), "HOME", "/home/x"),
+      process.environment()
+    );
+    assertEquals(directory.toFile(), process.directory());
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.native_exec.internal.PNTarReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public final class PNTarReaderTest
+{
+  /**
+   * Create an archive of the given directory with the system tar command.
+   *
+   * @param source  The directory
+   * @param archive The output archive
+   * @param options Extra options for tar
+   *
+   * @throws Exception On errors
+   */
+
+  static void tar(
+    final Path source,
+    final Path archive,
+    final String... options)
+    throws Exception
+  {
+    assumeTrue(!System.getProperty("os.name").startsWith("Windows"));
+
+    final var command = new ArrayList<String>();
+    command.add("tar");
+    command.addAll(List.of(options));
+    command.add("-cf");
+    command.add(archive.toString());
+    command.add("-C");
+    command.add(source.toString());
+    command.add(".");
+
+    final var process =
+      new ProcessBuilder(command)
+        .inheritIO()
+        .start();
+    assertEquals(0, process.waitFor());
+  }
+
+  private static TreeMap<String, String> readAll(
+    final Path archive)
+    throws Exception
+  {
+    final var files = new TreeMap<String, String>();
+    try (var reader = new PNTarReader(Files.newInputStream(archive))) {
+      while (true) {
+        final var entry = reader.next();
+        if (entry.isEmpty()) {
+          break;
+        }
+        if (entry.get().isFile()) {
+          files.put(
+            entry.get().name(),
+            new String(reader.readEntry(1024L), StandardCharsets.UTF_8));
+        }
+      }
+    }
+    return files;
+  }
+
+  private static void populate(
+    final Path source)
+    throws Exception
+  {
+    final var deep =
+      source.resolve("d".repeat(60)).resolve("e".repeat(60));
+    Files.createDirectories(deep);
+    Files.writeString(source.resolve("a.txt"), "A");
+    Files.writeString(source.resolve("empty.txt"), "");
+    Files.writeString(deep.resolve("f".repeat(120)), "F".repeat(700));
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testFormats(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var source = directory.resolve("source");
+    Files.createDirectories(source);
+    populate(source);
+
+    final var longName =
+      "./%s/%s/%s".formatted("d".repeat(60), "e".repeat(60), "f".repeat(120));
+
+    for (final var format : List.of("gnu", "pax", "ustar")) {
+      final var archive = directory.resolve(format + ".tar");
+      if ("ustar".equals(format)) {
+        Files.delete(source.resolve("d".repeat(60))
+                       .resolve("e".repeat(60))
+                       .resolve("f".repeat(120)));
+        Files.writeString(
+          source.resolve("d".repeat(60)).resolve("e".repeat(60)).resolve("f"),
+          "F");
+      }
+      tar(source, archive, "--format=" + format);
+
+      final var files = readAll(archive);
+      assertEquals("A", files.get("./a.txt"), format);
+      assertEquals("", files.get("./empty.txt"), format);
+      if ("ustar".equals(format)) {
+        assertEquals(
+          "F",
+          files.get("./%s/%s/f".formatted("d".repeat(60), "e".repeat(60))),
+          format);
+      } else {
+        assertEquals("F".repeat(700), files.get(longName), format);
+      }
+    }
+  }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.native_exec.internal.PNTarExtractor;
+import com.io7m.tavella.native_exec.internal.PNTarReader;
+import com.io7m.tavella.native_exec.internal.PNTarWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public final class PNTarWriterTest
+{
+  /**
+   * Populate a directory tree with long names, an executable file, and
+   * symbolic links.
+   *
+   * @param source The directory
+   *
+   * @throws Exception On errors
+   */
+
+  static void populate(
+    final Path source)
+    throws Exception
+  {
+    final var deep =
+      source.resolve("d".repeat(60)).resolve("e".repeat(60));
+    Files.createDirectories(deep);
+    Files.writeString(source.resolve("a.txt"), "A");
+    Files.writeString(source.resolve("empty.txt"), "");
+    Files.writeString(deep.resolve("f".repeat(120)), "F".repeat(70000));
+    Files.writeString(source.resolve("run.sh"), "#!/bin/sh\n");
+    Files.setPosixFilePermissions(
+      source.resolve("run.sh"),
+      PosixFilePermissions.fromString("rwxr-x---"));
+    Files.createSymbolicLink(source.resolve("link"), Path.of("a.txt"));
+    Files.createSymbolicLink(
+      source.resolve("long-link"),
+      deep.getFileName().resolve("f".repeat(120)));
+  }
+
+  /**
+   * Describe a directory tree as a map from relative paths to file
+   * contents, link targets, and permissions.
+   *
+   * @param root The directory
+   *
+   * @return The description
+   *
+   * @throws Exception On errors
+   */
+
+  static TreeMap<String, String> describe(
+    final Path root)
+    throws Exception
+  {
+    final var results = new TreeMap<String, String>();
+    try (var stream = Files.walk(root)) {
+      for (final var path : stream.toList()) {
+        final var name = root.relativize(path).toString();
+        if (Files.isSymbolicLink(path)) {
+          results.put(name, "-> " + Files.readSymbolicLink(path));
+        } else if (Files.isDirectory(path)) {
+          results.put(name, "dir");
+        } else {
+          results.put(
+            name,
+            "%s %s".formatted(
+              PosixFilePermissions.toString(
+                Files.getPosixFilePermissions(path, LinkOption.NOFOLLOW_LINKS)),
+              Files.readString(path)));
+        }
+      }
+    }
+    return results;
+  }
+
+  private static void untar(
+    final Path archive,
+    final Path destination)
+    throws Exception
+  {
+    Files.createDirectories(destination);
+    final var process =
+      new ProcessBuilder("tar", "-xf", archive.toString(), "-C", destination.toString())
+        .inheritIO()
+        .start();
+    assertEquals(0, process.waitFor());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testRoundTrip(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    assumeTrue(!System.getProperty("os.name").startsWith("Windows"));
+
+    final var source = directory.resolve("source");
+    Files.createDirectories(source);
+    populate(source);
+
+    final var archive = directory.resolve("source.tar");
+    try (var writer = new PNTarWriter(Files.newOutputStream(archive))) {
+      writer.writeTree(source);
+    }
+
+    final var expected = describe(source);
+
+    /*
+     * The archive can be extracted by the system tar command, and by the
+     * extractor.
+     */
+
+    final var system = directory.resolve("system");
+    untar(archive, system);
+    assertEquals(expected, describe(system.resolve("source")));
+
+    final var extracted = directory.resolve("extracted");
+    try (var reader = new PNTarReader(Files.newInputStream(archive))) {
+      assertEquals(expected.size(), PNTarExtractor.extract(reader, extracted));
+    }
+    assertEquals(expected, describe(extracted.resolve("source")));
+
+    /*
+     * Archives made by the system tar command can be extracted.
+     */
+
+    final var systemArchive = directory.resolve("system.tar");
+    PNTarReaderTest.tar(source, systemArchive, "--format=gnu");
+    final var extractedSystem = directory.resolve("extracted-system");
+    try (var reader = new PNTarReader(Files.newInputStream(systemArchive))) {
+      PNTarExtractor.extract(reader, extractedSystem);
+    }
+    assertEquals(expected, describe(extractedSystem));
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testExtractRejectsEscapes(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    assumeTrue(!System.getProperty("os.name").startsWith("Windows"));
+
+    final var destination = directory.resolve("destination");
+    final var outside = directory.resolve("outside");
+    Files.createDirectories(outside);
+
+    final var parentArchive = directory.resolve("parent.tar");
+    try (var writer = new PNTarWriter(Files.newOutputStream(parentArchive))) {
+      writer.writeFile("x/../../evil", 0644, 0L, 1L, new ByteArrayInputStream(new byte[1]));
+    }
+
+    final var linkArchive = directory.resolve("link.tar");
+    try (var writer = new PNTarWriter(Files.newOutputStream(linkArchive))) {
+      writer.writeSymbolicLink("escape", outside.toString(), 0L);
+      writer.writeFile("escape/evil", 0644, 0L, 1L, new ByteArrayInputStream(new byte[1]));
+    }
+
+    /*
+     * A hard link through a symbolic link to a file outside the
+     * destination, followed by a file written over the hard link.
+     */
+
+    Files.writeString(outside.resolve("victim"), "original");
+    final var hardLinkArchive = directory.resolve("hardlink.tar");
+    try (var writer = new PNTarWriter(Files.newOutputStream(hardLinkArchive))) {
+      writer.writeSymbolicLink("evil", outside.toString(), 0L);
+      writer.writeHardLink("x", "evil/victim", 0L);
+      writer.writeFile("x", 0644, 0L, 1L, new ByteArrayInputStream(new byte[1]));
+    }
+
+    /*
+     * A hard link to a symbolic link.
+     */
+
+    final var hardLinkToLinkArchive = directory.resolve("hardlink-link.tar");
+    try (var writer = new PNTarWriter(Files.newOutputStream(hardLinkToLinkArchive))) {
+      writer.writeSymbolicLink("evil", outside.resolve("victim").toString(), 0L);
+      writer.writeHardLink("x", "evil", 0L);
+    }
+
+    /*
+     * Entries below a symbolic link, whose missing parent directories must
+     * not be created through the link.
+     */
+
+    final var subpathFileArchive = directory.resolve("subpath-file.tar");
+    try (var writer = new PNTarWriter(Files.newOutputStream(subpathFileArchive))) {
+      writer.writeSymbolicLink("a", outside.toString(), 0L);
+      writer.writeFile("a/x/y", 0644, 0L, 1L, new ByteArrayInputStream(new byte[1]));
+    }
+
+    final var subpathDirectoryArchive = directory.resolve("subpath-directory.tar");
+    try (var writer = new PNTarWriter(Files.newOutputStream(subpathDirectoryArchive))) {
+      writer.writeSymbolicLink("b", outside.toString(), 0L);
+      writer.writeDirectory("b/x/z", 0755, 0L);
+    }
+
+    final var archives = new Path[]{
+      parentArchive,
+      linkArchive,
+      hardLinkArchive,
+      hardLinkToLinkArchive,
+      subpathFileArchive,
+      subpathDirectoryArchive,
+    };
+    for (final var archive : archives) {
+      try (var reader = new PNTarReader(Files.newInputStream(archive))) {
+        assertThrows(IOException.class, () -> {
+          PNTarExtractor.extract(reader, destination);
+        });
+      }
+    }
+
+    assertTrue(Files.notExists(directory.resolve("evil")));
+    assertTrue(Files.notExists(outside.resolve("evil")));
+    assertEquals("original", Files.readString(outside.resolve("victim")));
+    assertTrue(Files.notExists(outside.resolve("x")));
+  }
+
+  @Test
+  public void testExtractHardLink(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var destination = directory.resolve("destination");
+    final var archive = directory.resolve("hardlink.tar");
+    try (var writer = new PNTarWriter(Files.newOutputStream(archive))) {
+      writer.writeFile("a/f", 0644, 0L, 1L, new ByteArrayInputStream(new byte[1]));
+      writer.writeHardLink("b/g", "a/f", 0L);
+    }
+
+    try (var reader = new PNTarReader(Files.newInputStream(archive))) {
+      assertEquals(2L, PNTarExtractor.extract(reader, destination));
+    }
+
+    assertTrue(Files.isSameFile(
+      destination.resolve("a/f"),
+      destination.resolve("b/g")));
+  }
+
+  @Test
+  public void testExtractDirectoryMetadataNoFollow(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    assumeTrue(!System.getProperty("os.name").startsWith("Windows"));
+
+    final var destination = directory.resolve("destination");
+    final var outside = directory.resolve("outside");
+    Files.createDirectories(outside);
+    Files.setPosixFilePermissions(
+      outside, PosixFilePermissions.fromString("rwx------"));
+    final var time = Files.getLastModifiedTime(outside);
+
+    /*
+     * An empty directory replaced by a symbolic link must not have the
+     * directory metadata applied to the link target.
+     */
+
+    final var archive = directory.resolve("replace.tar");
+    try (var writer = new PNTarWriter(Files.newOutputStream(archive))) {
+      writer.writeDirectory("d", 0777, 1L);
+      writer.writeSymbolicLink("d", outside.toString(), 0L);
+    }
+
+    try (var reader = new PNTarReader(Files.newInputStream(archive))) {
+      PNTarExtractor.extract(reader, destination);
+    }
+
+    assertTrue(Files.isSymbolicLink(destination.resolve("d")));
+    assertEquals(
+      PosixFilePermissions.fromString("rwx------"),
+      Files.getPosixFilePermissions(outside));
+    assertEquals(time, Files.getLastModifiedTime(outside));
+  }
+
+  @Test
+  public void testShortFile(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    try (var writer = new PNTarWriter(Files.newOutputStream(directory.resolve("x.tar")))) {
+      assertThrows(IOException.class, () -> {
+        writer.writeFile("x", 0644, 0L, 2L, new ByteArrayInputStream(new byte[1]));
+      });
+    }
+  }
+}
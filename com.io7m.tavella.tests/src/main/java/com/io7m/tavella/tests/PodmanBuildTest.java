@@ -0,0 +1,232 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanLabels;
+import com.io7m.tavella.api.PodmanPullPolicy;
+import com.io7m.tavella.native_exec.PodmanNative;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanBuildTest
+{
+  /*
+   * A fake podman that records each build and tag, and lists the images
+   * whose build digest labels have been built.
+   */
+
+  private static final String FAKE_PODMAN = """
+    dir="$(dirname "$0")"
+    touch "$dir/built.txt"
+    case "$1" in
+      images)
+        digest="${5##*=}"
+        if grep -qx "$digest" "$dir/built.txt"; then
+          echo '[{"Id": "'"$digest"'"}]'
+        else
+          echo '[]'
+        fi
+        ;;
+      build)
+        echo "$@" >> "$dir/builds.txt"
+        for arg in "$@"; do
+          case "$arg" in
+            com.io7m.tavella.build_digest=*)
+              echo "${arg##*=}" >> "$dir/built.txt"
+              echo "${arg##*=}"
+              ;;
+          esac
+        done
+        ;;
+      tag)
+        echo "$@" >> "$dir/tags.txt"
+        ;;
+    esac
+    """;
+
+  private static PodmanExecutableType executable()
+  {
+    return new PodmanNative().createExecutable(
+      PodmanExecutableConfiguration.builder()
+        .setPodmanExecutable("/usr/bin/podman")
+        .build());
+  }
+
+  private static Path context(
+    final Path directory)
+    throws Exception
+  {
+    Files.createDirectories(directory.resolve("src/main"));
+    Files.writeString(directory.resolve("Containerfile"), "FROM alpine\nCOPY . /src\n");
+    Files.writeString(directory.resolve("src/main/a.txt"), "A");
+    Files.writeString(directory.resolve("src/main/b.txt"), "B");
+    Files.writeString(directory.resolve("src/run.sh"), "#!/bin/sh\n");
+    Files.createSymbolicLink(directory.resolve("link"), Path.of("src/run.sh"));
+    return directory;
+  }
+
+  @Test
+  public void testBuildArguments()
+  {
+    assertEquals(
+      List.of(
+        "/usr/bin/podman", "build", "--quiet", "--layers=false", "--no-cache",
+        "--pull=never", "--cache-from", "quay.io/x/cache",
+        "--file", "/tmp/Containerfile", "--target", "final",
+        "--build-arg", "A=1", "--build-arg", "B=2",
+        "--label", "x=y",
+        "--tag", "localhost/x:1",
+        "/tmp/context"),
+      executable().build()
+        .setContext(Path.of("/tmp/context"))
+        .setContainerfile(Path.of("/tmp/Containerfile"))
+        .setTarget("final")
+        .addBuildArgument("B", "2")
+        .addBuildArgument("A", "1")
+        .addLabel("x", "y")
+        .addTag(PodmanImage.parse("localhost/x:1"))
+        .setLayers(false)
+        .setNoCache(true)
+        .setPullPolicy(PodmanPullPolicy.NEVER)
+        .addCacheFrom("quay.io/x/cache")
+        .build()
+        .command()
+    );
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      executable().build().build();
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      executable().build().addTag(PodmanImage.parse("x@sha256:" + "a".repeat(64)));
+    });
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testBuildDigest(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var exec = executable();
+    final var c0 = context(directory.resolve("c0"));
+    final var c1 = context(directory.resolve("c1"));
+
+    final var d0 = exec.build().setContext(c0).buildDigest();
+    assertEquals(64, d0.length());
+    assertEquals(d0, exec.build().setContext(c1).buildDigest());
+
+    /*
+     * Cache options do not change the digest, but any other input does.
+     */
+
+    assertEquals(
+      d0,
+      exec.build().setContext(c0).setNoCache(true).setLayers(false).buildDigest()
+    );
+    assertNotEquals(
+      d0,
+      exec.build().setContext(c0).addBuildArgument("A", "1").buildDigest()
+    );
+    assertNotEquals(
+      d0,
+      exec.build().setContext(c0).addTag(PodmanImage.parse("x")).buildDigest()
+    );
+    assertNotEquals(
+      d0,
+      exec.build().setContext(c0).setPullPolicy(PodmanPullPolicy.ALWAYS).buildDigest()
+    );
+
+    Files.setPosixFilePermissions(
+      c1.resolve("src/run.sh"),
+      PosixFilePermissions.fromString("rwxr-xr-x"));
+    final var d1 = exec.build().setContext(c1).buildDigest();
+    assertNotEquals(d0, d1);
+
+    Files.writeString(c1.resolve("src/main/b.txt"), "C");
+    final var d2 = exec.build().setContext(c1).buildDigest();
+    assertNotEquals(d1, d2);
+
+    Files.move(c1.resolve("src/main/b.txt"), c1.resolve("src/main/c.txt"));
+    assertNotEquals(d2, exec.build().setContext(c1).buildDigest());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testBuildOrReuse(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var bin = Files.createDirectories(directory.resolve("bin"));
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(bin, FAKE_PODMAN));
+
+    final var c0 = context(directory.resolve("c0"));
+
+    final var built0 = exec.build().setContext(c0).buildOrReuse();
+    assertFalse(built0.reused());
+    assertEquals(built0.buildDigest(), built0.imageId());
+
+    final var builds = Files.readAllLines(bin.resolve("builds.txt"));
+    assertEquals(1, builds.size());
+    assertTrue(builds.get(0).contains(
+      "--label %s=%s".formatted(PodmanLabels.BUILD_DIGEST, built0.buildDigest())));
+
+    final var built1 = exec.build().setContext(c0).buildOrReuse();
+    assertTrue(built1.reused());
+    assertEquals(built0.imageId(), built1.imageId());
+    assertEquals(1, Files.readAllLines(bin.resolve("builds.txt")).size());
+    assertFalse(Files.exists(bin.resolve("tags.txt")));
+
+    /*
+     * Tags are applied again when a tagged image is reused.
+     */
+
+    final var tagged0 =
+      exec.build().setContext(c0).addTag(PodmanImage.parse("x:1")).buildOrReuse();
+    assertFalse(tagged0.reused());
+    final var tagged1 =
+      exec.build().setContext(c0).addTag(PodmanImage.parse("x:1")).buildOrReuse();
+    assertTrue(tagged1.reused());
+    assertEquals(
+      List.of("tag %s docker.io/library/x:1".formatted(tagged0.imageId())),
+      Files.readAllLines(bin.resolve("tags.txt"))
+    );
+
+    Files.writeString(c0.resolve("src/main/a.txt"), "AA");
+    final var built2 = exec.build().setContext(c0).buildOrReuse();
+    assertFalse(built2.reused());
+    assertNotEquals(built0.imageId(), built2.imageId());
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Fake {@code podman} executables implemented as shell scripts, used to
+ * test command construction and output parsing without a real
+ * {@code podman} installation.
+ */
+
+public final class PodmanFakeExecutables
+{
+  private PodmanFakeExecutables()
+  {
+
+  }
+
+  /**
+   * Create a fake executable. Tests using fake executables are skipped on
+   * platforms without a POSIX shell.
+   *
+   * @param directory The directory in which to create the executable
+   * @param script    The shell script body
+   *
+   * @return A configuration that uses the fake executable
+   *
+   * @throws IOException On errors
+   */
+
+  public static PodmanExecutableConfiguration create(
+    final Path directory,
+    final String script)
+    throws IOException
+  {
+    assumeTrue(!System.getProperty("os.name").startsWith("Windows"));
+
+    final var file = directory.resolve("podman");
+    Files.writeString(file, "#!/bin/sh\n" + script);
+    Files.setPosixFilePermissions(
+      file,
+      PosixFilePermissions.fromString("rwxr-xr-x")
+    );
+
+    return PodmanExecutableConfiguration.builder()
+      .setPodmanExecutable(file.toString())
+      .build();
+  }
+}
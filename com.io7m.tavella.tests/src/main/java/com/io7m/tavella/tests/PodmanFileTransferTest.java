@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanCommandFailedException;
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.native_exec.PodmanFileTransfer;
+import com.io7m.tavella.native_exec.PodmanNative;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanFileTransferTest
+{
+  /*
+   * A fake podman that implements "cp" with the system tar command, using
+   * the directory fs/<container> as the filesystem of each container. The
+   * fake fails if two transfers for the same container overlap.
+   */
+
+  private static final String FAKE_PODMAN = """
+    dir="$(dirname "$0")"
+    case "$1" in
+      cp)
+        src="$3"
+        dst="$4"
+        if [ "$src" = "-" ]; then
+          ctr="${dst%%:*}"
+        else
+          ctr="${src%%:*}"
+        fi
+        mkdir "$dir/lock-$ctr" || { echo "overlap" >> "$dir/overlaps.txt"; exit 1; }
+        sleep 0.1
+        if [ "$src" = "-" ]; then
+          target="$dir/fs/$ctr${dst#*:}"
+          mkdir -p "$target"
+          tar -x -C "$target" -f -
+        else
+          path="$dir/fs/$ctr${src#*:}"
+          tar -c -C "$(dirname "$path")" -f - "$(basename "$path")"
+        fi
+        status=$?
+        rmdir "$dir/lock-$ctr"
+        exit $status
+        ;;
+    esac
+    """;
+
+  @Test
+  public void testCpArguments()
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanExecutableConfiguration.builder()
+          .setPodmanExecutable("/usr/bin/podman")
+          .build());
+
+    assertEquals(
+      List.of("/usr/bin/podman", "cp", "--archive=false", "--overwrite", "-", "c0:/opt"),
+      exec.cp()
+        .setSource("-")
+        .setDestination("c0:/opt")
+        .setArchive(false)
+        .setOverwrite(true)
+        .build()
+        .command()
+    );
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      exec.cp().setSource("-").build();
+    });
+  }
+
+  @Test
+  @Timeout(value = 20L, unit = TimeUnit.SECONDS)
+  public void testCopyRoundTrip(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var bin = Files.createDirectories(directory.resolve("bin"));
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(bin, FAKE_PODMAN));
+    final var transfer =
+      PodmanFileTransfer.create(exec, 1);
+
+    final var source = Files.createDirectories(directory.resolve("tree"));
+    PNTarWriterTest.populate(source);
+    final var expected = PNTarWriterTest.describe(source);
+
+    transfer.copyToContainer("c0", "/opt", source);
+    assertEquals(expected, PNTarWriterTest.describe(bin.resolve("fs/c0/opt/tree")));
+
+    final var output = Files.createDirectories(directory.resolve("output"));
+    transfer.copyFromContainer("c0", "/opt/tree", output);
+    assertEquals(expected, PNTarWriterTest.describe(output.resolve("tree")));
+
+    /*
+     * Archives can be streamed through channels.
+     */
+
+    final var bytes = new ByteArrayOutputStream();
+    final var size =
+      transfer.copyFromContainer("c0", "/opt/tree", Channels.newChannel(bytes));
+    assertEquals(bytes.size(), size);
+
+    transfer.copyToContainer(
+      "c1",
+      "/srv",
+      Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(expected, PNTarWriterTest.describe(bin.resolve("fs/c1/srv/tree")));
+
+    final var ex =
+      assertThrows(PodmanCommandFailedException.class, () -> {
+        transfer.copyFromContainer("c0", "/nonexistent", output);
+      });
+    assertEquals(2, ex.exitCode());
+  }
+
+  @Test
+  @Timeout(value = 20L, unit = TimeUnit.SECONDS)
+  public void testCopyAllBounded(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var bin = Files.createDirectories(directory.resolve("bin"));
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(bin, FAKE_PODMAN));
+    final var transfer =
+      PodmanFileTransfer.create(exec, 1);
+
+    final var sources = new ArrayList<Path>();
+    for (int index = 0; index < 4; index += 1) {
+      final var source = directory.resolve("s" + index);
+      Files.createDirectories(source);
+      Files.writeString(source.resolve("file.txt"), Integer.toString(index));
+      sources.add(source);
+    }
+
+    transfer.copyAllToContainer("c0", "/data", sources);
+
+    for (int index = 0; index < 4; index += 1) {
+      assertEquals(
+        Integer.toString(index),
+        Files.readString(bin.resolve("fs/c0/data/s%d/file.txt".formatted(index))));
+    }
+    assertTrue(Files.notExists(bin.resolve("overlaps.txt")));
+  }
+}
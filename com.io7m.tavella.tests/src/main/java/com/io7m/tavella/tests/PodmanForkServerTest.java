@@ -0,0 +1,249 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanCommandFailedException;
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanLaunchRequest;
+import com.io7m.tavella.native_exec.PodmanForkServer;
+import com.io7m.tavella.native_exec.PodmanNative;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public final class PodmanForkServerTest
+{
+  /*
+   * The fork server requires sh and named pipes.
+   */
+
+  @BeforeEach
+  public void setup()
+  {
+    assumeTrue(!System.getProperty("os.name").startsWith("Windows"));
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testExecute(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var fake =
+      PodmanFakeExecutables.create(directory, """
+        if [ "$1" = "rm" ]; then
+          echo "Error: no such container $2" 1>&2
+          exit 1
+        fi
+        printf '%s\\n' "$@"
+        """);
+
+    try (var server = PodmanForkServer.create()) {
+      final var exec =
+        new PodmanNative().createExecutable(
+          PodmanExecutableConfiguration.builder()
+            .setPodmanExecutable(fake.podmanExecutable())
+            .setLauncher(server)
+            .build()
+        );
+
+      final var ex =
+        assertThrows(PodmanCommandFailedException.class, () -> {
+          exec.rm().addContainer("c0").executeQuery();
+        });
+      assertEquals(1, ex.exitCode());
+      assertEquals(List.of("Error: no such container c0"), ex.errorLines());
+
+      final var result =
+        server.execute(List.of(fake.podmanExecutable(), "a b", " c ", "$d", "'e\""));
+      assertEquals(0, result.exitCode());
+      assertEquals("a b\n c \n$d\n'e\"\n", result.outputText());
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testConcurrent()
+    throws Exception
+  {
+    try (var server = PodmanForkServer.create()) {
+      final var futures = new ArrayList<CompletableFuture<?>>();
+      final var results = new ArrayList<String>();
+      for (int index = 0; index < 50; ++index) {
+        final var text = Integer.toString(index);
+        futures.add(
+          server.submit(List.of("sh", "-c", "sleep 0.1; echo $0; exit 3", text))
+            .thenAccept(r -> {
+              assertEquals(3, r.exitCode());
+              synchronized (results) {
+                results.add(r.outputText().trim());
+              }
+            })
+        );
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+      assertEquals(50, results.size());
+      for (int index = 0; index < 50; ++index) {
+        assertEquals(true, results.contains(Integer.toString(index)));
+      }
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testLargeOutput()
+    throws Exception
+  {
+    try (var server = PodmanForkServer.create()) {
+      final var result =
+        server.execute(List.of(
+          "sh", "-c", "head -c 4194304 /dev/zero; echo done 1>&2"));
+      assertEquals(0, result.exitCode());
+      assertEquals(4194304, result.output().length);
+      assertEquals(List.of("done"), result.errorLines());
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testCloseWaitsAndRemovesDirectory()
+    throws Exception
+  {
+    final var before = forkDirectories();
+
+    final var server = PodmanForkServer.create();
+    final var created = forkDirectories();
+    created.removeAll(before);
+    assertEquals(1, created.size());
+
+    final var future =
+      server.submit(List.of("sh", "-c", "sleep 0.5; echo x"));
+
+    server.close();
+
+    assertTrue(future.isDone());
+    assertEquals("x\n", future.get().outputText());
+    assertFalse(Files.exists(created.iterator().next()));
+  }
+
+  private static Set<Path> forkDirectories()
+    throws Exception
+  {
+    try (var files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+      return files.filter(p -> p.getFileName().toString().startsWith("tavella-fork-"))
+        .collect(Collectors.toCollection(HashSet::new));
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testEnvironmentAndDirectory(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var fake =
+      PodmanFakeExecutables.create(directory, """
+        echo "$TAVELLA_X"
+        echo "${HOME:-none}"
+        pwd
+        """);
+
+    final var work =
+      Files.createDirectories(directory.resolve("work")).toRealPath();
+
+    try (var server = PodmanForkServer.create()) {
+      final var result =
+        server.execute(new PodmanLaunchRequest(
+          List.of(fake.podmanExecutable()),
+          Optional.of(Map.of("TAVELLA_X", "a b")),
+          Optional.of(work)
+        ));
+      assertEquals(0, result.exitCode());
+      assertEquals("a b\nnone\n%s\n".formatted(work), result.outputText());
+
+      /*
+       * The configuration of an executable is passed to the launcher.
+       */
+
+      final var exec =
+        new PodmanNative().createExecutable(
+          PodmanExecutableConfiguration.builder()
+            .setPodmanExecutable(fake.podmanExecutable())
+            .setLauncher(server)
+            .setEnvironment(Map.of("TAVELLA_X", "y"))
+            .setWorkingDirectory(work)
+            .build()
+        );
+
+      assertEquals(
+        List.of("y", "none", work.toString()),
+        exec.rm().addContainer("c0").executeQuery());
+
+      final var missing =
+        server.execute(new PodmanLaunchRequest(
+          List.of(fake.podmanExecutable()),
+          Optional.empty(),
+          Optional.of(directory.resolve("nonexistent"))
+        ));
+      assertNotEquals(0, missing.exitCode());
+      assertEquals(1, missing.errorLines().size());
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testRejectNewlines()
+    throws Exception
+  {
+    try (var server = PodmanForkServer.create()) {
+      assertThrows(IllegalArgumentException.class, () -> {
+        server.submit(List.of("echo", "a\nb"));
+      });
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testClosed()
+    throws Exception
+  {
+    final var server = PodmanForkServer.create();
+    server.close();
+    assertThrows(Exception.class, () -> server.execute(List.of("true")));
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanCgroupManager;
+import com.io7m.tavella.api.PodmanEventsBackend;
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.native_exec.PodmanNative;
+import com.io7m.tavella.native_exec.PodmanShardedExecutables;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanGlobalOptionsTest
+{
+  @Test
+  public void testGlobalArguments()
+  {
+    final var root = Path.of("/x/root");
+    final var runRoot = Path.of("/x/run");
+    final var tmp = Path.of("/x/tmp");
+
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanExecutableConfiguration.builder()
+          .setPodmanExecutable("/usr/bin/podman")
+          .setRoot(root)
+          .setRunRoot(runRoot)
+          .setStorageDriver("overlay")
+          .addStorageOption("overlay.mount_program=/usr/bin/fuse-overlayfs")
+          .addStorageOption("overlay.mountopt=nodev")
+          .setEventsBackend(PodmanEventsBackend.FILE)
+          .setCgroupManager(PodmanCgroupManager.CGROUPFS)
+          .setTmpDirectory(tmp)
+          .build()
+      );
+
+    assertEquals(
+      List.of(
+        "/usr/bin/podman",
+        "--root", root.toAbsolutePath().toString(),
+        "--runroot", runRoot.toAbsolutePath().toString(),
+        "--storage-driver", "overlay",
+        "--storage-opt", "overlay.mount_program=/usr/bin/fuse-overlayfs",
+        "--storage-opt", "overlay.mountopt=nodev",
+        "--events-backend", "file",
+        "--cgroup-manager", "cgroupfs",
+        "--tmpdir", tmp.toAbsolutePath().toString(),
+        "ps", "--format", "json"
+      ),
+      exec.ps().build().command()
+    );
+  }
+
+  @Test
+  public void testShards(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var base =
+      PodmanExecutableConfiguration.builder()
+        .setPodmanExecutable("/usr/bin/podman")
+        .setEventsBackend(PodmanEventsBackend.FILE)
+        .build();
+
+    final var shards =
+      PodmanShardedExecutables.create(new PodmanNative(), base, directory, 4);
+
+    assertEquals(4, shards.shardCount());
+    for (int index = 0; index < 4; ++index) {
+      final var configuration = shards.configuration(index);
+      final var shard = directory.resolve(Integer.toString(index));
+      assertEquals(shard.resolve("root"), configuration.root().orElseThrow());
+      assertEquals(shard.resolve("run"), configuration.runRoot().orElseThrow());
+      assertEquals(base.eventsBackend(), configuration.eventsBackend());
+      assertTrue(Files.isDirectory(shard.resolve("root")));
+
+      final var command = shards.shard(index).ps().build().command();
+      assertEquals(shard.resolve("root").toString(), command.get(2));
+    }
+
+    assertEquals(shards.shardIndexFor("job-a"), shards.shardIndexFor("job-a"));
+  }
+}
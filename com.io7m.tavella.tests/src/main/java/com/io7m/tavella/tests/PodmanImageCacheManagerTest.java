@@ -0,0 +1,199 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.native_exec.PodmanImageCacheManager;
+import com.io7m.tavella.native_exec.PodmanNative;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanImageCacheManagerTest
+{
+  /*
+   * A fake podman that lists the images in images.txt that have not been
+   * removed, and reports that each removed image freed 100 bytes regardless
+   * of its listed size (as if the images shared layers). Removing any image
+   * listed in blocked.txt fails without removing anything.
+   */
+
+  private static final String FAKE_PODMAN = """
+    dir="$(dirname "$0")"
+    touch "$dir/removed.txt"
+    case "$1" in
+      system)
+        n=$(wc -l < "$dir/removed.txt")
+        printf '[{"Type": "Images", "RawSize": %s}]\\n' $((500 - 100 * n))
+        ;;
+      images)
+        printf '['
+        sep=''
+        while read -r id name size created containers; do
+          grep -qx "$id" "$dir/removed.txt" && continue
+          printf '%s{"Id": "%s", "Names": ["%s"], "Size": %s, "Created": %s, "Containers": %s}' \\
+            "$sep" "$id" "$name" "$size" "$created" "$containers"
+          sep=','
+        done < "$dir/images.txt"
+        echo ']'
+        ;;
+      rmi)
+        echo "$@" >> "$dir/rmi.txt"
+        shift
+        for id in "$@"; do
+          if grep -qx -- "$id" "$dir/blocked.txt" 2>/dev/null; then
+            echo "Error: image $id has dependent children" 1>&2
+            exit 2
+          fi
+        done
+        for id in "$@"; do
+          case "$id" in
+            --*) ;;
+            *)
+              echo "$id" >> "$dir/removed.txt"
+              echo "Deleted: $id"
+              ;;
+          esac
+        done
+        ;;
+    esac
+    """;
+
+  private static final String IMAGES = """
+    a docker.io/library/a:latest 150 100 0
+    b docker.io/library/b:latest 150 50 0
+    c docker.io/library/c:latest 150 10 0
+    d docker.io/library/d:latest 150 20 1
+    e docker.io/library/e:latest 150 300 0
+    f <none>:<none> 150 400 0
+    """;
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testEvictLeastRecentlyUsed(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var manager =
+      PodmanImageCacheManager.create(250L, List.of(PodmanImage.parse("c")));
+
+    final var configuration =
+      PodmanFakeExecutables.create(directory, FAKE_PODMAN)
+        .toBuilder()
+        .setImageUseListener(manager)
+        .build();
+
+    Files.writeString(directory.resolve("images.txt"), IMAGES);
+
+    final var exec =
+      new PodmanNative().createExecutable(configuration);
+
+    exec.run()
+      .setImage(PodmanImage.parse("b"))
+      .build();
+
+    assertTrue(manager.lastUsed(PodmanImage.parse("b")).isEmpty());
+
+    exec.run()
+      .setImage(PodmanImage.parse("b"))
+      .execute()
+      .waitFor();
+
+    assertTrue(manager.lastUsed(PodmanImage.parse("docker.io/library/b")).isPresent());
+    assertTrue(manager.lastUsed(PodmanImage.parse("a")).isEmpty());
+
+    /*
+     * The first round removes the two oldest unused images, which should
+     * be enough according to their listed sizes. They free less than
+     * listed, so a second round removes the remaining unused image in
+     * preference to the recently used image.
+     */
+
+    assertEquals(List.of("a", "e", "f"), manager.evict(exec));
+    assertEquals(
+      List.of("rmi --ignore a e", "rmi --ignore f"),
+      Files.readAllLines(directory.resolve("rmi.txt"))
+    );
+
+    assertEquals(List.of(), manager.evict(exec));
+    assertEquals(2, Files.readAllLines(directory.resolve("rmi.txt")).size());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testEvictNothingRemovable(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var manager =
+      PodmanImageCacheManager.create(0L, List.of());
+
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, FAKE_PODMAN));
+
+    Files.writeString(
+      directory.resolve("images.txt"),
+      "d docker.io/library/d:latest 150 20 1\n"
+    );
+
+    assertEquals(List.of(), manager.evict(exec));
+    assertTrue(Files.notExists(directory.resolve("rmi.txt")));
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testEvictSkipsFailures(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var manager =
+      PodmanImageCacheManager.create(250L, List.of());
+
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, FAKE_PODMAN));
+
+    Files.writeString(directory.resolve("images.txt"), IMAGES);
+    Files.writeString(directory.resolve("blocked.txt"), "c\n");
+
+    /*
+     * The first round fails as a whole because of c, and so its images are
+     * removed individually. Later rounds skip c.
+     */
+
+    assertEquals(List.of("b", "a", "e"), manager.evict(exec));
+    assertEquals(
+      List.of(
+        "rmi --ignore c b",
+        "rmi --ignore c",
+        "rmi --ignore b",
+        "rmi --ignore a",
+        "rmi --ignore e"),
+      Files.readAllLines(directory.resolve("rmi.txt"))
+    );
+  }
+}
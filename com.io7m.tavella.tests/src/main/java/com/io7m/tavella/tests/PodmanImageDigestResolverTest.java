@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanPullPolicy;
+import com.io7m.tavella.native_exec.PodmanImageDigestResolver;
+import com.io7m.tavella.native_exec.PodmanNative;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class PodmanImageDigestResolverTest
+{
+  /*
+   * A fake "podman image inspect" that knows a single image, and records
+   * each invocation.
+   */
+
+  private static final String FAKE_INSPECT = """
+    dir="$(dirname "$0")"
+    echo "$@" >> "$dir/invocations.txt"
+    if [ "$5" = "quay.io/a/b:1" ]; then
+      cat <<'JSON'
+    [
+      {
+        "Id": "f00d",
+        "Digest": "sha256:0000",
+        "RepoTags": ["quay.io/a/b:1", "docker.io/library/b:1"],
+        "RepoDigests": [
+          "docker.io/library/b@sha256:2222",
+          "quay.io/a/b@sha256:1111"
+        ],
+        "Labels": {"x": "y"},
+        "Size": 1024
+      }
+    ]
+    JSON
+      exit 0
+    fi
+    echo "[]"
+    echo "Error: $5: image not known" 1>&2
+    exit 125
+    """;
+
+  private static final PodmanImage IMAGE =
+    new PodmanImage("quay.io", "a/b", "1", Optional.empty());
+
+  private static List<String> invocations(
+    final Path directory)
+    throws Exception
+  {
+    final var file = directory.resolve("invocations.txt");
+    if (!Files.exists(file)) {
+      return List.of();
+    }
+    return Files.readAllLines(file);
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testInspect(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, FAKE_INSPECT));
+
+    final var inspections =
+      exec.imageInspect()
+        .addImage("quay.io/a/b:1")
+        .executeQuery();
+
+    assertEquals(1, inspections.size());
+    final var inspection = inspections.get(0);
+    assertEquals("f00d", inspection.id());
+    assertEquals("sha256:0000", inspection.digest());
+    assertEquals(2, inspection.repoDigests().size());
+    assertEquals("y", inspection.labels().get("x"));
+    assertEquals(1024L, inspection.size());
+
+    assertEquals(
+      List.of(),
+      exec.imageInspect().addImage("quay.io/a/c:1").executeQuery());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testResolveCached(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, FAKE_INSPECT));
+    final var resolver =
+      PodmanImageDigestResolver.create(exec, Duration.ofHours(1L));
+
+    final var resolved = resolver.resolve(IMAGE);
+    assertEquals(Optional.of("sha256:1111"), resolved.imageHash());
+    assertEquals(resolved, resolver.resolve(IMAGE));
+    assertEquals(resolved, resolver.resolve(resolved));
+    assertEquals(1, invocations(directory).size());
+
+    resolver.invalidate(IMAGE);
+    assertEquals(resolved, resolver.resolve(IMAGE));
+    assertEquals(2, invocations(directory).size());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testResolveExpired(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, FAKE_INSPECT));
+    final var resolver =
+      PodmanImageDigestResolver.create(exec, Duration.ZERO);
+
+    resolver.resolve(IMAGE);
+    resolver.resolve(IMAGE);
+    assertEquals(2, invocations(directory).size());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testPin(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, FAKE_INSPECT));
+    final var resolver =
+      PodmanImageDigestResolver.create(exec, Duration.ofHours(1L));
+
+    final var pinned =
+      resolver.pin(exec.run(), IMAGE)
+        .build()
+        .command();
+    assertEquals("--pull=never", pinned.get(2));
+    assertEquals("quay.io/a/b:1@sha256:1111", pinned.get(pinned.size() - 1));
+
+    final var missing =
+      new PodmanImage("quay.io", "a/c", "1", Optional.empty());
+    final var unpinned =
+      resolver.pin(exec.run(), missing)
+        .build()
+        .command();
+    assertEquals("--pull=missing", unpinned.get(2));
+    assertEquals("quay.io/a/c:1", unpinned.get(unpinned.size() - 1));
+  }
+
+  @Test
+  public void testPullNotHashed()
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanExecutableConfiguration.builder().build());
+
+    assertEquals(
+      exec.run().setImage(IMAGE).specHash(),
+      exec.run()
+        .setImage(IMAGE)
+        .setPullPolicy(PodmanPullPolicy.ALWAYS)
+        .specHash()
+    );
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanImageArchiveFormat;
+import com.io7m.tavella.native_exec.PodmanImagePreloader;
+import com.io7m.tavella.native_exec.PodmanNative;
+import com.io7m.tavella.native_exec.internal.PNImageArchives;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanImagePreloaderTest
+{
+  private static final String ID_A = "a".repeat(64);
+  private static final String ID_B = "b".repeat(64);
+  private static final String ID_C = "c".repeat(64);
+  private static final String MANIFEST_B = "d".repeat(64);
+
+  /*
+   * A fake podman that knows images A and B, and records each load.
+   */
+
+  private static final String FAKE_PODMAN = """
+    dir="$(dirname "$0")"
+    case "$1" in
+      images)
+        echo '[{"Id": "%s"}, {"Id": "sha256:%s"}]'
+        ;;
+      image)
+        echo "$@" >> "$dir/loads.txt"
+        echo "Loaded image: localhost/$(basename "$5"):latest"
+        ;;
+    esac
+    """.formatted(ID_A, ID_B);
+
+  private static Path dockerArchive(
+    final Path directory,
+    final String name,
+    final String id)
+    throws Exception
+  {
+    final var source = Files.createDirectories(directory.resolve(name + "-src"));
+    Files.writeString(
+      source.resolve("manifest.json"),
+      "[{\"Config\": \"%s.json\", \"RepoTags\": [\"x:1\"], \"Layers\": [\"l/layer.tar\"]}]"
+        .formatted(id));
+    Files.writeString(source.resolve(id + ".json"), "{}");
+    Files.createDirectories(source.resolve("l"));
+    Files.write(source.resolve("l/layer.tar"), new byte[2 * 1024 * 1024]);
+
+    final var archive = directory.resolve(name + ".tar");
+    PNTarReaderTest.tar(source, archive);
+    return archive;
+  }
+
+  private static Path ociArchive(
+    final Path directory,
+    final String name,
+    final String manifest,
+    final String id)
+    throws Exception
+  {
+    final var source = Files.createDirectories(directory.resolve(name + "-src"));
+    final var blobs = Files.createDirectories(source.resolve("blobs/sha256"));
+    Files.writeString(source.resolve("oci-layout"), "{\"imageLayoutVersion\": \"1.0.0\"}");
+    Files.writeString(
+      source.resolve("index.json"),
+      "{\"manifests\": [{\"digest\": \"sha256:%s\"}]}".formatted(manifest));
+    Files.writeString(
+      blobs.resolve(manifest),
+      "{\"config\": {\"digest\": \"sha256:%s\"}}".formatted(id));
+    Files.writeString(blobs.resolve(id), "{}");
+
+    final var archive = directory.resolve(name + ".tar");
+    PNTarReaderTest.tar(source, archive);
+    return archive;
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testImageIds(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var docker = dockerArchive(directory, "a", ID_A);
+    final var oci = ociArchive(directory, "b", MANIFEST_B, ID_B);
+
+    final var compressed = directory.resolve("a.tar.gz");
+    try (OutputStream output =
+           new GZIPOutputStream(Files.newOutputStream(compressed))) {
+      Files.copy(docker, output);
+    }
+
+    assertEquals(Set.of(ID_A), PNImageArchives.imageIds(docker));
+    assertEquals(Set.of(ID_A), PNImageArchives.imageIds(compressed));
+    assertEquals(Set.of(ID_B), PNImageArchives.imageIds(oci));
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testPreloadSkipsPresent(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var bin = Files.createDirectories(directory.resolve("bin"));
+    final var archives = Files.createDirectories(directory.resolve("archives"));
+    final var work = Files.createDirectories(directory.resolve("work"));
+
+    final var a = dockerArchive(work, "a", ID_A);
+    final var b = ociArchive(work, "b", MANIFEST_B, ID_B);
+    final var c = dockerArchive(work, "c", ID_C);
+    Files.move(a, archives.resolve("a.tar"));
+    Files.move(b, archives.resolve("b.tar"));
+    Files.move(c, archives.resolve("c.tar"));
+    Files.writeString(archives.resolve("README.txt"), "Not an archive.");
+
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(bin, FAKE_PODMAN));
+
+    final var results =
+      PodmanImagePreloader.create(exec, 2)
+        .preloadDirectory(archives);
+
+    assertEquals(3, results.size());
+    assertFalse(results.get(0).loaded());
+    assertEquals(List.of(ID_A), results.get(0).images());
+    assertFalse(results.get(1).loaded());
+    assertTrue(results.get(2).loaded());
+    assertEquals(List.of("localhost/c.tar:latest"), results.get(2).images());
+
+    final var loads = Files.readAllLines(bin.resolve("loads.txt"));
+    assertEquals(1, loads.size());
+    assertTrue(loads.get(0).endsWith("c.tar"));
+  }
+
+  @Test
+  public void testSaveArguments()
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanExecutableConfiguration.builder()
+          .setPodmanExecutable("/usr/bin/podman")
+          .build());
+
+    assertEquals(
+      List.of(
+        "/usr/bin/podman", "image", "save", "--quiet",
+        "--format", "docker-archive", "--multi-image-archive",
+        "--output", "/tmp/x.tar", "a", "b"),
+      exec.imageSave()
+        .setOutput(Path.of("/tmp/x.tar"))
+        .addImage("a")
+        .addImage("b")
+        .build()
+        .command()
+    );
+
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> exec.imageSave()
+        .setOutput(Path.of("/tmp/x.tar"))
+        .setFormat(PodmanImageArchiveFormat.OCI_ARCHIVE)
+        .addImage("a")
+        .addImage("b")
+        .build());
+  }
+}
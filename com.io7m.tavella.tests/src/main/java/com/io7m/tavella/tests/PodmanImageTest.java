@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanImage;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class PodmanImageTest
+{
+  private static final String DIGEST =
+    "sha256:" + "ab".repeat(32);
+
+  @Test
+  public void testParseDefaults()
+  {
+    final var image = PodmanImage.parse("alpine");
+    assertEquals("docker.io", image.registry());
+    assertEquals("library/alpine", image.imageName());
+    assertEquals("latest", image.imageTag());
+    assertEquals(Optional.empty(), image.imageHash());
+    assertEquals("docker.io/library/alpine:latest", image.fullImageName());
+  }
+
+  @Test
+  public void testParseNormalizes()
+  {
+    final var image = PodmanImage.parse("docker.io/library/alpine:latest");
+    assertSame(image, PodmanImage.parse("alpine"));
+    assertSame(image, PodmanImage.parse("alpine:latest"));
+    assertSame(image, PodmanImage.parse("library/alpine"));
+    assertSame(image, PodmanImage.parse("index.docker.io/library/alpine"));
+    assertEquals(
+      image,
+      new PodmanImage("docker.io", "library/alpine", "latest", Optional.empty()));
+  }
+
+  @Test
+  public void testParseInternsWhenFull()
+  {
+    for (int index = 0; index < 10000; index += 1) {
+      PodmanImage.parse("example.com/filler:%d".formatted(index));
+    }
+
+    final var image = PodmanImage.parse("example.com/late:1");
+    assertSame(image, PodmanImage.parse("example.com/late:1"));
+    assertSame(image, PodmanImage.parse("example.com/late:1"));
+  }
+
+  @Test
+  public void testParseRegistryPortNested()
+  {
+    final var image =
+      PodmanImage.parse("localhost:5000/a/b/c:1.0.0-beta0013");
+    assertEquals("localhost:5000", image.registry());
+    assertEquals("a/b/c", image.imageName());
+    assertEquals("1.0.0-beta0013", image.imageTag());
+
+    final var user = PodmanImage.parse("io7mcom/idstore:1");
+    assertEquals("docker.io", user.registry());
+    assertEquals("io7mcom/idstore", user.imageName());
+
+    final var local = PodmanImage.parse("localhost/x");
+    assertEquals("localhost", local.registry());
+    assertEquals("x", local.imageName());
+  }
+
+  @Test
+  public void testParseDigest()
+  {
+    final var digestOnly = PodmanImage.parse("quay.io/a/b@" + DIGEST);
+    assertEquals("", digestOnly.imageTag());
+    assertEquals(Optional.of(DIGEST), digestOnly.imageHash());
+    assertEquals("quay.io/a/b@" + DIGEST, digestOnly.fullImageName());
+
+    final var both = PodmanImage.parse("quay.io/a/b:1@" + DIGEST);
+    assertEquals("1", both.imageTag());
+    assertEquals("quay.io/a/b:1@" + DIGEST, both.fullImageName());
+    assertNotEquals(digestOnly, both);
+  }
+
+  @Test
+  public void testFullImageNameRoundTrip()
+  {
+    final var image =
+      new PodmanImage("quay.io", "prometheus/busybox", "latest", Optional.of(DIGEST));
+    assertEquals(image, PodmanImage.parse(image.fullImageName()));
+    assertEquals(image.hashCode(), PodmanImage.parse(image.fullImageName()).hashCode());
+  }
+
+  @Test
+  public void testFullImageNameCached()
+  {
+    final var image =
+      PodmanImage.parse("quay.io/prometheus/busybox:1.36");
+    final var name = image.fullImageName();
+
+    assertEquals("quay.io/prometheus/busybox:1.36", name);
+    assertSame(name, image.fullImageName());
+    assertSame(
+      name,
+      new PodmanImage("quay.io", "prometheus/busybox", "1.36", Optional.empty())
+        .fullImageName()
+    );
+  }
+
+  @Test
+  public void testParseInvalid()
+  {
+    final var texts = List.of(
+      "",
+      "quay.io/",
+      "UPPER/case",
+      "quay.io/a/b:",
+      "quay.io/a/b:-x",
+      "quay.io/a//b",
+      "quay.io/a/b@sha256:short",
+      "-bad.io/a"
+    );
+
+    for (final var text : texts) {
+      assertThrows(
+        IllegalArgumentException.class,
+        () -> PodmanImage.parse(text),
+        text);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.native_exec.PodmanInspectCoalescer;
+import com.io7m.tavella.native_exec.PodmanNative;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanInspectCoalescerTest
+{
+  private static final String SCRIPT = """
+    echo "$@" >> "$(dirname "$0")/invocations.txt"
+    shift 5
+    missing=0
+    printf '['
+    sep=''
+    for c in "$@"; do
+      case "$c" in
+        missing*) missing=1; continue ;;
+      esac
+      n="${c%%0123*}"
+      printf '%s{"Id":"%s0123456789","Name":"%s","ImageName":"busybox"}' "$sep" "$n" "$n"
+      sep=','
+    done
+    printf ']'
+    if [ "$missing" = 1 ]; then
+      echo 'Error: no such container missing' 1>&2
+      exit 125
+    fi
+    """;
+
+  private Path invocations;
+  private PodmanExecutableConfiguration configuration;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    this.invocations =
+      directory.resolve("invocations.txt");
+    this.configuration =
+      PodmanFakeExecutables.create(directory, SCRIPT);
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testCoalesced()
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(this.configuration);
+
+    try (var coalescer =
+           PodmanInspectCoalescer.create(exec, Duration.ofMillis(250L), 100)) {
+      final var names = new ArrayList<String>();
+      for (int index = 0; index < 20; ++index) {
+        names.add("c%d".formatted(Integer.valueOf(index)));
+      }
+
+      final var results = names.stream()
+        .map(coalescer::inspect)
+        .toList();
+
+      for (int index = 0; index < names.size(); ++index) {
+        final var inspection = results.get(index).get().orElseThrow();
+        assertEquals(names.get(index), inspection.name());
+        assertEquals("busybox", inspection.imageName());
+      }
+    }
+
+    assertEquals(1, Files.readAllLines(this.invocations).size());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testMissing()
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(this.configuration);
+
+    try (var coalescer =
+           PodmanInspectCoalescer.create(exec, Duration.ofMillis(100L), 100)) {
+      final var present = coalescer.inspect("present");
+      final var presentById = coalescer.inspect("present01234");
+      final var missing = coalescer.inspect("missing");
+
+      assertEquals("present", present.get().orElseThrow().name());
+      assertEquals("present", presentById.get().orElseThrow().name());
+      assertTrue(missing.get().isEmpty());
+    }
+
+    assertEquals(1, Files.readAllLines(this.invocations).size());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testBatchSizeLimit()
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(this.configuration);
+
+    try (var coalescer =
+           PodmanInspectCoalescer.create(exec, Duration.ofSeconds(60L), 2)) {
+      final var a = coalescer.inspect("a");
+      final var b = coalescer.inspect("b");
+      final var c = coalescer.inspect("c");
+      final var d = coalescer.inspect("d");
+
+      assertEquals("a", a.get().orElseThrow().name());
+      assertEquals("b", b.get().orElseThrow().name());
+      assertEquals("c", c.get().orElseThrow().name());
+      assertEquals("d", d.get().orElseThrow().name());
+    }
+
+    assertEquals(2, Files.readAllLines(this.invocations).size());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testCallersIndependent()
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(this.configuration);
+
+    try (var coalescer =
+           PodmanInspectCoalescer.create(exec, Duration.ofMillis(100L), 100)) {
+      final var first = coalescer.inspect("a");
+      final var second = coalescer.inspect("a");
+      final var third = coalescer.inspect("a");
+
+      first.cancel(true);
+      second.complete(Optional.empty());
+
+      assertTrue(first.isCancelled());
+      assertTrue(second.get().isEmpty());
+      assertEquals("a", third.get().orElseThrow().name());
+    }
+
+    assertEquals(1, Files.readAllLines(this.invocations).size());
+  }
+}
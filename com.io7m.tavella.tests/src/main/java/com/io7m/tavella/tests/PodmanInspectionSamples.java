@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Synthetic {@code podman inspect} output shaped like the real thing.
+ */
+
+public final class PodmanInspectionSamples
+{
+  private PodmanInspectionSamples()
+  {
+
+  }
+
+  /**
+   * @param count The number of containers
+   *
+   * @return The output of inspecting {@code count} containers
+   */
+
+  public static byte[] inspectOutput(
+    final int count)
+  {
+    final var text = new StringBuilder(count * 8192);
+    text.append("[\n");
+    for (int index = 0; index < count; ++index) {
+      if (index > 0) {
+        text.append(",\n");
+      }
+      container(text, index);
+    }
+    text.append("\n]\n");
+    return text.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param index The container index
+   *
+   * @return The container ID used for the given index
+   */
+
+  public static String idOf(
+    final int index)
+  {
+    return "%064x".formatted(Integer.valueOf(index + 0x1000));
+  }
+
+  private static void container(
+    final StringBuilder text,
+    final int index)
+  {
+    final var id = idOf(index);
+    text.append("""
+      {
+        "Id": "%s",
+        "Created": "2024-03-01T10:15:30.123456789Z",
+        "Path": "/bin/sh",
+        "Args": ["-c", "while true; do echo \\"tick\\"; sleep 1; done"],
+        "State": {
+          "OciVersion": "1.1.0",
+          "Status": "running",
+          "Running": true,
+          "Paused": false,
+          "Restarting": false,
+          "OOMKilled": false,
+          "Dead": false,
+          "Pid": %d,
+          "ConmonPid": %d,
+          "ExitCode": 0,
+          "Error": "",
+          "StartedAt": "2024-03-01T10:15:31.000000001+00:00",
+          "FinishedAt": "0001-01-01T00:00:00Z",
+          "CgroupPath": "/user.slice/user-1000.slice/libpod-%s.scope",
+          "CheckpointedAt": "0001-01-01T00:00:00Z",
+          "RestoredAt": "0001-01-01T00:00:00Z"
+        },
+        "Image": "%s",
+        "ImageDigest": "sha256:%s",
+        "ImageName": "quay.io/prometheus/busybox:latest",
+        "Rootfs": "",
+        "Pod": "",
+        "ResolvConfPath": "/run/user/1000/containers/overlay-containers/%s/userdata/resolv.conf",
+        "HostnamePath": "/run/user/1000/containers/overlay-containers/%s/userdata/hostname",
+        "HostsPath": "/run/user/1000/containers/overlay-containers/%s/userdata/hosts",
+        "StaticDir": "/home/user/.local/share/containers/storage/overlay-containers/%s/userdata",
+        "OCIRuntime": "crun",
+        "ConmonPidFile": "/run/user/1000/containers/overlay-containers/%s/userdata/conmon.pid",
+        "Name": "container-%d",
+        "RestartCount": 0,
+        "Driver": "overlay",
+        "MountLabel": "system_u:object_r:container_file_t:s0:c1022,c1023",
+        "ProcessLabel": "system_u:system_r:container_t:s0:c1022,c1023",
+        "AppArmorProfile": "",
+      """.formatted(
+      id,
+      Integer.valueOf(10000 + index),
+      Integer.valueOf(9000 + index),
+      id, id, id, id, id, id, id, id,
+      Integer.valueOf(index)
+    ));
+
+    text.append("  \"Mounts\": [");
+    for (int m = 0; m < 6; ++m) {
+      if (m > 0) {
+        text.append(',');
+      }
+      text.append("""
+        {
+          "Type": "bind",
+          "Source": "/var/lib/jobs/%d/data-%d",
+          "Destination": "/data/%d",
+          "Driver": "",
+          "Mode": "",
+          "Options": ["rbind"],
+          "RW": true,
+          "Propagation": "rprivate"
+        }""".formatted(Integer.valueOf(index), Integer.valueOf(m), Integer.valueOf(m)));
+    }
+    text.append("],\n");
+
+    text.append("  \"Config\": {\n");
+    text.append("    \"Hostname\": \"%s\",\n".formatted(id.substring(0, 12)));
+    text.append("    \"Env\": [");
+    for (int e = 0; e < 24; ++e) {
+      if (e > 0) {
+        text.append(',');
+      }
+      text.append("\"VARIABLE_%d=value-%d-with-a-reasonably-long-payload\""
+                    .formatted(Integer.valueOf(e), Integer.valueOf(e)));
+    }
+    text.append("],\n");
+    text.append("""
+          "Cmd": ["/bin/sh", "-c", "while true; do sleep 1; done"],
+          "Image": "quay.io/prometheus/busybox:latest",
+          "Volumes": null,
+          "WorkingDir": "/",
+          "Entrypoint": [],
+          "Labels": {
+            "com.io7m.tavella.index": "%d",
+            "com.example.quoted": "a \\"quoted\\" value",
+            "com.example.unicode": "caf\\u00e9"
+          },
+          "Annotations": {
+            "io.container.manager": "libpod",
+            "org.opencontainers.image.stopSignal": "15"
+          },
+          "StopSignal": 15,
+          "CreateCommand": ["podman", "run", "--detach", "quay.io/prometheus/busybox:latest"],
+          "Umask": "0022",
+          "Timeout": 0,
+          "StopTimeout": 10,
+          "Passwd": true
+        },
+      """.formatted(Integer.valueOf(index)));
+
+    text.append("""
+        "NetworkSettings": {
+          "EndpointID": "",
+          "Gateway": "",
+          "IPAddress": "",
+          "IPPrefixLen": 0,
+          "MacAddress": "",
+          "Bridge": "",
+          "SandboxID": "",
+          "HairpinMode": false,
+          "LinkLocalIPv6Address": "",
+          "Ports": {
+            "8080/tcp": [{"HostIp": "", "HostPort": "%d"}]
+          },
+          "SandboxKey": "/run/user/1000/netns/netns-%s"
+        },
+        "HostConfig": {
+          "Binds": [],
+          "CgroupManager": "systemd",
+          "CgroupMode": "private",
+          "ContainerIDFile": "",
+          "LogConfig": {"Type": "journald", "Config": null, "Path": "", "Tag": "", "Size": "0B"},
+          "NetworkMode": "pasta",
+          "PortBindings": {"8080/tcp": [{"HostIp": "", "HostPort": "%d"}]},
+          "RestartPolicy": {"Name": "no", "MaximumRetryCount": 0},
+          "AutoRemove": false,
+          "CapAdd": [],
+          "CapDrop": ["CAP_AUDIT_WRITE", "CAP_MKNOD", "CAP_NET_RAW"],
+          "Dns": [],
+          "Memory": 0,
+          "NanoCpus": 0,
+          "PidsLimit": 2048,
+          "Ulimits": [{"Name": "RLIMIT_NOFILE", "Soft": 524288, "Hard": 524288}],
+          "CpuShares": 0
+        }
+      }""".formatted(
+      Integer.valueOf(20000 + index),
+      id,
+      Integer.valueOf(20000 + index)
+    ));
+  }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanLogLine;
+import com.io7m.tavella.api.PodmanLogStream;
+import com.io7m.tavella.native_exec.PodmanLogCursor;
+import com.io7m.tavella.native_exec.PodmanNative;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class PodmanLogsTest
+{
+  /*
+   * A fake "podman logs" that prints the lines of log.txt, honouring
+   * --since by string comparison of timestamps, and records each
+   * invocation. Lines whose text starts with "!" are written to the
+   * error stream.
+   */
+
+  private static final String FAKE_LOGS = """
+    dir="$(dirname "$0")"
+    echo "$@" >> "$dir/invocations.txt"
+    since=""
+    while [ $# -gt 0 ]; do
+      case "$1" in
+        --since) since="$2"; shift ;;
+      esac
+      shift
+    done
+    while IFS= read -r line; do
+      ts="${line%% *}"
+      if [ -z "$since" ] || expr "$ts" \\>= "$since" > /dev/null; then
+        case "$line" in
+          *" !"*) printf '%s\\n' "$line" >&2 ;;
+          *) printf '%s\\n' "$line" ;;
+        esac
+      fi
+    done < "$dir/log.txt"
+    """;
+
+  private static List<String> texts(
+    final List<PodmanLogLine> lines)
+  {
+    return lines.stream().map(PodmanLogLine::text).toList();
+  }
+
+  @Test
+  public void testArguments()
+  {
+    final var exec =
+      new PodmanNative()
+        .createExecutable(
+          PodmanExecutableConfiguration.builder()
+            .setPodmanExecutable("/usr/bin/podman")
+            .build()
+        );
+
+    assertEquals(
+      List.of(
+        "/usr/bin/podman", "logs", "--follow", "--timestamps",
+        "--since", "2024-03-01T10:00:00.5Z",
+        "--until", "2024-03-01T11:00:00Z",
+        "--tail", "10",
+        "c0"
+      ),
+      exec.logs()
+        .setContainer("c0")
+        .setFollow(true)
+        .setTimestamps(true)
+        .setSince(OffsetDateTime.parse("2024-03-01T10:00:00.5Z"))
+        .setUntil(OffsetDateTime.parse("2024-03-01T11:00:00Z"))
+        .setTail(10L)
+        .build()
+        .command()
+    );
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testTruncation(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, """
+          printf 'short\\n'
+          head -c 100000 /dev/zero | tr '\\0' 'x'
+          printf '\\nend'
+          """));
+
+    final var lines =
+      exec.logs()
+        .setContainer("c0")
+        .setMaximumLineLength(16)
+        .executeQuery();
+
+    assertEquals(List.of("short", "x".repeat(16), "end"), texts(lines));
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testCursor(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var log = directory.resolve("log.txt");
+    Files.writeString(log, """
+      2024-03-01T10:00:01.5Z a
+      2024-03-01T10:00:02.5Z b
+      2024-03-01T10:00:02.5Z c
+      """);
+
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, FAKE_LOGS));
+    final var cursor =
+      PodmanLogCursor.create(exec, "c0");
+
+    assertEquals(List.of("a", "b", "c"), texts(cursor.poll()));
+    assertEquals(List.of(), texts(cursor.poll()));
+
+    Files.writeString(log, """
+      2024-03-01T10:00:02.5Z d
+      2024-03-01T10:00:03.5Z e
+      """, StandardOpenOption.APPEND);
+
+    assertEquals(List.of("d", "e"), texts(cursor.poll()));
+    assertEquals(
+      OffsetDateTime.parse("2024-03-01T10:00:03.5Z"),
+      cursor.position().orElseThrow()
+    );
+
+    final var followed = new ArrayList<PodmanLogLine>();
+    cursor.follow(followed::add);
+    assertEquals(List.of(), followed);
+
+    final var invocations =
+      Files.readAllLines(directory.resolve("invocations.txt"));
+    assertEquals("logs --timestamps c0", invocations.get(0));
+    assertEquals(
+      "logs --timestamps --since 2024-03-01T10:00:02.5Z c0",
+      invocations.get(1)
+    );
+    assertEquals(
+      "logs --follow --timestamps --since 2024-03-01T10:00:03.5Z c0",
+      invocations.get(3)
+    );
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testErrorStream(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var log = directory.resolve("log.txt");
+    Files.writeString(log, """
+      2024-03-01T10:00:01.5Z a
+      2024-03-01T10:00:02.5Z !x
+      2024-03-01T10:00:03.5Z b
+      """);
+
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, FAKE_LOGS));
+
+    final var lines =
+      exec.logs()
+        .setContainer("c0")
+        .setTimestamps(true)
+        .executeQuery();
+
+    assertEquals(List.of("a", "!x", "b"), texts(lines));
+    assertEquals(
+      List.of(
+        PodmanLogStream.OUTPUT,
+        PodmanLogStream.ERROR,
+        PodmanLogStream.OUTPUT),
+      lines.stream().map(PodmanLogLine::stream).toList()
+    );
+
+    /*
+     * An error line logged before the last output line, but delivered after
+     * it, is still returned by the next poll.
+     */
+
+    final var cursor =
+      PodmanLogCursor.create(exec, "c0");
+
+    assertEquals(List.of("!x", "a", "b"), sortedTexts(cursor.poll()));
+
+    Files.writeString(log, """
+      2024-03-01T10:00:02.7Z !y
+      2024-03-01T10:00:04.5Z c
+      """, StandardOpenOption.APPEND);
+
+    assertEquals(List.of("!y", "c"), sortedTexts(cursor.poll()));
+    assertEquals(List.of(), sortedTexts(cursor.poll()));
+    assertEquals(
+      OffsetDateTime.parse("2024-03-01T10:00:04.5Z"),
+      cursor.position().orElseThrow()
+    );
+    assertEquals(
+      OffsetDateTime.parse("2024-03-01T10:00:02.7Z"),
+      cursor.position(PodmanLogStream.ERROR).orElseThrow()
+    );
+  }
+
+  private static List<String> sortedTexts(
+    final List<PodmanLogLine> lines)
+  {
+    return texts(lines).stream()
+      .sorted(Comparator.naturalOrder())
+      .toList();
+  }
+}
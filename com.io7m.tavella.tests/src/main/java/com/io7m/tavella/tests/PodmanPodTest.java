@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanNetworkModeType;
+import com.io7m.tavella.api.PodmanPodNamespace;
+import com.io7m.tavella.native_exec.PodmanNative;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class PodmanPodTest
+{
+  private static PodmanExecutableType executable()
+  {
+    return new PodmanNative()
+      .createExecutable(
+        PodmanExecutableConfiguration.builder()
+          .setPodmanExecutable("/usr/bin/podman")
+          .build()
+      );
+  }
+
+  @Test
+  public void testCreate()
+  {
+    final var command =
+      executable()
+        .podCreate()
+        .setName("p0")
+        .addLabel("z", "1")
+        .addLabel("a", "2")
+        .setShare(EnumSet.of(PodmanPodNamespace.NET, PodmanPodNamespace.IPC))
+        .setInfra(true)
+        .setInfraImage(new PodmanImage(
+          "quay.io", "podman/pause", "latest", Optional.empty()))
+        .setNetwork(new PodmanNetworkModeType.Pasta(List.of("-T", "8080")))
+        .setCPUs(1.5)
+        .setMemoryLimit(1048576L)
+        .build()
+        .command();
+
+    assertEquals(
+      List.of(
+        "/usr/bin/podman",
+        "pod",
+        "create",
+        "--name", "p0",
+        "--label", "a=2",
+        "--label", "z=1",
+        "--share=ipc,net",
+        "--infra=true",
+        "--infra-image", "quay.io/podman/pause:latest",
+        "--network", "pasta:-T,8080",
+        "--cpus", "1.5",
+        "--memory", "1048576"
+      ),
+      command
+    );
+  }
+
+  @Test
+  public void testCreateShareNothing()
+  {
+    final var command =
+      executable()
+        .podCreate()
+        .setShare(Set.of())
+        .build()
+        .command();
+
+    assertEquals(
+      List.of("/usr/bin/podman", "pod", "create", "--share="),
+      command
+    );
+  }
+
+  @Test
+  public void testLifecycle()
+  {
+    assertEquals(
+      List.of("/usr/bin/podman", "pod", "start", "p0", "p1"),
+      executable()
+        .podStart()
+        .addPod("p0")
+        .addPod("p1")
+        .build()
+        .command()
+    );
+
+    assertEquals(
+      List.of("/usr/bin/podman", "pod", "stop", "--ignore", "--time", "3", "p0"),
+      executable()
+        .podStop()
+        .setIgnoreMissing(true)
+        .setStopTimeout(Duration.ofSeconds(3L))
+        .addPod("p0")
+        .build()
+        .command()
+    );
+
+    assertEquals(
+      List.of(
+        "/usr/bin/podman",
+        "pod",
+        "rm",
+        "--force",
+        "--ignore",
+        "--time",
+        "0",
+        "p0"),
+      executable()
+        .podRm()
+        .setForce(true)
+        .setIgnoreMissing(true)
+        .setStopTimeout(Duration.ZERO)
+        .addPod("p0")
+        .build()
+        .command()
+    );
+  }
+
+  @Test
+  public void testNoPods()
+  {
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> executable().podStart().build());
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> executable().podRm().build());
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanCommandFailedException;
+import com.io7m.tavella.api.PodmanContainerFilterType;
+import com.io7m.tavella.api.PodmanContainerSize;
+import com.io7m.tavella.api.PodmanContainerStatus;
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.native_exec.PodmanNative;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class PodmanPsTest
+{
+  @Test
+  public void testFilters()
+  {
+    final var exec =
+      new PodmanNative()
+        .createExecutable(
+          PodmanExecutableConfiguration.builder()
+            .setPodmanExecutable("/usr/bin/podman")
+            .build()
+        );
+
+    final var command =
+      exec.ps()
+        .setAll(true)
+        .addFilter(new PodmanContainerFilterType.Label("a", Optional.of("b")))
+        .addFilter(new PodmanContainerFilterType.Label("c", Optional.empty()))
+        .addFilter(new PodmanContainerFilterType.Status(PodmanContainerStatus.RUNNING))
+        .addFilter(new PodmanContainerFilterType.Name("^job-"))
+        .addFilter(new PodmanContainerFilterType.Ancestor("busybox"))
+        .addFilter(new PodmanContainerFilterType.Since("c0"))
+        .build()
+        .command();
+
+    assertEquals(
+      List.of(
+        "/usr/bin/podman", "ps", "--format", "json", "--all",
+        "--filter", "label=a=b",
+        "--filter", "label=c",
+        "--filter", "status=running",
+        "--filter", "name=^job-",
+        "--filter", "ancestor=busybox",
+        "--filter", "since=c0"
+      ),
+      command
+    );
+    assertFalse(command.contains("--size"));
+  }
+
+  /*
+   * Podman requires every label filter to match, but any one of several
+   * name filters; each filter is passed as its own argument either way.
+   */
+
+  @Test
+  public void testFiltersRepeated()
+  {
+    final var exec =
+      new PodmanNative()
+        .createExecutable(
+          PodmanExecutableConfiguration.builder()
+            .setPodmanExecutable("/usr/bin/podman")
+            .build()
+        );
+
+    final var command =
+      exec.ps()
+        .addFilter(new PodmanContainerFilterType.Label("job", Optional.of("x")))
+        .addFilter(new PodmanContainerFilterType.Label("owner", Optional.of("y")))
+        .addFilter(new PodmanContainerFilterType.Name("^a-"))
+        .addFilter(new PodmanContainerFilterType.Name("^b-"))
+        .build()
+        .command();
+
+    assertEquals(
+      List.of(
+        "/usr/bin/podman", "ps", "--format", "json",
+        "--filter", "label=job=x",
+        "--filter", "label=owner=y",
+        "--filter", "name=^a-",
+        "--filter", "name=^b-"
+      ),
+      command
+    );
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testParse(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var configuration =
+      PodmanFakeExecutables.create(directory, """
+        cat <<'END'
+        [
+          {
+            "AutoRemove": false,
+            "Command": ["sleep", "1000"],
+            "Created": 1709287530,
+            "CreatedAt": "2024-03-01 10:05:30.1 +0000 UTC",
+            "Exited": false,
+            "Id": "0123456789abcdef",
+            "Image": "quay.io/prometheus/busybox:latest",
+            "ImageID": "fedcba9876543210",
+            "Labels": {"job": "x", "n": null},
+            "Names": ["job-x"],
+            "Pod": "",
+            "Size": {"rootFsSize": 4300000, "rwSize": 12},
+            "State": "running",
+            "Status": "Up 5 minutes"
+          }
+        ]
+        END
+        """);
+
+    final var exec =
+      new PodmanNative().createExecutable(configuration);
+
+    final var summaries =
+      exec.ps()
+        .setIncludeSize(true)
+        .executeQuery();
+
+    assertEquals(1, summaries.size());
+
+    final var summary = summaries.get(0);
+    assertEquals("0123456789abcdef", summary.id());
+    assertEquals(List.of("job-x"), summary.names());
+    assertEquals("quay.io/prometheus/busybox:latest", summary.image());
+    assertEquals("fedcba9876543210", summary.imageId());
+    assertEquals("running", summary.state());
+    assertEquals(Instant.ofEpochSecond(1709287530L), summary.created());
+    assertEquals(Optional.empty(), summary.pod());
+    assertEquals(Map.of("job", "x"), summary.labels());
+    assertEquals(
+      Optional.of(new PodmanContainerSize(4300000L, 12L)),
+      summary.size()
+    );
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testFailure(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var configuration =
+      PodmanFakeExecutables.create(directory, """
+        echo 'Error: something went wrong' 1>&2
+        exit 125
+        """);
+
+    final var exec =
+      new PodmanNative().createExecutable(configuration);
+
+    final var ex =
+      assertThrows(
+        PodmanCommandFailedException.class,
+        () -> exec.ps().executeQuery()
+      );
+    assertEquals(125, ex.exitCode());
+    assertEquals(List.of("Error: something went wrong"), ex.errorLines());
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanCommandFailedException;
+import com.io7m.tavella.api.PodmanErrorKind;
+import com.io7m.tavella.api.PodmanRetryPolicy;
+import com.io7m.tavella.native_exec.PodmanNative;
+import com.io7m.tavella.native_exec.PodmanRetryExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.io7m.tavella.api.PodmanErrorKind.CONTAINER_NOT_FOUND;
+import static com.io7m.tavella.api.PodmanErrorKind.IMAGE_NOT_FOUND;
+import static com.io7m.tavella.api.PodmanErrorKind.LOCK_CONTENTION;
+import static com.io7m.tavella.api.PodmanErrorKind.NAME_CONFLICT;
+import static com.io7m.tavella.api.PodmanErrorKind.OUT_OF_MEMORY;
+import static com.io7m.tavella.api.PodmanErrorKind.REGISTRY_FAILURE;
+import static com.io7m.tavella.api.PodmanErrorKind.UNKNOWN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class PodmanRetryExecutorTest
+{
+  private static final String FLAKY = """
+    dir="$(dirname "$0")"
+    echo x >> "$dir/attempts.txt"
+    count="$(wc -l < "$dir/attempts.txt")"
+    if [ "$count" -le %d ]; then
+      echo '%s' 1>&2
+      exit 125
+    fi
+    printf '[]'
+    """;
+
+  private static PodmanRetryPolicy policy(
+    final int attempts)
+  {
+    return new PodmanRetryPolicy(
+      attempts,
+      Duration.ofMillis(1L),
+      Duration.ofMillis(10L),
+      2.0,
+      0.5,
+      Set.of(LOCK_CONTENTION, REGISTRY_FAILURE)
+    );
+  }
+
+  @Test
+  public void testClassify()
+  {
+    assertEquals(
+      LOCK_CONTENTION,
+      PodmanErrorKind.classify(List.of(
+        "Error: acquiring lock 3 for container abc: database is locked"))
+    );
+    assertEquals(
+      IMAGE_NOT_FOUND,
+      PodmanErrorKind.classify(List.of(
+        "Error: initializing source docker://quay.io/x/y:1: reading manifest 1 in quay.io/x/y: manifest unknown"))
+    );
+    assertEquals(
+      NAME_CONFLICT,
+      PodmanErrorKind.classify(List.of(
+        "Error: creating container storage: the container name \"x\" is already in use by abc."))
+    );
+    assertEquals(
+      OUT_OF_MEMORY,
+      PodmanErrorKind.classify(List.of("Error: fork/exec /usr/bin/crun: cannot allocate memory"))
+    );
+    assertEquals(
+      REGISTRY_FAILURE,
+      PodmanErrorKind.classify(List.of(
+        "Error: pinging container registry quay.io: Get \"https://quay.io/v2/\": dial tcp: i/o timeout"))
+    );
+    assertEquals(
+      CONTAINER_NOT_FOUND,
+      PodmanErrorKind.classify(List.of("Error: no such container abc"))
+    );
+    assertEquals(UNKNOWN, PodmanErrorKind.classify(List.of("Error: ???")));
+  }
+
+  @Test
+  public void testClassifyContexts()
+  {
+    assertEquals(
+      LOCK_CONTENTION,
+      PodmanErrorKind.classify(List.of(
+        "Error: locking storage: resource temporarily unavailable"))
+    );
+    assertEquals(
+      REGISTRY_FAILURE,
+      PodmanErrorKind.classify(List.of(
+        "Error: copying blob sha256:abc: Get \"https://quay.io/v2/x/y/blobs/sha256:abc\": unexpected EOF"))
+    );
+
+    /*
+     * The same operating system messages without a lock or registry
+     * context are permanent failures.
+     */
+
+    assertEquals(
+      UNKNOWN,
+      PodmanErrorKind.classify(List.of(
+        "Error: crun: fork: resource temporarily unavailable"))
+    );
+    assertEquals(
+      UNKNOWN,
+      PodmanErrorKind.classify(List.of(
+        "Error: unmounting /var/lib/containers/storage/overlay/abc/merged: device or resource busy"))
+    );
+    assertEquals(
+      UNKNOWN,
+      PodmanErrorKind.classify(List.of(
+        "Error: payload does not match any of the supported image formats:",
+        " * oci-archive: loading index: unexpected EOF"))
+    );
+    assertEquals(
+      REGISTRY_FAILURE,
+      PodmanErrorKind.classify(List.of(
+        "Error: initializing source docker://quay.io/x/y:1: Get \"https://quay.io/v2/\": dial tcp 1.2.3.4:443: connect: connection refused"))
+    );
+    assertEquals(
+      UNKNOWN,
+      PodmanErrorKind.classify(List.of(
+        "curl: (7) Failed to connect to db port 5432: Connection refused"))
+    );
+    assertEquals(
+      UNKNOWN,
+      PodmanErrorKind.classify(List.of(
+        "Error: read unix @->/run/app.sock: i/o timeout"))
+    );
+  }
+
+  @Test
+  public void testPolicyInvalid()
+  {
+    final var kinds = Set.of(REGISTRY_FAILURE);
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PodmanRetryPolicy(
+        3, Duration.ofMillis(-1L), Duration.ofSeconds(1L), 2.0, 0.5, kinds);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PodmanRetryPolicy(
+        3, Duration.ofSeconds(2L), Duration.ofSeconds(1L), 2.0, 0.5, kinds);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PodmanRetryPolicy(
+        3, Duration.ofSeconds(1L), Duration.ofSeconds(-1L), 2.0, 0.5, kinds);
+    });
+    assertEquals(
+      Duration.ZERO,
+      new PodmanRetryPolicy(3, Duration.ZERO, Duration.ZERO, 2.0, 0.5, kinds)
+        .delayBefore(2)
+    );
+  }
+
+  @Test
+  public void testDelays()
+  {
+    final var p = PodmanRetryPolicy.defaults();
+    assertEquals(Duration.ofMillis(100L), p.delayBefore(1));
+    assertEquals(Duration.ofMillis(200L), p.delayBefore(2));
+    assertEquals(Duration.ofMillis(400L), p.delayBefore(3));
+    assertEquals(Duration.ofSeconds(5L), p.delayBefore(20));
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testRetrySucceeds(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(
+          directory, FLAKY.formatted(Integer.valueOf(2), "Error: database is locked")));
+
+    final var retry = PodmanRetryExecutor.create(policy(3));
+    assertEquals(List.of(), retry.execute(() -> exec.ps().executeQuery()));
+    assertEquals(3, Files.readAllLines(directory.resolve("attempts.txt")).size());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testRetryExhausted(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(
+          directory, FLAKY.formatted(Integer.valueOf(5), "Error: database is locked")));
+
+    final var retry = PodmanRetryExecutor.create(policy(3));
+    final var ex = assertThrows(
+      PodmanCommandFailedException.class,
+      () -> retry.execute(() -> exec.ps().executeQuery())
+    );
+    assertEquals(LOCK_CONTENTION, ex.kind());
+    assertEquals(3, Files.readAllLines(directory.resolve("attempts.txt")).size());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testNotRetryable(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(
+          directory, FLAKY.formatted(Integer.valueOf(5), "Error: no such image")));
+
+    final var retry = PodmanRetryExecutor.create(policy(3));
+    final var ex = assertThrows(
+      PodmanCommandFailedException.class,
+      () -> retry.execute(() -> exec.ps().executeQuery())
+    );
+    assertEquals(IMAGE_NOT_FOUND, ex.kind());
+    assertEquals(1, Files.readAllLines(directory.resolve("attempts.txt")).size());
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanIPCModeType;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanLogDriverType;
+import com.io7m.tavella.api.PodmanNetworkModeType;
+import com.io7m.tavella.api.PodmanProcessRunBuilderType;
+import com.io7m.tavella.api.PodmanTmpFSFlag;
+import com.io7m.tavella.api.PodmanTmpFSMount;
+import com.io7m.tavella.native_exec.PodmanNative;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanRunOptionsTest
+{
+  private static final PodmanImage BUSYBOX =
+    new PodmanImage("quay.io", "prometheus/busybox", "latest", Optional.empty());
+
+  private static PodmanProcessRunBuilderType run()
+  {
+    return new PodmanNative()
+      .createExecutable(PodmanExecutableConfiguration.builder().build())
+      .run()
+      .setImage(BUSYBOX);
+  }
+
+  private static void assertContains(
+    final List<String> expected,
+    final PodmanProcessRunBuilderType run)
+  {
+    final var command = run.build().command();
+    assertTrue(
+      Collections.indexOfSubList(command, expected) > 0,
+      () -> "%s must contain %s".formatted(command, expected)
+    );
+  }
+
+  @Test
+  public void testLogDrivers()
+  {
+    assertFalse(run().build().command().contains("--log-driver"));
+
+    assertContains(
+      List.of("--log-driver", "none"),
+      run().setLogDriver(new PodmanLogDriverType.None()));
+    assertContains(
+      List.of("--log-driver", "passthrough"),
+      run().setLogDriver(new PodmanLogDriverType.Passthrough()));
+    assertContains(
+      List.of("--log-driver", "k8s-file"),
+      run().setLogDriver(
+        new PodmanLogDriverType.K8sFile(Optional.empty(), OptionalLong.empty())));
+    assertContains(
+      List.of(
+        "--log-driver", "k8s-file",
+        "--log-opt", "path=/var/log/x.log",
+        "--log-opt", "max-size=1048576"),
+      run().setLogDriver(
+        new PodmanLogDriverType.K8sFile(
+          Optional.of(Path.of("/var/log/x.log")),
+          OptionalLong.of(1048576L))));
+    assertContains(
+      List.of("--log-driver", "journald", "--log-opt", "tag=x"),
+      run().setLogDriver(new PodmanLogDriverType.Journald(Optional.of("x"))));
+  }
+
+  @Test
+  public void testPassthroughDetached()
+  {
+    final var run =
+      run()
+        .setLogDriver(new PodmanLogDriverType.Passthrough())
+        .setDetach(true);
+
+    assertThrows(IllegalArgumentException.class, run::build);
+    assertThrows(IllegalArgumentException.class, run::startOrReuse);
+  }
+
+  @Test
+  public void testNetworks()
+  {
+    assertFalse(run().build().command().contains("--network"));
+
+    assertContains(
+      List.of("--network", "host"),
+      run().setNetwork(new PodmanNetworkModeType.Host()));
+    assertContains(
+      List.of("--network", "none"),
+      run().setNetwork(new PodmanNetworkModeType.None()));
+    assertContains(
+      List.of("--network", "pasta"),
+      run().setNetwork(new PodmanNetworkModeType.Pasta(List.of())));
+    assertContains(
+      List.of("--network", "pasta:--mtu,65520"),
+      run().setNetwork(
+        new PodmanNetworkModeType.Pasta(List.of("--mtu", "65520"))));
+    assertContains(
+      List.of("--network", "slirp4netns:mtu=65520,port_handler=slirp4netns"),
+      run().setNetwork(
+        new PodmanNetworkModeType.Slirp4netns(
+          List.of("mtu=65520", "port_handler=slirp4netns"))));
+    assertContains(
+      List.of("--network", "a", "--network", "b"),
+      run().setNetwork(new PodmanNetworkModeType.Named(List.of("a", "b"))));
+    assertContains(
+      List.of("--network", "container:c0"),
+      run().setNetwork(new PodmanNetworkModeType.Container("c0")));
+
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new PodmanNetworkModeType.Named(List.of()));
+  }
+
+  @Test
+  public void testIPC()
+  {
+    assertFalse(run().build().command().contains("--ipc"));
+
+    assertContains(
+      List.of("--ipc", "host"),
+      run().setIPC(new PodmanIPCModeType.Host()));
+    assertContains(
+      List.of("--ipc", "shareable", "--shm-size", "268435456"),
+      run()
+        .setIPC(new PodmanIPCModeType.Shareable())
+        .setShmSize(268435456L));
+    assertContains(
+      List.of("--ipc", "private"),
+      run().setIPC(new PodmanIPCModeType.Private()));
+    assertContains(
+      List.of("--ipc", "none"),
+      run().setIPC(new PodmanIPCModeType.None()));
+    assertContains(
+      List.of("--ipc", "container:c0"),
+      run().setIPC(new PodmanIPCModeType.Container("c0")));
+
+    assertThrows(IllegalArgumentException.class, () -> run().setShmSize(0L));
+  }
+
+  @Test
+  public void testTmpFS()
+  {
+    assertContains(
+      List.of("--tmpfs", "/tmp"),
+      run().addTmpFS(
+        new PodmanTmpFSMount("/tmp", Optional.empty(), Set.of())));
+    assertContains(
+      List.of("--tmpfs", "/dev/shm:nodev,size=1048576,mode=1777"),
+      run().addTmpFS(
+        new PodmanTmpFSMount(
+          "/dev/shm",
+          Optional.of(BigInteger.valueOf(1048576L)),
+          Set.of(PodmanTmpFSFlag.NO_DEVICES),
+          OptionalInt.of(01777))));
+
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new PodmanTmpFSMount(
+        "/tmp", Optional.empty(), Set.of(), OptionalInt.of(010000)));
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanLabels;
+import com.io7m.tavella.api.PodmanProcessRunBuilderType;
+import com.io7m.tavella.native_exec.PodmanNative;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanRunReuseTest
+{
+  private static final PodmanImage BUSYBOX =
+    new PodmanImage("quay.io", "prometheus/busybox", "latest", Optional.empty());
+
+  private static PodmanProcessRunBuilderType runOf(
+    final PodmanExecutableType exec)
+  {
+    return exec.run()
+      .setImage(BUSYBOX)
+      .addEnvironmentVariable("A", "B")
+      .addLabel("job", "x")
+      .addArgument("sleep")
+      .addArgument("1000");
+  }
+
+  @Test
+  public void testSpecHash()
+  {
+    final var exec =
+      new PodmanNative()
+        .createExecutable(PodmanExecutableConfiguration.builder().build());
+
+    assertEquals(runOf(exec).specHash(), runOf(exec).specHash());
+    assertEquals(
+      runOf(exec).specHash(),
+      runOf(exec).setDetach(true).specHash()
+    );
+    assertNotEquals(
+      runOf(exec).specHash(),
+      runOf(exec).addEnvironmentVariable("C", "D").specHash()
+    );
+    assertNotEquals(
+      runOf(exec).specHash(),
+      runOf(exec).addArgument("x").specHash()
+    );
+  }
+
+  @Test
+  public void testLabels()
+  {
+    final var exec =
+      new PodmanNative()
+        .createExecutable(PodmanExecutableConfiguration.builder().build());
+
+    final var command =
+      runOf(exec).build().command();
+
+    final var index = command.indexOf("--label");
+    assertTrue(index > 0);
+    assertEquals("job=x", command.get(index + 1));
+    assertFalse(command.contains("--detach"));
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testStartOrReuse(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var configuration =
+      PodmanFakeExecutables.create(directory, """
+        dir="$(dirname "$0")"
+        case "$1" in
+          ps)
+            echo "$@" >> "$dir/ps.txt"
+            if [ -f "$dir/started" ]; then
+              printf '[{"Id":"%s","Names":["x"],"Image":"i","State":"running","Created":0}]' "$(cat "$dir/started")"
+            else
+              printf '[]'
+            fi
+            ;;
+          run)
+            echo "$@" >> "$dir/runs.txt"
+            echo cafe0123 > "$dir/started"
+            echo cafe0123
+            ;;
+        esac
+        """);
+
+    final var exec =
+      new PodmanNative().createExecutable(configuration);
+    final var hash =
+      runOf(exec).specHash();
+
+    final var first = runOf(exec).startOrReuse();
+    assertEquals("cafe0123", first.containerId());
+    assertFalse(first.reused());
+
+    final var second = runOf(exec).startOrReuse();
+    assertEquals("cafe0123", second.containerId());
+    assertTrue(second.reused());
+
+    final var runs = Files.readAllLines(directory.resolve("runs.txt"));
+    assertEquals(1, runs.size());
+    assertTrue(runs.get(0).contains("--detach"));
+    assertTrue(runs.get(0).contains(
+      "--label %s=%s".formatted(PodmanLabels.SPEC_HASH, hash)));
+
+    final var ps = Files.readAllLines(directory.resolve("ps.txt"));
+    assertEquals(2, ps.size());
+    assertTrue(ps.get(0).contains(
+      "--filter label=%s=%s".formatted(PodmanLabels.SPEC_HASH, hash)));
+    assertTrue(ps.get(0).contains("--filter status=running"));
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanLabels;
+import com.io7m.tavella.api.PodmanRunPhase;
+import com.io7m.tavella.api.PodmanRunTiming;
+import com.io7m.tavella.native_exec.PodmanNative;
+import com.io7m.tavella.native_exec.PodmanRunTimingHistograms;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanRunTimingTest
+{
+  /*
+   * A fake podman where "run" emits container events into a file (one of
+   * them belonging to some other run), and "events" prints that file. The
+   * initial sleep stands in for podman's own startup time.
+   */
+
+  private static final String FAKE_RUN = """
+    dir="$(dirname "$0")"
+    case "$1" in
+      run)
+        sleep 0.1
+        run=""
+        for a in "$@"; do
+          case "$a" in
+            %1$s=*) run="${a#*=}" ;;
+          esac
+        done
+        for s in create init start died; do
+          t="$(date +%%s%%N)"
+          printf '{"ID":"c0","Name":"n","Status":"%%s","Type":"container","timeNano":%%s,"Attributes":{"%1$s":"%%s"}}\\n' "$s" "$t" "$run" >> "$dir/events.txt"
+        done
+        printf '{"ID":"c1","Name":"m","Status":"create","Type":"container","Time":"2000-01-01T00:00:00Z","Attributes":{"%1$s":"other"}}\\n' >> "$dir/events.txt"
+        ;;
+      events)
+        echo "$@" > "$dir/events-args.txt"
+        cat "$dir/events.txt"
+        ;;
+    esac
+    """.formatted(PodmanLabels.RUN_ID);
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testTiming(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, FAKE_RUN));
+
+    final var before = Instant.now();
+    final var run =
+      exec.run()
+        .setImage(new PodmanImage("quay.io", "busybox", "latest", Optional.empty()))
+        .startTimed();
+
+    final var timing = run.awaitTiming();
+    assertEquals(run.runId(), timing.runId());
+    assertEquals("c0", timing.containerId().orElseThrow());
+
+    for (final var phase : PodmanRunPhase.values()) {
+      final var duration = timing.duration(phase).orElseThrow();
+      assertTrue(!duration.isNegative(), phase.tag());
+    }
+    assertTrue(!timing.spawnRequested().isBefore(before));
+
+    final var args =
+      Files.readString(directory.resolve("events-args.txt"));
+    assertTrue(args.startsWith("events --stream=false --format json --since "));
+    assertTrue(args.contains(
+      "--filter label=%s=%s".formatted(PodmanLabels.RUN_ID, run.runId())));
+
+    final var histograms = PodmanRunTimingHistograms.create();
+    histograms.record(timing);
+    histograms.record(timing);
+    for (final var phase : PodmanRunPhase.values()) {
+      assertEquals(2L, histograms.count(phase));
+    }
+  }
+
+  @Test
+  public void testHistogramQuantiles()
+  {
+    final var histograms = PodmanRunTimingHistograms.create();
+    assertTrue(histograms.quantile(PodmanRunPhase.INIT, 0.5).isEmpty());
+
+    final var base = Instant.parse("2024-01-01T00:00:00Z");
+    for (int index = 1; index <= 100; ++index) {
+      final var created = base.plusMillis(index);
+      histograms.record(new PodmanRunTiming(
+        "r",
+        Optional.empty(),
+        base,
+        base,
+        Optional.of(base),
+        Optional.of(created),
+        Optional.empty(),
+        Optional.empty(),
+        created
+      ));
+    }
+
+    assertEquals(100L, histograms.count(PodmanRunPhase.INIT));
+    assertEquals(0L, histograms.count(PodmanRunPhase.START));
+    assertEquals(
+      Duration.ofNanos(65_536_000L),
+      histograms.quantile(PodmanRunPhase.INIT, 0.5).orElseThrow()
+    );
+    assertEquals(
+      Duration.ofNanos(131_072_000L),
+      histograms.quantile(PodmanRunPhase.INIT, 1.0).orElseThrow()
+    );
+    assertEquals(
+      Duration.ofMillis(50L).plusNanos(500_000L),
+      histograms.mean(PodmanRunPhase.INIT).orElseThrow()
+    );
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanContainerFilterType;
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanExecutableType;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanLabels;
+import com.io7m.tavella.native_exec.PodmanNative;
+import com.io7m.tavella.native_exec.PodmanSessionReaper;
+import com.io7m.tavella.native_exec.internal.PNWatchdog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanSessionReaperTest
+{
+  /*
+   * A fake podman that records its arguments, answers "ps" with the
+   * contents of ps.json, and answers "rm" with the names of the given
+   * containers (all of which start with "c-").
+   */
+
+  private static final String FAKE_PODMAN = """
+    dir="$(dirname "$0")"
+    echo "$@" >> "$dir/invocations.txt"
+    case "$1" in
+      ps)
+        cat "$dir/ps.json"
+        ;;
+      rm)
+        for arg in "$@"; do
+          case "$arg" in
+            c-*) echo "$arg" ;;
+          esac
+        done
+        ;;
+    esac
+    """;
+
+  private Path directory;
+  private Path invocations;
+  private PodmanExecutableType executable;
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path inDirectory)
+    throws Exception
+  {
+    this.directory =
+      inDirectory;
+    this.invocations =
+      inDirectory.resolve("invocations.txt");
+    this.executable =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(inDirectory, FAKE_PODMAN));
+
+    Files.writeString(inDirectory.resolve("ps.json"), "[]");
+  }
+
+  @Test
+  public void testRmArguments()
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanExecutableConfiguration.builder()
+          .setPodmanExecutable("/usr/bin/podman")
+          .build());
+
+    assertEquals(
+      List.of(
+        "/usr/bin/podman", "rm",
+        "--force",
+        "--ignore",
+        "--time", "0",
+        "--filter", "label=a=b",
+        "c0", "c1"),
+      exec.rm()
+        .setForce(true)
+        .setIgnoreMissing(true)
+        .setStopTimeout(Duration.ZERO)
+        .addFilter(new PodmanContainerFilterType.Label("a", Optional.of("b")))
+        .addContainer("c0")
+        .addContainer("c1")
+        .build()
+        .command()
+    );
+
+    assertEquals(
+      List.of("/usr/bin/podman", "rm", "c0"),
+      exec.rm()
+        .addContainer("c0")
+        .build()
+        .command()
+    );
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      exec.rm().setForce(true).build();
+    });
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testRegisterTrackClose()
+    throws Exception
+  {
+    final var reaper = PodmanSessionReaper.create(this.executable);
+    final var session = reaper.sessionId();
+
+    final var command =
+      reaper.register(this.executable.run())
+        .setImage(PodmanImage.parse("busybox"))
+        .build()
+        .command();
+
+    assertTrue(command.contains("%s=%s".formatted(PodmanLabels.SESSION, session)));
+    assertTrue(command.contains(
+      "%s=%d".formatted(PodmanLabels.SESSION_PID, Long.valueOf(ProcessHandle.current().pid()))));
+    assertTrue(command.stream().anyMatch(s -> s.startsWith(PodmanLabels.SESSION_START + "=")));
+    assertTrue(command.stream().anyMatch(s -> s.startsWith(PodmanLabels.SESSION_HOST + "=")));
+
+    reaper.track("c-0");
+    reaper.track("c-1");
+    reaper.close();
+    reaper.close();
+
+    final var lines = Files.readAllLines(this.invocations);
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(0).startsWith("rm --force --ignore --time 0 "));
+    assertTrue(lines.get(0).contains("c-0"));
+    assertTrue(lines.get(0).contains("c-1"));
+    assertEquals(
+      "rm --force --ignore --time 0 --filter label=%s=%s"
+        .formatted(PodmanLabels.SESSION, session),
+      lines.get(1));
+
+    assertThrows(IllegalStateException.class, () -> reaper.track("c-2"));
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testCollectDeadSessions()
+    throws Exception
+  {
+    final var exited = new ProcessBuilder("true").start();
+    exited.waitFor();
+
+    final var self = ProcessHandle.current();
+    final var selfStart =
+      self.info().startInstant().orElseThrow().toString();
+    final var host =
+      InetAddress.getLocalHost().getHostName();
+
+    try (var reaper = PodmanSessionReaper.create(this.executable)) {
+      Files.writeString(
+        this.directory.resolve("ps.json"),
+        "[%s]".formatted(String.join(",", List.of(
+          summary("c-own", reaper.sessionId(), 1L, "", host),
+          summary("c-remote", "s1", exited.pid(), "", "elsewhere.example.com"),
+          summary("c-exited", "s2", exited.pid(), "", host),
+          summary("c-reused", "s3", self.pid(), Instant.EPOCH.toString(), host),
+          summary("c-alive", "s4", self.pid(), selfStart, host)
+        ))));
+
+      assertEquals(List.of("c-exited", "c-reused"), reaper.collectDeadSessions());
+
+      final var lines = Files.readAllLines(this.invocations);
+      assertEquals(
+        "ps --format json --all --filter label=%s".formatted(PodmanLabels.SESSION),
+        lines.get(0));
+      assertEquals(
+        "rm --force --ignore --time 0 c-exited c-reused",
+        lines.get(1));
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testCreateAndCollect()
+    throws Exception
+  {
+    final var exited = new ProcessBuilder("true").start();
+    exited.waitFor();
+
+    final var host =
+      InetAddress.getLocalHost().getHostName();
+
+    Files.writeString(
+      this.directory.resolve("ps.json"),
+      "[%s]".formatted(summary("c-exited", "s0", exited.pid(), "", host)));
+
+    try (var reaper = PodmanSessionReaper.createAndCollect(this.executable)) {
+      final var lines = Files.readAllLines(this.invocations);
+      assertEquals(2, lines.size());
+      assertEquals(
+        "ps --format json --all --filter label=%s".formatted(PodmanLabels.SESSION),
+        lines.get(0));
+      assertEquals(
+        "rm --force --ignore --time 0 c-exited",
+        lines.get(1));
+    }
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testWatchdogRunsOnInputClosed()
+    throws Exception
+  {
+    final var command =
+      this.executable.rm()
+        .setForce(true)
+        .addContainer("c-0")
+        .build()
+        .command();
+
+    final var watchdog = PNWatchdog.start(command);
+    Thread.sleep(100L);
+    assertTrue(watchdog.isAlive());
+    assertTrue(Files.notExists(this.invocations));
+
+    watchdog.getOutputStream().close();
+    assertEquals(0, watchdog.waitFor());
+    assertEquals(List.of("rm --force c-0"), Files.readAllLines(this.invocations));
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testWatchdogCancelledOnClose()
+    throws Exception
+  {
+    final var reaper = PodmanSessionReaper.create(this.executable);
+    reaper.startWatchdog();
+    reaper.close();
+
+    Thread.sleep(250L);
+
+    final var session = reaper.sessionId();
+    assertEquals(
+      List.of("rm --force --ignore --time 0 --filter label=%s=%s"
+                .formatted(PodmanLabels.SESSION, session)),
+      Files.readAllLines(this.invocations));
+  }
+
+  private static String summary(
+    final String id,
+    final String session,
+    final long pid,
+    final String start,
+    final String host)
+  {
+    return """
+      {"Id": "%s", "Names": ["%s"], "Image": "busybox", "ImageID": "0",
+       "State": "exited", "Created": 0,
+       "Labels": {"%s": "%s", "%s": "%d", "%s": "%s", "%s": "%s"}}
+      """.formatted(
+      id,
+      id,
+      PodmanLabels.SESSION, session,
+      PodmanLabels.SESSION_PID, Long.valueOf(pid),
+      PodmanLabels.SESSION_START, start,
+      PodmanLabels.SESSION_HOST, host
+    );
+  }
+}
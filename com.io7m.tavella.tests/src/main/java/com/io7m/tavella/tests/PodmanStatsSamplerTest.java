@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanContainerStats;
+import com.io7m.tavella.native_exec.PodmanNative;
+import com.io7m.tavella.native_exec.PodmanStatsSampler;
+import com.io7m.tavella.native_exec.internal.PNCgroupFiles;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanStatsSamplerTest
+{
+  /*
+   * Container "c0" has a readable cgroup, container "c1" does not, and
+   * container "c2" does not exist.
+   */
+
+  private static final String FAKE_PODMAN = """
+    dir="$(dirname "$0")"
+    case "$1" in
+      inspect)
+        for c in "$@"; do :; done
+        case "$c" in
+          c0) echo '[{"Id":"c0ffff","Name":"c0","State":{"CgroupPath":"/machine.slice/libpod-c0.scope"}}]' ;;
+          c1) echo '[{"Id":"c1ffff","Name":"c1","State":{"CgroupPath":""}}]' ;;
+          *) echo '[]' ;;
+        esac
+        ;;
+      stats)
+        echo "$@" >> "$dir/stats.txt"
+        echo '{"ContainerID":"c1ffff","CPUNano":5000000,"MemUsage":4096,"BlockInput":10,"BlockOutput":20,"PIDs":3}'
+        ;;
+    esac
+    """;
+
+  private static byte[] bytes(
+    final String text)
+  {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  @Test
+  public void testParsers()
+  {
+    final var cpu = bytes("""
+      usage_usec 123456
+      user_usec 100000
+      system_usec 23456
+      """);
+    assertEquals(
+      123456L,
+      PNCgroupFiles.parseFlatKeyed(cpu, cpu.length, bytes("usage_usec")));
+    assertEquals(
+      23456L,
+      PNCgroupFiles.parseFlatKeyed(cpu, cpu.length, bytes("system_usec")));
+    assertEquals(
+      -1L,
+      PNCgroupFiles.parseFlatKeyed(cpu, cpu.length, bytes("usage")));
+
+    final var io = bytes("""
+      8:0 rbytes=100 wbytes=200 rios=1 wios=2 dbytes=0 dios=0
+      8:16 rbytes=1000 wbytes=2000 rios=1 wios=2 dbytes=0 dios=0
+      """);
+    assertEquals(
+      1100L,
+      PNCgroupFiles.sumNestedKeyed(io, io.length, bytes("rbytes=")));
+    assertEquals(
+      2200L,
+      PNCgroupFiles.sumNestedKeyed(io, io.length, bytes("wbytes=")));
+
+    final var single = bytes("8192\n");
+    assertEquals(8192L, PNCgroupFiles.parseSingle(single, single.length));
+    assertEquals(-1L, PNCgroupFiles.parseSingle(bytes("max\n"), 4));
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testSample(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var bin = Files.createDirectories(directory.resolve("bin"));
+    final var cgroups = directory.resolve("cgroup");
+    final var c0 = Files.createDirectories(
+      cgroups.resolve("machine.slice/libpod-c0.scope"));
+
+    Files.writeString(c0.resolve("cpu.stat"), "usage_usec 42\nuser_usec 40\n");
+    Files.writeString(c0.resolve("memory.current"), "65536\n");
+    Files.writeString(c0.resolve("io.stat"), "8:0 rbytes=7 wbytes=9 rios=1\n");
+    Files.writeString(c0.resolve("pids.current"), "2\n");
+
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(bin, FAKE_PODMAN));
+
+    try (var sampler =
+           PodmanStatsSampler.create(exec, Duration.ofSeconds(1L), cgroups)) {
+      final var slot0 = sampler.add("c0");
+      final var slot1 = sampler.add("c1");
+      assertEquals(slot0, sampler.add("c0"));
+      assertThrows(Exception.class, () -> sampler.add("c2"));
+
+      assertTrue(sampler.isDirect(slot0));
+      assertFalse(sampler.isDirect(slot1));
+
+      sampler.sample();
+
+      assertEquals(
+        new PodmanContainerStats("c0ffff", 42L, 65536L, 7L, 9L, 2L),
+        sampler.stats(slot0));
+      assertEquals(
+        new PodmanContainerStats("c1ffff", 5000L, 4096L, 10L, 20L, 3L),
+        sampler.stats(slot1));
+
+      Files.writeString(c0.resolve("cpu.stat"), "usage_usec 84\n");
+      sampler.sample();
+      assertEquals(84L, sampler.stats(slot0).cpuMicros());
+
+      assertEquals(
+        2,
+        Files.readAllLines(bin.resolve("stats.txt")).size());
+      assertEquals(
+        "stats --no-stream --format {{json .ContainerStats}} c1ffff",
+        Files.readAllLines(bin.resolve("stats.txt")).get(0));
+
+      sampler.remove("c0ffff");
+      assertEquals(1, sampler.size());
+      assertEquals(0, sampler.slotOf("c1ffff"));
+      assertEquals(-1, sampler.slotOf("c0ffff"));
+
+      sampler.sample();
+      assertEquals(
+        new PodmanContainerStats("c1ffff", 5000L, 4096L, 10L, 20L, 3L),
+        sampler.stats(0));
+    }
+  }
+}
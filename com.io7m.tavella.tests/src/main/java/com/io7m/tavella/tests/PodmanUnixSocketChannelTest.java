@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.api.PodmanVolumeFlag;
+import com.io7m.tavella.api.PodmanVolumeMountSourceType;
+import com.io7m.tavella.native_exec.PodmanNative;
+import com.io7m.tavella.native_exec.PodmanUnixSocketChannel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanUnixSocketChannelTest
+{
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testTransfer()
+    throws Exception
+  {
+    final var data = new byte[1024 * 1024];
+    for (int index = 0; index < data.length; index += 1) {
+      data[index] = (byte) index;
+    }
+
+    final var channel = PodmanUnixSocketChannel.create("/run/results");
+    final var directory = channel.hostSocketPath().getParent();
+
+    try (channel) {
+      final var writer = CompletableFuture.runAsync(() -> {
+        try (var client = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+          client.connect(UnixDomainSocketAddress.of(channel.hostSocketPath()));
+          final var buffer = ByteBuffer.wrap(data);
+          while (buffer.hasRemaining()) {
+            client.write(buffer);
+          }
+        } catch (final Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+
+      final var received = ByteBuffer.allocate(data.length);
+      try (var connection = channel.accept()) {
+        while (received.hasRemaining()) {
+          if (connection.read(received) < 0) {
+            break;
+          }
+        }
+      }
+      writer.get();
+      assertArrayEquals(data, received.array());
+    }
+
+    assertFalse(Files.exists(directory));
+  }
+
+  @Test
+  public void testMount()
+    throws Exception
+  {
+    try (var channel = PodmanUnixSocketChannel.create("/run/results")) {
+      assertEquals(
+        "/run/results/tavella.sock",
+        channel.containerSocketPath());
+
+      final var mount = channel.volumeMount();
+      assertEquals("/run/results", mount.containerPath());
+      assertEquals(
+        new PodmanVolumeMountSourceType.HostPath(
+          channel.hostSocketPath().getParent()),
+        mount.source());
+      assertEquals(
+        Set.of(
+          PodmanVolumeFlag.READ_WRITE,
+          PodmanVolumeFlag.SELINUX_LABEL_PRIVATE),
+        mount.options());
+      assertEquals(
+        Set.of(
+          PodmanVolumeFlag.READ_WRITE,
+          PodmanVolumeFlag.SELINUX_LABEL_SHARED),
+        channel.volumeMount(Set.of(PodmanVolumeFlag.SELINUX_LABEL_SHARED))
+          .options());
+
+      final var command =
+        channel.register(
+          new PodmanNative()
+            .createExecutable(PodmanExecutableConfiguration.builder().build())
+            .run()
+            .setImage(new PodmanImage(
+              "quay.io", "prometheus/busybox", "latest", Optional.empty())),
+          "RESULTS"
+        ).build().command();
+
+      assertTrue(
+        Collections.indexOfSubList(
+          command,
+          List.of("--env", "RESULTS=/run/results/tavella.sock")) > 0,
+        command::toString
+      );
+      final var volume =
+        command.get(command.indexOf("--volume") + 1);
+      final var prefix =
+        "%s:/run/results:".formatted(channel.hostSocketPath().getParent());
+      assertTrue(volume.startsWith(prefix), volume);
+      assertEquals(
+        Set.of("rw", "Z"),
+        Set.of(volume.substring(prefix.length()).split(","))
+      );
+    }
+  }
+}
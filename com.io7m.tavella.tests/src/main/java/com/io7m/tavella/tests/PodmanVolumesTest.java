@@ -0,0 +1,334 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanLabels;
+import com.io7m.tavella.api.PodmanVolumeFlag;
+import com.io7m.tavella.api.PodmanVolumeMountSourceType;
+import com.io7m.tavella.native_exec.PodmanNative;
+import com.io7m.tavella.native_exec.PodmanVolumes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanVolumesTest
+{
+  /*
+   * A fake podman that implements named volumes as the directories
+   * vol/<name>, with the single label of each volume stored in
+   * vol/<name>.label. Imports are counted in imports.txt.
+   */
+
+  private static final String FAKE_PODMAN = """
+    dir="$(dirname "$0")"
+    shift
+    cmd="$1"
+    shift
+    case "$cmd" in
+      create)
+        label=""
+        while [ $# -gt 1 ]; do
+          case "$1" in
+            --label) label="$2"; shift 2 ;;
+            *) shift ;;
+          esac
+        done
+        mkdir -p "$dir/vol/$1" || exit 1
+        printf '%s' "$label" > "$dir/vol/$1.label"
+        echo "$1"
+        ;;
+      inspect)
+        name="$3"
+        if [ ! -d "$dir/vol/$name" ]; then
+          echo "Error: no such volume $name" 1>&2
+          echo "[]"
+          exit 125
+        fi
+        label="$(cat "$dir/vol/$name.label")"
+        key="${label%%=*}"
+        value="${label#*=}"
+        cat <<JSON
+    [{"Name": "$name", "Driver": "local", "Mountpoint": "$dir/vol/$name",
+      "Labels": {"$key": "$value"}, "Options": {}}]
+    JSON
+        ;;
+      import)
+        [ -d "$dir/vol/$1" ] || { echo "Error: no such volume $1" 1>&2; exit 125; }
+        echo "$1" >> "$dir/imports.txt"
+        tar -x -C "$dir/vol/$1" -f -
+        ;;
+      export)
+        [ -d "$dir/vol/$1" ] || { echo "Error: no such volume $1" 1>&2; exit 125; }
+        tar -c -C "$dir/vol/$1" -f - .
+        ;;
+      rm)
+        for name in "$@"; do
+          case "$name" in
+            --*) ;;
+            *) rm -rf "$dir/vol/$name" "$dir/vol/$name.label"; echo "$name" ;;
+          esac
+        done
+        ;;
+    esac
+    """;
+
+  @Test
+  public void testVolumeArguments()
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanExecutableConfiguration.builder()
+          .setPodmanExecutable("/usr/bin/podman")
+          .build());
+
+    assertEquals(
+      List.of(
+        "/usr/bin/podman", "volume", "create",
+        "--driver", "local",
+        "--opt", "o=uid=1000",
+        "--label", "a=b",
+        "--ignore",
+        "v0"),
+      exec.volumeCreate()
+        .setName("v0")
+        .setDriver("local")
+        .addOption("o", "uid=1000")
+        .addLabel("a", "b")
+        .setIgnoreExisting(true)
+        .build()
+        .command()
+    );
+
+    assertEquals(
+      List.of("/usr/bin/podman", "volume", "rm", "--force", "v0", "v1"),
+      exec.volumeRm()
+        .addVolume("v0")
+        .addVolume("v1")
+        .setForce(true)
+        .build()
+        .command()
+    );
+
+    assertEquals(
+      List.of("/usr/bin/podman", "volume", "inspect", "--format", "json", "v0"),
+      exec.volumeInspect()
+        .addVolume("v0")
+        .build()
+        .command()
+    );
+
+    assertEquals(
+      List.of("/usr/bin/podman", "volume", "import", "v0", "-"),
+      exec.volumeImport()
+        .setVolume("v0")
+        .build()
+        .command()
+    );
+
+    final var output = Path.of("/tmp/x.tar");
+    assertEquals(
+      List.of("/usr/bin/podman", "volume", "export", "--output", output.toString(), "v0"),
+      exec.volumeExport()
+        .setVolume("v0")
+        .setOutput(output)
+        .build()
+        .command()
+    );
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      exec.volumeImport().build();
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      exec.volumeRm().build();
+    });
+
+    final var mount = PodmanVolumes.readOnlyMount("v0", "/data");
+    assertEquals(new PodmanVolumeMountSourceType.NamedVolume("v0"), mount.source());
+    assertEquals(Set.of(PodmanVolumeFlag.READ_ONLY), mount.options());
+  }
+
+  @Test
+  @Timeout(value = 20L, unit = TimeUnit.SECONDS)
+  public void testImportExportRoundTrip(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var bin = Files.createDirectories(directory.resolve("bin"));
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(bin, FAKE_PODMAN));
+    final var volumes =
+      PodmanVolumes.create(exec);
+
+    final var source = Files.createDirectories(directory.resolve("tree"));
+    PNTarWriterTest.populate(source);
+    final var expected = PNTarWriterTest.describe(source);
+
+    exec.volumeCreate().setName("v0").executeQuery();
+    volumes.importTree("v0", source);
+    assertEquals(expected, PNTarWriterTest.describe(bin.resolve("vol/v0")));
+
+    final var output = Files.createDirectories(directory.resolve("output"));
+    volumes.exportTree("v0", output);
+    assertEquals(expected, PNTarWriterTest.describe(output));
+
+    /*
+     * Archives can be streamed through channels.
+     */
+
+    final var bytes = new ByteArrayOutputStream();
+    final var size =
+      volumes.exportArchive("v0", Channels.newChannel(bytes));
+    assertEquals(bytes.size(), size);
+
+    exec.volumeCreate().setName("v1").executeQuery();
+    volumes.importArchive(
+      "v1",
+      Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(expected, PNTarWriterTest.describe(bin.resolve("vol/v1")));
+
+    assertEquals(
+      List.of(),
+      exec.volumeInspect().addVolume("nonexistent").executeQuery());
+  }
+
+  @Test
+  @Timeout(value = 20L, unit = TimeUnit.SECONDS)
+  public void testSeedFailedImport(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var bin = Files.createDirectories(directory.resolve("bin"));
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(
+          bin,
+          FAKE_PODMAN.replace("tar -x -C", "exit 1; tar -x -C")));
+    final var volumes =
+      PodmanVolumes.create(exec);
+
+    final var source = Files.createDirectories(directory.resolve("tree"));
+    PNTarWriterTest.populate(source);
+
+    /*
+     * A failed import removes the volume, and never creates the marker.
+     */
+
+    assertThrows(IOException.class, () -> {
+      volumes.seed("data", source);
+    });
+    try (var files = Files.list(bin.resolve("vol"))) {
+      assertEquals(List.of(), files.toList());
+    }
+  }
+
+  @Test
+  @Timeout(value = 20L, unit = TimeUnit.SECONDS)
+  public void testSeedReuse(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var bin = Files.createDirectories(directory.resolve("bin"));
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(bin, FAKE_PODMAN));
+    final var volumes =
+      PodmanVolumes.create(exec);
+
+    final var source = Files.createDirectories(directory.resolve("tree"));
+    PNTarWriterTest.populate(source);
+
+    final var name0 = volumes.seed("data", source);
+    assertTrue(name0.startsWith("data-"));
+    assertEquals(
+      PNTarWriterTest.describe(source),
+      PNTarWriterTest.describe(bin.resolve("vol/" + name0)));
+
+    final var inspection =
+      exec.volumeInspect().addVolume(name0).executeQuery().get(0);
+    assertTrue(inspection.labels().containsKey(PodmanLabels.VOLUME_DIGEST));
+
+    final var marker =
+      exec.volumeInspect().addVolume(name0 + ".seeded").executeQuery().get(0);
+    assertEquals(
+      inspection.labels().get(PodmanLabels.VOLUME_DIGEST),
+      marker.labels().get(PodmanLabels.VOLUME_SEEDED));
+
+    /*
+     * Seeding identical contents reuses the volume without importing.
+     */
+
+    final var name1 = volumes.seed("data", source);
+    assertEquals(name0, name1);
+    assertEquals(
+      List.of(name0),
+      Files.readAllLines(bin.resolve("imports.txt")));
+
+    /*
+     * Changed contents produce a new volume.
+     */
+
+    Files.writeString(source.resolve("changed.txt"), "changed");
+    final var name2 = volumes.seed("data", source);
+    assertNotEquals(name0, name2);
+    assertEquals(
+      List.of(name0, name2),
+      Files.readAllLines(bin.resolve("imports.txt")));
+
+    /*
+     * A volume whose import did not complete has no marker, and is
+     * imported again rather than reused.
+     */
+
+    exec.volumeRm().addVolume(name2 + ".seeded").executeQuery();
+    Files.delete(bin.resolve("vol/%s/changed.txt".formatted(name2)));
+    assertEquals(name2, volumes.seed("data", source));
+    assertEquals(
+      List.of(name0, name2, name2),
+      Files.readAllLines(bin.resolve("imports.txt")));
+    assertEquals(
+      PNTarWriterTest.describe(source),
+      PNTarWriterTest.describe(bin.resolve("vol/" + name2)));
+    assertTrue(Files.isDirectory(bin.resolve("vol/%s.seeded".formatted(name2))));
+
+    /*
+     * A volume with the expected name that was not seeded is rejected.
+     */
+
+    Files.writeString(bin.resolve("vol/%s.label".formatted(name2)), "x=y");
+    assertThrows(IOException.class, () -> {
+      volumes.seed("data", source);
+    });
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright © 2023 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.tavella.tests;
+
+import com.io7m.tavella.api.PodmanExecutableConfiguration;
+import com.io7m.tavella.api.PodmanImage;
+import com.io7m.tavella.native_exec.PodmanNative;
+import com.io7m.tavella.native_exec.PodmanWarmImages;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PodmanWarmImagesTest
+{
+  /*
+   * A fake podman that knows a base image whose ID is read from base-id.txt,
+   * and any image that has been committed.
+   */
+
+  private static final String FAKE_PODMAN = """
+    dir="$(dirname "$0")"
+    touch "$dir/committed.txt"
+    case "$1" in
+      image)
+        if [ "$5" = "docker.io/library/base:latest" ]; then
+          printf '[{"Id": "%s", "Config": {"Entrypoint": ["/init"], "Cmd": ["serve", "--port", "80"]}}]\\n' \\
+            "$(cat "$dir/base-id.txt")"
+        elif grep -qx "$5" "$dir/committed.txt"; then
+          echo '[{"Id": "0123"}]'
+        else
+          echo '[]'
+          echo "Error: $5: image not known" 1>&2
+          exit 125
+        fi
+        ;;
+      run)
+        echo "$@" >> "$dir/runs.txt"
+        case "$*" in
+          *fail*) exit 3 ;;
+        esac
+        echo "Warming..."
+        ;;
+      commit)
+        echo "$@" >> "$dir/commits.txt"
+        for last in "$@"; do :; done
+        echo "$last" >> "$dir/committed.txt"
+        echo "0123"
+        ;;
+      rm)
+        echo "$@" >> "$dir/rms.txt"
+        ;;
+    esac
+    """;
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testWarm(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    Files.writeString(directory.resolve("base-id.txt"), "a".repeat(64));
+
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, FAKE_PODMAN));
+
+    final var base =
+      PodmanImage.parse("base");
+    final var init =
+      PodmanWarmImages.Initialization.of("prefetch", "--all");
+    final var warmImages =
+      PodmanWarmImages.create(exec, Duration.ofHours(1L));
+
+    final var warm0 = warmImages.warm(base, init);
+    assertEquals("localhost", warm0.registry());
+    assertEquals("tavella-warm/library/base", warm0.imageName());
+    assertEquals(32, warm0.imageTag().length());
+
+    final var runs = Files.readAllLines(directory.resolve("runs.txt"));
+    assertEquals(1, runs.size());
+    assertTrue(runs.get(0).contains("--pull=missing"));
+    assertTrue(runs.get(0).contains("--name tavella-warm-"));
+    assertTrue(runs.get(0).endsWith("docker.io/library/base:latest prefetch --all"));
+
+    final var commits = Files.readAllLines(directory.resolve("commits.txt"));
+    assertEquals(1, commits.size());
+    assertTrue(commits.get(0).contains(
+      "--change ENTRYPOINT [\"/init\"] --change CMD [\"serve\",\"--port\",\"80\"]"));
+    assertTrue(commits.get(0).endsWith(warm0.fullImageName()));
+    assertEquals(1, Files.readAllLines(directory.resolve("rms.txt")).size());
+
+    /*
+     * The warm image is reused, both by this helper and by a new helper
+     * that finds the committed image.
+     */
+
+    assertEquals(warm0, warmImages.warm(base, init));
+    assertEquals(
+      warm0,
+      PodmanWarmImages.create(exec, Duration.ofHours(1L)).warm(base, init)
+    );
+    assertEquals(1, Files.readAllLines(directory.resolve("runs.txt")).size());
+
+    final var command =
+      warmImages.apply(exec.run(), base, init)
+        .build()
+        .command();
+    assertTrue(command.contains("--pull=never"));
+    assertTrue(command.contains(warm0.fullImageName()));
+
+    /*
+     * A different initialization, or a new base image, produces a new
+     * warm image.
+     */
+
+    final var warm1 =
+      warmImages.warm(base, PodmanWarmImages.Initialization.of("prefetch"));
+    assertNotEquals(warm0, warm1);
+
+    Files.writeString(directory.resolve("base-id.txt"), "b".repeat(64));
+    assertEquals(warm0, warmImages.warm(base, init));
+    warmImages.invalidate(base);
+
+    final var warm2 = warmImages.warm(base, init);
+    assertNotEquals(warm0, warm2);
+    assertNotEquals(warm1, warm2);
+    assertEquals(3, Files.readAllLines(directory.resolve("runs.txt")).size());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testWarmImageRemoved(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    Files.writeString(directory.resolve("base-id.txt"), "a".repeat(64));
+
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, FAKE_PODMAN));
+
+    final var base =
+      PodmanImage.parse("base");
+    final var init =
+      PodmanWarmImages.Initialization.of("prefetch");
+
+    /*
+     * A removed warm image is warmed again once the cached presence
+     * expires, or immediately after invalidation.
+     */
+
+    final var expiring =
+      PodmanWarmImages.create(exec, Duration.ZERO);
+    final var warm0 = expiring.warm(base, init);
+    Files.writeString(directory.resolve("committed.txt"), "");
+    assertEquals(warm0, expiring.warm(base, init));
+    assertEquals(2, Files.readAllLines(directory.resolve("runs.txt")).size());
+
+    final var cached =
+      PodmanWarmImages.create(exec, Duration.ofHours(1L));
+    assertEquals(warm0, cached.warm(base, init));
+    Files.writeString(directory.resolve("committed.txt"), "");
+    assertEquals(warm0, cached.warm(base, init));
+    assertEquals(2, Files.readAllLines(directory.resolve("runs.txt")).size());
+
+    cached.invalidate(base);
+    assertEquals(warm0, cached.warm(base, init));
+    assertEquals(3, Files.readAllLines(directory.resolve("runs.txt")).size());
+  }
+
+  @Test
+  @Timeout(value = 10L, unit = TimeUnit.SECONDS)
+  public void testWarmFails(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    Files.writeString(directory.resolve("base-id.txt"), "a".repeat(64));
+
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanFakeExecutables.create(directory, FAKE_PODMAN));
+
+    final var warmImages =
+      PodmanWarmImages.create(exec, Duration.ofHours(1L));
+
+    assertThrows(IOException.class, () -> {
+      warmImages.warm(
+        PodmanImage.parse("base"),
+        PodmanWarmImages.Initialization.of("fail"));
+    });
+
+    assertTrue(Files.notExists(directory.resolve("commits.txt")));
+    assertEquals(1, Files.readAllLines(directory.resolve("rms.txt")).size());
+  }
+
+  @Test
+  public void testCommitArguments()
+  {
+    final var exec =
+      new PodmanNative().createExecutable(
+        PodmanExecutableConfiguration.builder()
+          .setPodmanExecutable("/usr/bin/podman")
+          .build());
+
+    assertEquals(
+      List.of(
+        "/usr/bin/podman", "commit", "--quiet", "--pause=true",
+        "--change", "CMD [\"/bin/sh\"]", "c0", "localhost/x:1"),
+      exec.commit()
+        .setContainer("c0")
+        .setImage(PodmanImage.parse("localhost/x:1"))
+        .addChange("CMD [\"/bin/sh\"]")
+        .setPause(true)
+        .build()
+        .command()
+    );
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      exec.commit().setImage(PodmanImage.parse("x@sha256:" + "a".repeat(64)));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      exec.commit().build();
+    });
+  }
+}